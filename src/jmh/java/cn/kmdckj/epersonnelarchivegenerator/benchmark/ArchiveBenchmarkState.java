@@ -0,0 +1,104 @@
+package cn.kmdckj.epersonnelarchivegenerator.benchmark;
+
+import cn.kmdckj.epersonnelarchivegenerator.EPersonnelArchiveGeneratorApplication;
+import cn.kmdckj.epersonnelarchivegenerator.engine.LayoutEngine;
+import cn.kmdckj.epersonnelarchivegenerator.engine.LayoutOptimizer;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.EmployeeFieldExtractors;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigRegistry;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigSnapshot;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldExtractor;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.service.ArchiveRenderService;
+import cn.kmdckj.epersonnelarchivegenerator.service.HtmlPreprocessor;
+import cn.kmdckj.epersonnelarchivegenerator.service.PdfGeneratorService;
+import cn.kmdckj.epersonnelarchivegenerator.service.SyntheticEmployeeFactory;
+import cn.kmdckj.epersonnelarchivegenerator.service.ThymeleafRenderService;
+import cn.kmdckj.epersonnelarchivegenerator.util.PdfRenderBuilder;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试共享状态: 每个fork启动一次应用上下文(不启动Web容器),
+ * 按规模生成合成员工并预先算好各阶段的输入,使每个基准只测量自身阶段
+ */
+@State(Scope.Benchmark)
+public class ArchiveBenchmarkState {
+
+    @Param({"SMALL", "TYPICAL", "PATHOLOGICAL"})
+    public SyntheticEmployeeFactory.Profile profile;
+
+    ConfigurableApplicationContext context;
+
+    LayoutEngine layoutEngine;
+    LayoutOptimizer layoutOptimizer;
+    ArchiveRenderService archiveRenderService;
+    ThymeleafRenderService thymeleafRenderService;
+    HtmlPreprocessor htmlPreprocessor;
+    PdfRenderBuilder pdfRenderBuilder;
+    PdfGeneratorService pdfGeneratorService;
+
+    Employee employee;
+    LayoutModel optimizedLayout;
+    List<LayoutField> workExperienceFields;
+    String rawHtml;
+    String html;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(EPersonnelArchiveGeneratorApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("logging.level.root=WARN", "spring.main.banner-mode=off", "archive.warmup.enabled=false")
+                .run();
+
+        layoutEngine = context.getBean(LayoutEngine.class);
+        layoutOptimizer = context.getBean(LayoutOptimizer.class);
+        archiveRenderService = context.getBean(ArchiveRenderService.class);
+        thymeleafRenderService = context.getBean(ThymeleafRenderService.class);
+        htmlPreprocessor = context.getBean(HtmlPreprocessor.class);
+        pdfRenderBuilder = context.getBean(PdfRenderBuilder.class);
+        pdfGeneratorService = context.getBean(PdfGeneratorService.class);
+
+        employee = SyntheticEmployeeFactory.create(profile, "bench-" + profile.name().toLowerCase());
+        optimizedLayout = archiveRenderService.calculateOptimizedLayout(employee);
+        workExperienceFields = workExperienceFields(context.getBean(FieldConfigRegistry.class).getSnapshot(),
+                context.getBean(EmployeeFieldExtractors.class).workExperience(), employee);
+        rawHtml = thymeleafRenderService.renderArchiveHtml(optimizedLayout);
+        html = htmlPreprocessor.preprocess(rawHtml);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * 与 LayoutEngine 相同的方式把所有工作经历转换为字段列表
+     */
+    private static List<LayoutField> workExperienceFields(FieldConfigSnapshot snapshot,
+                                                          FieldExtractor<Employee.WorkExperience> extractor,
+                                                          Employee employee) {
+        List<LayoutField> fields = new ArrayList<>();
+        if (employee.getWorkExperiences() == null) {
+            return fields;
+        }
+        for (Employee.WorkExperience exp : employee.getWorkExperiences()) {
+            fields.addAll(extractor.extract(snapshot, exp));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,89 @@
+package cn.kmdckj.epersonnelarchivegenerator.benchmark;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.GreedyLayoutAlgorithm;
+import cn.kmdckj.epersonnelarchivegenerator.engine.OptimalRowPacker;
+import cn.kmdckj.epersonnelarchivegenerator.engine.ReorderingRowPacker;
+import cn.kmdckj.epersonnelarchivegenerator.engine.RowPackingStrategy;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.PaginatedLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 布局阶段基准: 布局计算(命中/未命中分区缓存)、优化分页、各行填充策略、展开为扁平布局
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class LayoutBenchmark {
+
+    private static final RowPackingStrategy OPTIMAL = new OptimalRowPacker();
+    private static final RowPackingStrategy REORDER = new ReorderingRowPacker(2);
+
+    /**
+     * optimize 会修改传入的模型(插入分页符),每次调用前重新计算一份未优化的布局
+     */
+    @State(Scope.Thread)
+    public static class UnoptimizedLayout {
+        LayoutModel model;
+
+        @Setup(Level.Invocation)
+        public void setUp(ArchiveBenchmarkState state) {
+            model = state.layoutEngine.calculateLayout(state.employee);
+        }
+    }
+
+    @Benchmark
+    public LayoutModel calculateLayout(ArchiveBenchmarkState state) {
+        return state.layoutEngine.calculateLayout(state.employee);
+    }
+
+    /**
+     * 清空分区缓存后计算,测量全部分区重新计算的开销(calculateLayout 在稳态下命中分区缓存)
+     */
+    @Benchmark
+    public LayoutModel calculateLayoutUncached(ArchiveBenchmarkState state) {
+        state.layoutEngine.clearCache();
+        return state.layoutEngine.calculateLayout(state.employee);
+    }
+
+    @Benchmark
+    public LayoutModel optimize(ArchiveBenchmarkState state, UnoptimizedLayout layout) {
+        return state.layoutOptimizer.optimize(layout.model);
+    }
+
+    @Benchmark
+    public List<LayoutRow> fillGreedy(ArchiveBenchmarkState state) {
+        return GreedyLayoutAlgorithm.fillGreedy(state.workExperienceFields);
+    }
+
+    @Benchmark
+    public List<LayoutRow> packOptimal(ArchiveBenchmarkState state) {
+        return OPTIMAL.pack(state.workExperienceFields);
+    }
+
+    @Benchmark
+    public List<LayoutRow> packReorder(ArchiveBenchmarkState state) {
+        return REORDER.pack(state.workExperienceFields);
+    }
+
+    @Benchmark
+    public PaginatedLayout flatten(ArchiveBenchmarkState state) {
+        return PaginatedLayout.of(state.optimizedLayout);
+    }
+}
@@ -0,0 +1,82 @@
+package cn.kmdckj.epersonnelarchivegenerator.benchmark;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.service.HtmlPreprocessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 渲染阶段基准: 模板(编译/解释执行)、HTML预处理、DOM转换,以及从员工数据到PDF字节的端到端渲染
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class RenderBenchmark {
+
+    @Benchmark
+    public String renderArchiveHtml(ArchiveBenchmarkState state) {
+        return state.thymeleafRenderService.renderArchiveHtml(state.optimizedLayout);
+    }
+
+    @Benchmark
+    public String renderArchiveHtmlInterpreted(ArchiveBenchmarkState state) {
+        return state.thymeleafRenderService.renderArchiveHtmlInterpreted(state.optimizedLayout);
+    }
+
+    @Benchmark
+    public Document renderArchiveDocument(ArchiveBenchmarkState state) {
+        return state.thymeleafRenderService.renderArchiveDocument(state.optimizedLayout);
+    }
+
+    @Benchmark
+    public String preprocess(ArchiveBenchmarkState state) {
+        return state.htmlPreprocessor.preprocess(state.rawHtml);
+    }
+
+    /**
+     * 模板直接写入预处理过滤器(HTML引擎字符串路径的实际做法)
+     */
+    @Benchmark
+    public String renderArchiveHtmlFiltered(ArchiveBenchmarkState state) throws IOException {
+        StringBuilder html = new StringBuilder(state.html.length());
+        try (HtmlPreprocessor.Filter filter = state.htmlPreprocessor.newFilter(html)) {
+            state.thymeleafRenderService.renderArchiveHtml(state.optimizedLayout, filter);
+        }
+        return html.toString();
+    }
+
+    @Benchmark
+    public Document domConversion(ArchiveBenchmarkState state) {
+        return state.pdfRenderBuilder.toW3cDocument(state.html);
+    }
+
+    @Benchmark
+    public long endToEndHtml(ArchiveBenchmarkState state) {
+        String html = state.archiveRenderService.renderEmployeeArchiveHtml(state.employee);
+        return state.pdfGeneratorService.writePdfFromHtml(html, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long endToEndDirectDom(ArchiveBenchmarkState state) {
+        Document document = state.archiveRenderService.renderEmployeeArchiveDocument(state.employee);
+        return state.pdfGeneratorService.writePdfFromDocument(document, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public long endToEndNative(ArchiveBenchmarkState state) {
+        LayoutModel layout = state.archiveRenderService.calculateOptimizedLayout(state.employee);
+        return state.pdfGeneratorService.writePdfFromLayout(layout, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,104 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步档案任务配置 - 任务执行线程池、结果存储目录和过期清理
+ */
+@Configuration
+@EnableScheduling
+@ConfigurationProperties(prefix = "archive.job")
+public class ArchiveJobConfig {
+
+    private int parallelism = 1;               // 同时执行的任务数(批量任务内部仍使用批量渲染线程池)
+    private int maxQueued = 100;               // 排队任务数上限,超出时拒绝提交(HTTP 429)
+    private String storeDir;                   // 任务结果目录,为空时使用 java.io.tmpdir/archive-jobs
+    private long ttlMinutes = 1440;            // 任务结束后结果保留的时间
+    private long cleanupIntervalMs = 600000;   // 过期任务清理间隔
+    private int retryAfterSeconds = 10;        // 拒绝提交时 Retry-After 响应头的秒数
+
+    /**
+     * 异步任务线程池: 固定线程数,有界队列,队列满时抛出 RejectedExecutionException
+     */
+    @Bean(name = "archiveJobExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService archiveJobExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "archive-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        int threads = Math.max(1, parallelism);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 实际使用的结果目录
+     */
+    public Path resolveStoreDir() {
+        return storeDir != null && !storeDir.isBlank()
+                ? Path.of(storeDir)
+                : Path.of(System.getProperty("java.io.tmpdir"), "archive-jobs");
+    }
+
+    // Getters and Setters
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public String getStoreDir() {
+        return storeDir;
+    }
+
+    public void setStoreDir(String storeDir) {
+        this.storeDir = storeDir;
+    }
+
+    public long getTtlMinutes() {
+        return ttlMinutes;
+    }
+
+    public void setTtlMinutes(long ttlMinutes) {
+        this.ttlMinutes = ttlMinutes;
+    }
+
+    public long getCleanupIntervalMs() {
+        return cleanupIntervalMs;
+    }
+
+    public void setCleanupIntervalMs(long cleanupIntervalMs) {
+        this.cleanupIntervalMs = cleanupIntervalMs;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
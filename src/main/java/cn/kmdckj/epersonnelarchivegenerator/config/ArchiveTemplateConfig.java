@@ -0,0 +1,75 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 档案模板配置 - 按档案类型选择模板和档案标题,并可单独设置行填充策略和分页方式
+ * 未配置的类型使用默认模板和 archive.layout 中的全局布局配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "archive.templates")
+public class ArchiveTemplateConfig {
+
+    private String defaultTemplate = "archive";  // 未配置类型使用的模板名称
+    private boolean watch = true;                 // 是否检查模板文件修改时间并自动重新加载
+    private long watchIntervalMs = 10000;         // 检查间隔
+    private Map<ArchiveType, TypeConfig> types = new EnumMap<>(ArchiveType.class);
+
+    /**
+     * 单个档案类型的模板配置
+     */
+    public static class TypeConfig {
+        private String template;                        // 模板名称(templates/ 下的文件名,不含扩展名),为空时使用默认模板
+        private String title;                           // 档案标题(显示在首页顶部),为空时不显示
+        private LayoutConfig.PackingConfig packing;      // 行填充策略,为空时使用全局配置
+        private LayoutConfig.PaginationConfig pagination; // 分页方式,为空时使用全局配置
+
+        // getters and setters
+        public String getTemplate() { return template; }
+        public void setTemplate(String template) { this.template = template; }
+        public String getTitle() { return title; }
+        public void setTitle(String title) { this.title = title; }
+        public LayoutConfig.PackingConfig getPacking() { return packing; }
+        public void setPacking(LayoutConfig.PackingConfig packing) { this.packing = packing; }
+        public LayoutConfig.PaginationConfig getPagination() { return pagination; }
+        public void setPagination(LayoutConfig.PaginationConfig pagination) { this.pagination = pagination; }
+    }
+
+    // Getters and Setters
+    public String getDefaultTemplate() {
+        return defaultTemplate;
+    }
+
+    public void setDefaultTemplate(String defaultTemplate) {
+        this.defaultTemplate = defaultTemplate;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    public long getWatchIntervalMs() {
+        return watchIntervalMs;
+    }
+
+    public void setWatchIntervalMs(long watchIntervalMs) {
+        this.watchIntervalMs = watchIntervalMs;
+    }
+
+    public Map<ArchiveType, TypeConfig> getTypes() {
+        return types;
+    }
+
+    public void setTypes(Map<ArchiveType, TypeConfig> types) {
+        this.types = types;
+    }
+}
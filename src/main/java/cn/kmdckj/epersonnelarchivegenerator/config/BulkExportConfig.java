@@ -0,0 +1,94 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量导出配置 - ZIP批量导出和档案汇编共用的渲染线程池
+ */
+@Configuration
+@ConfigurationProperties(prefix = "archive.bulk")
+public class BulkExportConfig {
+
+    private int parallelism = 0;        // 渲染线程数,0表示使用CPU核数
+    private int maxInFlight = 0;        // 同时在内存中的PDF数量上限,0表示线程数的2倍
+    private int maxBatchSize = 10000;   // 单次导出的员工数量上限
+    private int bookMainMemoryMb = 32;  // 档案汇编文档在堆内缓存的上限,超出部分写入临时文件
+    private String scratchDir;          // 临时文件目录,为空时使用 java.io.tmpdir
+
+    /**
+     * 批量渲染线程池
+     */
+    @Bean(name = "bulkRenderExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService bulkRenderExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "archive-bulk-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(resolveParallelism(), threadFactory);
+    }
+
+    /**
+     * 实际使用的渲染线程数
+     */
+    public int resolveParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 实际使用的在途任务上限(至少等于线程数,保证线程不空闲)
+     */
+    public int resolveMaxInFlight() {
+        int threads = resolveParallelism();
+        return maxInFlight > 0 ? Math.max(maxInFlight, threads) : threads * 2;
+    }
+
+    // Getters and Setters
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getBookMainMemoryMb() {
+        return bookMainMemoryMb;
+    }
+
+    public void setBookMainMemoryMb(int bookMainMemoryMb) {
+        this.bookMainMemoryMb = bookMainMemoryMb;
+    }
+
+    public String getScratchDir() {
+        return scratchDir;
+    }
+
+    public void setScratchDir(String scratchDir) {
+        this.scratchDir = scratchDir;
+    }
+}
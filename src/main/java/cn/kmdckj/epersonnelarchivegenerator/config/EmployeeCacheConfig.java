@@ -0,0 +1,50 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 员工数据缓存配置 - 档案数据和照片分开限额,照片再单独限制单张大小
+ */
+@Configuration
+@ConfigurationProperties(prefix = "archive.data.cache")
+public class EmployeeCacheConfig {
+
+    private boolean enabled = true;
+    private long maxBytes = 16L << 20;           // 档案数据(不含照片)的估算字节上限
+    private long photoMaxBytes = 32L << 20;      // 照片缓存的字节上限
+    private long photoMaxEntryBytes = 1L << 20;  // 超过此大小的照片不缓存,每次从数据库读取
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getPhotoMaxBytes() {
+        return photoMaxBytes;
+    }
+
+    public void setPhotoMaxBytes(long photoMaxBytes) {
+        this.photoMaxBytes = photoMaxBytes;
+    }
+
+    public long getPhotoMaxEntryBytes() {
+        return photoMaxEntryBytes;
+    }
+
+    public void setPhotoMaxEntryBytes(long photoMaxEntryBytes) {
+        this.photoMaxEntryBytes = photoMaxEntryBytes;
+    }
+}
@@ -0,0 +1,41 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 字段配置来源 - 字段标签、宽度和长文本规则从YAML文件加载,文件修改后自动重新加载
+ */
+@Configuration
+@ConfigurationProperties(prefix = "archive.fields")
+public class FieldDefinitionConfig {
+
+    private String location = "classpath:field-config.yml";  // 字段配置文件位置(classpath: 或 file:)
+    private boolean watch = true;                             // 是否检查文件修改时间并自动重新加载
+    private long watchIntervalMs = 10000;                     // 检查间隔
+
+    // Getters and Setters
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    public long getWatchIntervalMs() {
+        return watchIntervalMs;
+    }
+
+    public void setWatchIntervalMs(long watchIntervalMs) {
+        this.watchIntervalMs = watchIntervalMs;
+    }
+}
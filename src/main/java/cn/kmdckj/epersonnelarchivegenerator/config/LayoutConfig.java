@@ -14,6 +14,9 @@ public class LayoutConfig {
     private RowConfig row = new RowConfig();
     private FieldConfig field = new FieldConfig();
     private ZoneConfig zone = new ZoneConfig();
+    private PackingConfig packing = new PackingConfig();
+    private PaginationConfig pagination = new PaginationConfig();
+    private int zoneCacheSize = 1024;  // 分区布局缓存条目数,0表示不缓存
 
     public static class PageConfig {
         private double width = 210.0;
@@ -89,6 +92,42 @@ public class LayoutConfig {
         public void setPhotoHeight(double photoHeight) { this.photoHeight = photoHeight; }
     }
 
+    public static class PackingConfig {
+        private RowPacking strategy = RowPacking.GREEDY;
+        private int reorderWindow = 2;  // REORDER策略: 字段最多可提前的位置数
+
+        // getters and setters
+        public RowPacking getStrategy() { return strategy; }
+        public void setStrategy(RowPacking strategy) { this.strategy = strategy; }
+        public int getReorderWindow() { return reorderWindow; }
+        public void setReorderWindow(int reorderWindow) { this.reorderWindow = reorderWindow; }
+    }
+
+    /**
+     * 行填充策略
+     */
+    public enum RowPacking {
+        GREEDY,   // 按顺序贪心填充
+        OPTIMAL,  // 保持顺序,动态规划求行数最少且行宽最均匀的排法
+        REORDER   // 允许字段在同组内有限提前,填补行尾空白
+    }
+
+    public static class PaginationConfig {
+        private PaginationMode mode = PaginationMode.GREEDY;
+
+        // getters and setters
+        public PaginationMode getMode() { return mode; }
+        public void setMode(PaginationMode mode) { this.mode = mode; }
+    }
+
+    /**
+     * 分页方式
+     */
+    public enum PaginationMode {
+        GREEDY,   // 逐行放入,放不下就分页
+        OPTIMAL   // 动态规划整体求解,尽量不拆开条目、避免孤行和只有一行的末页
+    }
+
     // Main getters and setters
     public PageConfig getPage() { return page; }
     public void setPage(PageConfig page) { this.page = page; }
@@ -98,4 +137,10 @@ public class LayoutConfig {
     public void setField(FieldConfig field) { this.field = field; }
     public ZoneConfig getZone() { return zone; }
     public void setZone(ZoneConfig zone) { this.zone = zone; }
+    public PackingConfig getPacking() { return packing; }
+    public void setPacking(PackingConfig packing) { this.packing = packing; }
+    public PaginationConfig getPagination() { return pagination; }
+    public void setPagination(PaginationConfig pagination) { this.pagination = pagination; }
+    public int getZoneCacheSize() { return zoneCacheSize; }
+    public void setZoneCacheSize(int zoneCacheSize) { this.zoneCacheSize = zoneCacheSize; }
 }
@@ -15,6 +15,35 @@ public class PdfConfig {
     private int dpi = 96;                           // DPI设置
     private boolean enableSvg = false;              // 是否启用SVG支持
     private boolean enableDebug = false;            // 是否启用调试模式
+    private RenderEngine engine = RenderEngine.HTML; // 默认渲染引擎
+    private boolean directDom = true;               // HTML引擎: 模板输出直接构建W3C DOM,不经过Jsoup
+    private boolean compiledTemplate = true;        // HTML字符串渲染使用启动时编译的模板
+
+    /**
+     * PDF渲染引擎
+     */
+    public enum RenderEngine {
+        HTML,    // Thymeleaf → HTML → openhtmltopdf
+        NATIVE;  // 直接将布局模型绘制到PDFBox内容流
+
+        /**
+         * 解析请求参数中的引擎名称(不区分大小写)
+         *
+         * @param value 引擎名称,为空时返回null
+         * @return 渲染引擎
+         */
+        public static RenderEngine parse(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return null;
+            }
+            for (RenderEngine engine : values()) {
+                if (engine.name().equalsIgnoreCase(value.trim())) {
+                    return engine;
+                }
+            }
+            throw new IllegalArgumentException("不支持的渲染引擎: " + value);
+        }
+    }
 
     // Getters and Setters
     public String getFontPath() {
@@ -56,4 +85,28 @@ public class PdfConfig {
     public void setEnableDebug(boolean enableDebug) {
         this.enableDebug = enableDebug;
     }
+
+    public RenderEngine getEngine() {
+        return engine;
+    }
+
+    public void setEngine(RenderEngine engine) {
+        this.engine = engine;
+    }
+
+    public boolean isDirectDom() {
+        return directDom;
+    }
+
+    public void setDirectDom(boolean directDom) {
+        this.directDom = directDom;
+    }
+
+    public boolean isCompiledTemplate() {
+        return compiledTemplate;
+    }
+
+    public void setCompiledTemplate(boolean compiledTemplate) {
+        this.compiledTemplate = compiledTemplate;
+    }
 }
@@ -0,0 +1,41 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 照片规范化配置 - 照片按照片格尺寸和目标分辨率缩放、重新编码后嵌入档案
+ */
+@Configuration
+@ConfigurationProperties(prefix = "archive.photo")
+public class PhotoConfig {
+
+    private int dpi = 300;                   // 目标分辨率,照片像素尺寸按照片格毫米尺寸换算
+    private float jpegQuality = 0.85f;       // 重新编码为JPEG时的质量(0-1)
+    private long cacheMaxBytes = 32L << 20;  // 规范化结果缓存的字节上限
+
+    // Getters and Setters
+    public int getDpi() {
+        return dpi;
+    }
+
+    public void setDpi(int dpi) {
+        this.dpi = dpi;
+    }
+
+    public float getJpegQuality() {
+        return jpegQuality;
+    }
+
+    public void setJpegQuality(float jpegQuality) {
+        this.jpegQuality = jpegQuality;
+    }
+
+    public long getCacheMaxBytes() {
+        return cacheMaxBytes;
+    }
+
+    public void setCacheMaxBytes(long cacheMaxBytes) {
+        this.cacheMaxBytes = cacheMaxBytes;
+    }
+}
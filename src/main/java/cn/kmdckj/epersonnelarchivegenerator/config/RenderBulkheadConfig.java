@@ -0,0 +1,64 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 渲染隔离舱配置 - 限制同时进行的档案渲染数(所有调用方共用),在线请求超出部分有界排队,队列满时拒绝(HTTP 429)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "archive.render")
+public class RenderBulkheadConfig {
+
+    private int maxConcurrent = 0;       // 同时渲染数,0表示CPU核数
+    private int maxQueue = 0;            // 等待渲染的请求数上限,0表示同时渲染数的2倍
+    private long maxWaitMs = 10000;      // 排队等待的最长时间
+    private int retryAfterSeconds = 2;   // 拒绝时 Retry-After 响应头的秒数
+
+    /**
+     * 实际使用的同时渲染数
+     */
+    public int resolveMaxConcurrent() {
+        return maxConcurrent > 0 ? maxConcurrent : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 实际使用的排队上限
+     */
+    public int resolveMaxQueue() {
+        return maxQueue > 0 ? maxQueue : resolveMaxConcurrent() * 2;
+    }
+
+    // Getters and Setters
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public void setMaxQueue(int maxQueue) {
+        this.maxQueue = maxQueue;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,57 @@
+package cn.kmdckj.epersonnelarchivegenerator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启动预热配置 - 就绪前用合成档案走一遍完整渲染路径
+ */
+@Configuration
+@ConfigurationProperties(prefix = "archive.warmup")
+public class WarmupConfig {
+
+    private boolean enabled = true;
+    private int archives = 16;          // 预热渲染的档案份数(在各渲染引擎间轮换)
+    private int parallelism = 0;        // 预热线程数,0表示CPU核数
+    private int timeoutSeconds = 120;   // 预热最长耗时,超时后不再等待,直接就绪
+
+    /**
+     * 实际使用的预热线程数
+     */
+    public int resolveParallelism() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getArchives() {
+        return archives;
+    }
+
+    public void setArchives(int archives) {
+        this.archives = archives;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+}
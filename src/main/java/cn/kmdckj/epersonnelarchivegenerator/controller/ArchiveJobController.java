@@ -0,0 +1,133 @@
+package cn.kmdckj.epersonnelarchivegenerator.controller;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveJob;
+import cn.kmdckj.epersonnelarchivegenerator.model.BulkExportRequest;
+import cn.kmdckj.epersonnelarchivegenerator.service.ArchiveJobService;
+import cn.kmdckj.epersonnelarchivegenerator.service.BulkArchiveExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 异步档案任务控制器 - 提交任务后轮询状态,完成后下载结果(可重复下载,不会重新渲染)
+ */
+@RestController
+@RequestMapping("/jobs")
+public class ArchiveJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveJobController.class);
+
+    private final ArchiveJobService archiveJobService;
+    private final BulkArchiveExportService bulkArchiveExportService;
+
+    public ArchiveJobController(ArchiveJobService archiveJobService,
+                                BulkArchiveExportService bulkArchiveExportService) {
+        this.archiveJobService = archiveJobService;
+        this.bulkArchiveExportService = bulkArchiveExportService;
+    }
+
+    /**
+     * 提交单份员工档案任务
+     * 请求: POST http://localhost:8080/jobs/employee/001?engine=native
+     *
+     * @param employeeId 员工ID
+     * @param engine     渲染引擎(html/native),为空时使用配置的默认引擎
+     * @return 202 + 任务状态,Location 指向任务查询地址
+     */
+    @PostMapping("/employee/{employeeId}")
+    public ResponseEntity<ArchiveJob> submitArchive(@PathVariable String employeeId,
+                                                    @RequestParam(required = false) String engine) {
+        try {
+            ArchiveJob job = archiveJobService.submitArchive(employeeId, PdfConfig.RenderEngine.parse(engine));
+            return accepted(job);
+        } catch (IllegalArgumentException e) {
+            logger.warn("任务请求无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 提交批量导出ZIP任务
+     * 请求: POST http://localhost:8080/jobs/bulk/zip
+     * 请求体: {"employeeIds": ["001", "002"], "engine": "native"} 或 {"all": true}
+     */
+    @PostMapping("/bulk/zip")
+    public ResponseEntity<ArchiveJob> submitZip(@RequestBody BulkExportRequest request) {
+        return submitBulk(ArchiveJob.Type.ZIP, request);
+    }
+
+    /**
+     * 提交档案汇编任务
+     * 请求: POST http://localhost:8080/jobs/bulk/book
+     * 请求体: 与 /jobs/bulk/zip 相同
+     */
+    @PostMapping("/bulk/book")
+    public ResponseEntity<ArchiveJob> submitBook(@RequestBody BulkExportRequest request) {
+        return submitBulk(ArchiveJob.Type.BOOK, request);
+    }
+
+    /**
+     * 查询任务状态和进度
+     * 访问: http://localhost:8080/jobs/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ArchiveJob> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(archiveJobService.getJob(jobId));
+    }
+
+    /**
+     * 下载任务结果
+     * 访问: http://localhost:8080/jobs/{jobId}/result
+     * 任务不存在或已过期返回404,尚未完成或失败返回409
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<Resource> downloadResult(@PathVariable String jobId) {
+        Path result = archiveJobService.getResultFile(jobId);
+        ArchiveJob job = archiveJobService.getJob(jobId);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(job.getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(job.getFileName())
+                .build());
+        // 结果指纹由生成结果时实际渲染的员工数据计算;升级前完成的任务没有结果指纹,不带ETag
+        if (job.getResultFingerprint() != null) {
+            headers.setETag("\"" + job.getResultFingerprint() + "\"");
+        }
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(result));
+    }
+
+    private ResponseEntity<ArchiveJob> submitBulk(ArchiveJob.Type type, BulkExportRequest request) {
+        try {
+            PdfConfig.RenderEngine engine = PdfConfig.RenderEngine.parse(request.getEngine());
+            List<String> employeeIds = bulkArchiveExportService.resolveEmployeeIds(request);
+            return accepted(archiveJobService.submitBulk(type, employeeIds, engine));
+        } catch (IllegalArgumentException e) {
+            logger.warn("批量任务请求无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<ArchiveJob> accepted(ArchiveJob job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/jobs/" + job.getId()))
+                .body(job);
+    }
+}
@@ -0,0 +1,85 @@
+package cn.kmdckj.epersonnelarchivegenerator.controller;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import cn.kmdckj.epersonnelarchivegenerator.service.ArchiveTemplate;
+import cn.kmdckj.epersonnelarchivegenerator.service.ArchiveTemplateRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 档案模板控制器 - 查看各档案类型使用的模板版本,修改模板文件后立即重新加载
+ */
+@RestController
+@RequestMapping("/templates")
+public class ArchiveTemplateController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveTemplateController.class);
+
+    private final ArchiveTemplateRegistry templateRegistry;
+
+    public ArchiveTemplateController(ArchiveTemplateRegistry templateRegistry) {
+        this.templateRegistry = templateRegistry;
+    }
+
+    /**
+     * 各档案类型的模板
+     * 访问: GET http://localhost:8080/templates
+     *
+     * @return 模板名称、版本、摘要和布局配置
+     */
+    @GetMapping
+    public ResponseEntity<TemplateRegistryStatus> getStatus() {
+        return ResponseEntity.ok(TemplateRegistryStatus.of(templateRegistry, List.of()));
+    }
+
+    /**
+     * 重新加载模板文件,只有内容变化的模板重新编译
+     * 请求: POST http://localhost:8080/templates/reload
+     *
+     * @return 重新加载后的模板;模板无法读取时返回400,继续使用原模板
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<?> reload() {
+        try {
+            List<String> changed = templateRegistry.reload();
+            return ResponseEntity.ok(TemplateRegistryStatus.of(templateRegistry, changed));
+        } catch (IllegalArgumentException e) {
+            logger.warn("档案模板重新加载失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new GlobalExceptionHandler.ErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(), "档案模板无效", e.getMessage()));
+        }
+    }
+
+    /**
+     * 模板注册表状态
+     */
+    public record TemplateRegistryStatus(List<String> changed, List<TemplateStatus> templates) {
+
+        static TemplateRegistryStatus of(ArchiveTemplateRegistry registry, List<String> changed) {
+            List<TemplateStatus> templates = new ArrayList<>();
+            for (ArchiveTemplate template : registry.getTemplates().values()) {
+                templates.add(new TemplateStatus(template.getType(), template.getName(), template.getVersion(),
+                        template.getDigest(), template.isCompiled(), template.getRowPacking().name(),
+                        template.getPaginationMode()));
+            }
+            return new TemplateRegistryStatus(changed, templates);
+        }
+    }
+
+    /**
+     * 单个档案类型的模板状态
+     */
+    public record TemplateStatus(ArchiveType type, String name, long version, String digest, boolean compiled,
+                                 String packing, LayoutConfig.PaginationMode pagination) {
+    }
+}
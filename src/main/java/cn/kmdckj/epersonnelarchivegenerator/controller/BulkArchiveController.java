@@ -0,0 +1,152 @@
+package cn.kmdckj.epersonnelarchivegenerator.controller;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.BulkExportRequest;
+import cn.kmdckj.epersonnelarchivegenerator.service.ArchiveBookService;
+import cn.kmdckj.epersonnelarchivegenerator.service.BulkArchiveExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 批量档案控制器 - 一次导出多名员工的档案
+ */
+@RestController
+@RequestMapping("/employee/bulk")
+public class BulkArchiveController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkArchiveController.class);
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final BulkArchiveExportService bulkArchiveExportService;
+    private final ArchiveBookService archiveBookService;
+
+    public BulkArchiveController(BulkArchiveExportService bulkArchiveExportService,
+                                 ArchiveBookService archiveBookService) {
+        this.bulkArchiveExportService = bulkArchiveExportService;
+        this.archiveBookService = archiveBookService;
+    }
+
+    /**
+     * 批量导出档案ZIP
+     * 请求: POST http://localhost:8080/employee/bulk/zip
+     * 请求体: {"employeeIds": ["001", "002"], "engine": "native"} 或 {"all": true}
+     *
+     * @param request 导出请求
+     * @return ZIP文件(每名员工一个PDF,附 manifest.csv 记录每项结果)
+     */
+    @PostMapping("/zip")
+    public ResponseEntity<StreamingResponseBody> exportZip(@RequestBody BulkExportRequest request) {
+        return buildZipResponse(request);
+    }
+
+    /**
+     * 批量导出档案ZIP(GET方式,便于直接下载)
+     * 访问: http://localhost:8080/employee/bulk/zip?ids=001,002,003
+     * 导出全部: http://localhost:8080/employee/bulk/zip?all=true
+     *
+     * @param ids    员工ID列表(逗号分隔)
+     * @param all    是否导出全部员工
+     * @param engine 渲染引擎(html/native)
+     * @return ZIP文件
+     */
+    @GetMapping("/zip")
+    public ResponseEntity<StreamingResponseBody> exportZip(@RequestParam(required = false) List<String> ids,
+                                                           @RequestParam(defaultValue = "false") boolean all,
+                                                           @RequestParam(required = false) String engine) {
+        BulkExportRequest request = new BulkExportRequest();
+        request.setEmployeeIds(ids);
+        request.setAll(all);
+        request.setEngine(engine);
+        return buildZipResponse(request);
+    }
+
+    /**
+     * 导出档案汇编(多名员工合并为一个PDF,每名员工一个书签)
+     * 请求: POST http://localhost:8080/employee/bulk/book
+     * 请求体: 与 /zip 相同
+     *
+     * @param request 导出请求
+     * @return 汇编PDF
+     */
+    @PostMapping("/book")
+    public ResponseEntity<StreamingResponseBody> exportBook(@RequestBody BulkExportRequest request) {
+        return buildBookResponse(request);
+    }
+
+    /**
+     * 导出档案汇编(GET方式)
+     * 访问: http://localhost:8080/employee/bulk/book?all=true&engine=native
+     *
+     * @param ids    员工ID列表(逗号分隔)
+     * @param all    是否导出全部员工
+     * @param engine 渲染引擎(html/native),原生引擎共用字体,文件更小
+     * @return 汇编PDF
+     */
+    @GetMapping("/book")
+    public ResponseEntity<StreamingResponseBody> exportBook(@RequestParam(required = false) List<String> ids,
+                                                            @RequestParam(defaultValue = "false") boolean all,
+                                                            @RequestParam(required = false) String engine) {
+        BulkExportRequest request = new BulkExportRequest();
+        request.setEmployeeIds(ids);
+        request.setAll(all);
+        request.setEngine(engine);
+        return buildBookResponse(request);
+    }
+
+    private ResponseEntity<StreamingResponseBody> buildBookResponse(BulkExportRequest request) {
+        try {
+            PdfConfig.RenderEngine engine = PdfConfig.RenderEngine.parse(request.getEngine());
+            List<String> employeeIds = bulkArchiveExportService.resolveEmployeeIds(request);
+            logger.info("收到档案汇编请求, 员工数: {}, 渲染引擎: {}", employeeIds.size(), engine);
+
+            StreamingResponseBody body = outputStream ->
+                    archiveBookService.writeBook(employeeIds, engine, outputStream);
+
+            String fileName = "employee-archive-book-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".pdf";
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .body(body);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("档案汇编请求无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> buildZipResponse(BulkExportRequest request) {
+        try {
+            PdfConfig.RenderEngine engine = PdfConfig.RenderEngine.parse(request.getEngine());
+            List<String> employeeIds = bulkArchiveExportService.resolveEmployeeIds(request);
+            logger.info("收到批量导出请求, 员工数: {}, 渲染引擎: {}", employeeIds.size(), engine);
+
+            StreamingResponseBody body = outputStream ->
+                    bulkArchiveExportService.exportZip(employeeIds, engine, outputStream);
+
+            String fileName = "employee-archives-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".zip";
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .body(body);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("批量导出请求无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -1,17 +1,34 @@
 package cn.kmdckj.epersonnelarchivegenerator.controller;
 
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
 import cn.kmdckj.epersonnelarchivegenerator.service.EmployeeArchiveService;
 import cn.kmdckj.epersonnelarchivegenerator.service.EmployeeNotFoundException;
+import cn.kmdckj.epersonnelarchivegenerator.service.RenderBulkhead;
+import cn.kmdckj.epersonnelarchivegenerator.service.RenderRejectedException;
+import cn.kmdckj.epersonnelarchivegenerator.util.ArchiveMetrics;
+import cn.kmdckj.epersonnelarchivegenerator.util.TimedOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 员工档案控制器
@@ -22,49 +39,76 @@ public class EmployeeArchiveController {
 
     private static final Logger logger = LoggerFactory.getLogger(EmployeeArchiveController.class);
 
+    /**
+     * 档案可以被浏览器私有缓存,但每次使用前必须用ETag重新验证
+     */
+    private static final CacheControl ARCHIVE_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
+    private static final String PERMIT_INTERCEPTOR_KEY = EmployeeArchiveController.class.getName() + ".permit";
+
     private final EmployeeArchiveService employeeArchiveService;
+    private final ArchiveMetrics archiveMetrics;
 
-    public EmployeeArchiveController(EmployeeArchiveService employeeArchiveService) {
+    public EmployeeArchiveController(EmployeeArchiveService employeeArchiveService,
+                                     ArchiveMetrics archiveMetrics) {
         this.employeeArchiveService = employeeArchiveService;
+        this.archiveMetrics = archiveMetrics;
     }
 
     /**
      * 获取员工档案PDF - 在线预览
      * 访问: http://localhost:8080/employee/{employeeId}
      * 例如: http://localhost:8080/employee/001
+     * 指定渲染引擎: http://localhost:8080/employee/001?engine=native
+     * <p>
+     * 响应带有基于档案内容指纹的强ETag,请求携带匹配的If-None-Match时直接返回304,不进行渲染。
+     * PDF由渲染器直接写入响应流,不在堆上缓存完整的字节数组。
+     * 渲染前需获取渲染许可,排队已满或等待超时时返回429和Retry-After
      *
      * @param employeeId 员工ID
+     * @param engine     渲染引擎(html/native),为空时使用配置的默认引擎
+     * @param webRequest 当前请求(用于条件请求判断)
      * @return PDF文件
      */
     @GetMapping("/{employeeId}")
-    public ResponseEntity<byte[]> getEmployeeArchivePdf(@PathVariable String employeeId) {
+    public ResponseEntity<StreamingResponseBody> getEmployeeArchivePdf(@PathVariable String employeeId,
+                                                                       @RequestParam(required = false) String engine,
+                                                                       WebRequest webRequest) {
         try {
-            logger.info("收到档案PDF请求, 员工ID: {}", employeeId);
+            logger.info("收到档案PDF请求, 员工ID: {}, 渲染引擎: {}", employeeId, engine);
+            PdfConfig.RenderEngine renderEngine = PdfConfig.RenderEngine.parse(engine);
 
-            // 生成PDF
-            byte[] pdfBytes = employeeArchiveService.generateEmployeeArchivePdf(employeeId);
+            // 员工数据只读取一次: 指纹和响应体来自同一对象,强ETag与PDF内容严格对应;未变化时直接返回304
+            Employee employee = employeeArchiveService.getEmployee(employeeId);
+            String etag = employeeArchiveService.getArchiveFingerprint(employee, renderEngine);
+            if (webRequest.checkNotModified(etag)) {
+                logger.info("档案未变化, 返回304, 员工ID: {}", employeeId);
+                // checkNotModified 已写入304状态和ETag头
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .cacheControl(ARCHIVE_CACHE_CONTROL)
+                        .build();
+            }
 
             // 设置响应头 - 关键修改点
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentLength(pdfBytes.length);
 
             // 使用 inline 并且不设置 filename，让浏览器直接预览
             headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline");
 
-            // 禁用缓存,确保每次都是最新数据
-            headers.setCacheControl("no-cache, no-store, must-revalidate");
-            headers.setPragma("no-cache");
-            headers.setExpires(0);
+            // 允许私有缓存,通过ETag保证每次都是最新数据(ETag头已由 checkNotModified 写入响应)
+            headers.setCacheControl(ARCHIVE_CACHE_CONTROL);
 
-            logger.info("返回档案PDF, 员工ID: {}, 大小: {} KB",
-                    employeeId, pdfBytes.length / 1024);
-
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(streamPdf(employee, renderEngine, webRequest), headers, HttpStatus.OK);
 
+        } catch (RenderRejectedException e) {
+            return tooManyRequests(e);
         } catch (EmployeeNotFoundException e) {
             logger.warn("员工不存在: {}", employeeId);
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            logger.warn("请求参数无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("生成档案PDF失败, 员工ID: {}", employeeId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -76,27 +120,43 @@ public class EmployeeArchiveController {
      * 访问: http://localhost:8080/employee/{employeeId}/download
      *
      * @param employeeId 员工ID
+     * @param engine     渲染引擎(html/native),为空时使用配置的默认引擎
+     * @param webRequest 当前请求(用于条件请求判断)
      * @return PDF文件(下载模式)
      */
     @GetMapping("/{employeeId}/download")
-    public ResponseEntity<byte[]> downloadEmployeeArchivePdf(@PathVariable String employeeId) {
+    public ResponseEntity<StreamingResponseBody> downloadEmployeeArchivePdf(@PathVariable String employeeId,
+                                                                            @RequestParam(required = false) String engine,
+                                                                            WebRequest webRequest) {
         try {
             logger.info("收到档案PDF下载请求, 员工ID: {}", employeeId);
+            PdfConfig.RenderEngine renderEngine = PdfConfig.RenderEngine.parse(engine);
 
-            byte[] pdfBytes = employeeArchiveService.generateEmployeeArchivePdf(employeeId);
+            Employee employee = employeeArchiveService.getEmployee(employeeId);
+            String etag = employeeArchiveService.getArchiveFingerprint(employee, renderEngine);
+            if (webRequest.checkNotModified(etag)) {
+                // checkNotModified 已写入304状态和ETag头
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .cacheControl(ARCHIVE_CACHE_CONTROL)
+                        .build();
+            }
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentLength(pdfBytes.length);
+            headers.setCacheControl(ARCHIVE_CACHE_CONTROL);
 
             // 下载模式 - 使用 attachment
             headers.add(HttpHeaders.CONTENT_DISPOSITION,
                     "attachment; filename=\"employee-archive-" + employeeId + ".pdf\"");
 
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+            return new ResponseEntity<>(streamPdf(employee, renderEngine, webRequest), headers, HttpStatus.OK);
 
+        } catch (RenderRejectedException e) {
+            return tooManyRequests(e);
         } catch (EmployeeNotFoundException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("下载档案PDF失败, 员工ID: {}", employeeId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -144,6 +204,19 @@ public class EmployeeArchiveController {
         return ResponseEntity.ok(exists);
     }
 
+    /**
+     * 丢弃员工的缓存数据,外部系统直接修改员工数据后调用
+     * 访问: DELETE http://localhost:8080/employee/{employeeId}/cache
+     *
+     * @param employeeId 员工ID
+     * @return 204
+     */
+    @DeleteMapping("/{employeeId}/cache")
+    public ResponseEntity<Void> evictEmployeeCache(@PathVariable String employeeId) {
+        employeeArchiveService.evictEmployee(employeeId);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * 获取布局统计信息(调试用)
      * 访问: http://localhost:8080/employee/{employeeId}/stats
@@ -163,4 +236,49 @@ public class EmployeeArchiveController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 响应体: 渲染器直接写入响应输出流,并记录阻塞在响应流上的写出耗时
+     * 渲染使用计算ETag时读取的员工对象,不再重新读取
+     * 在请求线程上获取渲染许可(排队或拒绝,拒绝时返回429),交给渲染使用,响应体写完后归还。
+     * 响应体开始写出前异步请求就已结束(客户端断开、异步超时或出错)时,由异步请求的完成回调归还许可;
+     * 许可只由响应体和完成回调中先到的一方认领,响应体被认领后才开始渲染
+     */
+    private StreamingResponseBody streamPdf(Employee employee, PdfConfig.RenderEngine engine, WebRequest webRequest) {
+        RenderBulkhead.Permit permit = employeeArchiveService.acquireRenderPermit();
+        AtomicBoolean claimed = new AtomicBoolean();
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(PERMIT_INTERCEPTOR_KEY,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        if (claimed.compareAndSet(false, true)) {
+                            permit.close();
+                        }
+                    }
+                });
+        return outputStream -> {
+            if (!claimed.compareAndSet(false, true)) {
+                logger.warn("请求已在响应体写出前结束, 不再渲染, 员工ID: {}", employee.getId());
+                return;
+            }
+            TimedOutputStream timedStream = new TimedOutputStream(outputStream);
+            boolean success = false;
+            try {
+                employeeArchiveService.writeEmployeeArchivePdf(employee, engine, timedStream, permit);
+                timedStream.flush();
+                success = true;
+            } finally {
+                archiveMetrics.recordStage(ArchiveMetrics.STAGE_RESPONSE_WRITE, timedStream.getWriteNanos(), success);
+            }
+        };
+    }
+
+    /**
+     * 渲染请求被拒绝: 429 + Retry-After
+     */
+    private <T> ResponseEntity<T> tooManyRequests(RenderRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+}
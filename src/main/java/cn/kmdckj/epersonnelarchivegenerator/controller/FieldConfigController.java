@@ -0,0 +1,78 @@
+package cn.kmdckj.epersonnelarchivegenerator.controller;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigRegistry;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 字段配置控制器 - 查看当前字段配置版本,修改配置文件后立即重新加载
+ */
+@RestController
+@RequestMapping("/field-config")
+public class FieldConfigController {
+
+    private static final Logger logger = LoggerFactory.getLogger(FieldConfigController.class);
+
+    private final FieldConfigRegistry fieldConfigRegistry;
+
+    public FieldConfigController(FieldConfigRegistry fieldConfigRegistry) {
+        this.fieldConfigRegistry = fieldConfigRegistry;
+    }
+
+    /**
+     * 当前字段配置的版本
+     * 访问: GET http://localhost:8080/field-config
+     *
+     * @return 快照版本、内容摘要和各分组版本
+     */
+    @GetMapping
+    public ResponseEntity<FieldConfigStatus> getStatus() {
+        return ResponseEntity.ok(FieldConfigStatus.of(fieldConfigRegistry.getSnapshot(), false));
+    }
+
+    /**
+     * 重新加载字段配置,内容未变化时版本不变
+     * 请求: POST http://localhost:8080/field-config/reload
+     *
+     * @return 重新加载后的版本;配置无效时返回400,继续使用原配置
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<?> reload() {
+        long previousVersion = fieldConfigRegistry.getVersion();
+        try {
+            FieldConfigSnapshot snapshot = fieldConfigRegistry.reload();
+            return ResponseEntity.ok(FieldConfigStatus.of(snapshot, snapshot.getVersion() != previousVersion));
+        } catch (IllegalArgumentException e) {
+            logger.warn("字段配置重新加载失败: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new GlobalExceptionHandler.ErrorResponse(
+                    HttpStatus.BAD_REQUEST.value(), "字段配置无效", e.getMessage()));
+        }
+    }
+
+    /**
+     * 字段配置状态
+     */
+    public record FieldConfigStatus(long version, String digest, int fieldCount, boolean changed,
+                                    Map<FieldConfigRegistry.FieldGroup, Long> groupVersions) {
+
+        static FieldConfigStatus of(FieldConfigSnapshot snapshot, boolean changed) {
+            Map<FieldConfigRegistry.FieldGroup, Long> groupVersions =
+                    new EnumMap<>(FieldConfigRegistry.FieldGroup.class);
+            for (FieldConfigRegistry.FieldGroup group : FieldConfigRegistry.FieldGroup.values()) {
+                groupVersions.put(group, snapshot.getGroupVersion(group));
+            }
+            return new FieldConfigStatus(snapshot.getVersion(), snapshot.getDigest(), snapshot.size(), changed,
+                    groupVersions);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package cn.kmdckj.epersonnelarchivegenerator.controller;
 
+import cn.kmdckj.epersonnelarchivegenerator.service.ArchiveJobNotFoundException;
+import cn.kmdckj.epersonnelarchivegenerator.service.ArchiveJobNotReadyException;
 import cn.kmdckj.epersonnelarchivegenerator.service.EmployeeNotFoundException;
 import cn.kmdckj.epersonnelarchivegenerator.service.PdfGenerationException;
 import cn.kmdckj.epersonnelarchivegenerator.service.RenderException;
+import cn.kmdckj.epersonnelarchivegenerator.service.RenderRejectedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -32,6 +36,33 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * 处理异步任务不存在异常
+     */
+    @ExceptionHandler(ArchiveJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleJobNotFound(ArchiveJobNotFoundException e) {
+        logger.warn("任务不存在: {}", e.getMessage());
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                "任务不存在",
+                e.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * 处理异步任务结果不可用异常
+     */
+    @ExceptionHandler(ArchiveJobNotReadyException.class)
+    public ResponseEntity<ErrorResponse> handleJobNotReady(ArchiveJobNotReadyException e) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "任务结果不可用",
+                e.getMessage()
+        );
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
     /**
      * 处理PDF生成异常
      */
@@ -60,6 +91,21 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * 处理渲染请求被拒绝异常(渲染隔离舱已满)
+     */
+    @ExceptionHandler(RenderRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleRenderRejected(RenderRejectedException e) {
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "请求过多",
+                e.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     /**
      * 处理其他异常
      */
@@ -67,7 +67,9 @@ public class HomeController {
                         <span class="example">示例:</span> 
                         <a href="/employee/001" target="_blank">/employee/001</a> |
                         <a href="/employee/002" target="_blank">/employee/002</a> |
-                        <a href="/employee/003" target="_blank">/employee/003</a>
+                        <a href="/employee/003" target="_blank">/employee/003</a><br>
+                        <span class="example">原生引擎:</span> 
+                        <a href="/employee/001?engine=native" target="_blank">/employee/001?engine=native</a>
                     </div>
                 
                     <div class="endpoint">
@@ -77,6 +79,21 @@ public class HomeController {
                         <a href="/employee/001/download">/employee/001/download</a>
                     </div>
                 
+                    <div class="endpoint">
+                        <strong>批量导出档案ZIP</strong><br>
+                        <code>GET /employee/bulk/zip?ids=001,002</code> 或 <code>POST /employee/bulk/zip</code><br>
+                        <span class="example">示例:</span> 
+                        <a href="/employee/bulk/zip?ids=001,002,003">/employee/bulk/zip?ids=001,002,003</a> |
+                        <a href="/employee/bulk/zip?all=true">/employee/bulk/zip?all=true</a>
+                    </div>
+                
+                    <div class="endpoint">
+                        <strong>档案汇编PDF(每名员工一个书签)</strong><br>
+                        <code>GET /employee/bulk/book?ids=001,002</code> 或 <code>POST /employee/bulk/book</code><br>
+                        <span class="example">示例:</span> 
+                        <a href="/employee/bulk/book?all=true&engine=native">/employee/bulk/book?all=true&amp;engine=native</a>
+                    </div>
+                
                     <div class="endpoint">
                         <strong>查看HTML(调试用)</strong><br>
                         <code>GET /employee/{employeeId}/html</code><br>
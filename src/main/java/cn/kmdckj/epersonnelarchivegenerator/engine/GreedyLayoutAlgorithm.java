@@ -3,88 +3,42 @@ package cn.kmdckj.epersonnelarchivegenerator.engine;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * 贪心布局算法 - 独立工具类
- * 可用于单元测试和算法验证
+ * 可用于单元测试和算法验证;行填充的实际实现见 {@link RowPackingStrategy}
  */
 public class GreedyLayoutAlgorithm {
 
     private static final double ROW_WIDTH = 100.0;
 
     /**
-     * 贪心填充算法
-     * <p>
-     * 算法步骤:
-     * 1. 遍历所有字段
-     * 2. 对于每个字段:
-     * a. 如果是超长字段,独占一行
-     * b. 否则尝试放入当前行
-     * c. 如果当前行放不下,换行
-     * 3. 返回行列表
+     * 贪心填充算法,见 {@link GreedyRowPacker}
      *
      * @param fields 字段列表
      * @return 行列表
      */
     public static List<LayoutRow> fillGreedy(List<LayoutField> fields) {
-        List<LayoutRow> rows = new ArrayList<>();
-
-        if (fields == null || fields.isEmpty()) {
-            return rows;
-        }
-
-        LayoutRow currentRow = new LayoutRow();
-
-        for (LayoutField field : fields) {
-            // 处理超长字段
-            if (field.isLongContent()) {
-                if (!currentRow.getFields().isEmpty()) {
-                    rows.add(currentRow);
-                    currentRow = new LayoutRow();
-                }
-
-                field.setWidthPercent(100.0);
-                currentRow.addField(field);
-                rows.add(currentRow);
-                currentRow = new LayoutRow();
-                continue;
-            }
-
-            // 尝试放入当前行
-            if (currentRow.canFit(field)) {
-                currentRow.addField(field);
-            } else {
-                // 放不下,换行
-                if (currentRow.getFields().isEmpty()) {
-                    // 字段太宽,强制占满一行
-                    field.setWidthPercent(100.0);
-                    currentRow.addField(field);
-                    rows.add(currentRow);
-                    currentRow = new LayoutRow();
-                } else {
-                    // 结束当前行,开启新行
-                    rows.add(currentRow);
-                    currentRow = new LayoutRow();
-                    currentRow.addField(field);
-                }
-            }
-        }
-
-        // 添加最后一行
-        if (!currentRow.getFields().isEmpty()) {
-            rows.add(currentRow);
-        }
-
-        return rows;
+        return new GreedyRowPacker().pack(fields);
     }
 
     /**
      * 计算布局统计信息
      */
     public static LayoutStats calculateStats(List<LayoutRow> rows) {
+        return calculateStats("greedy", rows);
+    }
+
+    /**
+     * 计算布局统计信息
+     *
+     * @param strategy 产生这些行的填充策略名称
+     * @param rows     数据行(不含标题、分隔和分页行)
+     */
+    public static LayoutStats calculateStats(String strategy, List<LayoutRow> rows) {
         LayoutStats stats = new LayoutStats();
+        stats.strategy = strategy;
         stats.totalRows = rows.size();
 
         double totalUsedWidth = 0.0;
@@ -93,7 +47,7 @@ public class GreedyLayoutAlgorithm {
         for (LayoutRow row : rows) {
             double usedWidth = row.getUsedWidth();
             totalUsedWidth += usedWidth;
-            fieldCount += row.getFields().size();
+            fieldCount += row.getFieldCount();
 
             if (usedWidth < stats.minRowUsage) {
                 stats.minRowUsage = usedWidth;
@@ -104,6 +58,7 @@ public class GreedyLayoutAlgorithm {
         }
 
         stats.averageRowUsage = stats.totalRows > 0 ? totalUsedWidth / stats.totalRows : 0.0;
+        stats.wastedWidth = stats.totalRows * ROW_WIDTH - totalUsedWidth;
         stats.totalFields = fieldCount;
 
         return stats;
@@ -113,17 +68,19 @@ public class GreedyLayoutAlgorithm {
      * 布局统计信息
      */
     public static class LayoutStats {
+        public String strategy = "greedy";
         public int totalRows = 0;
         public int totalFields = 0;
         public double averageRowUsage = 0.0;
         public double minRowUsage = 100.0;
         public double maxRowUsage = 0.0;
+        public double wastedWidth = 0.0;  // 各行剩余宽度之和(百分比)
 
         @Override
         public String toString() {
             return String.format(
-                    "LayoutStats{总行数=%d, 总字段数=%d, 平均行利用率=%.2f%%, 最小利用率=%.2f%%, 最大利用率=%.2f%%}",
-                    totalRows, totalFields, averageRowUsage, minRowUsage, maxRowUsage
+                    "LayoutStats{策略=%s, 总行数=%d, 总字段数=%d, 平均行利用率=%.2f%%, 最小利用率=%.2f%%, 最大利用率=%.2f%%, 空白宽度=%.2f%%}",
+                    strategy, totalRows, totalFields, averageRowUsage, minRowUsage, maxRowUsage, wastedWidth
             );
         }
     }
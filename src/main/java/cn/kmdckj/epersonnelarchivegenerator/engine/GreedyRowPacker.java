@@ -0,0 +1,81 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 贪心填充(默认策略) - 按顺序逐个放入当前行,放不下就换行
+ */
+public class GreedyRowPacker implements RowPackingStrategy {
+
+    @Override
+    public String name() {
+        return "greedy";
+    }
+
+    /**
+     * 算法步骤:
+     * 1. 遍历所有字段
+     * 2. 对于每个字段:
+     * a. 如果是超长字段,独占一行
+     * b. 否则尝试放入当前行
+     * c. 如果当前行放不下,换行
+     * 3. 返回行列表
+     */
+    @Override
+    public List<LayoutRow> pack(List<LayoutField> fields) {
+        List<LayoutRow> rows = new ArrayList<>();
+
+        if (fields == null || fields.isEmpty()) {
+            return rows;
+        }
+
+        LayoutRow currentRow = new LayoutRow();
+
+        for (LayoutField field : fields) {
+            // 1. 如果字段是超长内容或强制独占行
+            if (field.isLongContent()) {
+                // 先结束当前行(如果有内容)
+                if (currentRow.hasFields()) {
+                    rows.add(currentRow);
+                    currentRow = new LayoutRow();
+                }
+
+                // 该字段独占一行
+                field.setWidthBasisPoints(LayoutField.FULL_WIDTH);
+                currentRow.addField(field);
+                rows.add(currentRow);
+
+                // 开启新行
+                currentRow = new LayoutRow();
+                continue;
+            }
+
+            // 2. 尝试将字段放入当前行
+            if (currentRow.canFit(field)) {
+                currentRow.addField(field);
+            } else if (!currentRow.hasFields()) {
+                // 3. 当前行为空但字段放不下,说明字段本身太宽,强制放入并占满整行
+                field.setWidthBasisPoints(LayoutField.FULL_WIDTH);
+                currentRow.addField(field);
+                rows.add(currentRow);
+                currentRow = new LayoutRow();
+            } else {
+                // 4. 当前行有内容,结束当前行,开启新行并放入该字段
+                rows.add(currentRow);
+                currentRow = new LayoutRow();
+                currentRow.addField(field);
+            }
+        }
+
+        // 5. 处理最后一行
+        if (currentRow.hasFields()) {
+            rows.add(currentRow);
+        }
+
+        return rows;
+    }
+}
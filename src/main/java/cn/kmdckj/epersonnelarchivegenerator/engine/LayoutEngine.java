@@ -1,62 +1,94 @@
 package cn.kmdckj.epersonnelarchivegenerator.engine;
 
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.EmployeeFieldExtractors;
 import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigRegistry;
-import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldFilter;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigSnapshot;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldExtractor;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.*;
 import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.util.BoundedLruCache;
+import cn.kmdckj.epersonnelarchivegenerator.util.ContentDigest;
+import cn.kmdckj.epersonnelarchivegenerator.util.PhotoNormalizer;
 import org.springframework.stereotype.Component;
 
-import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * 排版引擎 - 核心布局计算类
+ * <p>
+ * 各分区的行布局按"分区 + 字段分组版本 + 该分区输入数据"的摘要缓存,
+ * 员工只改动了某一部分数据、或只修改了某一分组的字段配置时,只有对应分区重新计算。缓存中保存的是分区的副本,
+ * 每次返回新的深复制,后续优化和分页对布局的修改不会影响缓存。
  */
 @Component
 public class LayoutEngine {
 
     private final FieldConfigRegistry configRegistry;
-    private final FieldFilter fieldFilter;
+    private final EmployeeFieldExtractors fieldExtractors;
+    private final RowMetrics rowMetrics;
+    private final PhotoNormalizer photoNormalizer;
+    private final RowPackingStrategy rowPacking;
+    private final BoundedLruCache<String, LayoutZone> zoneCache;  // 为null表示不缓存
 
     // 布局常量
     private static final double ROW_WIDTH = 100.0;  // 行宽百分比
     private static final double MIN_FIELD_WIDTH = 20.0;  // 最小字段宽度
 
-    public LayoutEngine(FieldConfigRegistry configRegistry, FieldFilter fieldFilter) {
+    public LayoutEngine(FieldConfigRegistry configRegistry, EmployeeFieldExtractors fieldExtractors,
+                        RowMetrics rowMetrics, PhotoNormalizer photoNormalizer, LayoutConfig layoutConfig) {
         this.configRegistry = configRegistry;
-        this.fieldFilter = fieldFilter;
+        this.fieldExtractors = fieldExtractors;
+        this.rowMetrics = rowMetrics;
+        this.photoNormalizer = photoNormalizer;
+        this.rowPacking = RowPackingStrategy.of(layoutConfig.getPacking());
+        this.zoneCache = layoutConfig.getZoneCacheSize() > 0
+                ? new BoundedLruCache<>(layoutConfig.getZoneCacheSize())
+                : null;
     }
 
     /**
-     * 计算完整的档案布局
+     * 计算完整的档案布局(使用配置的行填充策略)
      *
      * @param employee 员工数据
      * @return 布局模型
      */
     public LayoutModel calculateLayout(Employee employee) {
+        return calculateLayout(employee, rowPacking);
+    }
+
+    /**
+     * 使用指定的行填充策略计算完整的档案布局(档案模板可单独配置策略)
+     *
+     * @param employee 员工数据
+     * @param packing  行填充策略
+     * @return 布局模型
+     */
+    public LayoutModel calculateLayout(Employee employee, RowPackingStrategy packing) {
         LayoutModel model = new LayoutModel();
+        LayoutPass pass = new LayoutPass(configRegistry.getSnapshot(), packing);  // 整个布局使用同一配置快照
 
         // 1. 基础信息区:基础信息 + 照片
-        LayoutZone basicInfoZone = createBasicInfoZone(employee);
+        LayoutZone basicInfoZone = createBasicInfoZone(pass, employee);
         model.addZone(basicInfoZone);
 
         // 2. 工作经历区
         if (employee.getWorkExperiences() != null && !employee.getWorkExperiences().isEmpty()) {
-            LayoutZone workZone = createWorkExperienceZone(employee.getWorkExperiences());
+            LayoutZone workZone = createWorkExperienceZone(pass, employee.getWorkExperiences());
             model.addZone(workZone);
         }
 
         // 3. 教育背景区
         if (employee.getEducations() != null && !employee.getEducations().isEmpty()) {
-            LayoutZone eduZone = createEducationZone(employee.getEducations());
+            LayoutZone eduZone = createEducationZone(pass, employee.getEducations());
             model.addZone(eduZone);
         }
 
         // 4. 家庭成员区
         if (employee.getFamilyMembers() != null && !employee.getFamilyMembers().isEmpty()) {
-            LayoutZone familyZone = createFamilyZone(employee.getFamilyMembers());
+            LayoutZone familyZone = createFamilyZone(pass, employee.getFamilyMembers());
             model.addZone(familyZone);
         }
 
@@ -64,269 +96,226 @@ public class LayoutEngine {
     }
 
     /**
-     * 创建基础信息区(基础信息 + 照片)
+     * 清空分区布局缓存
      */
-    private LayoutZone createBasicInfoZone(Employee employee) {
-        LayoutZone zone = new LayoutZone("basicInfo", LayoutZone.ZoneType.BASIC_INFO_WITH_PHOTO);
-
-        // 设置照片元数据
-        if (employee.getPhotoBase64() != null && !employee.getPhotoBase64().isEmpty()) {
-            ZoneMetadata.PhotoMetadata photoMeta = new ZoneMetadata.PhotoMetadata(employee.getPhotoBase64());
-            zone.setMetadata(photoMeta);
+    public void clearCache() {
+        if (zoneCache != null) {
+            zoneCache.clear();
         }
+    }
 
-        // 准备基础信息字段数据
-        Map<String, String> fieldData = new LinkedHashMap<>();
-        fieldData.put("name", employee.getName());
-        fieldData.put("gender", employee.getGender());
-        fieldData.put("birthDate", formatDate(employee.getBirthDate()));
-        fieldData.put("nation", employee.getNation());
-        fieldData.put("idCard", employee.getIdCard());
-        fieldData.put("politicalStatus", employee.getPoliticalStatus());
-        fieldData.put("maritalStatus", employee.getMaritalStatus());
-        fieldData.put("phone", employee.getPhone());
-        fieldData.put("email", employee.getEmail());
-        fieldData.put("nativePlace", employee.getNativePlace());
-        fieldData.put("currentAddress", employee.getCurrentAddress());
-        fieldData.put("emergencyContact", employee.getEmergencyContact());
-        fieldData.put("emergencyPhone", employee.getEmergencyPhone());
-
-        // 过滤并转换为LayoutField
-        List<LayoutField> fields = fieldFilter.filterAndConvertOrdered(
-                fieldData,
-                FieldConfigRegistry.FieldGroup.BASIC_INFO
-        );
-
-        // 贪心填充算法
-        fillRowsGreedy(zone, fields);
+    /**
+     * 创建基础信息区(基础信息 + 照片)
+     * 有照片时字段行排在文本区宽度内,分区高度不低于照片格;照片由规范化器按内容单独缓存,分区缓存键只区分有无照片
+     */
+    private LayoutZone createBasicInfoZone(LayoutPass pass, Employee employee) {
+        // 嵌入规范化后的小图,无法解码的照片不显示
+        PhotoNormalizer.NormalizedPhoto photo = photoNormalizer.normalize(employee.getPhotoBase64());
+        boolean hasPhoto = photo != null;
+
+        FieldExtractor<Employee> extractor = fieldExtractors.basicInfo();
+        String cacheZoneId = hasPhoto ? "basicInfoWithPhoto" : "basicInfo";
+        LayoutZone zone = cachedZone(cacheZoneId, pass, extractor, List.of(employee), () -> {
+            LayoutZone basicInfo = new LayoutZone("basicInfo", LayoutZone.ZoneType.BASIC_INFO_WITH_PHOTO);
+
+            // 按配置顺序提取应显示的字段
+            List<LayoutField> fields = extractor.extract(pass.fieldConfigs(), employee);
+
+            // 按配置的策略填充,基础信息整体作为一个保持组
+            fillRows(pass, basicInfo, fields, 1, rowMetrics.headerTableWidth(hasPhoto));
+            fitHeaderHeight(basicInfo, hasPhoto);
+            return basicInfo;
+        });
+
+        if (hasPhoto) {
+            zone.setMetadata(new ZoneMetadata.PhotoMetadata(photo.getData(), photo.getMimeType(), photo.getDataUri(),
+                    photoNormalizer.getWidthMm(), photoNormalizer.getHeightMm()));
+        }
 
         return zone;
     }
 
     /**
-     * 创建工作经历区
+     * 基础信息区的高度计入最后一行: 字段行总高度不足照片格时补齐,再加上表格下方的外边距
      */
-    private LayoutZone createWorkExperienceZone(List<Employee.WorkExperience> experiences) {
-        LayoutZone zone = new LayoutZone("workExperience", LayoutZone.ZoneType.BODY_CONTENT);
-
-        // 添加标题行
-        LayoutRow titleRow = new LayoutRow();
-        LayoutField titleField = new LayoutField("workTitle", "工作经历", "", 100.0);
-        titleField.setForceFullWidth(true);
-        titleRow.addField(titleField);
-        titleRow.setEstimatedHeight(10.0);
-        titleRow.setTitle(true);
-        zone.addRow(titleRow);
-
-        // 遍历每段工作经历
-        for (int i = 0; i < experiences.size(); i++) {
-            Employee.WorkExperience exp = experiences.get(i);
-
-            Map<String, String> fieldData = new LinkedHashMap<>();
-            fieldData.put("workStartDate", formatDate(exp.getStartDate()));
-            fieldData.put("workEndDate", exp.getEndDate() != null ? formatDate(exp.getEndDate()) : "至今");
-            fieldData.put("company", exp.getCompany());
-            fieldData.put("position", exp.getPosition());
-            fieldData.put("duties", exp.getDuties());
-
-            List<LayoutField> fields = fieldFilter.filterAndConvertOrdered(
-                    fieldData,
-                    FieldConfigRegistry.FieldGroup.WORK_EXPERIENCE
-            );
-
-            // 贪心填充
-            fillRowsGreedy(zone, fields);
-
-            // 如果不是最后一项,添加分隔空行
-            if (i < experiences.size() - 1) {
-                LayoutRow separatorRow = new LayoutRow();
-                separatorRow.setEstimatedHeight(5.0);
-                zone.addRow(separatorRow);
-            }
+    private void fitHeaderHeight(LayoutZone zone, boolean hasPhoto) {
+        List<LayoutRow> rows = zone.getRows();
+        if (rows.isEmpty()) {
+            return;
         }
+        double textHeight = 0.0;
+        for (LayoutRow row : rows) {
+            textHeight += row.getEstimatedHeight();
+        }
+        double extra = hasPhoto ? Math.max(0.0, rowMetrics.photoCellHeight() - textHeight) : 0.0;
+        LayoutRow last = rows.get(rows.size() - 1);
+        last.setEstimatedHeight(last.getEstimatedHeight() + extra + rowMetrics.headerMarginBottom());
+    }
 
-        return zone;
+    /**
+     * 创建工作经历区
+     */
+    private LayoutZone createWorkExperienceZone(LayoutPass pass, List<Employee.WorkExperience> experiences) {
+        return createListZone(pass, "workExperience", "workTitle", "工作经历",
+                fieldExtractors.workExperience(), experiences);
     }
 
     /**
      * 创建教育背景区
      */
-    private LayoutZone createEducationZone(List<Employee.Education> educations) {
-        LayoutZone zone = new LayoutZone("education", LayoutZone.ZoneType.BODY_CONTENT);
-
-        // 添加标题行
-        LayoutRow titleRow = new LayoutRow();
-        LayoutField titleField = new LayoutField("eduTitle", "教育背景", "", 100.0);
-        titleField.setForceFullWidth(true);
-        titleRow.addField(titleField);
-        titleRow.setEstimatedHeight(10.0);
-        titleRow.setTitle(true);
-        zone.addRow(titleRow);
-
-        for (int i = 0; i < educations.size(); i++) {
-            Employee.Education edu = educations.get(i);
-
-            Map<String, String> fieldData = new LinkedHashMap<>();
-            fieldData.put("eduStartDate", formatDate(edu.getStartDate()));
-            fieldData.put("eduEndDate", formatDate(edu.getEndDate()));
-            fieldData.put("school", edu.getSchool());
-            fieldData.put("major", edu.getMajor());
-            fieldData.put("degree", edu.getDegree());
-
-            List<LayoutField> fields = fieldFilter.filterAndConvertOrdered(
-                    fieldData,
-                    FieldConfigRegistry.FieldGroup.EDUCATION
-            );
-
-            fillRowsGreedy(zone, fields);
-
-            if (i < educations.size() - 1) {
-                LayoutRow separatorRow = new LayoutRow();
-                separatorRow.setEstimatedHeight(5.0);
-                zone.addRow(separatorRow);
-            }
-        }
-
-        return zone;
+    private LayoutZone createEducationZone(LayoutPass pass, List<Employee.Education> educations) {
+        return createListZone(pass, "education", "eduTitle", "教育背景",
+                fieldExtractors.education(), educations);
     }
 
     /**
      * 创建家庭成员区
      */
-    private LayoutZone createFamilyZone(List<Employee.FamilyMember> members) {
-        LayoutZone zone = new LayoutZone("family", LayoutZone.ZoneType.BODY_CONTENT);
-
-        // 添加标题行
-        LayoutRow titleRow = new LayoutRow();
-        LayoutField titleField = new LayoutField("familyTitle", "家庭成员", "", 100.0);
-        titleField.setForceFullWidth(true);
-        titleRow.addField(titleField);
-        titleRow.setEstimatedHeight(10.0);
-        titleRow.setTitle(true);
-        zone.addRow(titleRow);
-
-        for (int i = 0; i < members.size(); i++) {
-            Employee.FamilyMember member = members.get(i);
-
-            Map<String, String> fieldData = new LinkedHashMap<>();
-            fieldData.put("relation", member.getRelation());
-            fieldData.put("familyName", member.getName());
-            fieldData.put("age", member.getAge() != null ? member.getAge().toString() : null);
-            fieldData.put("workUnit", member.getWorkUnit());
-
-            List<LayoutField> fields = fieldFilter.filterAndConvertOrdered(
-                    fieldData,
-                    FieldConfigRegistry.FieldGroup.FAMILY
-            );
-
-            fillRowsGreedy(zone, fields);
-
-            if (i < members.size() - 1) {
-                LayoutRow separatorRow = new LayoutRow();
-                separatorRow.setEstimatedHeight(5.0);
-                zone.addRow(separatorRow);
+    private LayoutZone createFamilyZone(LayoutPass pass, List<Employee.FamilyMember> members) {
+        return createListZone(pass, "family", "familyTitle", "家庭成员",
+                fieldExtractors.family(), members);
+    }
+
+    /**
+     * 创建列表型正文分区(经缓存): 标题行 + 每个条目的字段行,条目之间以分隔空行隔开
+     */
+    private <T> LayoutZone createListZone(LayoutPass pass, String zoneId, String titleKey, String title,
+                                          FieldExtractor<T> extractor, List<T> entries) {
+        return cachedZone(zoneId, pass, extractor, entries, () -> {
+            LayoutZone zone = new LayoutZone(zoneId, LayoutZone.ZoneType.BODY_CONTENT);
+
+            // 添加标题行
+            LayoutRow titleRow = new LayoutRow();
+            LayoutField titleField = new LayoutField(titleKey, title, "", 100.0);
+            titleField.setForceFullWidth(true);
+            titleRow.addField(titleField);
+            titleRow.setEstimatedHeight(rowMetrics.titleRowHeight());
+            titleRow.setTitle(true);
+            zone.addRow(titleRow);
+
+            for (int i = 0; i < entries.size(); i++) {
+                List<LayoutField> fields = extractor.extract(pass.fieldConfigs(), entries.get(i));
+
+                // 按配置的策略填充,每个条目是一个保持组(分页时尽量不拆开)
+                fillRows(pass, zone, fields, i + 1);
+
+                // 如果不是最后一项,添加分隔空行
+                if (i < entries.size() - 1) {
+                    LayoutRow separatorRow = new LayoutRow();
+                    separatorRow.setEstimatedHeight(rowMetrics.separatorRowHeight());
+                    zone.addRow(separatorRow);
+                }
             }
+
+            return zone;
+        });
+    }
+
+    /**
+     * 从缓存取分区布局,未命中时计算并放入缓存
+     *
+     * @param zoneId    分区标识
+     * @param pass      本次布局使用的字段配置快照和行填充策略
+     * @param extractor 分区的字段提取器
+     * @param entries   分区的全部输入数据(按条目)
+     * @param builder   分区布局计算逻辑
+     * @return 调用方独占的分区布局
+     */
+    private <T> LayoutZone cachedZone(String zoneId, LayoutPass pass, FieldExtractor<T> extractor,
+                                      List<T> entries, Supplier<LayoutZone> builder) {
+        if (zoneCache == null) {
+            return builder.get();
+        }
+
+        ContentDigest digest = ContentDigest.sha256()
+                .add(zoneId)
+                .add(pass.fieldConfigs().getGroupVersion(extractor.getGroup()))
+                .add(pass.packing().name())
+                .add(entries.size());
+        for (T entry : entries) {
+            extractor.digest(pass.fieldConfigs(), entry, digest);
         }
+        String key = digest.toHex();
 
+        LayoutZone cached = zoneCache.get(key);
+        if (cached != null) {
+            return cached.copy();
+        }
+        LayoutZone zone = builder.get();
+        zoneCache.put(key, zone.copy());
         return zone;
     }
 
     /**
-     * 贪心填充算法 - 核心方法
-     * 将字段列表按贪心策略填充到行中
+     * 按本次布局的行填充策略把字段排入分区
      *
-     * @param zone   目标分区
-     * @param fields 待填充的字段列表
+     * @param pass      本次布局使用的行填充策略
+     * @param zone      目标分区
+     * @param fields    待填充的字段列表
+     * @param keepGroup 这些行所属的保持组
      */
-    private void fillRowsGreedy(LayoutZone zone, List<LayoutField> fields) {
+    private void fillRows(LayoutPass pass, LayoutZone zone, List<LayoutField> fields, int keepGroup) {
+        fillRows(pass, zone, fields, keepGroup, rowMetrics.tableWidth());
+    }
+
+    /**
+     * 按本次布局的行填充策略把字段排入指定宽度的表格
+     *
+     * @param tableWidth 表格宽度(pt),用于计算行高
+     */
+    private void fillRows(LayoutPass pass, LayoutZone zone, List<LayoutField> fields, int keepGroup,
+                          float tableWidth) {
         if (fields == null || fields.isEmpty()) {
             return;
         }
+        for (LayoutRow row : pass.packing().pack(fields)) {
+            row.setKeepGroup(keepGroup);
+            addDataRow(zone, row, tableWidth);
+        }
+    }
 
-        LayoutRow currentRow = new LayoutRow();
-
-        for (LayoutField field : fields) {
-            // 1. 如果字段是超长内容或强制独占行
-            if (field.isLongContent()) {
-                // 先结束当前行(如果有内容)
-                if (!currentRow.getFields().isEmpty()) {
-                    zone.addRow(currentRow);
-                    currentRow = new LayoutRow();
-                }
-
-                // 该字段独占一行
-                field.setWidthPercent(100.0);
-                currentRow.addField(field);
-                currentRow.setEstimatedHeight(calculateFieldHeight(field));
-                zone.addRow(currentRow);
-
-                // 开启新行
-                currentRow = new LayoutRow();
-                continue;
-            }
+    /**
+     * 统计布局模型中数据行的填充情况
+     *
+     * @param model 布局模型
+     * @return 填充统计(含当前策略名称)
+     */
+    public GreedyLayoutAlgorithm.LayoutStats getPackingStats(LayoutModel model) {
+        return getPackingStats(model, rowPacking);
+    }
 
-            // 2. 尝试将字段放入当前行
-            if (currentRow.canFit(field)) {
-                // 能放入,直接添加
-                currentRow.addField(field);
-            } else {
-                // 3. 放不下,需要换行
-
-                // 先检查当前行是否为空
-                if (currentRow.getFields().isEmpty()) {
-                    // 当前行为空但字段放不下,说明字段本身太宽
-                    // 强制放入并占满整行
-                    field.setWidthPercent(100.0);
-                    currentRow.addField(field);
-                    currentRow.setEstimatedHeight(calculateFieldHeight(field));
-                    zone.addRow(currentRow);
-                    currentRow = new LayoutRow();
-                } else {
-                    // 当前行有内容,结束当前行
-                    zone.addRow(currentRow);
-
-                    // 开启新行并放入该字段
-                    currentRow = new LayoutRow();
-                    currentRow.addField(field);
+    /**
+     * 统计按指定策略填充的布局模型中数据行的填充情况
+     *
+     * @param model   布局模型
+     * @param packing 计算布局时使用的行填充策略
+     * @return 填充统计(含策略名称)
+     */
+    public GreedyLayoutAlgorithm.LayoutStats getPackingStats(LayoutModel model, RowPackingStrategy packing) {
+        List<LayoutRow> dataRows = new ArrayList<>();
+        for (LayoutZone zone : model.getZones()) {
+            for (LayoutRow row : zone.getRows()) {
+                if (!row.isPageBreak() && !row.isTitle() && row.hasFields()) {
+                    dataRows.add(row);
                 }
             }
         }
-
-        // 4. 处理最后一行
-        if (!currentRow.getFields().isEmpty()) {
-            zone.addRow(currentRow);
-        }
+        return GreedyLayoutAlgorithm.calculateStats(packing.name(), dataRows);
     }
 
     /**
-     * 计算字段高度(根据内容长度估算)
+     * 按行内字段的实际单元格宽度和字形宽度计算行高后加入分区
      */
-    private double calculateFieldHeight(LayoutField field) {
-        if (field.getValue() == null) {
-            return 8.0;
-        }
-
-        int length = field.getValue().length();
-
-        if (length <= 50) {
-            return 8.0;  // 单行
-        } else if (length <= 100) {
-            return 12.0;  // 约1.5行
-        } else if (length <= 150) {
-            return 16.0;  // 约2行
-        } else {
-            // 超长文本,按每50字符约8mm计算
-            return Math.ceil(length / 50.0) * 8.0;
+    private void addDataRow(LayoutZone zone, LayoutRow row, float tableWidth) {
+        // 高于一页的行(如超长的工作职责)拆成多个续行,每行都能放进一页
+        for (LayoutRow part : rowMetrics.splitRow(row, tableWidth, rowMetrics.maxLinesPerRow())) {
+            zone.addRow(part);
         }
     }
 
     /**
-     * 格式化日期
+     * 一次布局计算使用的字段配置快照和行填充策略
      */
-    private String formatDate(java.time.LocalDate date) {
-        if (date == null) {
-            return null;
-        }
-        return date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+    private record LayoutPass(FieldConfigSnapshot fieldConfigs, RowPackingStrategy packing) {
     }
 }
@@ -1,5 +1,6 @@
 package cn.kmdckj.epersonnelarchivegenerator.engine;
 
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutZone;
 import org.springframework.stereotype.Component;
@@ -20,12 +21,23 @@ public class LayoutOptimizer {
     }
 
     /**
-     * 优化整个布局模型
+     * 优化整个布局模型(使用配置的分页方式)
      *
      * @param model 布局模型
      * @return 优化后的模型
      */
     public LayoutModel optimize(LayoutModel model) {
+        return optimize(model, pageBreakCalculator.getDefaultMode());
+    }
+
+    /**
+     * 使用指定的分页方式优化整个布局模型(档案模板可单独配置分页方式)
+     *
+     * @param model          布局模型
+     * @param paginationMode 分页方式
+     * @return 优化后的模型
+     */
+    public LayoutModel optimize(LayoutModel model, LayoutConfig.PaginationMode paginationMode) {
         if (model == null) {
             return model;
         }
@@ -34,7 +46,7 @@ public class LayoutOptimizer {
         optimizeZones(model);
 
         // 2. 计算并插入分页符
-        pageBreakCalculator.insertPageBreaks(model);
+        pageBreakCalculator.insertPageBreaks(model, paginationMode);
 
         // 3. 后处理:调整分页后的间距等
         postProcessAfterPagination(model);
@@ -100,6 +112,7 @@ public class LayoutOptimizer {
                 pageBreakCalculator.getStatistics(model);
         report.pageBreaks = stats.totalPageBreaks;
         report.estimatedPages = stats.estimatedPages;
+        report.splitEntries = stats.splitEntries;
 
         return report;
     }
@@ -113,12 +126,13 @@ public class LayoutOptimizer {
         public double totalHeight = 0.0;
         public int pageBreaks = 0;
         public int estimatedPages = 0;
+        public int splitEntries = 0;
 
         @Override
         public String toString() {
             return String.format(
-                    "OptimizationReport{分区数=%d, 总行数=%d, 总高度=%.2fmm, 分页符=%d, 预估页数=%d}",
-                    totalZones, totalRows, totalHeight, pageBreaks, estimatedPages
+                    "OptimizationReport{分区数=%d, 总行数=%d, 总高度=%.2fmm, 分页符=%d, 预估页数=%d, 跨页条目=%d}",
+                    totalZones, totalRows, totalHeight, pageBreaks, estimatedPages, splitEntries
             );
         }
     }
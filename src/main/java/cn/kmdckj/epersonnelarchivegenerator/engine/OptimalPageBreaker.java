@@ -0,0 +1,124 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最优分页 - 在展平后的行序列上用动态规划选择分页位置,使整体"坏度"最小
+ * <p>
+ * 坏度由以下几项组成(按权重从大到小):
+ * 1. 标题行留在页尾(与内容分离),几乎不允许;
+ * 2. 每一页的固定代价,只为避免大量条目跨页才会多用一页;
+ * 3. 保持组(同一条目的行)跨页,拆开后一侧只剩一行(孤行/寡行)时额外加重;
+ * 4. 末页只有一行内容;
+ * 5. 非末页的留白比例的平方。
+ * <p>
+ * best[j] 表示前 j 行排完且第 j 行前分页的最小坏度。一页能容纳的行在一个滑动窗口内,
+ * 窗口左端随 j 单调右移,总复杂度 O(n·w),w 为一页最多容纳的行数,对行数是线性的。
+ */
+public final class OptimalPageBreaker {
+
+    private static final double TITLE_ORPHAN_PENALTY = 1000000.0; // 标题行留在页尾
+    private static final double PAGE_COST = 10000.0;              // 每一页,高于其余各项之和的常见量级
+    private static final double SPLIT_PENALTY = 300.0;           // 条目跨页
+    private static final double WIDOW_PENALTY = 200.0;           // 条目跨页后一侧只有一行
+    private static final double LONELY_LAST_PAGE_PENALTY = 150.0; // 末页只有一行内容
+    private static final double UNDERFILL_WEIGHT = 100.0;        // 非末页留白比例平方的权重
+    private static final double EPSILON = 1e-6;
+
+    private final double usableHeight;
+
+    /**
+     * @param usableHeight 每页可用高度(mm)
+     */
+    public OptimalPageBreaker(double usableHeight) {
+        this.usableHeight = usableHeight;
+    }
+
+    /**
+     * 计算各页的起始行
+     *
+     * @param rows 不含分页行的行序列
+     * @return 各页起始行下标(升序,第一个为0);rows为空时返回空列表
+     */
+    public List<Integer> pageStarts(List<LayoutRow> rows) {
+        int n = rows.size();
+        List<Integer> starts = new ArrayList<>();
+        if (n == 0) {
+            return starts;
+        }
+
+        // 前缀高度、前缀内容行数,以及每行所在保持组的起止位置
+        double[] height = new double[n + 1];
+        int[] contentRows = new int[n + 1];
+        for (int k = 0; k < n; k++) {
+            LayoutRow row = rows.get(k);
+            height[k + 1] = height[k] + row.getEstimatedHeight();
+            contentRows[k + 1] = contentRows[k] + (row.hasFields() ? 1 : 0);
+        }
+        int[] groupStart = new int[n];
+        int[] groupEnd = new int[n];
+        for (int k = 0; k < n; k++) {
+            groupStart[k] = k > 0 && sameGroup(rows.get(k - 1), rows.get(k)) ? groupStart[k - 1] : k;
+        }
+        for (int k = n - 1; k >= 0; k--) {
+            groupEnd[k] = k < n - 1 && sameGroup(rows.get(k), rows.get(k + 1)) ? groupEnd[k + 1] : k + 1;
+        }
+
+        double[] best = new double[n + 1];
+        int[] pageStart = new int[n + 1];
+        int windowStart = 0;
+        for (int j = 1; j <= n; j++) {
+            // 窗口: 以第 j 行前结束的一页最早可以从哪一行开始(单行超高时独占一页)
+            while (windowStart < j - 1 && height[j] - height[windowStart] > usableHeight + EPSILON) {
+                windowStart++;
+            }
+
+            double breakCost = j < n ? breakPenalty(rows, j, groupStart, groupEnd) : 0.0;
+            best[j] = Double.POSITIVE_INFINITY;
+            for (int i = windowStart; i < j; i++) {
+                double pageCost = PAGE_COST + breakCost;
+                if (j < n) {
+                    double slack = Math.max(0.0, usableHeight - (height[j] - height[i])) / usableHeight;
+                    pageCost += UNDERFILL_WEIGHT * slack * slack;
+                } else if (contentRows[j] - contentRows[i] == 1 && i > 0) {
+                    pageCost += LONELY_LAST_PAGE_PENALTY;
+                }
+                double cost = best[i] + pageCost;
+                if (cost < best[j]) {
+                    best[j] = cost;
+                    pageStart[j] = i;
+                }
+            }
+        }
+
+        for (int j = n; j > 0; j = pageStart[j]) {
+            starts.add(0, pageStart[j]);
+        }
+        return starts;
+    }
+
+    /**
+     * 在第 j 行之前分页的代价
+     */
+    private static double breakPenalty(List<LayoutRow> rows, int j, int[] groupStart, int[] groupEnd) {
+        LayoutRow previous = rows.get(j - 1);
+        if (previous.isTitle()) {
+            return TITLE_ORPHAN_PENALTY;
+        }
+        if (!sameGroup(previous, rows.get(j))) {
+            return 0.0;
+        }
+        double penalty = SPLIT_PENALTY;
+        if (j - groupStart[j - 1] == 1 || groupEnd[j] - j == 1) {
+            penalty += WIDOW_PENALTY;
+        }
+        return penalty;
+    }
+
+    private static boolean sameGroup(LayoutRow a, LayoutRow b) {
+        return a.getKeepGroup() != 0 && a.getKeepGroup() == b.getKeepGroup();
+    }
+}
@@ -0,0 +1,111 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 最优填充 - 保持字段顺序,用动态规划选择换行位置
+ * <p>
+ * 超长字段把字段序列切成若干段,每段独立求解。目标按优先级为:
+ * 1. 行数最少;
+ * 2. 各行剩余宽度的平方和最小(行宽尽量均匀,不把空白集中到个别行)。
+ * <p>
+ * 保持顺序时贪心已经能得到最少行数,本策略的收益是行宽更均匀;
+ * 需要进一步减少行数时使用 {@link ReorderingRowPacker}。
+ * 复杂度 O(n·k),k 为一行最多容纳的字段数。
+ */
+public class OptimalRowPacker implements RowPackingStrategy {
+
+    static final int ROW_WIDTH = LayoutField.FULL_WIDTH;
+
+    @Override
+    public String name() {
+        return "optimal";
+    }
+
+    @Override
+    public List<LayoutRow> pack(List<LayoutField> fields) {
+        List<LayoutRow> rows = new ArrayList<>();
+        if (fields == null || fields.isEmpty()) {
+            return rows;
+        }
+
+        List<LayoutField> segment = new ArrayList<>();
+        for (LayoutField field : fields) {
+            if (field.isLongContent()) {
+                packSegment(segment, rows);
+                segment.clear();
+                field.setWidthBasisPoints(ROW_WIDTH);
+                rows.add(rowOf(List.of(field)));
+                continue;
+            }
+            if (field.getWidthBasisPoints() > ROW_WIDTH) {
+                field.setWidthBasisPoints(ROW_WIDTH);
+            }
+            segment.add(field);
+        }
+        packSegment(segment, rows);
+        return rows;
+    }
+
+    /**
+     * 填充一段不含超长字段的字段序列
+     */
+    protected void packSegment(List<LayoutField> segment, List<LayoutRow> rows) {
+        if (segment.isEmpty()) {
+            return;
+        }
+        for (List<LayoutField> row : solve(segment)) {
+            rows.add(rowOf(row));
+        }
+    }
+
+    /**
+     * 动态规划: best[j] 为前 j 个字段的最优排法,breakAt[j] 为最后一行的起始下标
+     */
+    static List<List<LayoutField>> solve(List<LayoutField> segment) {
+        int n = segment.size();
+        int[] rowCount = new int[n + 1];
+        long[] slackCost = new long[n + 1];
+        int[] breakAt = new int[n + 1];
+
+        for (int j = 1; j <= n; j++) {
+            rowCount[j] = Integer.MAX_VALUE;
+            int width = 0;
+            // 最后一行为 [i, j),从 j-1 向前扩展直到放不下
+            for (int i = j - 1; i >= 0; i--) {
+                width += segment.get(i).getWidthBasisPoints();
+                if (width > ROW_WIDTH && i < j - 1) {
+                    break;
+                }
+                long slack = Math.max(0, ROW_WIDTH - width);
+                int rowsHere = rowCount[i] + 1;
+                long costHere = slackCost[i] + slack * slack;
+                if (rowsHere < rowCount[j] || (rowsHere == rowCount[j] && costHere < slackCost[j])) {
+                    rowCount[j] = rowsHere;
+                    slackCost[j] = costHere;
+                    breakAt[j] = i;
+                }
+            }
+        }
+
+        List<List<LayoutField>> rows = new ArrayList<>(rowCount[n]);
+        for (int j = n; j > 0; j = breakAt[j]) {
+            rows.add(0, new ArrayList<>(segment.subList(breakAt[j], j)));
+        }
+        return rows;
+    }
+
+    static LayoutRow rowOf(List<LayoutField> fields) {
+        LayoutRow row = new LayoutRow();
+        fields.forEach(row::addField);
+        return row;
+    }
+
+    static boolean fits(int usedBasisPoints, LayoutField field) {
+        return usedBasisPoints + field.getWidthBasisPoints() <= ROW_WIDTH;
+    }
+}
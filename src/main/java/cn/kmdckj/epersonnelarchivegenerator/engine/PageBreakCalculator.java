@@ -8,10 +8,12 @@ import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * 自动分页计算器 - 根据内容高度自动插入分页符 (V2 - 统一分页逻辑)
+ * <p>
+ * 分页方式由 archive.layout.pagination.mode 决定(档案模板可单独配置): GREEDY 逐行放入,放不下就分页(只防止标题孤行);
+ * OPTIMAL 使用 {@link OptimalPageBreaker} 整体求解,尽量不拆开条目、不留孤行和只有一行的末页。
  */
 @Component
 public class PageBreakCalculator {
@@ -25,27 +27,115 @@ public class PageBreakCalculator {
     }
 
     /**
-     * 为布局模型插入分页符 (重写后的统一逻辑)
+     * 配置的分页方式
+     */
+    public LayoutConfig.PaginationMode getDefaultMode() {
+        return layoutConfig.getPagination().getMode();
+    }
+
+    /**
+     * 按配置的分页方式为布局模型插入分页符
      *
      * @param model 布局模型
      */
     public void insertPageBreaks(LayoutModel model) {
+        insertPageBreaks(model, getDefaultMode());
+    }
+
+    /**
+     * 为布局模型插入分页符 (重写后的统一逻辑)
+     * 分页位置按所有分区的行整体计算,分页符插回各自的分区: 分区结构和元数据(如照片)保持不变,
+     * 恰好落在分区边界上的分页符放在后一个分区的开头
+     *
+     * @param model 布局模型
+     * @param mode  分页方式
+     */
+    public void insertPageBreaks(LayoutModel model, LayoutConfig.PaginationMode mode) {
         if (model == null || model.getZones() == null || model.getZones().isEmpty()) {
             return;
         }
+        List<LayoutZone> zones = model.getZones();
+
+        // 1. 将所有分区的所有行合并到一个总列表中,记录每行所属的分区
+        int rowCount = 0;
+        for (LayoutZone zone : zones) {
+            rowCount += zone.getRows().size();
+        }
+        List<LayoutRow> allRows = new ArrayList<>(rowCount);
+        int[] zoneOfRow = new int[rowCount];
+        for (int z = 0; z < zones.size(); z++) {
+            for (LayoutRow row : zones.get(z).getRows()) {
+                zoneOfRow[allRows.size()] = z;
+                allRows.add(row);
+            }
+        }
+
+        // 2. 按指定的方式插入分页符(原有的分页符被丢弃)
+        List<LayoutRow> newRows = mode == LayoutConfig.PaginationMode.OPTIMAL
+                ? breakOptimal(allRows)
+                : breakGreedy(allRows);
 
+        // 3. 按原有分区重新分配: 分页符归入其后第一行所在的分区
+        List<List<LayoutRow>> zoneRows = new ArrayList<>(zones.size());
+        for (LayoutZone zone : zones) {
+            zoneRows.add(new ArrayList<>(zone.getRows().size() + 1));
+        }
+        List<LayoutRow> pendingBreaks = new ArrayList<>(1);
+        int source = 0;
+        for (LayoutRow row : newRows) {
+            if (row.isPageBreak()) {
+                pendingBreaks.add(row);
+                continue;
+            }
+            while (allRows.get(source).isPageBreak()) {
+                source++;
+            }
+            List<LayoutRow> target = zoneRows.get(zoneOfRow[source++]);
+            target.addAll(pendingBreaks);
+            pendingBreaks.clear();
+            target.add(row);
+        }
+        zoneRows.get(zones.size() - 1).addAll(pendingBreaks);
+
+        for (int z = 0; z < zones.size(); z++) {
+            zones.get(z).setRows(zoneRows.get(z));
+        }
+    }
+
+    /**
+     * 最优分页: 整体求解分页位置后插入分页符
+     */
+    private List<LayoutRow> breakOptimal(List<LayoutRow> allRows) {
+        List<LayoutRow> rows = new ArrayList<>(allRows.size());
+        for (LayoutRow row : allRows) {
+            if (!row.isPageBreak()) {
+                rows.add(row);
+            }
+        }
+
+        List<Integer> pageStarts = new OptimalPageBreaker(layoutConfig.getPage().getUsableHeight()).pageStarts(rows);
+        List<LayoutRow> newRows = new ArrayList<>(rows.size() + pageStarts.size());
+        int page = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (page + 1 < pageStarts.size() && pageStarts.get(page + 1) == i) {
+                newRows.add(new LayoutRow(true));
+                page++;
+            }
+            newRows.add(rows.get(i));
+        }
+        return newRows;
+    }
+
+    /**
+     * 贪心分页: 逐行放入,当前页放不下时分页
+     */
+    private List<LayoutRow> breakGreedy(List<LayoutRow> allRows) {
         final double usableHeight = layoutConfig.getPage().getUsableHeight();
         double currentPageHeight = 0.0;
 
-        // 1. 将所有分区的所有行合并到一个总列表中
-        List<LayoutRow> allRows = model.getZones().stream()
-                .flatMap(zone -> zone.getRows().stream())
-                .collect(Collectors.toList());
+        List<LayoutRow> newRows = new ArrayList<>(allRows.size());
 
-        // 2. 创建一个新的行列表用于存放包含分页符的结果
-        List<LayoutRow> newRows = new ArrayList<>();
-
-        // 3. 遍历所有行，应用分页逻辑
+        // 遍历所有行，应用分页逻辑
         for (int i = 0; i < allRows.size(); i++) {
             LayoutRow currentRow = allRows.get(i);
             double currentRowHeight = currentRow.getEstimatedHeight();
@@ -75,11 +165,7 @@ public class PageBreakCalculator {
             currentPageHeight += currentRowHeight;
         }
 
-        // 4. 清空旧模型，用包含正确分页符的新行列表重建
-        model.getZones().clear();
-        LayoutZone unifiedZone = new LayoutZone("unified", LayoutZone.ZoneType.BODY_CONTENT);
-        unifiedZone.setRows(newRows);
-        model.addZone(unifiedZone);
+        return newRows;
     }
 
 
@@ -97,16 +183,27 @@ public class PageBreakCalculator {
         double totalHeight = 0.0;
         int totalRows = 0;
         int totalPageBreaks = 0;
+        int splitEntries = 0;
 
         for (LayoutZone zone : model.getZones()) {
             if (zone.getRows() != null) {
+                LayoutRow previous = null;
+                boolean breakPending = false;
                 for (LayoutRow row : zone.getRows()) {
                     if (row.isPageBreak()) {
                         totalPageBreaks++;
-                    } else {
-                        totalRows++;
-                        totalHeight += row.getEstimatedHeight();
+                        breakPending = true;
+                        continue;
+                    }
+                    // 分页符两侧属于同一保持组,说明条目被拆到了两页
+                    if (breakPending && previous != null && previous.getKeepGroup() != 0
+                            && previous.getKeepGroup() == row.getKeepGroup()) {
+                        splitEntries++;
                     }
+                    breakPending = false;
+                    previous = row;
+                    totalRows++;
+                    totalHeight += row.getEstimatedHeight();
                 }
             }
         }
@@ -114,6 +211,7 @@ public class PageBreakCalculator {
         stats.totalHeight = totalHeight;
         stats.totalRows = totalRows;
         stats.totalPageBreaks = totalPageBreaks;
+        stats.splitEntries = splitEntries;
         if (usableHeight > 0) {
             stats.estimatedPages = (int) Math.ceil(totalHeight / usableHeight);
         }
@@ -129,12 +227,13 @@ public class PageBreakCalculator {
         public int totalRows = 0;             // 总行数
         public int totalPageBreaks = 0;       // 分页符数量
         public int estimatedPages = 0;        // 预估页数
+        public int splitEntries = 0;          // 跨页的条目数
 
         @Override
         public String toString() {
             return String.format(
-                    "LayoutStatistics{总高度=%.2fmm, 总行数=%d, 分页符数=%d, 预估页数=%d}",
-                    totalHeight, totalRows, totalPageBreaks, estimatedPages
+                    "LayoutStatistics{总高度=%.2fmm, 总行数=%d, 分页符数=%d, 预估页数=%d, 跨页条目=%d}",
+                    totalHeight, totalRows, totalPageBreaks, estimatedPages, splitEntries
             );
         }
     }
@@ -0,0 +1,75 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * 有限重排填充 - 允许字段在有限窗口内提前,用后面的窄字段填补当前行的空白
+ * <p>
+ * 只在同一组字段内、两个超长字段之间重排。当前行放不下下一个字段时,
+ * 在其后 window 个尚未放置的字段中按顺序找能放下的字段提前填入;
+ * 被跳过的字段保持相对顺序,排在下一行的最前面。
+ * 结果行数不少于保持顺序的最优解时,使用保持顺序的最优解({@link OptimalRowPacker})。
+ */
+public class ReorderingRowPacker extends OptimalRowPacker {
+
+    private final int window;
+
+    /**
+     * @param window 字段最多可提前的位置数,0等同于 {@link OptimalRowPacker}
+     */
+    public ReorderingRowPacker(int window) {
+        if (window < 0) {
+            throw new IllegalArgumentException("重排窗口不能为负数: " + window);
+        }
+        this.window = window;
+    }
+
+    @Override
+    public String name() {
+        return "reorder(" + window + ")";
+    }
+
+    @Override
+    protected void packSegment(List<LayoutField> segment, List<LayoutRow> rows) {
+        if (segment.isEmpty()) {
+            return;
+        }
+        List<List<LayoutField>> inOrder = solve(segment);
+        List<List<LayoutField>> reordered = window > 0 ? fillWithLookahead(segment) : inOrder;
+        for (List<LayoutField> row : reordered.size() < inOrder.size() ? reordered : inOrder) {
+            rows.add(rowOf(row));
+        }
+    }
+
+    private List<List<LayoutField>> fillWithLookahead(List<LayoutField> segment) {
+        List<List<LayoutField>> rows = new ArrayList<>();
+        LinkedList<LayoutField> pending = new LinkedList<>(segment);
+        while (!pending.isEmpty()) {
+            List<LayoutField> row = new ArrayList<>();
+            row.add(pending.removeFirst());
+            int used = row.get(0).getWidthBasisPoints();
+
+            // 第一个放不下的字段之后,最多向后查看 window 个字段
+            ListIterator<LayoutField> iterator = pending.listIterator();
+            int skipped = 0;
+            while (iterator.hasNext() && skipped <= window) {
+                LayoutField candidate = iterator.next();
+                if (fits(used, candidate)) {
+                    iterator.remove();
+                    row.add(candidate);
+                    used += candidate.getWidthBasisPoints();
+                } else {
+                    skipped++;
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
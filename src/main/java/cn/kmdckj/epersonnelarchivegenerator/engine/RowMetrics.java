@@ -0,0 +1,258 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 行度量 - 按档案样式和真实字形宽度计算行高
+ * <p>
+ * 样式常量与 archive.html 的CSS对应,原生渲染器使用同一组常量和单元格宽度算法绘制,
+ * 因此分页计算得到的页数与原生引擎输出一致。高于一页的数据行在布局时按文本行拆开({@link #splitRow}),
+ * 页数完全由分页符决定。长度单位: 常量为pt,行高结果为mm(与 LayoutRow 一致)。
+ */
+@Component
+public class RowMetrics {
+
+    public static final float MM = 72f / 25.4f;                // 1mm对应的pt
+
+    public static final float BODY_FONT_SIZE = 10f;            // body font-size: 10pt
+    public static final float TITLE_FONT_SIZE = 12f;           // .section-title font-size: 12pt
+    public static final float LINE_HEIGHT = 1.2f;              // body line-height: 1.2
+    public static final float CELL_PADDING_V = 2f * MM;        // td padding: 2mm 1mm
+    public static final float CELL_PADDING_H = 2f * MM;        // label右内边距/value左内边距: 2mm
+    public static final float CELL_PADDING_OPPOSITE = 1f * MM; // 另一侧内边距: 1mm
+    public static final float TITLE_PADDING_V = 3f * MM;       // .section-title padding: 3mm 0
+    public static final float TITLE_MARGIN_TOP = 5f * MM;      // .section-title margin-top: 5mm
+    public static final float HEADER_MARGIN_BOTTOM = 5f * MM;  // .header-table margin-bottom: 5mm
+    public static final float LIST_LABEL_RATIO = 0.18f;        // .list-table .label-cell width: 18%
+    public static final float MAX_LABEL_SHARE = 0.45f;         // 多字段行中标签最多占字段宽度的比例
+
+    private final TextMeasurer textMeasurer;
+    private final LayoutConfig layoutConfig;
+
+    public RowMetrics(TextMeasurer textMeasurer, LayoutConfig layoutConfig) {
+        this.textMeasurer = textMeasurer;
+        this.layoutConfig = layoutConfig;
+    }
+
+    /**
+     * 表格宽度(pt): 页面宽度减去左右页边距
+     */
+    public float tableWidth() {
+        LayoutConfig.PageConfig page = layoutConfig.getPage();
+        return (float) (page.getWidth() - page.getMarginLeft() - page.getMarginRight()) * MM;
+    }
+
+    /**
+     * 基础信息区字段行的表格宽度(pt): 有照片时为文本区宽度(照片格占其余宽度),否则为整个表格宽度
+     *
+     * @param hasPhoto 是否显示照片
+     */
+    public float headerTableWidth(boolean hasPhoto) {
+        return hasPhoto
+                ? tableWidth() * (float) (layoutConfig.getZone().getHeaderTextWidthPercent() / 100.0)
+                : tableWidth();
+    }
+
+    /**
+     * 照片格高度(mm): 照片高度加上下内边距,基础信息区不低于此高度
+     */
+    public double photoCellHeight() {
+        return layoutConfig.getZone().getPhotoHeight() + toMm(2 * CELL_PADDING_V);
+    }
+
+    /**
+     * 基础信息区下方的外边距(mm)
+     */
+    public double headerMarginBottom() {
+        return toMm(HEADER_MARGIN_BOTTOM);
+    }
+
+    /**
+     * 第 index 个字段占用的宽度(pt): 按 widthPercent 比例分配整行宽度,最后一列补齐舍入误差
+     *
+     * @param fieldCount 行内字段数
+     * @param index      字段序号
+     * @param field      第 index 个字段
+     * @param tableWidth 表格宽度(pt)
+     * @param usedWidth  行内字段 widthPercent 之和
+     * @param x          该字段左边界相对表格左边界的偏移(pt)
+     */
+    public float fieldWidth(int fieldCount, int index, LayoutField field, float tableWidth, double usedWidth, float x) {
+        if (index == fieldCount - 1) {
+            return tableWidth - x;
+        }
+        if (fieldCount == 1 || field.isForceFullWidth() || usedWidth <= 0) {
+            return tableWidth / fieldCount;
+        }
+        return (float) (tableWidth * field.getWidthPercent() / usedWidth);
+    }
+
+    /**
+     * 标签单元格宽度(pt)
+     */
+    public float labelWidth(float tableWidth, float fieldWidth) {
+        return Math.min(tableWidth * LIST_LABEL_RATIO, fieldWidth * MAX_LABEL_SHARE);
+    }
+
+    /**
+     * 单元格内文本可用宽度(pt)
+     */
+    public float textWidth(float cellWidth) {
+        return cellWidth - CELL_PADDING_H - CELL_PADDING_OPPOSITE;
+    }
+
+    /**
+     * 数据行的文本行数: 行内所有标签和值单元格中最多的折行数
+     */
+    public int dataRowLines(LayoutRow row) {
+        return dataRowLines(row, tableWidth());
+    }
+
+    /**
+     * 按指定表格宽度(pt)计算数据行的文本行数
+     */
+    public int dataRowLines(LayoutRow row, float tableWidth) {
+        int fieldCount = row.getFieldCount();
+        double usedWidth = row.getUsedWidth();
+
+        int lines = 1;
+        float x = 0f;
+        for (int i = 0; i < fieldCount; i++) {
+            LayoutField field = row.getField(i);
+            float fieldWidth = fieldWidth(fieldCount, i, field, tableWidth, usedWidth, x);
+            float labelWidth = labelWidth(tableWidth, fieldWidth);
+            lines = Math.max(lines, textMeasurer.countLines(field.getLabel(), BODY_FONT_SIZE, textWidth(labelWidth)));
+            lines = Math.max(lines, textMeasurer.countLines(field.getValue(), BODY_FONT_SIZE,
+                    textWidth(fieldWidth - labelWidth)));
+            x += fieldWidth;
+        }
+        return lines;
+    }
+
+    /**
+     * 第 index 个字段的值单元格内文本可用宽度(pt),与 {@link #dataRowLines} 的计算一致
+     */
+    public float valueTextWidth(LayoutRow row, int index, float tableWidth) {
+        int fieldCount = row.getFieldCount();
+        double usedWidth = row.getUsedWidth();
+        float x = 0f;
+        for (int i = 0; ; i++) {
+            LayoutField field = row.getField(i);
+            float fieldWidth = fieldWidth(fieldCount, i, field, tableWidth, usedWidth, x);
+            if (i == index) {
+                return textWidth(fieldWidth - labelWidth(tableWidth, fieldWidth));
+            }
+            x += fieldWidth;
+        }
+    }
+
+    /**
+     * 一个数据行最多容纳的文本行数: 行高不超过页面可用高度,更高的行需要拆成多行
+     */
+    public int maxLinesPerRow() {
+        float usable = (float) layoutConfig.getPage().getUsableHeight() * MM;
+        return Math.max(1, (int) ((usable - 2 * CELL_PADDING_V) / (BODY_FONT_SIZE * LINE_HEIGHT) - 1e-3f));
+    }
+
+    /**
+     * 把超过 maxLines 个文本行的数据行按文本行拆成多个续行
+     * 每个字段的值按行内的折行位置切开,续行沿用原字段的宽度,标签只在第一行显示
+     *
+     * @param row        数据行
+     * @param tableWidth 表格宽度(pt)
+     * @param maxLines   每行最多的文本行数
+     * @return 拆分后的行(已计算行高),不需要拆分时只包含原行(同样设置行高)
+     */
+    public List<LayoutRow> splitRow(LayoutRow row, float tableWidth, int maxLines) {
+        int lines = dataRowLines(row, tableWidth);
+        if (lines <= maxLines) {
+            row.setEstimatedHeight(linesHeight(lines));
+            return List.of(row);
+        }
+
+        int fieldCount = row.getFieldCount();
+        int[][] starts = new int[fieldCount][];
+        int parts = 1;
+        for (int i = 0; i < fieldCount; i++) {
+            starts[i] = textMeasurer.lineStarts(row.getField(i).getValue(), BODY_FONT_SIZE,
+                    valueTextWidth(row, i, tableWidth));
+            parts = Math.max(parts, (starts[i].length + maxLines - 1) / maxLines);
+        }
+
+        List<LayoutRow> result = new ArrayList<>(parts);
+        for (int part = 0; part < parts; part++) {
+            LayoutRow slice = new LayoutRow();
+            slice.setKeepGroup(row.getKeepGroup());
+            for (int i = 0; i < fieldCount; i++) {
+                LayoutField field = row.getField(i).copy();
+                if (part > 0) {
+                    field.setLabel("");
+                }
+                field.setValue(lineSlice(field.getValue(), starts[i], part * maxLines, maxLines));
+                slice.addField(field);
+            }
+            slice.setEstimatedHeight(dataRowHeight(slice, tableWidth));
+            result.add(slice);
+        }
+        return result;
+    }
+
+    private static String lineSlice(String text, int[] starts, int firstLine, int lineCount) {
+        if (text == null || firstLine >= starts.length) {
+            return "";
+        }
+        int end = firstLine + lineCount < starts.length ? starts[firstLine + lineCount] : text.length();
+        String slice = text.substring(starts[firstLine], end);
+        // 结束本段最后一行的换行符不再产生空行
+        return slice.endsWith("\n") ? slice.substring(0, slice.length() - 1) : slice;
+    }
+
+    /**
+     * 数据行高度(mm)
+     */
+    public double dataRowHeight(LayoutRow row) {
+        return dataRowHeight(row, tableWidth());
+    }
+
+    /**
+     * 按指定表格宽度(pt)计算数据行高度(mm)
+     */
+    public double dataRowHeight(LayoutRow row, float tableWidth) {
+        return linesHeight(dataRowLines(row, tableWidth));
+    }
+
+    private double linesHeight(int lines) {
+        return toMm(lines * BODY_FONT_SIZE * LINE_HEIGHT + 2 * CELL_PADDING_V);
+    }
+
+    /**
+     * 单行数据行高度(mm)
+     */
+    public double singleLineRowHeight() {
+        return toMm(BODY_FONT_SIZE * LINE_HEIGHT + 2 * CELL_PADDING_V);
+    }
+
+    /**
+     * 分区标题高度(mm),包含标题上方的外边距
+     */
+    public double titleRowHeight() {
+        return toMm(TITLE_FONT_SIZE * LINE_HEIGHT + 2 * TITLE_PADDING_V + TITLE_MARGIN_TOP);
+    }
+
+    /**
+     * 分隔行高度(mm): 模板中渲染为空表格,不占可见高度
+     */
+    public double separatorRowHeight() {
+        return 0.0;
+    }
+
+    private static double toMm(float pt) {
+        return pt / MM;
+    }
+}
@@ -0,0 +1,43 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+
+import java.util.List;
+
+/**
+ * 行填充策略 - 把一组字段(同一 FieldGroup 的一个条目)排入若干行
+ * <p>
+ * 所有策略都遵守同样的约束: 超长字段(含强制独占行)独占一行且宽度设为100%,
+ * 不跨越超长字段调整顺序;单个字段宽度超过一行时独占一行。
+ */
+public interface RowPackingStrategy {
+
+    /**
+     * 策略名称(用于统计和日志)
+     */
+    String name();
+
+    /**
+     * 填充字段
+     *
+     * @param fields 按显示顺序排列的字段
+     * @return 行列表(行高由调用方计算)
+     */
+    List<LayoutRow> pack(List<LayoutField> fields);
+
+    /**
+     * 按配置创建策略
+     *
+     * @param config 行填充配置
+     * @return 行填充策略
+     */
+    static RowPackingStrategy of(LayoutConfig.PackingConfig config) {
+        return switch (config.getStrategy()) {
+            case GREEDY -> new GreedyRowPacker();
+            case OPTIMAL -> new OptimalRowPacker();
+            case REORDER -> new ReorderingRowPacker(config.getReorderWindow());
+        };
+    }
+}
@@ -0,0 +1,215 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.util.FontManager;
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 文本测量器 - 按字体的真实字形宽度测量文本宽度和折行行数
+ * <p>
+ * 基本多文种平面(BMP)内每个码点的字形宽度缓存在一张 short 表中(单位: 1/1000 em,与PDFBox一致),
+ * 测量过程只查表和累加,不创建任何对象。字体中没有的字形按 '?' 的宽度计算(与原生渲染器的替换规则一致)。
+ * 字体不可用时按原生渲染器的回退字体 Helvetica 测量。
+ */
+@Component
+public class TextMeasurer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TextMeasurer.class);
+
+    private static final int BMP_SIZE = 0x10000;
+    private static final short UNCOMPUTED = Short.MIN_VALUE;  // 回退字体按需计算
+    private static final short MISSING = -1;                  // 字体中没有该字形
+
+    private final TrueTypeFont font;
+    private final CmapLookup cmap;
+    private final int unitsPerEm;
+    private final short[] advanceWidths = new short[BMP_SIZE];
+    private final short replacementWidth;
+
+    public TextMeasurer(FontManager fontManager) {
+        long startTime = System.nanoTime();
+        TrueTypeFont sharedFont = fontManager.getSharedFont();
+        CmapLookup lookup = null;
+        int upem = 1000;
+        if (sharedFont != null) {
+            try {
+                lookup = sharedFont.getUnicodeCmapLookup();
+                upem = sharedFont.getUnitsPerEm();
+            } catch (IOException e) {
+                logger.warn("读取字体度量失败,按回退字体测量文本: {}", e.getMessage());
+                lookup = null;
+            }
+        }
+        this.font = lookup != null ? sharedFont : null;
+        this.cmap = lookup;
+        this.unitsPerEm = upem;
+
+        if (font != null) {
+            for (int codePoint = 0; codePoint < BMP_SIZE; codePoint++) {
+                advanceWidths[codePoint] = computeFontWidth(codePoint);
+            }
+        } else {
+            Arrays.fill(advanceWidths, UNCOMPUTED);
+        }
+        short questionMark = advance('?');
+        this.replacementWidth = questionMark >= 0 ? questionMark : 0;
+
+        logger.info("文本测量表初始化完成, 字体: {}, 耗时: {} ms",
+                font != null ? fontManager.getFontFamily() : "Helvetica(回退)", (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * 字形宽度(1/1000 em),字体中没有该字形时返回-1
+     */
+    public short advance(int codePoint) {
+        if (codePoint < 0) {
+            return MISSING;
+        }
+        if (codePoint >= BMP_SIZE) {
+            return font != null ? computeFontWidth(codePoint) : MISSING;
+        }
+        short width = advanceWidths[codePoint];
+        if (width == UNCOMPUTED) {
+            width = computeFallbackWidth(codePoint);
+            advanceWidths[codePoint] = width;  // 幂等写入,并发下重复计算无害
+        }
+        return width;
+    }
+
+    /**
+     * 判断字体中是否有该字形
+     */
+    public boolean canDisplay(int codePoint) {
+        return advance(codePoint) >= 0;
+    }
+
+    /**
+     * 测量文本宽度(pt),缺失字形按 '?' 计算
+     */
+    public float textWidth(CharSequence text, float fontSize) {
+        if (text == null) {
+            return 0f;
+        }
+        int total = 0;
+        for (int i = 0, length = text.length(); i < length; ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            total += displayWidth(codePoint);
+        }
+        return total / 1000f * fontSize;
+    }
+
+    /**
+     * 计算文本在指定宽度内按字符折行后的行数(换行符强制换行,空文本算一行)
+     * 折行规则与原生渲染器一致: 任意字符处可断行,一行至少放一个字符
+     *
+     * @param text     文本
+     * @param fontSize 字号(pt)
+     * @param maxWidth 可用宽度(pt)
+     * @return 行数
+     */
+    public int countLines(CharSequence text, float fontSize, float maxWidth) {
+        if (text == null || text.length() == 0) {
+            return 1;
+        }
+        // 在整数单位下比较,避免逐字符的浮点换算
+        float limit = maxWidth * 1000f / fontSize;
+        int lines = 1;
+        int lineWidth = 0;
+        boolean lineEmpty = true;
+        for (int i = 0, length = text.length(); i < length; ) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+
+            if (codePoint == '\n') {
+                lines++;
+                lineWidth = 0;
+                lineEmpty = true;
+                continue;
+            }
+
+            int width = displayWidth(codePoint);
+            if (lineWidth + width > limit && !lineEmpty) {
+                lines++;
+                lineWidth = 0;
+            }
+            lineWidth += width;
+            lineEmpty = false;
+        }
+        return lines;
+    }
+
+    /**
+     * 计算文本按 {@link #countLines} 的规则折行后每行的起始下标
+     * 换行符属于它结束的那一行,下一行从换行符之后开始
+     *
+     * @param text     文本
+     * @param fontSize 字号(pt)
+     * @param maxWidth 可用宽度(pt)
+     * @return 各行起始下标,长度等于 countLines 的结果
+     */
+    public int[] lineStarts(CharSequence text, float fontSize, float maxWidth) {
+        int[] starts = new int[countLines(text, fontSize, maxWidth)];
+        if (text == null || text.length() == 0) {
+            return starts;
+        }
+        float limit = maxWidth * 1000f / fontSize;
+        int line = 1;
+        int lineWidth = 0;
+        boolean lineEmpty = true;
+        for (int i = 0, length = text.length(); i < length; ) {
+            int start = i;
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+
+            if (codePoint == '\n') {
+                starts[line++] = i;
+                lineWidth = 0;
+                lineEmpty = true;
+                continue;
+            }
+
+            int width = displayWidth(codePoint);
+            if (lineWidth + width > limit && !lineEmpty) {
+                starts[line++] = start;
+                lineWidth = 0;
+            }
+            lineWidth += width;
+            lineEmpty = false;
+        }
+        return starts;
+    }
+
+    private int displayWidth(int codePoint) {
+        short width = advance(codePoint);
+        return width >= 0 ? width : replacementWidth;
+    }
+
+    private short computeFontWidth(int codePoint) {
+        try {
+            int glyphId = cmap.getGlyphId(codePoint);
+            if (glyphId == 0) {
+                return MISSING;
+            }
+            return (short) Math.min(Short.MAX_VALUE, Math.round(font.getAdvanceWidth(glyphId) * 1000f / unitsPerEm));
+        } catch (IOException e) {
+            return MISSING;
+        }
+    }
+
+    private short computeFallbackWidth(int codePoint) {
+        try {
+            float width = PDType1Font.HELVETICA.getStringWidth(new String(Character.toChars(codePoint)));
+            return (short) Math.min(Short.MAX_VALUE, Math.round(width));
+        } catch (IllegalArgumentException | IOException e) {
+            return MISSING;
+        }
+    }
+}
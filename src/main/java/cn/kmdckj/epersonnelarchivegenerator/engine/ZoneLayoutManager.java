@@ -1,6 +1,7 @@
 package cn.kmdckj.epersonnelarchivegenerator.engine;
 
 import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutZone;
 import org.springframework.stereotype.Component;
@@ -65,13 +66,12 @@ public class ZoneLayoutManager {
 
         for (LayoutRow row : zone.getRows()) {
             // 调整行内字段的宽度百分比,基于文本区而非全页宽
-            double rowUsedWidth = row.getUsedWidth();
-            if (rowUsedWidth > 0) {
+            if (row.getUsedBasisPoints() > 0) {
                 // 将字段宽度映射到75%的文本区
-                for (var field : row.getFields()) {
-                    double originalWidth = field.getWidthPercent();
+                for (int i = 0; i < row.getFieldCount(); i++) {
+                    double originalWidth = row.getField(i).getWidthPercent();
                     double adjustedWidth = (originalWidth / 100.0) * textAreaWidth;
-                    field.setWidthPercent(adjustedWidth);
+                    row.setFieldWidth(i, LayoutField.toBasisPoints(adjustedWidth));
                 }
             }
         }
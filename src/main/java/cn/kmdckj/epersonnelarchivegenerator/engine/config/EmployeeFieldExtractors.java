@@ -0,0 +1,85 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine.config;
+
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 员工档案各字段分组的提取器 - 字段键与员工数据取值函数的绑定
+ */
+@Component
+public class EmployeeFieldExtractors {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final FieldExtractor<Employee> basicInfo;
+    private final FieldExtractor<Employee.WorkExperience> workExperience;
+    private final FieldExtractor<Employee.Education> education;
+    private final FieldExtractor<Employee.FamilyMember> family;
+
+    public EmployeeFieldExtractors() {
+        this.basicInfo = FieldExtractor.<Employee>builder(FieldConfigRegistry.FieldGroup.BASIC_INFO)
+                .bind("name", Employee::getName)
+                .bind("gender", Employee::getGender)
+                .bind("birthDate", employee -> formatDate(employee.getBirthDate()))
+                .bind("nation", Employee::getNation)
+                .bind("idCard", Employee::getIdCard)
+                .bind("politicalStatus", Employee::getPoliticalStatus)
+                .bind("maritalStatus", Employee::getMaritalStatus)
+                .bind("phone", Employee::getPhone)
+                .bind("email", Employee::getEmail)
+                .bind("nativePlace", Employee::getNativePlace)
+                .bind("currentAddress", Employee::getCurrentAddress)
+                .bind("emergencyContact", Employee::getEmergencyContact)
+                .bind("emergencyPhone", Employee::getEmergencyPhone)
+                .build();
+
+        this.workExperience = FieldExtractor.<Employee.WorkExperience>builder(
+                        FieldConfigRegistry.FieldGroup.WORK_EXPERIENCE)
+                .bind("workStartDate", exp -> formatDate(exp.getStartDate()))
+                .bind("workEndDate", exp -> exp.getEndDate() != null ? formatDate(exp.getEndDate()) : "至今")
+                .bind("company", Employee.WorkExperience::getCompany)
+                .bind("position", Employee.WorkExperience::getPosition)
+                .bind("duties", Employee.WorkExperience::getDuties)
+                .build();
+
+        this.education = FieldExtractor.<Employee.Education>builder(
+                        FieldConfigRegistry.FieldGroup.EDUCATION)
+                .bind("eduStartDate", edu -> formatDate(edu.getStartDate()))
+                .bind("eduEndDate", edu -> formatDate(edu.getEndDate()))
+                .bind("school", Employee.Education::getSchool)
+                .bind("major", Employee.Education::getMajor)
+                .bind("degree", Employee.Education::getDegree)
+                .build();
+
+        this.family = FieldExtractor.<Employee.FamilyMember>builder(
+                        FieldConfigRegistry.FieldGroup.FAMILY)
+                .bind("relation", Employee.FamilyMember::getRelation)
+                .bind("familyName", Employee.FamilyMember::getName)
+                .bind("age", member -> member.getAge() != null ? member.getAge().toString() : null)
+                .bind("workUnit", Employee.FamilyMember::getWorkUnit)
+                .build();
+    }
+
+    public FieldExtractor<Employee> basicInfo() {
+        return basicInfo;
+    }
+
+    public FieldExtractor<Employee.WorkExperience> workExperience() {
+        return workExperience;
+    }
+
+    public FieldExtractor<Employee.Education> education() {
+        return education;
+    }
+
+    public FieldExtractor<Employee.FamilyMember> family() {
+        return family;
+    }
+
+    private static String formatDate(LocalDate date) {
+        return date != null ? date.format(DATE_FORMATTER) : null;
+    }
+}
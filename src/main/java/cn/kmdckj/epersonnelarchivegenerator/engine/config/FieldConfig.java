@@ -2,15 +2,17 @@ package cn.kmdckj.epersonnelarchivegenerator.engine.config;
 
 /**
  * 字段配置 - 定义每个字段的显示规则
+ * <p>
+ * 不可变: 同一配置快照中的字段配置被所有布局共享,修改规则时通过 required/type 等方法得到新对象
  */
-public class FieldConfig {
-    private String fieldKey;           // 字段键
-    private String label;              // 显示标签
-    private double widthPercent;       // 默认占用宽度百分比
-    private boolean required;          // 是否必填(必填字段即使为空也显示)
-    private boolean forceFullWidth;    // 是否强制独占一行
-    private FieldConfig.FieldType type; // 字段类型
-    private int maxLength;             // 最大长度(超过则视为长文本)
+public final class FieldConfig {
+    private final String fieldKey;           // 字段键
+    private final String label;              // 显示标签
+    private final double widthPercent;       // 默认占用宽度百分比
+    private final boolean required;          // 是否必填(必填字段即使为空也显示)
+    private final boolean forceFullWidth;    // 是否强制独占一行
+    private final FieldConfig.FieldType type; // 字段类型
+    private final int maxLength;             // 最大长度(超过则视为长文本)
 
     public enum FieldType {
         TEXT,
@@ -22,33 +24,34 @@ public class FieldConfig {
     }
 
     public FieldConfig(String fieldKey, String label, double widthPercent) {
+        this(fieldKey, label, widthPercent, false, false, FieldType.TEXT, 50);
+    }
+
+    public FieldConfig(String fieldKey, String label, double widthPercent, boolean required,
+                       boolean forceFullWidth, FieldType type, int maxLength) {
         this.fieldKey = fieldKey;
         this.label = label;
         this.widthPercent = widthPercent;
-        this.required = false;
-        this.forceFullWidth = false;
-        this.type = FieldType.TEXT;
-        this.maxLength = 50;
+        this.required = required;
+        this.forceFullWidth = forceFullWidth;
+        this.type = type;
+        this.maxLength = maxLength;
     }
 
     public FieldConfig required(boolean required) {
-        this.required = required;
-        return this;
+        return new FieldConfig(fieldKey, label, widthPercent, required, forceFullWidth, type, maxLength);
     }
 
     public FieldConfig forceFullWidth(boolean forceFullWidth) {
-        this.forceFullWidth = forceFullWidth;
-        return this;
+        return new FieldConfig(fieldKey, label, widthPercent, required, forceFullWidth, type, maxLength);
     }
 
     public FieldConfig type(FieldType type) {
-        this.type = type;
-        return this;
+        return new FieldConfig(fieldKey, label, widthPercent, required, forceFullWidth, type, maxLength);
     }
 
     public FieldConfig maxLength(int maxLength) {
-        this.maxLength = maxLength;
-        return this;
+        return new FieldConfig(fieldKey, label, widthPercent, required, forceFullWidth, type, maxLength);
     }
 
     /**
@@ -75,55 +78,27 @@ public class FieldConfig {
         return fieldKey;
     }
 
-    public void setFieldKey(String fieldKey) {
-        this.fieldKey = fieldKey;
-    }
-
     public String getLabel() {
         return label;
     }
 
-    public void setLabel(String label) {
-        this.label = label;
-    }
-
     public double getWidthPercent() {
         return widthPercent;
     }
 
-    public void setWidthPercent(double widthPercent) {
-        this.widthPercent = widthPercent;
-    }
-
     public boolean isRequired() {
         return required;
     }
 
-    public void setRequired(boolean required) {
-        this.required = required;
-    }
-
     public boolean isForceFullWidth() {
         return forceFullWidth;
     }
 
-    public void setForceFullWidth(boolean forceFullWidth) {
-        this.forceFullWidth = forceFullWidth;
-    }
-
     public FieldType getType() {
         return type;
     }
 
-    public void setType(FieldType type) {
-        this.type = type;
-    }
-
     public int getMaxLength() {
         return maxLength;
     }
-
-    public void setMaxLength(int maxLength) {
-        this.maxLength = maxLength;
-    }
 }
@@ -0,0 +1,112 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine.config;
+
+import org.springframework.core.io.Resource;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 字段配置加载器 - 解析并校验YAML格式的字段配置,任一字段无效时整体失败
+ */
+final class FieldConfigLoader {
+
+    private static final Set<String> ATTRIBUTES =
+            Set.of("label", "width", "required", "force-full-width", "type", "max-length");
+
+    private FieldConfigLoader() {
+    }
+
+    /**
+     * 加载字段配置
+     *
+     * @param resource 配置文件
+     * @return 按文件顺序排列的字段配置(字段键 → 配置)
+     * @throws IllegalArgumentException 文件无法读取或内容无效
+     */
+    static Map<String, FieldConfig> load(Resource resource) {
+        Object root;
+        try (InputStream is = resource.getInputStream()) {
+            root = new Yaml().load(is);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("读取字段配置失败: " + resource.getDescription(), e);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("字段配置不是有效的YAML: " + e.getMessage(), e);
+        }
+
+        if (!(root instanceof Map<?, ?> rootMap) || !(rootMap.get("fields") instanceof Map<?, ?> fields)) {
+            throw new IllegalArgumentException("字段配置缺少 fields 节点: " + resource.getDescription());
+        }
+
+        Map<String, FieldConfig> configs = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : fields.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            if (!(entry.getValue() instanceof Map<?, ?> attributes)) {
+                throw new IllegalArgumentException("字段配置格式错误: " + key);
+            }
+            configs.put(key, parse(key, attributes));
+        }
+        return configs;
+    }
+
+    private static FieldConfig parse(String key, Map<?, ?> attributes) {
+        for (Object name : attributes.keySet()) {
+            if (!ATTRIBUTES.contains(String.valueOf(name))) {
+                throw new IllegalArgumentException("字段 " + key + " 含未知属性: " + name);
+            }
+        }
+
+        if (!(attributes.get("label") instanceof String label)) {
+            throw new IllegalArgumentException("字段 " + key + " 缺少 label");
+        }
+        double width = number(key, attributes, "width", -1).doubleValue();
+        if (width <= 0 || width > 100) {
+            throw new IllegalArgumentException("字段 " + key + " 的 width 必须在 (0, 100] 之间: " + width);
+        }
+        int maxLength = number(key, attributes, "max-length", 50).intValue();
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("字段 " + key + " 的 max-length 必须大于0: " + maxLength);
+        }
+
+        FieldConfig.FieldType type = FieldConfig.FieldType.TEXT;
+        Object typeName = attributes.get("type");
+        if (typeName != null) {
+            try {
+                type = FieldConfig.FieldType.valueOf(String.valueOf(typeName).trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("字段 " + key + " 的 type 无效: " + typeName);
+            }
+        }
+
+        return new FieldConfig(key, label, width,
+                flag(key, attributes, "required"),
+                flag(key, attributes, "force-full-width"),
+                type, maxLength);
+    }
+
+    private static Number number(String key, Map<?, ?> attributes, String name, Number defaultValue) {
+        Object value = attributes.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number number)) {
+            throw new IllegalArgumentException("字段 " + key + " 的 " + name + " 不是数字: " + value);
+        }
+        return number;
+    }
+
+    private static boolean flag(String key, Map<?, ?> attributes, String name) {
+        Object value = attributes.get(name);
+        if (value == null) {
+            return false;
+        }
+        if (!(value instanceof Boolean bool)) {
+            throw new IllegalArgumentException("字段 " + key + " 的 " + name + " 不是布尔值: " + value);
+        }
+        return bool;
+    }
+}
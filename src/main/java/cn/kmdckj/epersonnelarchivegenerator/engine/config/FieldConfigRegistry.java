@@ -1,125 +1,108 @@
 package cn.kmdckj.epersonnelarchivegenerator.engine.config;
 
+import cn.kmdckj.epersonnelarchivegenerator.config.FieldDefinitionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
  * 字段配置注册表 - 管理所有字段的配置规则
+ * <p>
+ * 字段配置从 archive.fields.location 指定的YAML文件加载为不可变的 {@link FieldConfigSnapshot}。
+ * 重新加载时整体替换快照(写时复制),新配置校验失败时保留原快照;
+ * 一次布局计算应只调用一次 {@link #getSnapshot()},整个过程看到一致的配置。
  */
 @Component
 public class FieldConfigRegistry {
 
-    private final Map<String, FieldConfig> configMap;
+    private static final Logger logger = LoggerFactory.getLogger(FieldConfigRegistry.class);
 
-    public FieldConfigRegistry() {
-        this.configMap = new LinkedHashMap<>();
-        initializeConfigs();
+    private final Resource resource;
+    private final boolean watch;
+    private volatile FieldConfigSnapshot snapshot;
+    private long lastModified;  // 最近一次加载(或尝试加载)时文件的修改时间
+
+    public FieldConfigRegistry(FieldDefinitionConfig definitionConfig, ResourceLoader resourceLoader) {
+        this.resource = resourceLoader.getResource(definitionConfig.getLocation());
+        this.watch = definitionConfig.isWatch();
+        this.lastModified = lastModified();
+        this.snapshot = FieldConfigSnapshot.initial(FieldConfigLoader.load(resource));
+        logger.info("字段配置已加载, 来源: {}, 字段数: {}, 摘要: {}",
+                resource.getDescription(), snapshot.size(), snapshot.getDigest().substring(0, 12));
     }
 
     /**
-     * 初始化所有字段配置
+     * 获取当前配置快照
      */
-    private void initializeConfigs() {
-        // 基础信息字段配置
-        register(new FieldConfig("name", "姓名:", 25.0)
-                .required(true));
-
-        register(new FieldConfig("gender", "性别:", 25.0));
-
-        register(new FieldConfig("birthDate", "出生日期:", 25.0)
-                .type(FieldConfig.FieldType.DATE));
-
-        register(new FieldConfig("nation", "民族:", 25.0));
-
-        register(new FieldConfig("idCard", "身份证号:", 50.0)
-                .type(FieldConfig.FieldType.ID_CARD));
-
-        register(new FieldConfig("politicalStatus", "政治面貌:", 25.0));
-
-        register(new FieldConfig("maritalStatus", "婚姻状况:", 25.0));
-
-        register(new FieldConfig("phone", "联系电话:", 33.0)
-                .type(FieldConfig.FieldType.PHONE));
-
-        register(new FieldConfig("email", "电子邮箱:", 33.0)
-                .type(FieldConfig.FieldType.EMAIL));
-
-        register(new FieldConfig("nativePlace", "籍贯:", 50.0));
-
-        register(new FieldConfig("currentAddress", "现居住地:", 100.0)
-                .forceFullWidth(true)
-                .maxLength(30));
-
-        register(new FieldConfig("emergencyContact", "紧急联系人:", 33.0));
-
-        register(new FieldConfig("emergencyPhone", "紧急联系电话:", 33.0)
-                .type(FieldConfig.FieldType.PHONE));
-
-        // 工作经历字段配置
-        register(new FieldConfig("workStartDate", "起始日期:", 25.0)
-                .type(FieldConfig.FieldType.DATE));
-
-        register(new FieldConfig("workEndDate", "结束日期:", 25.0)
-                .type(FieldConfig.FieldType.DATE));
-
-        register(new FieldConfig("company", "工作单位:", 50.0));
-
-        register(new FieldConfig("position", "职位:", 50.0));
-
-        register(new FieldConfig("duties", "工作职责:", 100.0)
-                .type(FieldConfig.FieldType.LONG_TEXT)
-                .forceFullWidth(true));
-
-        // 教育经历字段配置
-        register(new FieldConfig("eduStartDate", "起始日期:", 25.0)
-                .type(FieldConfig.FieldType.DATE));
-
-        register(new FieldConfig("eduEndDate", "结束日期:", 25.0)
-                .type(FieldConfig.FieldType.DATE));
-
-        register(new FieldConfig("school", "学校:", 50.0));
-
-        register(new FieldConfig("major", "专业:", 33.0));
-
-        register(new FieldConfig("degree", "学历:", 33.0));
-
-        // 家庭成员字段配置
-        register(new FieldConfig("relation", "关系:", 25.0));
-
-        register(new FieldConfig("familyName", "姓名:", 25.0));
-
-        register(new FieldConfig("age", "年龄:", 25.0));
-
-        register(new FieldConfig("workUnit", "工作单位:", 50.0));
+    public FieldConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     /**
-     * 注册字段配置
+     * 获取当前配置版本
      */
-    public void register(FieldConfig config) {
-        configMap.put(config.getFieldKey(), config);
+    public long getVersion() {
+        return snapshot.getVersion();
     }
 
     /**
-     * 获取字段配置
+     * 重新加载字段配置,内容未变化时保留当前快照和版本
+     *
+     * @return 加载后的当前快照
+     * @throws IllegalArgumentException 配置文件无法读取或内容无效(当前快照不变)
      */
-    public FieldConfig getConfig(String fieldKey) {
-        return configMap.get(fieldKey);
+    public synchronized FieldConfigSnapshot reload() {
+        lastModified = lastModified();
+        FieldConfigSnapshot previous = snapshot;
+        FieldConfigSnapshot next = previous.next(FieldConfigLoader.load(resource));
+        if (next != previous) {
+            snapshot = next;
+            List<FieldGroup> changed = new ArrayList<>();
+            for (FieldGroup group : FieldGroup.values()) {
+                if (next.getGroupVersion(group) == next.getVersion()) {
+                    changed.add(group);
+                }
+            }
+            logger.info("字段配置已更新, 版本: {} -> {}, 变化的分组: {}",
+                    previous.getVersion(), next.getVersion(), changed);
+        }
+        return next;
     }
 
     /**
-     * 获取指定分组的字段配置列表
+     * 定时检查配置文件的修改时间,变化时重新加载
      */
-    public List<FieldConfig> getConfigsByGroup(FieldGroup group) {
-        List<FieldConfig> configs = new ArrayList<>();
-        for (String key : group.getFieldKeys()) {
-            FieldConfig config = configMap.get(key);
-            if (config != null) {
-                configs.add(config);
+    @Scheduled(fixedDelayString = "${archive.fields.watch-interval-ms:10000}",
+            initialDelayString = "${archive.fields.watch-interval-ms:10000}")
+    public void checkForChanges() {
+        if (!watch) {
+            return;
+        }
+        long modified = lastModified();
+        synchronized (this) {
+            if (modified == lastModified) {
+                return;
             }
         }
-        return configs;
+        try {
+            reload();
+        } catch (IllegalArgumentException e) {
+            logger.error("字段配置重新加载失败, 继续使用版本 {}: {}", snapshot.getVersion(), e.getMessage());
+        }
+    }
+
+    private long lastModified() {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;  // 无法获取修改时间(如jar内资源),只能手动重新加载
+        }
     }
 
     /**
@@ -0,0 +1,150 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine.config;
+
+import cn.kmdckj.epersonnelarchivegenerator.util.ContentDigest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 字段配置快照 - 某一时刻全部字段配置的不可变视图
+ * <p>
+ * 重新加载时生成新快照整体替换,已经开始的布局计算继续使用取到的旧快照。
+ * 快照版本只在内容变化时递增;每个字段分组另有版本,只在该分组的配置变化时更新为新快照的版本,
+ * 布局缓存按分组版本区分,修改一个分组的配置不会使其他分组的缓存失效。
+ * 内容摘要与版本不同,在重启后保持不变,可用于持久化的指纹。
+ */
+public final class FieldConfigSnapshot {
+
+    private static final FieldConfigRegistry.FieldGroup[] GROUPS = FieldConfigRegistry.FieldGroup.values();
+
+    private final long version;
+    private final String digest;
+    private final Map<String, FieldConfig> configs;
+    private final Map<FieldConfigRegistry.FieldGroup, List<FieldConfig>> groupConfigs;
+    private final String[] groupDigests;   // 按分组序号
+    private final long[] groupVersions;    // 按分组序号
+
+    private FieldConfigSnapshot(long version, String digest, Map<String, FieldConfig> configs,
+                                Map<FieldConfigRegistry.FieldGroup, List<FieldConfig>> groupConfigs,
+                                String[] groupDigests, long[] groupVersions) {
+        this.version = version;
+        this.digest = digest;
+        this.configs = configs;
+        this.groupConfigs = groupConfigs;
+        this.groupDigests = groupDigests;
+        this.groupVersions = groupVersions;
+    }
+
+    /**
+     * 创建初始快照(版本1)
+     */
+    static FieldConfigSnapshot initial(Map<String, FieldConfig> configs) {
+        return build(configs, null);
+    }
+
+    /**
+     * 基于当前快照创建新快照,内容未变化时返回当前快照
+     */
+    FieldConfigSnapshot next(Map<String, FieldConfig> configs) {
+        return build(configs, this);
+    }
+
+    private static FieldConfigSnapshot build(Map<String, FieldConfig> source, FieldConfigSnapshot previous) {
+        Map<String, FieldConfig> configs = Collections.unmodifiableMap(new LinkedHashMap<>(source));
+
+        ContentDigest all = ContentDigest.sha256();
+        for (FieldConfig config : new TreeMap<>(configs).values()) {
+            add(all, config);
+        }
+        String digest = all.toHex();
+        if (previous != null && previous.digest.equals(digest)) {
+            return previous;
+        }
+
+        long version = previous == null ? 1 : previous.version + 1;
+        Map<FieldConfigRegistry.FieldGroup, List<FieldConfig>> groupConfigs =
+                new EnumMap<>(FieldConfigRegistry.FieldGroup.class);
+        String[] groupDigests = new String[GROUPS.length];
+        long[] groupVersions = new long[GROUPS.length];
+        for (FieldConfigRegistry.FieldGroup group : GROUPS) {
+            List<FieldConfig> list = new ArrayList<>(group.getFieldKeys().size());
+            ContentDigest groupDigest = ContentDigest.sha256();
+            for (String key : group.getFieldKeys()) {
+                FieldConfig config = configs.get(key);
+                if (config != null) {
+                    list.add(config);
+                    add(groupDigest, config);
+                } else {
+                    groupDigest.add(key).add(-1L);
+                }
+            }
+            int g = group.ordinal();
+            groupConfigs.put(group, List.copyOf(list));
+            groupDigests[g] = groupDigest.toHex();
+            groupVersions[g] = previous != null && previous.groupDigests[g].equals(groupDigests[g])
+                    ? previous.groupVersions[g]
+                    : version;
+        }
+
+        return new FieldConfigSnapshot(version, digest, configs, Collections.unmodifiableMap(groupConfigs),
+                groupDigests, groupVersions);
+    }
+
+    private static void add(ContentDigest digest, FieldConfig config) {
+        digest.add(config.getFieldKey())
+                .add(config.getLabel())
+                .add(config.getWidthPercent())
+                .add(config.isRequired())
+                .add(config.isForceFullWidth())
+                .add(config.getType().name())
+                .add((long) config.getMaxLength());
+    }
+
+    /**
+     * 快照版本,内容变化时递增
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 全部字段配置的内容摘要
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * 分组版本: 该分组的配置最后一次变化时的快照版本
+     */
+    public long getGroupVersion(FieldConfigRegistry.FieldGroup group) {
+        return groupVersions[group.ordinal()];
+    }
+
+    public String getGroupDigest(FieldConfigRegistry.FieldGroup group) {
+        return groupDigests[group.ordinal()];
+    }
+
+    /**
+     * 获取字段配置
+     */
+    public FieldConfig getConfig(String fieldKey) {
+        return configs.get(fieldKey);
+    }
+
+    /**
+     * 获取指定分组的字段配置列表(按分组顺序,跳过未配置的字段;只读)
+     */
+    public List<FieldConfig> getConfigsByGroup(FieldConfigRegistry.FieldGroup group) {
+        return groupConfigs.get(group);
+    }
+
+    public int size() {
+        return configs.size();
+    }
+}
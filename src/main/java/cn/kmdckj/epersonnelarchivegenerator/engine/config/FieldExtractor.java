@@ -0,0 +1,125 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine.config;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.util.ContentDigest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 字段提取器 - 从数据对象直接提取一个字段分组的显示字段
+ * <p>
+ * 分组按配置顺序编译为字段描述符数组(字段配置 + 取值函数),配置快照变化时重新编译。
+ * 提取时逐个调用取值函数,除结果字段外不分配中间对象。调用方传入同一次布局计算取得的快照。
+ *
+ * @param <T> 数据对象类型(如员工、工作经历)
+ */
+public final class FieldExtractor<T> {
+
+    private final FieldConfigRegistry.FieldGroup group;
+    private final Map<String, Function<? super T, String>> accessors;
+    private volatile Compiled<T> compiled;
+
+    private FieldExtractor(FieldConfigRegistry.FieldGroup group, Map<String, Function<? super T, String>> accessors) {
+        for (String key : group.getFieldKeys()) {
+            if (!accessors.containsKey(key)) {
+                throw new IllegalStateException("字段未绑定取值函数: " + group + "." + key);
+            }
+        }
+        this.group = group;
+        this.accessors = accessors;
+    }
+
+    public static <T> Builder<T> builder(FieldConfigRegistry.FieldGroup group) {
+        return new Builder<>(group);
+    }
+
+    public FieldConfigRegistry.FieldGroup getGroup() {
+        return group;
+    }
+
+    /**
+     * 提取应显示的字段(按配置顺序,跳过不显示的空值字段)
+     *
+     * @param snapshot 字段配置快照
+     * @param source   数据对象
+     * @return 字段列表,字段引用共享的字段配置
+     */
+    public List<LayoutField> extract(FieldConfigSnapshot snapshot, T source) {
+        Descriptor<T>[] descriptors = descriptors(snapshot);
+        List<LayoutField> fields = new ArrayList<>(descriptors.length);
+        for (Descriptor<T> descriptor : descriptors) {
+            String value = descriptor.accessor().apply(source);
+            if (descriptor.config().shouldDisplay(value)) {
+                fields.add(new LayoutField(descriptor.config(), value));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * 把数据对象中本分组各字段的值(按配置顺序)累加到摘要
+     */
+    public void digest(FieldConfigSnapshot snapshot, T source, ContentDigest digest) {
+        Descriptor<T>[] descriptors = descriptors(snapshot);
+        digest.add(descriptors.length);
+        for (Descriptor<T> descriptor : descriptors) {
+            digest.add(descriptor.accessor().apply(source));
+        }
+    }
+
+    private Descriptor<T>[] descriptors(FieldConfigSnapshot snapshot) {
+        Compiled<T> current = compiled;
+        if (current == null || current.snapshot() != snapshot) {
+            current = compile(snapshot);
+            compiled = current;
+        }
+        return current.descriptors();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Compiled<T> compile(FieldConfigSnapshot snapshot) {
+        List<FieldConfig> configs = snapshot.getConfigsByGroup(group);
+        Descriptor<T>[] descriptors = new Descriptor[configs.size()];
+        for (int i = 0; i < descriptors.length; i++) {
+            FieldConfig config = configs.get(i);
+            descriptors[i] = new Descriptor<>(config, accessors.get(config.getFieldKey()));
+        }
+        return new Compiled<>(snapshot, descriptors);
+    }
+
+    /**
+     * 字段描述符: 共享的字段配置和取值函数
+     */
+    private record Descriptor<T>(FieldConfig config, Function<? super T, String> accessor) {
+    }
+
+    private record Compiled<T>(FieldConfigSnapshot snapshot, Descriptor<T>[] descriptors) {
+    }
+
+    /**
+     * 按字段键绑定取值函数,分组中的每个字段键都必须绑定
+     */
+    public static final class Builder<T> {
+
+        private final FieldConfigRegistry.FieldGroup group;
+        private final Map<String, Function<? super T, String>> accessors = new LinkedHashMap<>();
+
+        private Builder(FieldConfigRegistry.FieldGroup group) {
+            this.group = group;
+        }
+
+        public Builder<T> bind(String fieldKey, Function<? super T, String> accessor) {
+            accessors.put(fieldKey, accessor);
+            return this;
+        }
+
+        public FieldExtractor<T> build() {
+            return new FieldExtractor<T>(group, new HashMap<>(accessors));
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Map;
 
 /**
  * 字段过滤器 - 过滤空值或不应显示的字段
+ * 输入为字段键值对;由员工数据直接提取时使用 {@link FieldExtractor},不经过中间的键值对
  */
 @Component
 public class FieldFilter {
@@ -26,13 +27,14 @@ public class FieldFilter {
      * @return 过滤后的LayoutField列表
      */
     public List<LayoutField> filterAndConvert(Map<String, String> fieldData) {
+        FieldConfigSnapshot snapshot = configRegistry.getSnapshot();
         List<LayoutField> fields = new ArrayList<>();
 
         for (Map.Entry<String, String> entry : fieldData.entrySet()) {
             String fieldKey = entry.getKey();
             String value = entry.getValue();
 
-            FieldConfig config = configRegistry.getConfig(fieldKey);
+            FieldConfig config = snapshot.getConfig(fieldKey);
             if (config == null) {
                 continue;  // 没有配置的字段跳过
             }
@@ -42,21 +44,8 @@ public class FieldFilter {
                 continue;  // 不显示空值字段(除非是必填)
             }
 
-            // 创建LayoutField
-            LayoutField field = new LayoutField();
-            field.setFieldKey(fieldKey);
-            field.setLabel(config.getLabel());
-            field.setValue(value != null ? value : "");
-            field.setWidthPercent(config.getWidthPercent());
-
-            // 判断是否为长文本
-            if (config.isLongText(value)) {
-                field.setForceFullWidth(true);
-                field.setWidthPercent(100.0);
-                field.setType(LayoutField.FieldType.LONG_TEXT);
-            }
-
-            fields.add(field);
+            // 创建LayoutField(引用共享的字段配置,长文本独占一行)
+            fields.add(new LayoutField(config, value));
         }
 
         return fields;
@@ -69,33 +58,19 @@ public class FieldFilter {
             Map<String, String> fieldData,
             FieldConfigRegistry.FieldGroup group) {
 
-        List<LayoutField> fields = new ArrayList<>();
-        List<FieldConfig> configs = configRegistry.getConfigsByGroup(group);
+        List<FieldConfig> configs = configRegistry.getSnapshot().getConfigsByGroup(group);
+        List<LayoutField> fields = new ArrayList<>(configs.size());
 
         for (FieldConfig config : configs) {
-            String fieldKey = config.getFieldKey();
-            String value = fieldData.get(fieldKey);
+            String value = fieldData.get(config.getFieldKey());
 
             // 判断是否应该显示
             if (!config.shouldDisplay(value)) {
                 continue;
             }
 
-            // 创建LayoutField
-            LayoutField field = new LayoutField();
-            field.setFieldKey(fieldKey);
-            field.setLabel(config.getLabel());
-            field.setValue(value != null ? value : "");
-            field.setWidthPercent(config.getWidthPercent());
-
-            // 判断是否为长文本
-            if (config.isLongText(value)) {
-                field.setForceFullWidth(true);
-                field.setWidthPercent(100.0);
-                field.setType(LayoutField.FieldType.LONG_TEXT);
-            }
-
-            fields.add(field);
+            // 创建LayoutField(引用共享的字段配置,长文本独占一行)
+            fields.add(new LayoutField(config, value));
         }
 
         return fields;
@@ -1,13 +1,25 @@
 package cn.kmdckj.epersonnelarchivegenerator.engine.layout;
 
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfig;
+
 /**
  * 字段模型 - 表示单个显示字段(标签+值)
+ * <p>
+ * 宽度以万分比(基点,10000 = 整行)的整数保存,行内宽度累加没有浮点误差,
+ * 刚好占满一行的字段组合不会因舍入被判为放不下。
+ * <p>
+ * 由字段配置生成的字段引用共享的 {@link FieldConfig},字段键和标签从配置读取,不逐个复制;
+ * 标题等没有配置的字段自带字段键和标签。
  */
 public class LayoutField {
-    private String fieldKey;         // 字段键(用于识别字段)
-    private String label;            // 显示标签(如"姓名:")
+
+    public static final int FULL_WIDTH = 10_000;  // 整行宽度(基点)
+
+    private FieldConfig config;      // 字段配置(共享),为null表示没有配置
+    private String fieldKey;         // 字段键(用于识别字段),为null时取配置
+    private String label;            // 显示标签(如"姓名:"),为null时取配置
     private String value;            // 字段值
-    private double widthPercent;     // 该字段占行宽的百分比
+    private int widthBasisPoints;    // 该字段占行宽的万分比
     private FieldType type;          // 字段类型
     private boolean forceFullWidth;  // 是否强制独占一行
 
@@ -28,7 +40,38 @@ public class LayoutField {
         this.fieldKey = fieldKey;
         this.label = label;
         this.value = value;
-        this.widthPercent = widthPercent;
+        this.widthBasisPoints = toBasisPoints(widthPercent);
+    }
+
+    /**
+     * 按字段配置创建字段: 超长内容独占一行,否则使用配置的宽度
+     *
+     * @param config 字段配置
+     * @param value  字段值,null按空字符串显示
+     */
+    public LayoutField(FieldConfig config, String value) {
+        this.config = config;
+        this.value = value != null ? value : "";
+        if (config.isLongText(value)) {
+            this.forceFullWidth = true;
+            this.widthBasisPoints = FULL_WIDTH;
+            this.type = FieldType.LONG_TEXT;
+        } else {
+            this.widthBasisPoints = toBasisPoints(config.getWidthPercent());
+            this.type = FieldType.TEXT;
+        }
+    }
+
+    /**
+     * 复制字段(字段配置共享引用)
+     */
+    public LayoutField copy() {
+        LayoutField copy = new LayoutField(fieldKey, label, value, 0);
+        copy.config = config;
+        copy.widthBasisPoints = widthBasisPoints;
+        copy.type = type;
+        copy.forceFullWidth = forceFullWidth;
+        return copy;
     }
 
     /**
@@ -50,8 +93,12 @@ public class LayoutField {
         return label + " " + (value != null ? value : "");
     }
 
+    public FieldConfig getConfig() {
+        return config;
+    }
+
     public String getFieldKey() {
-        return fieldKey;
+        return fieldKey != null || config == null ? fieldKey : config.getFieldKey();
     }
 
     public void setFieldKey(String fieldKey) {
@@ -59,7 +106,7 @@ public class LayoutField {
     }
 
     public String getLabel() {
-        return label;
+        return label != null || config == null ? label : config.getLabel();
     }
 
     public void setLabel(String label) {
@@ -74,12 +121,30 @@ public class LayoutField {
         this.value = value;
     }
 
+    /**
+     * 宽度百分比 → 基点(四舍五入)
+     */
+    public static int toBasisPoints(double widthPercent) {
+        return (int) Math.round(widthPercent * 100);
+    }
+
     public double getWidthPercent() {
-        return widthPercent;
+        return widthBasisPoints / 100.0;
     }
 
+    /**
+     * 设置宽度百分比;字段已加入行时应通过 {@link LayoutRow#setFieldWidth} 修改,以保持行的已用宽度
+     */
     public void setWidthPercent(double widthPercent) {
-        this.widthPercent = widthPercent;
+        this.widthBasisPoints = toBasisPoints(widthPercent);
+    }
+
+    public int getWidthBasisPoints() {
+        return widthBasisPoints;
+    }
+
+    public void setWidthBasisPoints(int widthBasisPoints) {
+        this.widthBasisPoints = widthBasisPoints;
     }
 
     public FieldType getType() {
@@ -1,19 +1,33 @@
 package cn.kmdckj.epersonnelarchivegenerator.engine.layout;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * 行模型 - 表示布局中的一行,包含多个字段
+ * <p>
+ * 字段存放在按需分配的数组中(分页符等空行不分配),已用宽度在加入字段时以基点累加,
+ * {@link #canFit} 为常数时间。{@link #getFields()} 返回只读视图,修改字段列表须通过
+ * {@link #addField}、{@link #setFields} 或 {@link #setFieldWidth},以保持已用宽度一致。
  */
 public class LayoutRow {
-    private List<LayoutField> fields;  // 该行包含的字段列表
+
+    private static final LayoutField[] NO_FIELDS = new LayoutField[0];
+    private static final int INITIAL_CAPACITY = 4;  // 一行通常不超过4个字段
+
+    private LayoutField[] fields;      // 该行包含的字段,前 fieldCount 个有效
+    private int fieldCount;
+    private int usedBasisPoints;       // 已用宽度(基点)
+    private FieldView fieldView;       // getFields() 的只读视图,首次访问时创建
     private boolean isPageBreak;       // 是否为分页标记行
     private double estimatedHeight;    // 预估高度(单位:mm)
     private boolean isTitle;           // 是否为标题行,用于分页时防止孤行
+    private int keepGroup;             // 保持同页的分组(同一条目的行相同且相邻),0表示不分组
 
     public LayoutRow() {
-        this.fields = new ArrayList<>();
+        this.fields = NO_FIELDS;
         this.isPageBreak = false;
         this.estimatedHeight = 8.0;  // 默认单行高度约8mm
         this.isTitle = false;        // 默认为非标题行
@@ -24,39 +38,106 @@ public class LayoutRow {
         this.isPageBreak = isPageBreak;
     }
 
+    /**
+     * 深复制行(包括字段)
+     */
+    public LayoutRow copy() {
+        LayoutRow copy = new LayoutRow(isPageBreak);
+        if (fieldCount > 0) {
+            copy.fields = new LayoutField[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                copy.fields[i] = fields[i].copy();
+            }
+        }
+        copy.fieldCount = fieldCount;
+        copy.usedBasisPoints = usedBasisPoints;
+        copy.estimatedHeight = estimatedHeight;
+        copy.isTitle = isTitle;
+        copy.keepGroup = keepGroup;
+        return copy;
+    }
+
     public void addField(LayoutField field) {
-        this.fields.add(field);
+        if (fieldCount == fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(INITIAL_CAPACITY, fieldCount * 2));
+        }
+        fields[fieldCount++] = field;
+        usedBasisPoints += field.getWidthBasisPoints();
+    }
+
+    /**
+     * 修改行内第 index 个字段的宽度,同时更新已用宽度
+     */
+    public void setFieldWidth(int index, int widthBasisPoints) {
+        LayoutField field = getField(index);
+        usedBasisPoints += widthBasisPoints - field.getWidthBasisPoints();
+        field.setWidthBasisPoints(widthBasisPoints);
     }
 
     /**
-     * 计算当前行已使用的宽度百分比
+     * 当前行已使用的宽度百分比
      */
     public double getUsedWidth() {
-        return fields.stream()
-                .mapToDouble(LayoutField::getWidthPercent)
-                .sum();
+        return usedBasisPoints / 100.0;
     }
 
     /**
-     * 计算当前行剩余可用宽度百分比
+     * 当前行剩余可用宽度百分比
      */
     public double getRemainingWidth() {
-        return 100.0 - getUsedWidth();
+        return getRemainingBasisPoints() / 100.0;
+    }
+
+    public int getUsedBasisPoints() {
+        return usedBasisPoints;
+    }
+
+    public int getRemainingBasisPoints() {
+        return LayoutField.FULL_WIDTH - usedBasisPoints;
     }
 
     /**
      * 判断字段是否能放入当前行
      */
     public boolean canFit(LayoutField field) {
-        return getRemainingWidth() >= field.getWidthPercent();
+        return field.getWidthBasisPoints() <= getRemainingBasisPoints();
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
     }
 
+    public LayoutField getField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("字段下标越界: " + index + ", 字段数: " + fieldCount);
+        }
+        return fields[index];
+    }
+
+    public boolean hasFields() {
+        return fieldCount > 0;
+    }
+
+    /**
+     * 行内字段的只读视图(模板按 row.fields 访问)
+     */
     public List<LayoutField> getFields() {
-        return fields;
+        FieldView view = fieldView;
+        if (view == null) {
+            view = new FieldView();
+            fieldView = view;
+        }
+        return view;
     }
 
     public void setFields(List<LayoutField> fields) {
-        this.fields = fields;
+        this.fields = fields.isEmpty() ? NO_FIELDS : fields.toArray(new LayoutField[0]);
+        this.fieldCount = this.fields.length;
+        int used = 0;
+        for (LayoutField field : this.fields) {
+            used += field.getWidthBasisPoints();
+        }
+        this.usedBasisPoints = used;
     }
 
     public boolean isPageBreak() {
@@ -82,4 +163,28 @@ public class LayoutRow {
     public void setTitle(boolean title) {
         isTitle = title;
     }
+
+    public int getKeepGroup() {
+        return keepGroup;
+    }
+
+    public void setKeepGroup(int keepGroup) {
+        this.keepGroup = keepGroup;
+    }
+
+    /**
+     * 字段数组的只读视图,始终反映行的当前内容
+     */
+    private final class FieldView extends AbstractList<LayoutField> implements RandomAccess {
+
+        @Override
+        public LayoutField get(int index) {
+            return getField(index);
+        }
+
+        @Override
+        public int size() {
+            return fieldCount;
+        }
+    }
 }
@@ -25,6 +25,18 @@ public class LayoutZone {
         this.rows = new ArrayList<>();
     }
 
+    /**
+     * 深复制分区(包括行和字段),元数据共享引用
+     */
+    public LayoutZone copy() {
+        LayoutZone copy = new LayoutZone(zoneId, type);
+        for (LayoutRow row : rows) {
+            copy.rows.add(row.copy());
+        }
+        copy.metadata = metadata;
+        return copy;
+    }
+
     public void addRow(LayoutRow row) {
         this.rows.add(row);
     }
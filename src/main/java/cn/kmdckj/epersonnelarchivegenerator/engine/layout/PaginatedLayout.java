@@ -0,0 +1,218 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine.layout;
+
+import java.util.List;
+
+/**
+ * 扁平化的分页布局 - 渲染阶段使用的只读、数组存储的布局模型
+ * <p>
+ * 由分页优化后的 {@link LayoutModel} 一次性展开: 所有字段按行顺序连续存放,
+ * 行、分区和页面以下标区间表示,不再为每行保留列表和包装对象。
+ * 批量任务中同时驻留的布局较多时,占用内存和遍历开销都远低于对象模型。
+ * <p>
+ * 行号在整个档案内连续编号,分页符行保留在原位置(模板和原生渲染器都按分页符换页);
+ * 第 p 页为 [pageStart(p), pageStart(p + 1)) 内的行,页首的分页符行属于新页。
+ */
+public final class PaginatedLayout {
+
+    private static final byte PAGE_BREAK = 1;
+    private static final byte TITLE = 1 << 1;          // 分页时的标题行(防孤行)
+    private static final byte SECTION_TITLE = 1 << 2;  // 按标题样式渲染的行(含单个强制整行且值为空的字段)
+
+    private final LayoutField[] fields;
+    private final int[] rowFieldStart;     // 第 r 行的字段为 fields[rowFieldStart[r], rowFieldStart[r + 1])
+    private final int[] rowUsedWidth;      // 行已用宽度(基点)
+    private final float[] rowHeight;       // 行预估高度(mm)
+    private final int[] rowKeepGroup;
+    private final byte[] rowFlags;
+    private final int[] zoneRowStart;      // 第 z 个分区的行为 [zoneRowStart[z], zoneRowStart[z + 1])
+    private final LayoutZone.ZoneType[] zoneTypes;
+    private final Object[] zoneMetadata;
+    private final int[] pageRowStart;      // 第 p 页的第一行,末尾为行数
+
+    private PaginatedLayout(LayoutField[] fields, int[] rowFieldStart, int[] rowUsedWidth, float[] rowHeight,
+                            int[] rowKeepGroup, byte[] rowFlags, int[] zoneRowStart,
+                            LayoutZone.ZoneType[] zoneTypes, Object[] zoneMetadata, int[] pageRowStart) {
+        this.fields = fields;
+        this.rowFieldStart = rowFieldStart;
+        this.rowUsedWidth = rowUsedWidth;
+        this.rowHeight = rowHeight;
+        this.rowKeepGroup = rowKeepGroup;
+        this.rowFlags = rowFlags;
+        this.zoneRowStart = zoneRowStart;
+        this.zoneTypes = zoneTypes;
+        this.zoneMetadata = zoneMetadata;
+        this.pageRowStart = pageRowStart;
+    }
+
+    /**
+     * 展开布局模型,字段对象与模型共享
+     *
+     * @param model 分页优化后的布局模型
+     * @return 扁平化布局
+     */
+    public static PaginatedLayout of(LayoutModel model) {
+        List<LayoutZone> zones = model != null && model.getZones() != null ? model.getZones() : List.of();
+
+        int rowCount = 0;
+        int fieldCount = 0;
+        int pageBreaks = 0;
+        for (LayoutZone zone : zones) {
+            for (LayoutRow row : zone.getRows()) {
+                rowCount++;
+                fieldCount += row.getFieldCount();
+                if (row.isPageBreak()) {
+                    pageBreaks++;
+                }
+            }
+        }
+
+        LayoutField[] fields = new LayoutField[fieldCount];
+        int[] rowFieldStart = new int[rowCount + 1];
+        int[] rowUsedWidth = new int[rowCount];
+        float[] rowHeight = new float[rowCount];
+        int[] rowKeepGroup = new int[rowCount];
+        byte[] rowFlags = new byte[rowCount];
+        int[] zoneRowStart = new int[zones.size() + 1];
+        LayoutZone.ZoneType[] zoneTypes = new LayoutZone.ZoneType[zones.size()];
+        Object[] zoneMetadata = new Object[zones.size()];
+        int[] pageRowStart = new int[pageBreaks + 2];
+
+        int r = 0;
+        int f = 0;
+        int page = 1;
+        for (int z = 0; z < zones.size(); z++) {
+            LayoutZone zone = zones.get(z);
+            zoneRowStart[z] = r;
+            zoneTypes[z] = zone.getType();
+            zoneMetadata[z] = zone.getMetadata();
+            for (LayoutRow row : zone.getRows()) {
+                rowFieldStart[r] = f;
+                for (int i = 0; i < row.getFieldCount(); i++) {
+                    fields[f++] = row.getField(i);
+                }
+                rowUsedWidth[r] = row.getUsedBasisPoints();
+                rowHeight[r] = (float) row.getEstimatedHeight();
+                rowKeepGroup[r] = row.getKeepGroup();
+                rowFlags[r] = flagsOf(row);
+                if (row.isPageBreak()) {
+                    pageRowStart[page++] = r;
+                }
+                r++;
+            }
+        }
+        rowFieldStart[rowCount] = f;
+        zoneRowStart[zones.size()] = rowCount;
+        pageRowStart[page] = rowCount;
+
+        return new PaginatedLayout(fields, rowFieldStart, rowUsedWidth, rowHeight, rowKeepGroup, rowFlags,
+                zoneRowStart, zoneTypes, zoneMetadata, pageRowStart);
+    }
+
+    private static byte flagsOf(LayoutRow row) {
+        byte flags = 0;
+        if (row.isPageBreak()) {
+            flags |= PAGE_BREAK;
+        }
+        if (row.isTitle()) {
+            flags |= TITLE | SECTION_TITLE;
+        } else if (row.getFieldCount() == 1) {
+            // 与模板一致的标题判断: 单个强制整行且值为空的字段
+            LayoutField field = row.getField(0);
+            if (field.isForceFullWidth() && (field.getValue() == null || field.getValue().isEmpty())) {
+                flags |= SECTION_TITLE;
+            }
+        }
+        return flags;
+    }
+
+    // ==================== 行 ====================
+
+    public int rowCount() {
+        return rowFlags.length;
+    }
+
+    public int fieldCount(int row) {
+        return rowFieldStart[row + 1] - rowFieldStart[row];
+    }
+
+    public LayoutField field(int row, int index) {
+        return fields[rowFieldStart[row] + index];
+    }
+
+    public boolean hasFields(int row) {
+        return rowFieldStart[row + 1] > rowFieldStart[row];
+    }
+
+    public int usedBasisPoints(int row) {
+        return rowUsedWidth[row];
+    }
+
+    /**
+     * 行已用宽度百分比
+     */
+    public double usedWidth(int row) {
+        return rowUsedWidth[row] / 100.0;
+    }
+
+    public double estimatedHeight(int row) {
+        return rowHeight[row];
+    }
+
+    public int keepGroup(int row) {
+        return rowKeepGroup[row];
+    }
+
+    public boolean isPageBreak(int row) {
+        return (rowFlags[row] & PAGE_BREAK) != 0;
+    }
+
+    public boolean isTitle(int row) {
+        return (rowFlags[row] & TITLE) != 0;
+    }
+
+    /**
+     * 是否按分区标题样式渲染
+     */
+    public boolean isSectionTitle(int row) {
+        return (rowFlags[row] & SECTION_TITLE) != 0;
+    }
+
+    // ==================== 分区 ====================
+
+    public int zoneCount() {
+        return zoneTypes.length;
+    }
+
+    public LayoutZone.ZoneType zoneType(int zone) {
+        return zoneTypes[zone];
+    }
+
+    public Object zoneMetadata(int zone) {
+        return zoneMetadata[zone];
+    }
+
+    public int zoneRowStart(int zone) {
+        return zoneRowStart[zone];
+    }
+
+    public int zoneRowEnd(int zone) {
+        return zoneRowStart[zone + 1];
+    }
+
+    // ==================== 页面 ====================
+
+    /**
+     * 按分页符划分的页数(空布局为1页)
+     */
+    public int pageCount() {
+        return pageRowStart.length - 1;
+    }
+
+    public int pageStart(int page) {
+        return pageRowStart[page];
+    }
+
+    public int pageEnd(int page) {
+        return pageRowStart[page + 1];
+    }
+}
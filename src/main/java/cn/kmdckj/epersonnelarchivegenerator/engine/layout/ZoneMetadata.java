@@ -10,15 +10,30 @@ public class ZoneMetadata {
      */
     public static class PhotoMetadata {
         private String photoBase64;  // Base64编码的照片
+        private String mimeType;     // 照片MIME类型
+        private byte[] imageData;    // 照片字节(已规范化时直接使用,避免重复解码Base64)
+        private String dataUri;      // 模板中 img src 使用的 data URI
         private double widthMm;      // 照片宽度(mm)
         private double heightMm;     // 照片高度(mm)
 
         public PhotoMetadata(String photoBase64) {
             this.photoBase64 = photoBase64;
+            this.mimeType = "image/jpeg";
             this.widthMm = 35.0;   // 默认35mm(约1寸照片宽度)
             this.heightMm = 45.0;  // 默认45mm
         }
 
+        /**
+         * 已规范化的照片
+         */
+        public PhotoMetadata(byte[] imageData, String mimeType, String dataUri, double widthMm, double heightMm) {
+            this.imageData = imageData;
+            this.mimeType = mimeType;
+            this.dataUri = dataUri;
+            this.widthMm = widthMm;
+            this.heightMm = heightMm;
+        }
+
         public String getPhotoBase64() {
             return photoBase64;
         }
@@ -27,6 +42,21 @@ public class ZoneMetadata {
             this.photoBase64 = photoBase64;
         }
 
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public byte[] getImageData() {
+            return imageData;
+        }
+
+        public String getDataUri() {
+            if (dataUri == null && photoBase64 != null) {
+                dataUri = "data:" + mimeType + ";base64," + photoBase64;
+            }
+            return dataUri;
+        }
+
         public double getWidthMm() {
             return widthMm;
         }
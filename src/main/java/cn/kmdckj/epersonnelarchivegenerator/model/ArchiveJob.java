@@ -0,0 +1,53 @@
+package cn.kmdckj.epersonnelarchivegenerator.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 异步档案任务 - 任务状态、进度和结果文件信息,以JSON形式持久化在任务目录中
+ */
+@Data
+public class ArchiveJob {
+
+    public enum Type {
+        ARCHIVE,    // 单份员工档案PDF
+        ZIP,        // 批量导出ZIP
+        BOOK        // 档案汇编PDF
+    }
+
+    public enum Status {
+        QUEUED,     // 排队中
+        RUNNING,    // 执行中
+        SUCCEEDED,  // 已完成,可下载结果
+        FAILED      // 失败
+    }
+
+    private String id;
+    private Type type;
+    private volatile Status status;
+    private List<String> employeeIds;
+    private String engine;                // 渲染引擎(HTML/NATIVE)
+    private volatile int total;           // 待处理的员工数
+    private volatile int completed;       // 已处理的员工数
+    private Instant createdAt;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Instant expiresAt;   // 结果过期时间,任务结束时设置
+    private String fileName;              // 下载文件名
+    private String contentType;
+    private volatile long sizeBytes;
+    private volatile String error;
+    private String fingerprint;           // 内容指纹(去重键),相同指纹的未过期任务直接复用
+    private String resultFingerprint;     // 结果指纹,由实际渲染的员工数据计算,任务成功后设置,用作下载ETag
+
+    /**
+     * 任务是否已结束(成功或失败)
+     */
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
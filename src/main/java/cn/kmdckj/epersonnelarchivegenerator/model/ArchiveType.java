@@ -0,0 +1,18 @@
+package cn.kmdckj.epersonnelarchivegenerator.model;
+
+/**
+ * 档案类型(人员类别) - 决定使用的档案模板和排版方式
+ */
+public enum ArchiveType {
+    STANDARD,   // 通用档案
+    CADRE,      // 干部档案
+    CONTRACT,   // 合同制人员档案
+    RETIREE;    // 离退休人员档案
+
+    /**
+     * 未指定类型时按通用档案处理
+     */
+    public static ArchiveType orDefault(ArchiveType type) {
+        return type != null ? type : STANDARD;
+    }
+}
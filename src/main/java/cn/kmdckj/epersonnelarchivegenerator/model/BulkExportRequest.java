@@ -0,0 +1,15 @@
+package cn.kmdckj.epersonnelarchivegenerator.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量导出请求 - 指定员工ID列表,或使用 all=true 导出全部员工
+ */
+@Data
+public class BulkExportRequest {
+    private List<String> employeeIds;
+    private boolean all;
+    private String engine;  // 渲染引擎(html/native),为空时使用配置的默认引擎
+}
@@ -8,6 +8,7 @@ import java.util.List;
 @Data
 public class Employee {
     private String id;
+    private ArchiveType archiveType; // 档案类型,为空时按通用档案
     private String name;
     private String gender;
     private LocalDate birthDate;
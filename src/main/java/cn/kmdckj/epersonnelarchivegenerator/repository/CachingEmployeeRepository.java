@@ -0,0 +1,267 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.EmployeeCacheConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.util.BoundedLruCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 读穿缓存的员工数据仓库 - 包装 {@link JpaEmployeeRepository}
+ * <p>
+ * 缓存项按员工ID存放并记录加载时的版本,每次读取先查一次版本列,版本一致时直接返回缓存数据,
+ * 不一致时重新加载。档案数据(不含照片)和照片分成两个按字节限额的LRU缓存,
+ * 超过单张上限的照片不进入缓存,少数超大照片不会挤掉其他员工的数据。
+ * <p>
+ * 返回的员工对象(及其列表)与缓存共享,调用方不得修改。
+ */
+@Primary
+@Repository
+public class CachingEmployeeRepository implements EmployeeRepository {
+
+    private static final long OBJECT_OVERHEAD = 64;  // 每个对象的估算开销(对象头、引用、列表槽位)
+
+    private final EmployeeRepository delegate;
+    private final boolean enabled;
+    private final long photoMaxEntryBytes;
+    private final BoundedLruCache<String, CachedEmployee> employees;
+    private final BoundedLruCache<String, CachedPhoto> photos;
+
+    public CachingEmployeeRepository(@Qualifier("jpaEmployeeRepository") EmployeeRepository delegate,
+                                     EmployeeCacheConfig cacheConfig,
+                                     MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.enabled = cacheConfig.isEnabled();
+        this.photoMaxEntryBytes = cacheConfig.getPhotoMaxEntryBytes();
+        this.employees = new BoundedLruCache<>(cacheConfig.getMaxBytes(), CachedEmployee::weight);
+        this.photos = new BoundedLruCache<>(cacheConfig.getPhotoMaxBytes(), CachedPhoto::weight);
+
+        registerMetrics(meterRegistry, "employee", employees);
+        registerMetrics(meterRegistry, "photo", photos);
+    }
+
+    @Override
+    public Optional<Employee> findById(String employeeId) {
+        if (!enabled) {
+            return delegate.findById(employeeId);
+        }
+        Optional<Long> version = currentVersion(employeeId);
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Employee> details = details(employeeId, version.get());
+        if (details.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(withPhoto(details.get(), photo(employeeId, version.get())));
+    }
+
+    @Override
+    public Optional<Employee> findByIdWithoutPhoto(String employeeId) {
+        if (!enabled) {
+            return delegate.findByIdWithoutPhoto(employeeId);
+        }
+        return currentVersion(employeeId).flatMap(version -> details(employeeId, version));
+    }
+
+    @Override
+    public Optional<String> findPhoto(String employeeId) {
+        if (!enabled) {
+            return delegate.findPhoto(employeeId);
+        }
+        return currentVersion(employeeId).map(version -> photo(employeeId, version));
+    }
+
+    @Override
+    public Optional<Long> findVersion(String employeeId) {
+        return delegate.findVersion(employeeId);
+    }
+
+    @Override
+    public boolean existsById(String employeeId) {
+        return delegate.existsById(employeeId);
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        return delegate.findAllIds();
+    }
+
+    @Override
+    public long count() {
+        return delegate.count();
+    }
+
+    @Override
+    public void save(Employee employee) {
+        try {
+            delegate.save(employee);
+        } finally {
+            evict(employee.getId());
+        }
+    }
+
+    @Override
+    public void evict(String employeeId) {
+        employees.remove(employeeId);
+        photos.remove(employeeId);
+    }
+
+    @Override
+    public void evictAll() {
+        employees.clear();
+        photos.clear();
+    }
+
+    /**
+     * 缓存指标: archive.employee.cache.*(标签 cache=employee/photo)
+     */
+    private static void registerMetrics(MeterRegistry meterRegistry, String name, BoundedLruCache<?, ?> cache) {
+        Gauge.builder("archive.employee.cache.size", cache, BoundedLruCache::size)
+                .description("员工数据缓存条目数")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("archive.employee.cache.weight", cache, BoundedLruCache::weight)
+                .description("员工数据缓存估算字节数")
+                .tag("cache", name)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("archive.employee.cache.requests", cache, BoundedLruCache::hitCount)
+                .description("员工数据缓存查找次数")
+                .tags("cache", name, "result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("archive.employee.cache.requests", cache, BoundedLruCache::missCount)
+                .description("员工数据缓存查找次数")
+                .tags("cache", name, "result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询当前版本,员工已不存在时同时丢弃缓存
+     */
+    private Optional<Long> currentVersion(String employeeId) {
+        Optional<Long> version = delegate.findVersion(employeeId);
+        if (version.isEmpty()) {
+            evict(employeeId);
+        }
+        return version;
+    }
+
+    /**
+     * 版本一致时返回缓存的档案数据,否则重新加载
+     * 重新加载与版本查询不在同一事务内,加载到的数据可能比版本号新,下次读取时版本不一致会再加载一次
+     */
+    private Optional<Employee> details(String employeeId, long version) {
+        CachedEmployee cached = employees.get(employeeId);
+        if (cached != null && cached.version() == version) {
+            return Optional.of(cached.employee());
+        }
+        Optional<Employee> loaded = delegate.findByIdWithoutPhoto(employeeId);
+        if (loaded.isPresent()) {
+            employees.put(employeeId, new CachedEmployee(version, loaded.get(), estimateWeight(loaded.get())));
+        } else {
+            evict(employeeId);
+        }
+        return loaded;
+    }
+
+    /**
+     * 版本一致时返回缓存的照片(没有照片也会缓存),否则重新读取;超过单张上限的照片不缓存
+     */
+    private String photo(String employeeId, long version) {
+        CachedPhoto cached = photos.get(employeeId);
+        if (cached != null && cached.version() == version) {
+            return cached.photoBase64();
+        }
+        String photoBase64 = delegate.findPhoto(employeeId).orElse(null);
+        CachedPhoto loaded = new CachedPhoto(version, photoBase64);
+        if (loaded.weight() <= photoMaxEntryBytes) {
+            photos.put(employeeId, loaded);
+        } else {
+            photos.remove(employeeId);
+        }
+        return photoBase64;
+    }
+
+    /**
+     * 浅拷贝员工数据并设置照片,列表与缓存共享
+     */
+    private static Employee withPhoto(Employee source, String photoBase64) {
+        Employee employee = new Employee();
+        employee.setId(source.getId());
+        employee.setArchiveType(source.getArchiveType());
+        employee.setName(source.getName());
+        employee.setGender(source.getGender());
+        employee.setBirthDate(source.getBirthDate());
+        employee.setIdCard(source.getIdCard());
+        employee.setNation(source.getNation());
+        employee.setPoliticalStatus(source.getPoliticalStatus());
+        employee.setMaritalStatus(source.getMaritalStatus());
+        employee.setPhone(source.getPhone());
+        employee.setEmail(source.getEmail());
+        employee.setNativePlace(source.getNativePlace());
+        employee.setCurrentAddress(source.getCurrentAddress());
+        employee.setEmergencyContact(source.getEmergencyContact());
+        employee.setEmergencyPhone(source.getEmergencyPhone());
+        employee.setPhotoBase64(photoBase64);
+        employee.setWorkExperiences(source.getWorkExperiences());
+        employee.setEducations(source.getEducations());
+        employee.setFamilyMembers(source.getFamilyMembers());
+        return employee;
+    }
+
+    /**
+     * 估算档案数据(不含照片)占用的字节数: 字符串按每字符2字节,每个对象另加固定开销
+     */
+    static long estimateWeight(Employee employee) {
+        long chars = length(employee.getId()) + length(employee.getName()) + length(employee.getGender())
+                + length(employee.getIdCard()) + length(employee.getNation())
+                + length(employee.getPoliticalStatus()) + length(employee.getMaritalStatus())
+                + length(employee.getPhone()) + length(employee.getEmail()) + length(employee.getNativePlace())
+                + length(employee.getCurrentAddress()) + length(employee.getEmergencyContact())
+                + length(employee.getEmergencyPhone());
+        long objects = 1;
+        if (employee.getWorkExperiences() != null) {
+            for (Employee.WorkExperience exp : employee.getWorkExperiences()) {
+                chars += length(exp.getCompany()) + length(exp.getPosition()) + length(exp.getDuties());
+                objects++;
+            }
+        }
+        if (employee.getEducations() != null) {
+            for (Employee.Education edu : employee.getEducations()) {
+                chars += length(edu.getSchool()) + length(edu.getMajor()) + length(edu.getDegree());
+                objects++;
+            }
+        }
+        if (employee.getFamilyMembers() != null) {
+            for (Employee.FamilyMember member : employee.getFamilyMembers()) {
+                chars += length(member.getRelation()) + length(member.getName()) + length(member.getWorkUnit());
+                objects++;
+            }
+        }
+        return chars * 2 + objects * OBJECT_OVERHEAD;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private record CachedEmployee(long version, Employee employee, long weight) {
+    }
+
+    /**
+     * Base64只含ASCII字符,按每字符1字节计
+     */
+    private record CachedPhoto(long version, String photoBase64) {
+        long weight() {
+            return OBJECT_OVERHEAD + (photoBase64 != null ? photoBase64.length() : 0);
+        }
+    }
+}
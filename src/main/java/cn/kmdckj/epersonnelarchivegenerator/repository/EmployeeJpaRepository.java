@@ -0,0 +1,28 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository;
+
+import cn.kmdckj.epersonnelarchivegenerator.repository.entity.EmployeeEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 员工表的Spring Data仓库
+ */
+interface EmployeeJpaRepository extends JpaRepository<EmployeeEntity, String> {
+
+    /**
+     * 加载员工及工作经历(联表),教育背景和家庭成员在首次访问时各一条子查询
+     */
+    @EntityGraph(attributePaths = "workExperiences")
+    Optional<EmployeeEntity> findWithDetailsById(String id);
+
+    @Query("select e.version from EmployeeEntity e where e.id = :id")
+    Optional<Long> findVersionById(@Param("id") String id);
+
+    @Query("select e.id from EmployeeEntity e order by e.id")
+    List<String> findAllIds();
+}
@@ -0,0 +1,17 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository;
+
+import cn.kmdckj.epersonnelarchivegenerator.repository.entity.EmployeePhotoEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * 员工照片表的Spring Data仓库
+ */
+interface EmployeePhotoJpaRepository extends JpaRepository<EmployeePhotoEntity, String> {
+
+    @Query("select p.photoBase64 from EmployeePhotoEntity p where p.employeeId = :employeeId")
+    Optional<String> findPhotoBase64(@Param("employeeId") String employeeId);
+}
@@ -0,0 +1,83 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository;
+
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 员工数据仓库 - 服务层读取员工数据的唯一入口
+ * <p>
+ * 完整加载(含经历、教育、家庭成员)的查询数是固定的,不随条目数增长;
+ * 照片单独存放,只有 {@link #findById} 会读取。
+ */
+public interface EmployeeRepository {
+
+    /**
+     * 加载员工的全部档案数据(含照片)
+     *
+     * @param employeeId 员工ID
+     * @return 员工数据,不存在时为空
+     */
+    Optional<Employee> findById(String employeeId);
+
+    /**
+     * 加载员工的档案数据,不读取照片(photoBase64 为null)
+     *
+     * @param employeeId 员工ID
+     * @return 员工数据,不存在时为空
+     */
+    Optional<Employee> findByIdWithoutPhoto(String employeeId);
+
+    /**
+     * 读取员工照片(不加载其他数据)
+     *
+     * @param employeeId 员工ID
+     * @return Base64编码的照片,员工不存在或没有照片时为空
+     */
+    Optional<String> findPhoto(String employeeId);
+
+    /**
+     * 读取员工数据版本(只查版本列),每次保存后递增
+     *
+     * @param employeeId 员工ID
+     * @return 版本号,员工不存在时为空
+     */
+    Optional<Long> findVersion(String employeeId);
+
+    /**
+     * 员工是否存在(只查主键)
+     */
+    boolean existsById(String employeeId);
+
+    /**
+     * 全部员工ID(升序)
+     */
+    List<String> findAllIds();
+
+    /**
+     * 员工总数
+     */
+    long count();
+
+    /**
+     * 保存员工的全部档案数据(含照片),已存在时整体替换
+     *
+     * @param employee 员工数据
+     */
+    void save(Employee employee);
+
+    /**
+     * 丢弃该员工的缓存数据,绕过本接口直接修改数据库后调用;无缓存的实现为空操作
+     *
+     * @param employeeId 员工ID
+     */
+    default void evict(String employeeId) {
+    }
+
+    /**
+     * 丢弃全部缓存数据;无缓存的实现为空操作
+     */
+    default void evictAll() {
+    }
+}
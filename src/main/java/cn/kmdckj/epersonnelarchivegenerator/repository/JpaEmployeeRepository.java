@@ -0,0 +1,215 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository;
+
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.repository.entity.EducationEntity;
+import cn.kmdckj.epersonnelarchivegenerator.repository.entity.EmployeeEntity;
+import cn.kmdckj.epersonnelarchivegenerator.repository.entity.EmployeePhotoEntity;
+import cn.kmdckj.epersonnelarchivegenerator.repository.entity.FamilyMemberEntity;
+import cn.kmdckj.epersonnelarchivegenerator.repository.entity.WorkExperienceEntity;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 基于Spring Data JPA的员工数据仓库
+ * <p>
+ * 完整加载固定为三条查询(员工联表工作经历、教育背景子查询、家庭成员子查询),
+ * 需要照片时再加一条按主键读取照片列的查询。实体在事务内转换为 {@link Employee},
+ * 服务层拿到的是与持久化上下文无关的普通对象。
+ */
+@Repository
+@Transactional(readOnly = true)
+public class JpaEmployeeRepository implements EmployeeRepository {
+
+    private final EmployeeJpaRepository employeeJpaRepository;
+    private final EmployeePhotoJpaRepository employeePhotoJpaRepository;
+
+    public JpaEmployeeRepository(EmployeeJpaRepository employeeJpaRepository,
+                                 EmployeePhotoJpaRepository employeePhotoJpaRepository) {
+        this.employeeJpaRepository = employeeJpaRepository;
+        this.employeePhotoJpaRepository = employeePhotoJpaRepository;
+    }
+
+    @Override
+    public Optional<Employee> findById(String employeeId) {
+        return employeeJpaRepository.findWithDetailsById(employeeId)
+                .map(entity -> {
+                    Employee employee = toModel(entity);
+                    employee.setPhotoBase64(employeePhotoJpaRepository.findPhotoBase64(employeeId).orElse(null));
+                    return employee;
+                });
+    }
+
+    @Override
+    public Optional<Employee> findByIdWithoutPhoto(String employeeId) {
+        return employeeJpaRepository.findWithDetailsById(employeeId).map(this::toModel);
+    }
+
+    @Override
+    public Optional<String> findPhoto(String employeeId) {
+        return employeePhotoJpaRepository.findPhotoBase64(employeeId);
+    }
+
+    @Override
+    public Optional<Long> findVersion(String employeeId) {
+        return employeeJpaRepository.findVersionById(employeeId);
+    }
+
+    @Override
+    public boolean existsById(String employeeId) {
+        return employeeJpaRepository.existsById(employeeId);
+    }
+
+    @Override
+    public List<String> findAllIds() {
+        return employeeJpaRepository.findAllIds();
+    }
+
+    @Override
+    public long count() {
+        return employeeJpaRepository.count();
+    }
+
+    @Override
+    @Transactional
+    public void save(Employee employee) {
+        EmployeeEntity entity = employeeJpaRepository.findById(employee.getId()).orElseGet(() -> {
+            EmployeeEntity created = new EmployeeEntity();
+            created.setId(employee.getId());
+            return created;
+        });
+        copyToEntity(employee, entity);
+        entity.setUpdatedAt(Instant.now());  // 只修改照片时也使版本递增
+        employeeJpaRepository.save(entity);
+
+        if (employee.getPhotoBase64() != null) {
+            EmployeePhotoEntity photo = new EmployeePhotoEntity();
+            photo.setEmployeeId(employee.getId());
+            photo.setPhotoBase64(employee.getPhotoBase64());
+            employeePhotoJpaRepository.save(photo);
+        } else if (employeePhotoJpaRepository.existsById(employee.getId())) {
+            employeePhotoJpaRepository.deleteById(employee.getId());
+        }
+    }
+
+    /**
+     * 实体 → 模型(不含照片),在事务内调用以触发子集合的子查询加载
+     */
+    private Employee toModel(EmployeeEntity entity) {
+        Employee employee = new Employee();
+        employee.setId(entity.getId());
+        employee.setArchiveType(entity.getArchiveType());
+        employee.setName(entity.getName());
+        employee.setGender(entity.getGender());
+        employee.setBirthDate(entity.getBirthDate());
+        employee.setIdCard(entity.getIdCard());
+        employee.setNation(entity.getNation());
+        employee.setPoliticalStatus(entity.getPoliticalStatus());
+        employee.setMaritalStatus(entity.getMaritalStatus());
+        employee.setPhone(entity.getPhone());
+        employee.setEmail(entity.getEmail());
+        employee.setNativePlace(entity.getNativePlace());
+        employee.setCurrentAddress(entity.getCurrentAddress());
+        employee.setEmergencyContact(entity.getEmergencyContact());
+        employee.setEmergencyPhone(entity.getEmergencyPhone());
+
+        List<Employee.WorkExperience> workExperiences = new ArrayList<>(entity.getWorkExperiences().size());
+        for (WorkExperienceEntity source : entity.getWorkExperiences()) {
+            Employee.WorkExperience exp = new Employee.WorkExperience();
+            exp.setStartDate(source.getStartDate());
+            exp.setEndDate(source.getEndDate());
+            exp.setCompany(source.getCompany());
+            exp.setPosition(source.getPosition());
+            exp.setDuties(source.getDuties());
+            workExperiences.add(exp);
+        }
+        employee.setWorkExperiences(workExperiences);
+
+        List<Employee.Education> educations = new ArrayList<>(entity.getEducations().size());
+        for (EducationEntity source : entity.getEducations()) {
+            Employee.Education edu = new Employee.Education();
+            edu.setStartDate(source.getStartDate());
+            edu.setEndDate(source.getEndDate());
+            edu.setSchool(source.getSchool());
+            edu.setMajor(source.getMajor());
+            edu.setDegree(source.getDegree());
+            educations.add(edu);
+        }
+        employee.setEducations(educations);
+
+        List<Employee.FamilyMember> familyMembers = new ArrayList<>(entity.getFamilyMembers().size());
+        for (FamilyMemberEntity source : entity.getFamilyMembers()) {
+            Employee.FamilyMember member = new Employee.FamilyMember();
+            member.setRelation(source.getRelation());
+            member.setName(source.getName());
+            member.setAge(source.getAge());
+            member.setWorkUnit(source.getWorkUnit());
+            familyMembers.add(member);
+        }
+        employee.setFamilyMembers(familyMembers);
+
+        return employee;
+    }
+
+    /**
+     * 模型 → 实体(不含照片),子集合整体替换
+     */
+    private void copyToEntity(Employee employee, EmployeeEntity entity) {
+        entity.setArchiveType(employee.getArchiveType());
+        entity.setName(employee.getName());
+        entity.setGender(employee.getGender());
+        entity.setBirthDate(employee.getBirthDate());
+        entity.setIdCard(employee.getIdCard());
+        entity.setNation(employee.getNation());
+        entity.setPoliticalStatus(employee.getPoliticalStatus());
+        entity.setMaritalStatus(employee.getMaritalStatus());
+        entity.setPhone(employee.getPhone());
+        entity.setEmail(employee.getEmail());
+        entity.setNativePlace(employee.getNativePlace());
+        entity.setCurrentAddress(employee.getCurrentAddress());
+        entity.setEmergencyContact(employee.getEmergencyContact());
+        entity.setEmergencyPhone(employee.getEmergencyPhone());
+
+        entity.getWorkExperiences().clear();
+        if (employee.getWorkExperiences() != null) {
+            for (Employee.WorkExperience exp : employee.getWorkExperiences()) {
+                WorkExperienceEntity target = new WorkExperienceEntity();
+                target.setStartDate(exp.getStartDate());
+                target.setEndDate(exp.getEndDate());
+                target.setCompany(exp.getCompany());
+                target.setPosition(exp.getPosition());
+                target.setDuties(exp.getDuties());
+                entity.getWorkExperiences().add(target);
+            }
+        }
+
+        entity.getEducations().clear();
+        if (employee.getEducations() != null) {
+            for (Employee.Education edu : employee.getEducations()) {
+                EducationEntity target = new EducationEntity();
+                target.setStartDate(edu.getStartDate());
+                target.setEndDate(edu.getEndDate());
+                target.setSchool(edu.getSchool());
+                target.setMajor(edu.getMajor());
+                target.setDegree(edu.getDegree());
+                entity.getEducations().add(target);
+            }
+        }
+
+        entity.getFamilyMembers().clear();
+        if (employee.getFamilyMembers() != null) {
+            for (Employee.FamilyMember member : employee.getFamilyMembers()) {
+                FamilyMemberEntity target = new FamilyMemberEntity();
+                target.setRelation(member.getRelation());
+                target.setName(member.getName());
+                target.setAge(member.getAge());
+                target.setWorkUnit(member.getWorkUnit());
+                entity.getFamilyMembers().add(target);
+            }
+        }
+    }
+}
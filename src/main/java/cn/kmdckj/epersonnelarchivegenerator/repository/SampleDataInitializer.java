@@ -0,0 +1,43 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository;
+
+import cn.kmdckj.epersonnelarchivegenerator.service.MockDataService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 示例数据初始化 - 员工表为空时写入 {@link MockDataService} 中的示例员工
+ * <p>
+ * 用于开发环境和测试的内嵌数据库,生产环境设置 archive.data.seed-sample-data=false 关闭。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "archive.data", name = "seed-sample-data", havingValue = "true", matchIfMissing = true)
+public class SampleDataInitializer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SampleDataInitializer.class);
+
+    private final EmployeeRepository employeeRepository;
+    private final MockDataService mockDataService;
+
+    public SampleDataInitializer(EmployeeRepository employeeRepository, MockDataService mockDataService) {
+        this.employeeRepository = employeeRepository;
+        this.mockDataService = mockDataService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (employeeRepository.count() > 0) {
+            return;
+        }
+        for (String id : mockDataService.getAllEmployeeIds()) {
+            employeeRepository.save(mockDataService.getEmployeeById(id));
+        }
+        logger.info("已写入示例员工数据, 共 {} 人", employeeRepository.count());
+    }
+}
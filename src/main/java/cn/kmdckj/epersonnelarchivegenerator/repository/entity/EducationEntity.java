@@ -0,0 +1,39 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * 教育背景表
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "education")
+public class EducationEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    @Column(length = 255)
+    private String school;
+
+    @Column(length = 128)
+    private String major;
+
+    @Column(length = 32)
+    private String degree;
+}
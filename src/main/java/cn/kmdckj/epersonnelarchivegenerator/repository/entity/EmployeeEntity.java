@@ -0,0 +1,109 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository.entity;
+
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OrderColumn;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 员工表
+ * <p>
+ * 照片单独存放在 employee_photo 表({@link EmployeePhotoEntity}),加载员工不会读取照片。
+ * 工作经历随员工一次联表查询(实体图),教育背景和家庭成员各用一条子查询批量加载,
+ * 加载员工的查询数与经历条数无关。
+ * <p>
+ * version 在每次保存时递增(含只修改照片的保存),缓存据此判断数据是否过期。
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "employee")
+public class EmployeeEntity {
+
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Version
+    private Long version;
+
+    private Instant updatedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ArchiveType archiveType;
+
+    @Column(length = 64)
+    private String name;
+
+    @Column(length = 16)
+    private String gender;
+
+    private LocalDate birthDate;
+
+    @Column(length = 32)
+    private String idCard;
+
+    @Column(length = 32)
+    private String nation;
+
+    @Column(length = 32)
+    private String politicalStatus;
+
+    @Column(length = 16)
+    private String maritalStatus;
+
+    @Column(length = 32)
+    private String phone;
+
+    @Column(length = 128)
+    private String email;
+
+    @Column(length = 255)
+    private String nativePlace;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String currentAddress;
+
+    @Column(length = 64)
+    private String emergencyContact;
+
+    @Column(length = 32)
+    private String emergencyPhone;
+
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "employee_id", nullable = false)
+    @OrderColumn(name = "sort_order")
+    private List<WorkExperienceEntity> workExperiences = new ArrayList<>();
+
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "employee_id", nullable = false)
+    @OrderColumn(name = "sort_order")
+    @Fetch(FetchMode.SUBSELECT)
+    private List<EducationEntity> educations = new ArrayList<>();
+
+    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
+    @JoinColumn(name = "employee_id", nullable = false)
+    @OrderColumn(name = "sort_order")
+    @Fetch(FetchMode.SUBSELECT)
+    private List<FamilyMemberEntity> familyMembers = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * 员工照片表 - 与员工表一对一,主键即员工ID
+ * <p>
+ * 照片是员工数据中最大的部分,单独成表,只在渲染档案时按需读取。
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "employee_photo")
+public class EmployeePhotoEntity {
+
+    @Id
+    @Column(name = "employee_id", length = 64)
+    private String employeeId;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String photoBase64;  // Base64编码的照片
+}
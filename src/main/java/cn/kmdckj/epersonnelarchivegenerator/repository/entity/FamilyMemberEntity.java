@@ -0,0 +1,35 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 家庭成员表
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "family_member")
+public class FamilyMemberEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 32)
+    private String relation;
+
+    @Column(length = 64)
+    private String name;
+
+    private Integer age;
+
+    @Column(length = 255)
+    private String workUnit;
+}
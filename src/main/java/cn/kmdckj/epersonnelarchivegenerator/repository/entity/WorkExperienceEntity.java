@@ -0,0 +1,41 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDate;
+
+/**
+ * 工作经历表
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "work_experience")
+public class WorkExperienceEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    @Column(length = 255)
+    private String company;
+
+    @Column(length = 128)
+    private String position;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String duties;
+}
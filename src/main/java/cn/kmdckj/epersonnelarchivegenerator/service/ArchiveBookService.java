@@ -0,0 +1,335 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.BulkExportConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.PaginatedLayout;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.util.NativePdfRenderer;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * 档案汇编服务 - 将多名员工的档案合并为一个PDF,每名员工一个书签
+ * <p>
+ * 汇编文档使用PDFBox的混合内存模式: 堆内最多缓存 bookMainMemoryMb,
+ * 其余页面数据写入临时文件,数千人的汇编也不需要整本放在堆上。
+ * 员工档案按请求顺序追加,渲染在批量线程池中提前进行(最多 maxInFlight 个在途),
+ * 与其他渲染共用渲染许可(见 {@link RenderBulkhead})。
+ * <ul>
+ *     <li>原生引擎: 所有档案直接绘制到汇编文档中,共用一个字体子集,输出大小只随页数增长</li>
+ *     <li>HTML引擎: 渲染线程只构建档案DOM,由openhtmltopdf按顺序直接绘制到汇编文档中,同样共用一个字体子集</li>
+ * </ul>
+ */
+@Service
+public class ArchiveBookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveBookService.class);
+
+    private static final String BOOK_TITLE = "员工人事档案汇编";
+
+    private final EmployeeArchiveService employeeArchiveService;
+    private final NativePdfRenderer nativePdfRenderer;
+    private final BulkExportConfig bulkExportConfig;
+    private final ExecutorService renderExecutor;
+
+    public ArchiveBookService(EmployeeArchiveService employeeArchiveService,
+                              NativePdfRenderer nativePdfRenderer,
+                              BulkExportConfig bulkExportConfig,
+                              @Qualifier("bulkRenderExecutor") ExecutorService renderExecutor) {
+        this.employeeArchiveService = employeeArchiveService;
+        this.nativePdfRenderer = nativePdfRenderer;
+        this.bulkExportConfig = bulkExportConfig;
+        this.renderExecutor = renderExecutor;
+    }
+
+    /**
+     * 生成档案汇编PDF并写入输出流
+     *
+     * @param employeeIds  员工ID列表(汇编顺序)
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流(通常为HTTP响应流)
+     */
+    public void writeBook(List<String> employeeIds, PdfConfig.RenderEngine engine,
+                          OutputStream outputStream) throws IOException {
+        writeBook(employeeIds, engine, outputStream, completed -> {
+        });
+    }
+
+    /**
+     * 生成档案汇编PDF并写入输出流,每追加一名员工回调一次进度
+     *
+     * @param employeeIds  员工ID列表(汇编顺序)
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流
+     * @param progress     进度回调,参数为已处理的员工数
+     */
+    public void writeBook(List<String> employeeIds, PdfConfig.RenderEngine engine,
+                          OutputStream outputStream, IntConsumer progress) throws IOException {
+        writeBook(employeeIds, engine, outputStream, progress, employee -> {
+        });
+    }
+
+    /**
+     * 生成档案汇编PDF并写入输出流,每追加一名员工回调一次进度,
+     * 每份档案追加后以渲染所用的员工对象回调一次
+     *
+     * @param employeeIds  员工ID列表(汇编顺序)
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流
+     * @param progress     进度回调,参数为已处理的员工数
+     * @param rendered     渲染回调,参数为实际渲染的员工数据
+     */
+    public void writeBook(List<String> employeeIds, PdfConfig.RenderEngine engine,
+                          OutputStream outputStream, IntConsumer progress,
+                          Consumer<Employee> rendered) throws IOException {
+        PdfConfig.RenderEngine renderEngine = employeeArchiveService.resolveEngine(engine);
+        long startTime = System.currentTimeMillis();
+        logger.info("开始生成档案汇编, 员工数: {}, 渲染引擎: {}", employeeIds.size(), renderEngine);
+
+        try (PDDocument book = new PDDocument(memoryUsageSetting())) {
+            PDDocumentOutline outline = new PDDocumentOutline();
+            book.getDocumentCatalog().setDocumentOutline(outline);
+
+            // 两种引擎都把所有档案绘制到汇编文档中,共用一个字体子集
+            PDFont font = nativePdfRenderer.loadFont(book);
+            BookAppender<?> appender = renderEngine == PdfConfig.RenderEngine.NATIVE
+                    ? new NativeAppender(book, font)
+                    : new HtmlAppender(book, font);
+
+            int appended = appendAll(employeeIds, appender, outline, progress, rendered);
+            if (appended == 0) {
+                throw new ArchiveGenerationException("档案汇编中没有可用的员工档案");
+            }
+
+            writeDocumentInformation(book);
+            book.save(outputStream);
+            outputStream.flush();
+
+            logger.info("档案汇编生成完成, 成功: {}/{}, 总页数: {}, 耗时: {} ms",
+                    appended, employeeIds.size(), book.getNumberOfPages(),
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 按顺序追加所有员工档案: 渲染任务提前提交,追加严格按请求顺序进行
+     *
+     * @return 成功追加的档案数
+     */
+    private <P> int appendAll(List<String> employeeIds, BookAppender<P> appender, PDDocumentOutline outline,
+                              IntConsumer progress, Consumer<Employee> rendered) throws IOException {
+        int maxInFlight = bulkExportConfig.resolveMaxInFlight();
+        Deque<Future<P>> pending = new ArrayDeque<>();
+        int submitted = 0;
+        int appended = 0;
+        int processed = 0;
+
+        try {
+            while (submitted < employeeIds.size() && submitted < maxInFlight) {
+                pending.addLast(renderExecutor.submit(appender.prepare(employeeIds.get(submitted++))));
+            }
+
+            for (String employeeId : employeeIds) {
+                Future<P> future = pending.removeFirst();
+                P prepared = awaitPrepared(employeeId, future);
+                if (prepared != null) {
+                    PDPage firstPage = appender.append(prepared);
+                    if (firstPage != null) {
+                        addBookmark(outline, appender.bookmarkTitle(prepared), firstPage);
+                        rendered.accept(appender.employee(prepared));
+                        appended++;
+                    }
+                }
+                progress.accept(++processed);
+
+                if (submitted < employeeIds.size()) {
+                    pending.addLast(renderExecutor.submit(appender.prepare(employeeIds.get(submitted++))));
+                }
+            }
+            return appended;
+
+        } catch (IOException | RuntimeException e) {
+            pending.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    /**
+     * 等待单个员工的渲染结果,失败的员工跳过(不中断整本汇编)
+     */
+    private <P> P awaitPrepared(String employeeId, Future<P> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("档案汇编被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EmployeeNotFoundException) {
+                logger.warn("档案汇编跳过不存在的员工: {}", employeeId);
+            } else {
+                logger.warn("档案汇编跳过生成失败的员工: {}", employeeId, cause);
+            }
+            return null;
+        }
+    }
+
+    private void addBookmark(PDDocumentOutline outline, String title, PDPage firstPage) {
+        PDOutlineItem item = new PDOutlineItem();
+        item.setTitle(title);
+        item.setDestination(firstPage);
+        outline.addLast(item);
+    }
+
+    private void writeDocumentInformation(PDDocument book) {
+        PDDocumentInformation information = book.getDocumentInformation();
+        information.setTitle(BOOK_TITLE);
+        information.setCreationDate(Calendar.getInstance());
+    }
+
+    /**
+     * 汇编文档的内存设置: 堆内缓存有上限,超出部分写入临时文件
+     */
+    private MemoryUsageSetting memoryUsageSetting() {
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(
+                (long) bulkExportConfig.getBookMainMemoryMb() * 1024 * 1024);
+        String scratchDir = bulkExportConfig.getScratchDir();
+        if (scratchDir != null && !scratchDir.trim().isEmpty()) {
+            setting.setTempDir(new File(scratchDir));
+        }
+        return setting;
+    }
+
+    private static String bookmarkTitle(Employee employee) {
+        return employee.getName() + " (" + employee.getId() + ")";
+    }
+
+    /**
+     * 追加策略: prepare 在渲染线程中执行,append 在调用线程中按顺序执行
+     *
+     * @param <P> 渲染线程准备好、等待追加的中间结果
+     */
+    private interface BookAppender<P> {
+
+        Callable<P> prepare(String employeeId);
+
+        PDPage append(P prepared) throws IOException;
+
+        Employee employee(P prepared);
+
+        default String bookmarkTitle(P prepared) {
+            return ArchiveBookService.bookmarkTitle(employee(prepared));
+        }
+    }
+
+    /**
+     * 原生引擎: 渲染线程只计算布局,绘制在汇编文档上进行,共用同一个字体
+     */
+    private final class NativeAppender implements BookAppender<PreparedLayout> {
+
+        private final PDDocument book;
+        private final PDFont font;
+
+        NativeAppender(PDDocument book, PDFont font) {
+            this.book = book;
+            this.font = font;
+        }
+
+        @Override
+        public Callable<PreparedLayout> prepare(String employeeId) {
+            return () -> {
+                Employee employee = employeeArchiveService.getEmployee(employeeId);
+                return new PreparedLayout(employee, employeeArchiveService.calculatePaginatedLayout(employee));
+            };
+        }
+
+        @Override
+        public PDPage append(PreparedLayout prepared) throws IOException {
+            return nativePdfRenderer.drawArchive(book, font, prepared.layout);
+        }
+
+        @Override
+        public Employee employee(PreparedLayout prepared) {
+            return prepared.employee;
+        }
+    }
+
+    /**
+     * HTML引擎: 渲染线程构建档案DOM,追加时由openhtmltopdf直接绘制到汇编文档,共用同一个字体
+     * 绘制写入共享的汇编文档,因此按顺序在调用线程中进行
+     */
+    private final class HtmlAppender implements BookAppender<PreparedDocument> {
+
+        private final PDDocument book;
+        private final PDFont font;
+
+        HtmlAppender(PDDocument book, PDFont font) {
+            this.book = book;
+            this.font = font;
+        }
+
+        @Override
+        public Callable<PreparedDocument> prepare(String employeeId) {
+            return () -> {
+                Employee employee = employeeArchiveService.getEmployee(employeeId);
+                return new PreparedDocument(employee, employeeArchiveService.renderArchiveDocument(employee));
+            };
+        }
+
+        @Override
+        public PDPage append(PreparedDocument prepared) throws IOException {
+            int firstPageIndex = book.getNumberOfPages();
+            employeeArchiveService.appendArchivePdf(prepared.document, book, font);
+            return book.getNumberOfPages() > firstPageIndex ? book.getPage(firstPageIndex) : null;
+        }
+
+        @Override
+        public Employee employee(PreparedDocument prepared) {
+            return prepared.employee;
+        }
+    }
+
+    private static final class PreparedLayout {
+        final Employee employee;
+        final PaginatedLayout layout;  // 等待按顺序绘制期间以扁平形式驻留
+
+        PreparedLayout(Employee employee, PaginatedLayout layout) {
+            this.employee = employee;
+            this.layout = layout;
+        }
+    }
+
+    private static final class PreparedDocument {
+        final Employee employee;
+        final Document document;
+
+        PreparedDocument(Employee employee, Document document) {
+            this.employee = employee;
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PhotoConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigRegistry;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.util.ContentDigest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.boot.info.GitProperties;
+import org.springframework.stereotype.Service;
+
+
+/**
+ * 档案指纹服务 - 在渲染之前计算档案内容的稳定指纹
+ * 指纹 = 员工数据 + 档案模板摘要(含模板的布局配置) + 构建标识和布局/PDF配置版本 + 字段配置摘要 + 渲染引擎,
+ * 任一输入变化时指纹随之变化,可直接用作强ETag。
+ * 构建标识使排版或渲染代码变化的新部署不会沿用旧版本的ETag和任务结果
+ */
+@Service
+public class ArchiveFingerprintService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveFingerprintService.class);
+
+    private static final String FINGERPRINT_SCHEMA = "archive-fingerprint-v4";
+    private final FieldConfigRegistry fieldConfigRegistry;
+    private final ArchiveTemplateRegistry templateRegistry;
+    private final String buildVersion;
+    private final String configVersion;
+
+    public ArchiveFingerprintService(LayoutConfig layoutConfig, PdfConfig pdfConfig, PhotoConfig photoConfig,
+                                     FieldConfigRegistry fieldConfigRegistry,
+                                     ArchiveTemplateRegistry templateRegistry,
+                                     ObjectProvider<BuildProperties> buildProperties,
+                                     ObjectProvider<GitProperties> gitProperties) {
+        this.fieldConfigRegistry = fieldConfigRegistry;
+        this.templateRegistry = templateRegistry;
+        this.buildVersion = computeBuildVersion(buildProperties.getIfAvailable(), gitProperties.getIfAvailable());
+        this.configVersion = computeConfigVersion(buildVersion, layoutConfig, pdfConfig, photoConfig);
+        logger.info("档案指纹初始化完成, 构建标识: {}, 配置版本: {}", buildVersion, configVersion.substring(0, 12));
+    }
+
+    /**
+     * 计算档案指纹
+     *
+     * @param employee 员工数据
+     * @param engine   渲染引擎
+     * @return 十六进制指纹
+     */
+    public String fingerprint(Employee employee, PdfConfig.RenderEngine engine) {
+        ContentDigest digest = ContentDigest.sha256()
+                .add(FINGERPRINT_SCHEMA)
+                .add(templateRegistry.resolve(employee.getArchiveType()).getDigest())  // 模板可热加载,每次取当前模板
+                .add(configVersion)
+                .add(fieldConfigRegistry.getSnapshot().getDigest())  // 字段配置可热加载,每次取当前快照
+                .add(engine.name());
+        addEmployee(digest, employee);
+        return digest.toHex();
+    }
+
+    /**
+     * 计算渲染设置摘要(不含员工数据): 全部档案类型的模板摘要 + 构建标识和配置版本 + 字段配置摘要 + 渲染引擎
+     * 与员工数据版本号组合即可在不读取员工数据的情况下判断档案是否可能变化
+     *
+     * @param engine 渲染引擎
+     * @return 十六进制摘要
+     */
+    public String settingsFingerprint(PdfConfig.RenderEngine engine) {
+        ContentDigest digest = ContentDigest.sha256()
+                .add(FINGERPRINT_SCHEMA)
+                .add(configVersion)
+                .add(fieldConfigRegistry.getSnapshot().getDigest())
+                .add(engine.name());
+        for (ArchiveTemplate template : templateRegistry.getTemplates().values()) {  // 按档案类型顺序
+            digest.add(template.getDigest());
+        }
+        return digest.toHex();
+    }
+
+    public String getConfigVersion() {
+        return configVersion;
+    }
+
+    public String getBuildVersion() {
+        return buildVersion;
+    }
+
+    /**
+     * 累加员工的全部展示数据(字段顺序固定)
+     */
+    private void addEmployee(ContentDigest digest, Employee employee) {
+        digest.add(employee.getId())
+                .add(employee.getName())
+                .add(employee.getGender())
+                .add(employee.getBirthDate())
+                .add(employee.getIdCard())
+                .add(employee.getNation())
+                .add(employee.getPoliticalStatus())
+                .add(employee.getMaritalStatus())
+                .add(employee.getPhone())
+                .add(employee.getEmail())
+                .add(employee.getNativePlace())
+                .add(employee.getCurrentAddress())
+                .add(employee.getEmergencyContact())
+                .add(employee.getEmergencyPhone())
+                .add(employee.getPhotoBase64());
+
+        if (employee.getWorkExperiences() == null) {
+            digest.add(-1L);
+        } else {
+            digest.add(employee.getWorkExperiences().size());
+            for (Employee.WorkExperience exp : employee.getWorkExperiences()) {
+                digest.add(exp.getStartDate())
+                        .add(exp.getEndDate())
+                        .add(exp.getCompany())
+                        .add(exp.getPosition())
+                        .add(exp.getDuties());
+            }
+        }
+
+        if (employee.getEducations() == null) {
+            digest.add(-1L);
+        } else {
+            digest.add(employee.getEducations().size());
+            for (Employee.Education edu : employee.getEducations()) {
+                digest.add(edu.getStartDate())
+                        .add(edu.getEndDate())
+                        .add(edu.getSchool())
+                        .add(edu.getMajor())
+                        .add(edu.getDegree());
+            }
+        }
+
+        if (employee.getFamilyMembers() == null) {
+            digest.add(-1L);
+        } else {
+            digest.add(employee.getFamilyMembers().size());
+            for (Employee.FamilyMember member : employee.getFamilyMembers()) {
+                digest.add(member.getRelation())
+                        .add(member.getName())
+                        .add(member.getAge())
+                        .add(member.getWorkUnit());
+            }
+        }
+    }
+
+    /**
+     * 构建标识: 优先使用提交号(工作区有未提交修改时加上构建时间),
+     * 其次使用构建版本和构建时间,都没有时使用jar清单中的实现版本
+     */
+    private static String computeBuildVersion(BuildProperties build, GitProperties git) {
+        if (git != null && git.getCommitId() != null) {
+            boolean dirty = Boolean.parseBoolean(git.get("dirty"));
+            if (!dirty) {
+                return git.getCommitId();
+            }
+            return git.getCommitId() + "+" + (build != null && build.getTime() != null
+                    ? build.getTime().toEpochMilli() : "dirty");
+        }
+        if (build != null) {
+            return build.getVersion() + (build.getTime() != null ? "+" + build.getTime().toEpochMilli() : "");
+        }
+        String implementationVersion = ArchiveFingerprintService.class.getPackage().getImplementationVersion();
+        return implementationVersion != null ? implementationVersion : "unknown";
+    }
+
+    /**
+     * 配置版本: 构建标识和影响排版、PDF输出的全部配置项
+     */
+    private String computeConfigVersion(String buildVersion, LayoutConfig layoutConfig, PdfConfig pdfConfig,
+                                        PhotoConfig photoConfig) {
+        LayoutConfig.PageConfig page = layoutConfig.getPage();
+        LayoutConfig.RowConfig row = layoutConfig.getRow();
+        LayoutConfig.FieldConfig field = layoutConfig.getField();
+        LayoutConfig.ZoneConfig zone = layoutConfig.getZone();
+
+        return ContentDigest.sha256()
+                .add(buildVersion)
+                .add(page.getWidth()).add(page.getHeight())
+                .add(page.getMarginTop()).add(page.getMarginBottom())
+                .add(page.getMarginLeft()).add(page.getMarginRight())
+                .add(page.getUsableWidth()).add(page.getUsableHeight())
+                .add(row.getDefaultHeight()).add(row.getTitleHeight())
+                .add(row.getSeparatorHeight()).add(row.getMinBreakHeight())
+                .add(field.getMinWidth()).add(field.getMaxLengthThreshold())
+                .add(zone.getHeaderBaseHeight()).add(zone.getHeaderTextWidthPercent())
+                .add(zone.getPhotoWidth()).add(zone.getPhotoHeight())
+                .add(layoutConfig.getPacking().getStrategy().name())
+                .add(layoutConfig.getPacking().getReorderWindow())
+                .add(layoutConfig.getPagination().getMode().name())
+                .add(pdfConfig.getFontPath()).add(pdfConfig.getFontFamily())
+                .add(pdfConfig.getDpi()).add(pdfConfig.isEnableSvg())
+                .add(pdfConfig.isDirectDom())
+                .add(photoConfig.getDpi()).add(photoConfig.getJpegQuality())
+                .toHex();
+    }
+}
@@ -0,0 +1,11 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+/**
+ * 异步任务不存在异常 - 任务ID无效或任务已过期清理
+ */
+public class ArchiveJobNotFoundException extends RuntimeException {
+
+    public ArchiveJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+/**
+ * 异步任务结果不可用异常 - 任务尚未完成或已失败
+ */
+public class ArchiveJobNotReadyException extends RuntimeException {
+
+    public ArchiveJobNotReadyException(String message) {
+        super(message);
+    }
+}
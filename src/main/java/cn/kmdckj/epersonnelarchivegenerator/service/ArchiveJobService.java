@@ -0,0 +1,433 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.ArchiveJobConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveJob;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.util.ContentDigest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * 异步档案任务服务 - 提交后立即返回任务ID,在专用线程池中生成档案并把结果写入本地目录
+ * <p>
+ * 每个任务一个目录: job.json 记录任务状态,result 为生成结果。结果先写入临时文件,完成后原子改名,
+ * 因此目录中的 result 总是完整的。服务重启时从目录恢复任务: 已完成的任务可继续下载,
+ * 未完成的任务重新排队。相同去重指纹(员工数据、模板、配置和渲染引擎都未变化)的未过期任务直接复用,
+ * 不会重复渲染;批量任务的去重指纹只由员工数据版本号和渲染设置摘要组成,提交时不加载员工数据。
+ * 任务成功后另由实际渲染的员工数据计算结果指纹,作为结果下载的ETag。
+ * 任务结束后超过保留时间的目录由定时任务清理。
+ */
+@Service
+public class ArchiveJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveJobService.class);
+
+    private static final String JOB_FILE = "job.json";
+    private static final String RESULT_FILE = "result";
+    private static final String PART_SUFFIX = ".part";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    private final EmployeeArchiveService employeeArchiveService;
+    private final BulkArchiveExportService bulkArchiveExportService;
+    private final ArchiveBookService archiveBookService;
+    private final ArchiveJobConfig jobConfig;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService jobExecutor;
+    private final Path storeDir;
+
+    private final Map<String, ArchiveJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, String> jobIdsByFingerprint = new ConcurrentHashMap<>();
+
+    public ArchiveJobService(EmployeeArchiveService employeeArchiveService,
+                             BulkArchiveExportService bulkArchiveExportService,
+                             ArchiveBookService archiveBookService,
+                             ArchiveJobConfig jobConfig,
+                             ObjectMapper objectMapper,
+                             @Qualifier("archiveJobExecutor") ExecutorService jobExecutor) {
+        this.employeeArchiveService = employeeArchiveService;
+        this.bulkArchiveExportService = bulkArchiveExportService;
+        this.archiveBookService = archiveBookService;
+        this.jobConfig = jobConfig;
+        this.objectMapper = objectMapper;
+        this.jobExecutor = jobExecutor;
+        this.storeDir = jobConfig.resolveStoreDir();
+        recoverJobs();
+    }
+
+    /**
+     * 提交单份员工档案任务
+     *
+     * @param employeeId 员工ID
+     * @param engine     渲染引擎,为null时使用配置的默认引擎
+     * @return 新建或复用的任务
+     */
+    public ArchiveJob submitArchive(String employeeId, PdfConfig.RenderEngine engine) {
+        PdfConfig.RenderEngine renderEngine = employeeArchiveService.resolveEngine(engine);
+        String fingerprint = archiveFingerprint(employeeArchiveService.getArchiveFingerprint(employeeId, renderEngine));
+        return submit(ArchiveJob.Type.ARCHIVE, List.of(employeeId), renderEngine, fingerprint,
+                "employee-archive-" + employeeId + ".pdf", "application/pdf");
+    }
+
+    /**
+     * 提交批量任务(ZIP或档案汇编)
+     *
+     * @param type        任务类型(ZIP/BOOK)
+     * @param employeeIds 员工ID列表
+     * @param engine      渲染引擎,为null时使用配置的默认引擎
+     * @return 新建或复用的任务
+     */
+    public ArchiveJob submitBulk(ArchiveJob.Type type, List<String> employeeIds, PdfConfig.RenderEngine engine) {
+        if (type == ArchiveJob.Type.ARCHIVE) {
+            throw new IllegalArgumentException("批量任务类型必须为ZIP或BOOK");
+        }
+        PdfConfig.RenderEngine renderEngine = employeeArchiveService.resolveEngine(engine);
+
+        // 去重键只查询各员工的数据版本,不在请求线程中加载员工数据和计算内容指纹
+        Map<String, String> versions = new HashMap<>();
+        for (String employeeId : employeeIds) {
+            // 不存在的员工在结果中记录为失败项,键中以ID占位
+            employeeArchiveService.getEmployeeVersion(employeeId)
+                    .ifPresent(version -> versions.put(employeeId, String.valueOf(version)));
+        }
+        String fingerprint = ContentDigest.sha256()
+                .add("versions")
+                .add(employeeArchiveService.getSettingsFingerprint(renderEngine))
+                .add(bulkFingerprint(type, renderEngine, employeeIds, versions))
+                .toHex();
+
+        String timestamp = LocalDateTime.now().format(FILE_TIMESTAMP);
+        return type == ArchiveJob.Type.ZIP
+                ? submit(type, employeeIds, renderEngine, fingerprint,
+                "employee-archives-" + timestamp + ".zip", "application/zip")
+                : submit(type, employeeIds, renderEngine, fingerprint,
+                "employee-archive-book-" + timestamp + ".pdf", "application/pdf");
+    }
+
+    /**
+     * 查询任务
+     *
+     * @param jobId 任务ID
+     * @return 任务
+     */
+    public ArchiveJob getJob(String jobId) {
+        ArchiveJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new ArchiveJobNotFoundException("任务不存在或已过期: " + jobId);
+        }
+        return job;
+    }
+
+    /**
+     * 获取已完成任务的结果文件
+     *
+     * @param jobId 任务ID
+     * @return 结果文件路径
+     */
+    public Path getResultFile(String jobId) {
+        ArchiveJob job = getJob(jobId);
+        if (job.getStatus() != ArchiveJob.Status.SUCCEEDED) {
+            throw new ArchiveJobNotReadyException("任务尚未完成, 当前状态: " + job.getStatus()
+                    + (job.getError() != null ? ", 错误: " + job.getError() : ""));
+        }
+        Path result = jobDir(jobId).resolve(RESULT_FILE);
+        if (!Files.isRegularFile(result)) {
+            throw new ArchiveJobNotFoundException("任务结果已被清理: " + jobId);
+        }
+        return result;
+    }
+
+    /**
+     * 清理过期任务: 删除任务目录并移除索引
+     */
+    @Scheduled(fixedDelayString = "${archive.job.cleanup-interval-ms:600000}")
+    public void cleanupExpired() {
+        Instant now = Instant.now();
+        int removed = 0;
+        for (ArchiveJob job : jobs.values()) {
+            if (job.getExpiresAt() != null && job.getExpiresAt().isBefore(now)) {
+                removeJob(job);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("已清理过期任务: {} 个, 剩余: {} 个", removed, jobs.size());
+        }
+    }
+
+    private synchronized ArchiveJob submit(ArchiveJob.Type type, List<String> employeeIds,
+                                           PdfConfig.RenderEngine engine, String fingerprint,
+                                           String fileName, String contentType) {
+        // 去重: 相同指纹的未失败、未过期任务直接返回
+        String existingId = jobIdsByFingerprint.get(fingerprint);
+        ArchiveJob existing = existingId != null ? jobs.get(existingId) : null;
+        if (existing != null && existing.getStatus() != ArchiveJob.Status.FAILED && !isExpired(existing)) {
+            logger.info("复用已有任务: {}, 类型: {}, 状态: {}", existing.getId(), type, existing.getStatus());
+            return existing;
+        }
+
+        ArchiveJob job = new ArchiveJob();
+        job.setId(UUID.randomUUID().toString().replace("-", ""));
+        job.setType(type);
+        job.setStatus(ArchiveJob.Status.QUEUED);
+        job.setEmployeeIds(List.copyOf(employeeIds));
+        job.setEngine(engine.name());
+        job.setTotal(employeeIds.size());
+        job.setCreatedAt(Instant.now());
+        job.setFileName(fileName);
+        job.setContentType(contentType);
+        job.setFingerprint(fingerprint);
+
+        try {
+            Files.createDirectories(jobDir(job.getId()));
+            persist(job);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建任务目录: " + jobDir(job.getId()), e);
+        }
+
+        jobs.put(job.getId(), job);
+        jobIdsByFingerprint.put(fingerprint, job.getId());
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            removeJob(job);
+            throw new RenderRejectedException("异步任务队列已满", jobConfig.getRetryAfterSeconds());
+        }
+
+        logger.info("已提交异步任务: {}, 类型: {}, 员工数: {}, 渲染引擎: {}",
+                job.getId(), type, employeeIds.size(), engine);
+        return job;
+    }
+
+    /**
+     * 执行任务: 结果写入临时文件,完成后改名为正式结果
+     */
+    private void run(ArchiveJob job) {
+        long startTime = System.currentTimeMillis();
+        Path dir = jobDir(job.getId());
+        Path part = dir.resolve(RESULT_FILE + PART_SUFFIX);
+        job.setStatus(ArchiveJob.Status.RUNNING);
+        job.setStartedAt(Instant.now());
+        persistQuietly(job);
+
+        try {
+            PdfConfig.RenderEngine engine = PdfConfig.RenderEngine.valueOf(job.getEngine());
+            // 结果指纹由实际渲染的员工对象计算: 提交后员工数据可能已变化,提交时的指纹只用于去重
+            Map<String, String> archiveFingerprints = new ConcurrentHashMap<>();
+            Consumer<Employee> rendered = employee -> archiveFingerprints.put(employee.getId(),
+                    employeeArchiveService.getArchiveFingerprint(employee, engine));
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part), 64 * 1024)) {
+                switch (job.getType()) {
+                    case ARCHIVE -> {
+                        Employee employee = employeeArchiveService.getEmployee(job.getEmployeeIds().get(0));
+                        employeeArchiveService.writeEmployeeArchivePdf(employee, engine, out);
+                        rendered.accept(employee);
+                        job.setCompleted(1);
+                    }
+                    case ZIP -> bulkArchiveExportService.exportZip(job.getEmployeeIds(), engine, out,
+                            job::setCompleted, rendered);
+                    case BOOK -> archiveBookService.writeBook(job.getEmployeeIds(), engine, out,
+                            job::setCompleted, rendered);
+                }
+            }
+            Path result = dir.resolve(RESULT_FILE);
+            moveAtomically(part, result);
+
+            job.setResultFingerprint(job.getType() == ArchiveJob.Type.ARCHIVE
+                    ? archiveFingerprint(archiveFingerprints.get(job.getEmployeeIds().get(0)))
+                    : bulkFingerprint(job.getType(), engine, job.getEmployeeIds(), archiveFingerprints));
+            job.setSizeBytes(Files.size(result));
+            finish(job, ArchiveJob.Status.SUCCEEDED, null);
+            logger.info("异步任务完成: {}, 结果大小: {} KB, 耗时: {} ms",
+                    job.getId(), job.getSizeBytes() / 1024, System.currentTimeMillis() - startTime);
+
+        } catch (Exception e) {
+            logger.error("异步任务失败: {}", job.getId(), e);
+            try {
+                Files.deleteIfExists(part);
+            } catch (IOException ignored) {
+                // 残留的临时文件随任务目录一起清理
+            }
+            jobIdsByFingerprint.remove(job.getFingerprint(), job.getId());
+            finish(job, ArchiveJob.Status.FAILED, e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * 单份档案任务的指纹
+     *
+     * @param archiveFingerprint 员工档案指纹
+     */
+    private static String archiveFingerprint(String archiveFingerprint) {
+        return ContentDigest.sha256()
+                .add(ArchiveJob.Type.ARCHIVE.name())
+                .add(archiveFingerprint)
+                .toHex();
+    }
+
+    /**
+     * 批量任务的指纹: 由每名员工的档案指纹(或数据版本)按顺序组成,没有指纹(不存在或未能渲染)的员工以ID占位
+     *
+     * @param archiveFingerprints 员工ID -> 档案指纹或数据版本
+     */
+    private static String bulkFingerprint(ArchiveJob.Type type, PdfConfig.RenderEngine engine,
+                                          List<String> employeeIds, Map<String, String> archiveFingerprints) {
+        ContentDigest digest = ContentDigest.sha256()
+                .add(type.name())
+                .add(engine.name())
+                .add(employeeIds.size());
+        for (String employeeId : employeeIds) {
+            digest.add(employeeId);
+            digest.add(archiveFingerprints.get(employeeId));
+        }
+        return digest.toHex();
+    }
+
+    private void finish(ArchiveJob job, ArchiveJob.Status status, String error) {
+        Instant now = Instant.now();
+        job.setError(error);
+        job.setFinishedAt(now);
+        job.setExpiresAt(now.plus(Duration.ofMinutes(jobConfig.getTtlMinutes())));
+        job.setStatus(status);
+        persistQuietly(job);
+    }
+
+    /**
+     * 启动时从结果目录恢复任务
+     */
+    private void recoverJobs() {
+        if (!Files.isDirectory(storeDir)) {
+            logger.info("异步任务目录: {}", storeDir);
+            return;
+        }
+
+        int recovered = 0;
+        int requeued = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(storeDir, Files::isDirectory)) {
+            for (Path dir : dirs) {
+                ArchiveJob job = readJob(dir);
+                if (job == null) {
+                    continue;
+                }
+                if (isExpired(job)
+                        || (job.getStatus() == ArchiveJob.Status.SUCCEEDED
+                        && !Files.isRegularFile(dir.resolve(RESULT_FILE)))) {
+                    deleteDirectory(dir);
+                    continue;
+                }
+
+                jobs.put(job.getId(), job);
+                if (job.getStatus() != ArchiveJob.Status.FAILED) {
+                    jobIdsByFingerprint.put(job.getFingerprint(), job.getId());
+                }
+                recovered++;
+
+                // 重启前未完成的任务重新排队
+                if (!job.isFinished()) {
+                    job.setStatus(ArchiveJob.Status.QUEUED);
+                    job.setCompleted(0);
+                    job.setStartedAt(null);
+                    try {
+                        jobExecutor.execute(() -> run(job));
+                        requeued++;
+                    } catch (RejectedExecutionException e) {
+                        finish(job, ArchiveJob.Status.FAILED, "服务重启后任务队列已满");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("读取异步任务目录失败: {}", storeDir, e);
+        }
+        logger.info("异步任务目录: {}, 恢复任务: {} 个, 重新排队: {} 个", storeDir, recovered, requeued);
+    }
+
+    private ArchiveJob readJob(Path dir) {
+        Path file = dir.resolve(JOB_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            ArchiveJob job = objectMapper.readValue(file.toFile(), ArchiveJob.class);
+            // 目录名即任务ID,以目录名为准
+            return dir.getFileName().toString().equals(job.getId()) ? job : null;
+        } catch (IOException e) {
+            logger.warn("无法读取任务文件, 已忽略: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入任务文件: 先写临时文件再原子改名,避免重启时读到半个文件
+     */
+    private void persist(ArchiveJob job) throws IOException {
+        Path dir = jobDir(job.getId());
+        Path part = dir.resolve(JOB_FILE + PART_SUFFIX);
+        objectMapper.writeValue(part.toFile(), job);
+        moveAtomically(part, dir.resolve(JOB_FILE));
+    }
+
+    private void persistQuietly(ArchiveJob job) {
+        try {
+            persist(job);
+        } catch (IOException e) {
+            logger.warn("任务状态写入失败: {}", job.getId(), e);
+        }
+    }
+
+    private void removeJob(ArchiveJob job) {
+        jobs.remove(job.getId());
+        jobIdsByFingerprint.remove(job.getFingerprint(), job.getId());
+        deleteDirectory(jobDir(job.getId()));
+    }
+
+    private void deleteDirectory(Path dir) {
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            logger.warn("删除任务目录失败: {}", dir, e);
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isExpired(ArchiveJob job) {
+        return job.getExpiresAt() != null && job.getExpiresAt().isBefore(Instant.now());
+    }
+
+    private Path jobDir(String jobId) {
+        return storeDir.resolve(jobId);
+    }
+}
@@ -3,13 +3,20 @@ package cn.kmdckj.epersonnelarchivegenerator.service;
 import cn.kmdckj.epersonnelarchivegenerator.engine.LayoutEngine;
 import cn.kmdckj.epersonnelarchivegenerator.engine.LayoutOptimizer;
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutZone;
 import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.util.ArchiveMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * 档案渲染服务 - 整合布局计算和HTML渲染
+ * 每份档案按员工的档案类型取一次模板,布局计算(行填充、分页)和模板渲染使用同一模板对象
  */
 @Service
 public class ArchiveRenderService {
@@ -19,16 +26,25 @@ public class ArchiveRenderService {
     private final LayoutEngine layoutEngine;
     private final LayoutOptimizer layoutOptimizer;
     private final ThymeleafRenderService thymeleafRenderService;
+    private final ArchiveTemplateRegistry templateRegistry;
     private final HtmlPreprocessor htmlPreprocessor;
+    private final ArchiveMetrics archiveMetrics;
+
+    // 最近一次输出的HTML长度,用于预分配缓冲区
+    private volatile int lastHtmlLength = 16 * 1024;
 
     public ArchiveRenderService(LayoutEngine layoutEngine,
                                 LayoutOptimizer layoutOptimizer,
                                 ThymeleafRenderService thymeleafRenderService,
-                                HtmlPreprocessor htmlPreprocessor) {
+                                ArchiveTemplateRegistry templateRegistry,
+                                HtmlPreprocessor htmlPreprocessor,
+                                ArchiveMetrics archiveMetrics) {
         this.layoutEngine = layoutEngine;
         this.layoutOptimizer = layoutOptimizer;
         this.thymeleafRenderService = thymeleafRenderService;
+        this.templateRegistry = templateRegistry;
         this.htmlPreprocessor = htmlPreprocessor;
+        this.archiveMetrics = archiveMetrics;
     }
 
     /**
@@ -40,25 +56,28 @@ public class ArchiveRenderService {
     public String renderEmployeeArchiveHtml(Employee employee) {
         try {
             logger.info("开始渲染员工档案HTML, 员工ID: {}", employee.getId());
-
-            // 1. 计算布局
-            logger.debug("步骤1: 计算布局模型");
-            LayoutModel layoutModel = layoutEngine.calculateLayout(employee);
-
-            // 2. 优化布局(包括自动分页)
-            logger.debug("步骤2: 优化布局并插入分页符");
-            layoutModel = layoutOptimizer.optimize(layoutModel);
-
-            // 3. 渲染HTML
-            logger.debug("步骤3: 渲染Thymeleaf模板");
-            String html = thymeleafRenderService.renderArchiveHtml(layoutModel);
-
-            // 4. 预处理HTML
-            logger.debug("步骤4: 预处理HTML");
-            html = htmlPreprocessor.preprocess(html);
+            ArchiveTemplate template = templateRegistry.resolve(employee.getArchiveType());
+
+            // 1-2. 计算布局并优化(包括自动分页)
+            LayoutModel layoutModel = calculateOptimizedLayout(employee, template);
+
+            // 3-4. 渲染模板,输出流经预处理过滤器(合并空白行、补全charset、校验结构)
+            logger.debug("步骤3: 渲染Thymeleaf模板并预处理");
+            StringBuilder buffer = new StringBuilder(lastHtmlLength + lastHtmlLength / 8);
+            HtmlPreprocessor.Filter filter = htmlPreprocessor.newFilter(buffer);
+            archiveMetrics.time(ArchiveMetrics.STAGE_TEMPLATE, () -> {
+                try (filter) {
+                    thymeleafRenderService.renderArchiveHtml(layoutModel, template, filter);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return buffer.length();
+            });
+            lastHtmlLength = buffer.length();
+            String html = buffer.toString();
 
             // 5. 验证HTML
-            if (!thymeleafRenderService.validateHtml(html)) {
+            if (!filter.isValid()) {
                 throw new RenderException("生成的HTML无效");
             }
 
@@ -73,6 +92,77 @@ public class ArchiveRenderService {
         }
     }
 
+    /**
+     * 渲染员工档案为W3C Document(直接构建DOM,用于PDF生成)
+     * 与 {@link #renderEmployeeArchiveHtml} 的内容一致,但不经过HTML字符串和预处理
+     *
+     * @param employee 员工数据
+     * @return W3C Document
+     */
+    public Document renderEmployeeArchiveDocument(Employee employee) {
+        try {
+            logger.info("开始渲染员工档案DOM, 员工ID: {}", employee.getId());
+            ArchiveTemplate template = templateRegistry.resolve(employee.getArchiveType());
+
+            // 1-2. 计算布局并优化(包括自动分页)
+            LayoutModel layoutModel = calculateOptimizedLayout(employee, template);
+
+            // 3. 渲染模板并直接构建DOM
+            logger.debug("步骤3: 渲染Thymeleaf模板为DOM");
+            Document document = archiveMetrics.time(ArchiveMetrics.STAGE_TEMPLATE,
+                    () -> thymeleafRenderService.renderArchiveDocument(layoutModel, template));
+
+            // 4. 验证DOM
+            if (!thymeleafRenderService.validateDocument(document)) {
+                throw new RenderException("生成的DOM无效");
+            }
+
+            logger.info("档案DOM渲染完成, 员工ID: {}", employee.getId());
+            return document;
+
+        } catch (Exception e) {
+            logger.error("渲染档案DOM失败, 员工ID: {}", employee.getId(), e);
+            throw new RenderException("渲染档案DOM失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 计算布局模型并完成优化和自动分页
+     * HTML引擎和原生PDF引擎共用此布局结果
+     *
+     * @param employee 员工数据
+     * @return 已分页的布局模型
+     */
+    public LayoutModel calculateOptimizedLayout(Employee employee) {
+        return calculateOptimizedLayout(employee, templateRegistry.resolve(employee.getArchiveType()));
+    }
+
+    /**
+     * 按档案模板的行填充策略和分页方式计算布局模型
+     *
+     * @param employee 员工数据
+     * @param template 档案模板
+     * @return 已分页的布局模型
+     */
+    public LayoutModel calculateOptimizedLayout(Employee employee, ArchiveTemplate template) {
+        // 1. 计算布局
+        logger.debug("步骤1: 计算布局模型");
+        LayoutModel layoutModel = archiveMetrics.time(ArchiveMetrics.STAGE_LAYOUT,
+                () -> layoutEngine.calculateLayout(employee, template.getRowPacking()));
+
+        // 2. 优化布局(包括自动分页)
+        logger.debug("步骤2: 优化布局并插入分页符");
+        LayoutModel optimized = archiveMetrics.time(ArchiveMetrics.STAGE_PAGINATION,
+                () -> layoutOptimizer.optimize(layoutModel, template.getPaginationMode()));
+
+        int rows = 0;
+        for (LayoutZone zone : optimized.getZones()) {
+            rows += zone.getRows().size();
+        }
+        archiveMetrics.recordRows(rows);
+        return optimized;
+    }
+
     /**
      * 渲染员工档案HTML(调试模式)
      * 包含额外的调试信息
@@ -97,12 +187,12 @@ public class ArchiveRenderService {
      * 获取布局统计信息(用于调试)
      */
     public String getLayoutStatistics(Employee employee) {
-        LayoutModel layoutModel = layoutEngine.calculateLayout(employee);
-        layoutModel = layoutOptimizer.optimize(layoutModel);
+        ArchiveTemplate template = templateRegistry.resolve(employee.getArchiveType());
+        LayoutModel layoutModel = calculateOptimizedLayout(employee, template);
 
         LayoutOptimizer.OptimizationReport report =
                 layoutOptimizer.getOptimizationReport(layoutModel);
 
-        return report.toString();
+        return report + "\n" + layoutEngine.getPackingStats(layoutModel, template.getRowPacking());
     }
 }
@@ -0,0 +1,101 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.RowPackingStrategy;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import cn.kmdckj.epersonnelarchivegenerator.util.template.CompiledTemplate;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.util.Map;
+
+/**
+ * 档案模板 - 一个档案类型使用的模板及其编译结果、档案标题和布局配置(不可变)
+ * <p>
+ * 使用同一模板文件的类型共享编译结果和版本,类型之间的差异(如档案标题)以模板变量传入。模板文件内容变化时由 {@link ArchiveTemplateRegistry}
+ * 生成新对象整体替换,正在进行的渲染继续使用取到的对象。
+ */
+public final class ArchiveTemplate {
+
+    private final ArchiveType type;
+    private final String name;                          // 模板名称(模板文件名,不含前后缀)
+    private final long version;                         // 模板文件版本,内容变化时递增
+    private final String title;                         // 档案标题,未配置时为空字符串
+    private final String digest;                        // 模板内容 + 布局配置的摘要,重启后不变
+    private final CompiledTemplate compiled;            // 为null时使用Thymeleaf解释执行
+    private final TemplateSpec templateSpec;            // 解释执行使用的模板(已加载的源码)
+    private final RowPackingStrategy rowPacking;
+    private final LayoutConfig.PaginationMode paginationMode;
+
+    ArchiveTemplate(ArchiveType type, String name, long version, String title, String digest, String source,
+                    CompiledTemplate compiled, RowPackingStrategy rowPacking,
+                    LayoutConfig.PaginationMode paginationMode) {
+        this.type = type;
+        this.name = name;
+        this.version = version;
+        this.title = title;
+        this.digest = digest;
+        this.compiled = compiled;
+        this.templateSpec = new TemplateSpec(interpretedName(name, version), null, TemplateMode.HTML,
+                Map.of(ArchiveTemplateResolver.SOURCE_ATTRIBUTE, source));
+        this.rowPacking = rowPacking;
+        this.paginationMode = paginationMode;
+    }
+
+    /**
+     * 解释执行时的Thymeleaf模板名(名称@版本)
+     */
+    static String interpretedName(String name, long version) {
+        return name + "@" + version;
+    }
+
+    public ArchiveType getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * 档案标题(模板变量 archiveTitle),未配置时为空字符串
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+
+    /**
+     * 编译后的模板,模板编译失败或未启用编译时为null
+     */
+    public CompiledTemplate getCompiled() {
+        return compiled;
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    /**
+     * Thymeleaf解释执行使用的模板: 源码为注册表加载的内容(由 {@link ArchiveTemplateResolver} 解析),
+     * 与编译结果和摘要一致,不重新读取模板文件
+     */
+    public TemplateSpec getTemplateSpec() {
+        return templateSpec;
+    }
+
+    public RowPackingStrategy getRowPacking() {
+        return rowPacking;
+    }
+
+    public LayoutConfig.PaginationMode getPaginationMode() {
+        return paginationMode;
+    }
+}
@@ -0,0 +1,316 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.ArchiveTemplateConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.RowPackingStrategy;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutZone;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.ZoneMetadata;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import cn.kmdckj.epersonnelarchivegenerator.util.ContentDigest;
+import cn.kmdckj.epersonnelarchivegenerator.util.template.CompiledTemplate;
+import cn.kmdckj.epersonnelarchivegenerator.util.template.PropertyAccessors;
+import cn.kmdckj.epersonnelarchivegenerator.util.template.TemplateCompilationException;
+import cn.kmdckj.epersonnelarchivegenerator.util.template.TemplateCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateEngine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 档案模板注册表 - 按档案类型管理模板、编译结果和布局配置
+ * <p>
+ * 每个模板文件读取并编译一次,由使用它的档案类型共享;模板版本和摘要供下游缓存(指纹、ETag)区分。
+ * 解释执行也使用读取到的源码(见 {@link ArchiveTemplateResolver}),摘要覆盖的内容就是实际渲染的内容。
+ * 重新加载时逐个比较模板文件内容,只重新编译并清除Thymeleaf缓存中内容变化的模板,
+ * 未变化的模板保留编译结果和缓存;新的类型映射整体替换,正在进行的渲染不受影响。
+ */
+@Service
+public class ArchiveTemplateRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveTemplateRegistry.class);
+
+    static final String LAYOUT_MODEL_VARIABLE = "layoutModel";
+    static final String ARCHIVE_TITLE_VARIABLE = "archiveTitle";
+
+    private final TemplateEngine templateEngine;
+    private final ResourceLoader resourceLoader;
+    private final String templatePrefix;
+    private final String templateSuffix;
+    private final boolean compileTemplates;
+    private final boolean watch;
+    private final Map<ArchiveType, TypeLayout> typeLayouts;  // 各类型的模板名称和布局配置,启动后不变
+    private volatile State state;
+
+    public ArchiveTemplateRegistry(TemplateEngine templateEngine, ResourceLoader resourceLoader,
+                                   ThymeleafProperties thymeleafProperties, ArchiveTemplateConfig templateConfig,
+                                   LayoutConfig layoutConfig, PdfConfig pdfConfig) {
+        this.templateEngine = templateEngine;
+        this.resourceLoader = resourceLoader;
+        this.templatePrefix = thymeleafProperties.getPrefix();
+        this.templateSuffix = thymeleafProperties.getSuffix();
+        this.compileTemplates = pdfConfig.isCompiledTemplate();
+        this.watch = templateConfig.isWatch();
+        this.typeLayouts = resolveTypeLayouts(templateConfig, layoutConfig);
+
+        Set<String> names = new LinkedHashSet<>();
+        typeLayouts.values().forEach(layout -> names.add(layout.templateName()));
+        Map<String, LoadedTemplate> loaded = new LinkedHashMap<>();
+        for (String name : names) {
+            try {
+                loaded.put(name, load(name, null));
+            } catch (IOException e) {
+                throw new IllegalStateException("读取档案模板失败: " + name, e);
+            }
+        }
+        this.state = buildState(loaded, null);
+
+        for (ArchiveTemplate template : state.templates().values()) {
+            logger.info("档案模板: {} -> {}, 行填充: {}, 分页: {}, 编译: {}", template.getType(), template.getName(),
+                    template.getRowPacking().name(), template.getPaginationMode(), template.isCompiled());
+        }
+    }
+
+    /**
+     * 获取档案类型使用的模板
+     *
+     * @param type 档案类型,为null时按通用档案
+     * @return 档案模板
+     */
+    public ArchiveTemplate resolve(ArchiveType type) {
+        return state.templates().get(ArchiveType.orDefault(type));
+    }
+
+    /**
+     * 全部档案类型的模板(只读)
+     */
+    public Map<ArchiveType, ArchiveTemplate> getTemplates() {
+        return state.templates();
+    }
+
+    /**
+     * 重新加载模板文件,只处理内容变化的模板
+     *
+     * @return 内容变化的模板名称
+     * @throws IllegalArgumentException 模板文件无法读取(全部模板保持不变)
+     */
+    public synchronized List<String> reload() {
+        State current = state;
+        Map<String, LoadedTemplate> loaded = new LinkedHashMap<>();
+        List<String> changed = new ArrayList<>();
+        for (LoadedTemplate previous : current.loaded().values()) {
+            LoadedTemplate next;
+            try {
+                next = load(previous.name(), previous);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("读取档案模板失败: " + previous.name() + ": " + e.getMessage(), e);
+            }
+            loaded.put(next.name(), next);
+            if (next.version() != previous.version()) {
+                changed.add(next.name());
+            }
+        }
+        if (changed.isEmpty()) {
+            // 内容未变化(可能只是修改时间变化): 只记录新的修改时间
+            state = new State(Collections.unmodifiableMap(loaded), current.templates());
+            return changed;
+        }
+
+        state = buildState(loaded, current);
+        // 新版本以新的模板名(名称@版本)解释执行,替换映射后清除旧版本的缓存;
+        // 仍在使用旧对象的渲染按其携带的源码重新解析,不受影响
+        for (String name : changed) {
+            templateEngine.clearTemplateCacheFor(
+                    ArchiveTemplate.interpretedName(name, current.loaded().get(name).version()));
+        }
+        logger.info("档案模板已更新: {}", changed);
+        return changed;
+    }
+
+    /**
+     * 定时检查模板文件的修改时间,变化时重新加载
+     */
+    @Scheduled(fixedDelayString = "${archive.templates.watch-interval-ms:10000}",
+            initialDelayString = "${archive.templates.watch-interval-ms:10000}")
+    public void checkForChanges() {
+        if (!watch) {
+            return;
+        }
+        boolean modified = false;
+        for (LoadedTemplate template : state.loaded().values()) {
+            if (lastModified(resource(template.name())) != template.lastModified()) {
+                modified = true;
+                break;
+            }
+        }
+        if (!modified) {
+            return;
+        }
+        try {
+            reload();
+        } catch (IllegalArgumentException e) {
+            logger.error("档案模板重新加载失败, 继续使用原模板: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 加载模板文件,内容与上次相同时返回上次的结果(保留编译结果和版本)
+     */
+    private LoadedTemplate load(String name, LoadedTemplate previous) throws IOException {
+        Resource resource = resource(name);
+        long lastModified = lastModified(resource);
+        String source;
+        try (InputStream input = resource.getInputStream()) {
+            source = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String sourceDigest = ContentDigest.sha256().add(source).toHex();
+        if (previous != null && previous.sourceDigest().equals(sourceDigest)) {
+            return previous.lastModified() == lastModified
+                    ? previous
+                    : new LoadedTemplate(name, previous.source(), sourceDigest, previous.version(),
+                    previous.compiled(), lastModified);
+        }
+
+        long version = previous == null ? 1 : previous.version() + 1;
+        return new LoadedTemplate(name, source, sourceDigest, version, compile(name, source), lastModified);
+    }
+
+    /**
+     * 编译模板,失败时返回null(使用解释执行)
+     */
+    private CompiledTemplate compile(String name, String source) {
+        if (!compileTemplates) {
+            return null;
+        }
+        try {
+            CompiledTemplate template = new TemplateCompiler(layoutModelAccessors())
+                    .compile(source, List.of(LAYOUT_MODEL_VARIABLE, ARCHIVE_TITLE_VARIABLE));
+            logger.info("档案模板已编译: {}", name);
+            return template;
+        } catch (TemplateCompilationException e) {
+            logger.warn("档案模板编译失败,使用Thymeleaf解释执行: {}: {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 由加载结果生成类型映射,模板未变化的类型沿用原对象
+     */
+    private State buildState(Map<String, LoadedTemplate> loaded, State previous) {
+        Map<ArchiveType, ArchiveTemplate> templates = new EnumMap<>(ArchiveType.class);
+        for (Map.Entry<ArchiveType, TypeLayout> entry : typeLayouts.entrySet()) {
+            ArchiveType type = entry.getKey();
+            TypeLayout layout = entry.getValue();
+            LoadedTemplate template = loaded.get(layout.templateName());
+
+            ArchiveTemplate existing = previous != null ? previous.templates().get(type) : null;
+            if (existing != null && existing.getVersion() == template.version()) {
+                templates.put(type, existing);
+                continue;
+            }
+            String digest = ContentDigest.sha256()
+                    .add(template.name())
+                    .add(template.sourceDigest())
+                    .add(layout.title())
+                    .add(layout.rowPacking().name())
+                    .add(layout.paginationMode().name())
+                    .toHex();
+            templates.put(type, new ArchiveTemplate(type, template.name(), template.version(), layout.title(),
+                    digest, template.source(), template.compiled(), layout.rowPacking(), layout.paginationMode()));
+        }
+        return new State(Collections.unmodifiableMap(loaded), Collections.unmodifiableMap(templates));
+    }
+
+    private static Map<ArchiveType, TypeLayout> resolveTypeLayouts(ArchiveTemplateConfig templateConfig,
+                                                                   LayoutConfig layoutConfig) {
+        Map<ArchiveType, TypeLayout> layouts = new EnumMap<>(ArchiveType.class);
+        for (ArchiveType type : ArchiveType.values()) {
+            ArchiveTemplateConfig.TypeConfig config = templateConfig.getTypes().get(type);
+            String name = config != null && config.getTemplate() != null && !config.getTemplate().isBlank()
+                    ? config.getTemplate().trim()
+                    : templateConfig.getDefaultTemplate();
+            String title = config != null && config.getTitle() != null ? config.getTitle().trim() : "";
+            LayoutConfig.PackingConfig packing = config != null && config.getPacking() != null
+                    ? config.getPacking()
+                    : layoutConfig.getPacking();
+            LayoutConfig.PaginationMode pagination = config != null && config.getPagination() != null
+                    ? config.getPagination().getMode()
+                    : layoutConfig.getPagination().getMode();
+            layouts.put(type, new TypeLayout(name, title, RowPackingStrategy.of(packing), pagination));
+        }
+        return layouts;
+    }
+
+    private Resource resource(String name) {
+        return resourceLoader.getResource(templatePrefix + name + templateSuffix);
+    }
+
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return -1;  // 无法获取修改时间(如jar内资源),只能手动重新加载
+        }
+    }
+
+    /**
+     * 模板中用到的布局模型属性
+     */
+    private static PropertyAccessors layoutModelAccessors() {
+        return new PropertyAccessors()
+                .register(LayoutModel.class, "zones", LayoutModel::getZones)
+                .register(LayoutZone.class, "type", LayoutZone::getType)
+                .register(LayoutZone.class, "rows", LayoutZone::getRows)
+                .register(LayoutZone.class, "metadata", LayoutZone::getMetadata)
+                .register(LayoutRow.class, "pageBreak", LayoutRow::isPageBreak)
+                .register(LayoutRow.class, "fields", LayoutRow::getFields)
+                .register(LayoutRow.class, "title", LayoutRow::isTitle)
+                .register(LayoutField.class, "fieldKey", LayoutField::getFieldKey)
+                .register(LayoutField.class, "label", LayoutField::getLabel)
+                .register(LayoutField.class, "value", LayoutField::getValue)
+                .register(LayoutField.class, "forceFullWidth", LayoutField::isForceFullWidth)
+                .register(ZoneMetadata.PhotoMetadata.class, "dataUri", ZoneMetadata.PhotoMetadata::getDataUri)
+                .register(ZoneMetadata.PhotoMetadata.class, "photoBase64", ZoneMetadata.PhotoMetadata::getPhotoBase64)
+                .register(ZoneMetadata.PhotoMetadata.class, "widthMm", ZoneMetadata.PhotoMetadata::getWidthMm)
+                .register(ZoneMetadata.PhotoMetadata.class, "heightMm", ZoneMetadata.PhotoMetadata::getHeightMm);
+    }
+
+    /**
+     * 档案类型的模板名称、档案标题和布局配置
+     */
+    private record TypeLayout(String templateName, String title, RowPackingStrategy rowPacking,
+                              LayoutConfig.PaginationMode paginationMode) {
+    }
+
+    /**
+     * 一个模板文件的加载结果: 编译、解释执行和摘要都使用这里的源码
+     */
+    private record LoadedTemplate(String name, String source, String sourceDigest, long version,
+                                  CompiledTemplate compiled, long lastModified) {
+    }
+
+    /**
+     * 注册表状态: 模板文件(按名称)和类型映射,整体替换
+     */
+    private record State(Map<String, LoadedTemplate> loaded, Map<ArchiveType, ArchiveTemplate> templates) {
+    }
+}
@@ -0,0 +1,60 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
+import org.thymeleaf.cache.ICacheEntryValidity;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.AbstractTemplateResolver;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
+
+import java.util.Map;
+
+/**
+ * 档案模板解析器 - 解释执行时使用 {@link ArchiveTemplateRegistry} 已加载的模板源码,不再从文件读取
+ * <p>
+ * 模板源码随 {@link ArchiveTemplate#getTemplateSpec()} 的解析属性传入,模板名称为"名称@版本",
+ * 因此解释执行的内容与编译结果、模板摘要始终来自同一份源码;模板更新后版本变化,缓存按新名称重新解析。
+ * 未携带源码属性的模板交给其他解析器处理。
+ */
+@Component
+public class ArchiveTemplateResolver extends AbstractTemplateResolver {
+
+    /**
+     * 解析属性名: 模板源码
+     */
+    static final String SOURCE_ATTRIBUTE = ArchiveTemplateResolver.class.getName() + ".source";
+
+    public ArchiveTemplateResolver() {
+        setName("ArchiveTemplateResolver");
+        setOrder(Integer.MIN_VALUE);  // 先于按文件解析的默认解析器
+    }
+
+    @Override
+    protected boolean computeResolvable(IEngineConfiguration configuration, String ownerTemplate, String template,
+                                        Map<String, Object> templateResolutionAttributes) {
+        return templateResolutionAttributes != null
+                && templateResolutionAttributes.get(SOURCE_ATTRIBUTE) instanceof String;
+    }
+
+    @Override
+    protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+                                                        String template,
+                                                        Map<String, Object> templateResolutionAttributes) {
+        return new StringTemplateResource((String) templateResolutionAttributes.get(SOURCE_ATTRIBUTE));
+    }
+
+    @Override
+    protected TemplateMode computeTemplateMode(IEngineConfiguration configuration, String ownerTemplate,
+                                               String template, Map<String, Object> templateResolutionAttributes) {
+        return TemplateMode.HTML;
+    }
+
+    @Override
+    protected ICacheEntryValidity computeValidity(IEngineConfiguration configuration, String ownerTemplate,
+                                                  String template, Map<String, Object> templateResolutionAttributes) {
+        // 同一名称(名称@版本)的源码不会变化
+        return AlwaysValidCacheEntryValidity.INSTANCE;
+    }
+}
@@ -0,0 +1,185 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.WarmupConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.util.ArchiveMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 启动预热 - 就绪前并行渲染若干份合成档案
+ * <p>
+ * 让类加载、模板解析、字体度量缓存和渲染代码的JIT编译发生在启动阶段而不是首批真实请求上。
+ * ApplicationRunner 在 ApplicationReadyEvent 之前执行,因此预热结束前就绪探针
+ * (/actuator/health/readiness)保持 REFUSING_TRAFFIC。
+ * 预热结束后单线程重复渲染固定的参考档案(典型规模、默认引擎、通用档案),其耗时中位数作为稳态参考值,
+ * 与首个真实请求的耗时对比;预热各规模和引擎组合的耗时中位数只记录在日志中。
+ */
+@Component
+public class ArchiveWarmupRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveWarmupRunner.class);
+
+    private static final SyntheticEmployeeFactory.Profile[] PROFILES = {
+            SyntheticEmployeeFactory.Profile.TYPICAL,
+            SyntheticEmployeeFactory.Profile.SMALL
+    };
+
+    private static final SyntheticEmployeeFactory.Profile REFERENCE_PROFILE = SyntheticEmployeeFactory.Profile.TYPICAL;
+    private static final int REFERENCE_RUNS = 5;  // 参考档案渲染次数
+
+    private final EmployeeArchiveService employeeArchiveService;
+    private final ArchiveMetrics archiveMetrics;
+    private final WarmupConfig warmupConfig;
+
+    public ArchiveWarmupRunner(EmployeeArchiveService employeeArchiveService,
+                               ArchiveMetrics archiveMetrics,
+                               WarmupConfig warmupConfig) {
+        this.employeeArchiveService = employeeArchiveService;
+        this.archiveMetrics = archiveMetrics;
+        this.warmupConfig = warmupConfig;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int archives = warmupConfig.getArchives();
+        if (!warmupConfig.isEnabled() || archives <= 0) {
+            return;
+        }
+
+        int threads = Math.min(warmupConfig.resolveParallelism(), archives);
+        logger.info("开始启动预热, 档案份数: {}, 线程数: {}", archives, threads);
+
+        archiveMetrics.beginWarmup();
+        long startTime = System.currentTimeMillis();
+        long[] latencies = new long[archives];
+        Arrays.fill(latencies, -1);
+        AtomicInteger failures = new AtomicInteger();
+        AtomicReference<String> firstCompleted = new AtomicReference<>();
+        double steadyState = Double.NaN;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory());
+        try {
+            ArchiveType[] archiveTypes = ArchiveType.values();
+            for (int i = 0; i < archives; i++) {
+                int index = i;
+                // 交替规模和引擎,使每种组合都被覆盖;档案类型轮换,使每个模板都被预热
+                SyntheticEmployeeFactory.Profile profile = profileOf(index);
+                PdfConfig.RenderEngine engine = engineOf(index);
+                ArchiveType archiveType = archiveTypes[index % archiveTypes.length];
+                executor.execute(() -> {
+                    Employee employee = SyntheticEmployeeFactory.create(profile, "warmup-" + index);
+                    employee.setArchiveType(archiveType);
+                    long renderStart = System.nanoTime();
+                    try {
+                        employeeArchiveService.writeEmployeeArchivePdf(employee, engine, OutputStream.nullOutputStream());
+                        latencies[index] = (System.nanoTime() - renderStart) / 1_000_000;
+                        firstCompleted.compareAndSet(null, profile + "/" + engine + " " + latencies[index] + " ms");
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        logger.warn("预热渲染失败, 规模: {}, 引擎: {}: {}", profile, engine, e.getMessage());
+                    }
+                });
+            }
+            executor.shutdown();
+            if (executor.awaitTermination(warmupConfig.getTimeoutSeconds(), TimeUnit.SECONDS)) {
+                steadyState = referenceMillis();
+            } else {
+                logger.warn("启动预热超过 {} 秒,停止等待", warmupConfig.getTimeoutSeconds());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            long duration = System.currentTimeMillis() - startTime;
+            archiveMetrics.endWarmup(duration, steadyState);
+            logger.info("启动预热完成, 耗时: {} ms, 首个完成: {}, 稳态({}/{}): {} ms, 失败: {}",
+                    duration, Objects.toString(firstCompleted.get(), "无"), REFERENCE_PROFILE, employeeArchiveService.resolveEngine(null),
+                    Math.round(steadyState), failures.get());
+            logger.info("预热各规模和引擎的耗时中位数(ms): {}", medianByCombination(latencies));
+        }
+    }
+
+    /**
+     * 稳态参考值: 预热结束后单线程渲染参考档案的耗时中位数,渲染全部失败时为NaN
+     */
+    private double referenceMillis() {
+        Employee reference = SyntheticEmployeeFactory.create(REFERENCE_PROFILE, "warmup-reference");
+        long[] latencies = new long[REFERENCE_RUNS];
+        int completed = 0;
+        for (int i = 0; i < REFERENCE_RUNS; i++) {
+            long renderStart = System.nanoTime();
+            try {
+                employeeArchiveService.writeEmployeeArchivePdf(reference, null, OutputStream.nullOutputStream());
+                latencies[completed++] = (System.nanoTime() - renderStart) / 1_000_000;
+            } catch (Exception e) {
+                logger.warn("参考档案渲染失败: {}", e.getMessage());
+            }
+        }
+        return median(Arrays.copyOf(latencies, completed));
+    }
+
+    /**
+     * 预热档案按"规模/引擎"分组的耗时中位数
+     */
+    private static Map<String, Double> medianByCombination(long[] latencies) {
+        Map<String, List<Long>> grouped = new TreeMap<>();
+        for (int index = 0; index < latencies.length; index++) {
+            if (latencies[index] >= 0) {
+                grouped.computeIfAbsent(profileOf(index) + "/" + engineOf(index), key -> new ArrayList<>())
+                        .add(latencies[index]);
+            }
+        }
+        Map<String, Double> medians = new TreeMap<>();
+        grouped.forEach((key, values) ->
+                medians.put(key, median(values.stream().mapToLong(Long::longValue).toArray())));
+        return medians;
+    }
+
+    private static double median(long[] values) {
+        if (values.length == 0) {
+            return Double.NaN;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2.0;
+    }
+
+    private static SyntheticEmployeeFactory.Profile profileOf(int index) {
+        return PROFILES[index % PROFILES.length];
+    }
+
+    private static PdfConfig.RenderEngine engineOf(int index) {
+        PdfConfig.RenderEngine[] engines = PdfConfig.RenderEngine.values();
+        return engines[(index / PROFILES.length) % engines.length];
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "archive-warmup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,302 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.BulkExportConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.BulkExportRequest;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 批量档案导出服务 - 并行渲染多名员工的档案并流式写入ZIP
+ * <p>
+ * 渲染在固定大小的线程池中进行,同时在内存中的PDF数量不超过 maxInFlight,
+ * 每个PDF完成后立即写入ZIP并释放,内存占用与批量大小无关。
+ * 单个员工失败不会中断整批导出,结果逐行写入临时文件,最后整体复制为 manifest.csv。
+ */
+@Service
+public class BulkArchiveExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkArchiveExportService.class);
+
+    private static final String MANIFEST_ENTRY = "manifest.csv";
+    private static final String MANIFEST_HEADER = "employeeId,status,fileName,sizeBytes,durationMs,message\n";
+
+    private final EmployeeArchiveService employeeArchiveService;
+    private final BulkExportConfig bulkExportConfig;
+    private final ExecutorService renderExecutor;
+
+    public BulkArchiveExportService(EmployeeArchiveService employeeArchiveService,
+                                    BulkExportConfig bulkExportConfig,
+                                    @Qualifier("bulkRenderExecutor") ExecutorService renderExecutor) {
+        this.employeeArchiveService = employeeArchiveService;
+        this.bulkExportConfig = bulkExportConfig;
+        this.renderExecutor = renderExecutor;
+    }
+
+    /**
+     * 解析并校验导出请求中的员工ID(去重并保持顺序)
+     *
+     * @param request 导出请求
+     * @return 员工ID列表
+     */
+    public List<String> resolveEmployeeIds(BulkExportRequest request) {
+        List<String> ids;
+        if (request.isAll()) {
+            ids = employeeArchiveService.listEmployeeIds();
+        } else if (request.getEmployeeIds() != null) {
+            ids = new ArrayList<>(new LinkedHashSet<>(request.getEmployeeIds()));
+            ids.removeIf(id -> id == null || id.trim().isEmpty());
+        } else {
+            ids = new ArrayList<>();
+        }
+
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("未指定需要导出的员工");
+        }
+        if (ids.size() > bulkExportConfig.getMaxBatchSize()) {
+            throw new IllegalArgumentException(String.format(
+                    "单次最多导出%d名员工, 本次请求: %d", bulkExportConfig.getMaxBatchSize(), ids.size()));
+        }
+        return ids;
+    }
+
+    /**
+     * 并行渲染并将PDF按完成顺序写入ZIP
+     *
+     * @param employeeIds  员工ID列表
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流(通常为HTTP响应流)
+     */
+    public void exportZip(List<String> employeeIds, PdfConfig.RenderEngine engine,
+                          OutputStream outputStream) throws IOException {
+        exportZip(employeeIds, engine, outputStream, completed -> {
+        });
+    }
+
+    /**
+     * 并行渲染并将PDF按完成顺序写入ZIP,每写出一项回调一次进度
+     *
+     * @param employeeIds  员工ID列表
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流
+     * @param progress     进度回调,参数为已处理的员工数
+     */
+    public void exportZip(List<String> employeeIds, PdfConfig.RenderEngine engine,
+                          OutputStream outputStream, IntConsumer progress) throws IOException {
+        exportZip(employeeIds, engine, outputStream, progress, employee -> {
+        });
+    }
+
+    /**
+     * 并行渲染并将PDF按完成顺序写入ZIP,每写出一项回调一次进度,
+     * 每份档案渲染成功后以渲染所用的员工对象回调一次(可在渲染线程中调用)
+     *
+     * @param employeeIds  员工ID列表
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流
+     * @param progress     进度回调,参数为已处理的员工数
+     * @param rendered     渲染回调,参数为实际渲染的员工数据
+     */
+    public void exportZip(List<String> employeeIds, PdfConfig.RenderEngine engine,
+                          OutputStream outputStream, IntConsumer progress,
+                          Consumer<Employee> rendered) throws IOException {
+        long startTime = System.currentTimeMillis();
+        int maxInFlight = bulkExportConfig.resolveMaxInFlight();
+        logger.info("开始批量导出档案, 员工数: {}, 并行度: {}, 在途上限: {}",
+                employeeIds.size(), bulkExportConfig.resolveParallelism(), maxInFlight);
+
+        CompletionService<ItemResult> completionService = new ExecutorCompletionService<>(renderExecutor);
+        Set<Future<ItemResult>> pending = new HashSet<>();
+        int submitted = 0;
+        int succeeded = 0;
+        boolean finished = false;
+
+        // 清单逐行写入临时文件,内存占用与批量大小无关
+        Path manifestFile = Files.createTempFile("bulk-manifest-", ".csv");
+        ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        try (Writer manifest = Files.newBufferedWriter(manifestFile, StandardCharsets.UTF_8)) {
+            manifest.write(MANIFEST_HEADER);
+
+            // 1. 先填满在途窗口
+            while (submitted < employeeIds.size() && submitted < maxInFlight) {
+                pending.add(completionService.submit(renderTask(employeeIds.get(submitted++), engine, rendered)));
+            }
+
+            // 2. 每写出一个结果再提交一个新任务,内存中最多 maxInFlight 个PDF
+            for (int completed = 0; completed < employeeIds.size(); completed++) {
+                ItemResult result = takeResult(completionService, pending);
+                if (result.pdfBytes != null) {
+                    writeStoredEntry(zip, result.fileName(), result.pdfBytes);
+                    succeeded++;
+                }
+                manifest.write(result.toManifestLine());
+                progress.accept(completed + 1);
+
+                if (submitted < employeeIds.size()) {
+                    pending.add(completionService.submit(renderTask(employeeIds.get(submitted++), engine, rendered)));
+                }
+            }
+
+            // 3. 最后写入清单
+            manifest.flush();
+            zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+            Files.copy(manifestFile, zip);
+            zip.closeEntry();
+            zip.finish();
+            zip.flush();
+            finished = true;
+
+            logger.info("批量导出完成, 成功: {}/{}, 耗时: {} ms",
+                    succeeded, employeeIds.size(), System.currentTimeMillis() - startTime);
+
+        } finally {
+            // 客户端断开、进度回调异常等非正常结束: 取消尚未完成的渲染
+            if (!finished && !pending.isEmpty()) {
+                logger.warn("批量导出未正常完成, 取消剩余任务: {}", pending.size());
+                pending.forEach(future -> future.cancel(true));
+            }
+            deleteQuietly(manifestFile);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("删除清单临时文件失败: {}", file, e);
+        }
+    }
+
+    private Callable<ItemResult> renderTask(String employeeId, PdfConfig.RenderEngine engine,
+                                            Consumer<Employee> rendered) {
+        return () -> {
+            long start = System.currentTimeMillis();
+            try {
+                Employee employee = employeeArchiveService.getEmployee(employeeId);
+                byte[] pdfBytes = employeeArchiveService.generateEmployeeArchivePdf(employee, engine);
+                rendered.accept(employee);
+                return ItemResult.success(employeeId, pdfBytes, System.currentTimeMillis() - start);
+            } catch (EmployeeNotFoundException e) {
+                return ItemResult.failure(employeeId, "NOT_FOUND", e.getMessage(),
+                        System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                logger.warn("批量导出中档案生成失败, 员工ID: {}", employeeId, e);
+                return ItemResult.failure(employeeId, "FAILED", e.getMessage(),
+                        System.currentTimeMillis() - start);
+            }
+        };
+    }
+
+    /**
+     * 取出下一个完成的结果,并从在途集合中移除,避免已写出的PDF继续被引用
+     */
+    private ItemResult takeResult(CompletionService<ItemResult> completionService,
+                                  Set<Future<ItemResult>> pending) throws IOException {
+        try {
+            Future<ItemResult> future = completionService.take();
+            pending.remove(future);
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("批量导出被中断", e);
+        } catch (ExecutionException e) {
+            // renderTask 已捕获所有异常,这里只会是意外错误
+            throw new IOException("批量导出任务异常", e.getCause());
+        }
+    }
+
+    /**
+     * 以STORED方式写入PDF: PDF内容流本身已压缩,再次压缩只会浪费CPU
+     */
+    private void writeStoredEntry(ZipOutputStream zip, String name, byte[] data) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(data.length);
+        entry.setCompressedSize(data.length);
+        entry.setCrc(crc.getValue());
+
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+
+    /**
+     * 单个员工的导出结果
+     */
+    private static final class ItemResult {
+        final String employeeId;
+        final String status;
+        final byte[] pdfBytes;
+        final String message;
+        final long durationMs;
+
+        private ItemResult(String employeeId, String status, byte[] pdfBytes, String message, long durationMs) {
+            this.employeeId = employeeId;
+            this.status = status;
+            this.pdfBytes = pdfBytes;
+            this.message = message;
+            this.durationMs = durationMs;
+        }
+
+        static ItemResult success(String employeeId, byte[] pdfBytes, long durationMs) {
+            return new ItemResult(employeeId, "OK", pdfBytes, "", durationMs);
+        }
+
+        static ItemResult failure(String employeeId, String status, String message, long durationMs) {
+            return new ItemResult(employeeId, status, null, message, durationMs);
+        }
+
+        String fileName() {
+            return "employee-archive-" + employeeId + ".pdf";
+        }
+
+        String toManifestLine() {
+            return String.join(",",
+                    csv(employeeId),
+                    status,
+                    pdfBytes != null ? csv(fileName()) : "",
+                    pdfBytes != null ? String.valueOf(pdfBytes.length) : "0",
+                    String.valueOf(durationMs),
+                    csv(message)) + "\n";
+        }
+
+        private static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+                return "\"" + value.replace("\"", "\"\"") + "\"";
+            }
+            return value;
+        }
+    }
+}
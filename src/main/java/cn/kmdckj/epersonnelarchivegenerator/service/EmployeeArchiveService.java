@@ -1,54 +1,156 @@
 package cn.kmdckj.epersonnelarchivegenerator.service;
 
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.PaginatedLayout;
 import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.repository.EmployeeRepository;
+import cn.kmdckj.epersonnelarchivegenerator.util.ArchiveMetrics;
+import cn.kmdckj.epersonnelarchivegenerator.util.PdfBufferPool;
+import cn.kmdckj.epersonnelarchivegenerator.util.PdfMetrics;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * 员工档案服务 - 整合完整的档案生成流程
- * 数据获取 → HTML渲染 → PDF生成
+ * 数据获取 → 布局计算 → DOM渲染 → PDF生成(HTML引擎)
+ * 数据获取 → 布局计算 → PDF绘制(原生引擎)
+ * <p>
+ * 渲染(布局计算及之后的步骤)在 {@link RenderBulkhead} 的许可下进行,所有调用方共用同一份并发预算:
+ * 未预先获取许可的调用(批量、汇编、异步任务、预热)阻塞等待许可;
+ * 在线请求先用 {@link #acquireRenderPermit()} 获取许可(可能被拒绝),再交给渲染方法使用。
  */
 @Service
 public class EmployeeArchiveService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmployeeArchiveService.class);
 
-    private final MockDataService mockDataService;
+    private final EmployeeRepository employeeRepository;
     private final ArchiveRenderService archiveRenderService;
     private final PdfGeneratorService pdfGeneratorService;
+    private final ArchiveFingerprintService archiveFingerprintService;
+    private final PdfConfig pdfConfig;
+    private final PdfBufferPool pdfBufferPool;
+    private final ArchiveMetrics archiveMetrics;
+    private final RenderBulkhead renderBulkhead;
 
-    public EmployeeArchiveService(MockDataService mockDataService,
+    public EmployeeArchiveService(EmployeeRepository employeeRepository,
                                   ArchiveRenderService archiveRenderService,
-                                  PdfGeneratorService pdfGeneratorService) {
-        this.mockDataService = mockDataService;
+                                  PdfGeneratorService pdfGeneratorService,
+                                  ArchiveFingerprintService archiveFingerprintService,
+                                  PdfConfig pdfConfig,
+                                  PdfBufferPool pdfBufferPool,
+                                  ArchiveMetrics archiveMetrics,
+                                  RenderBulkhead renderBulkhead) {
+        this.employeeRepository = employeeRepository;
         this.archiveRenderService = archiveRenderService;
         this.pdfGeneratorService = pdfGeneratorService;
+        this.archiveFingerprintService = archiveFingerprintService;
+        this.pdfConfig = pdfConfig;
+        this.pdfBufferPool = pdfBufferPool;
+        this.archiveMetrics = archiveMetrics;
+        this.renderBulkhead = renderBulkhead;
     }
 
     /**
-     * 生成员工档案PDF
+     * 获取员工档案指纹(不渲染),可用作HTTP强ETag
+     *
+     * @param employeeId 员工ID
+     * @param engine     渲染引擎,为null时使用配置的默认引擎
+     * @return 十六进制指纹
+     */
+    public String getArchiveFingerprint(String employeeId, PdfConfig.RenderEngine engine) {
+        return getArchiveFingerprint(getEmployee(employeeId), engine);
+    }
+
+    /**
+     * 获取给定员工数据的档案指纹(不渲染)
+     * 指纹与用同一员工对象渲染的PDF一一对应,调用方应使用同一对象计算ETag和渲染响应体
+     *
+     * @param employee 员工数据
+     * @param engine   渲染引擎,为null时使用配置的默认引擎
+     * @return 十六进制指纹
+     */
+    public String getArchiveFingerprint(Employee employee, PdfConfig.RenderEngine engine) {
+        return archiveFingerprintService.fingerprint(employee, resolveEngine(engine));
+    }
+
+    /**
+     * 获取渲染设置摘要(模板、配置和渲染引擎,不含员工数据)
+     *
+     * @param engine 渲染引擎,为null时使用配置的默认引擎
+     * @return 十六进制摘要
+     */
+    public String getSettingsFingerprint(PdfConfig.RenderEngine engine) {
+        return archiveFingerprintService.settingsFingerprint(resolveEngine(engine));
+    }
+
+    /**
+     * 获取员工数据版本(只查版本列,不加载员工数据)
+     *
+     * @param employeeId 员工ID
+     * @return 版本号,员工不存在时为空
+     */
+    public Optional<Long> getEmployeeVersion(String employeeId) {
+        return employeeRepository.findVersion(employeeId);
+    }
+
+    /**
+     * 生成员工档案PDF(使用配置的默认渲染引擎)
      *
      * @param employeeId 员工ID
      * @return PDF字节数组
      */
     public byte[] generateEmployeeArchivePdf(String employeeId) {
-        try {
-            logger.info("开始生成员工档案PDF, 员工ID: {}", employeeId);
+        return generateEmployeeArchivePdf(employeeId, null);
+    }
 
-            // 1. 获取员工数据
-            Employee employee = mockDataService.getEmployeeById(employeeId);
-            if (employee == null) {
-                throw new EmployeeNotFoundException("员工不存在: " + employeeId);
-            }
+    /**
+     * 生成员工档案PDF
+     *
+     * @param employeeId 员工ID
+     * @param engine     渲染引擎,为null时使用配置的默认引擎
+     * @return PDF字节数组
+     */
+    public byte[] generateEmployeeArchivePdf(String employeeId, PdfConfig.RenderEngine engine) {
+        try {
+            return generateEmployeeArchivePdf(getEmployee(employeeId), engine);
+        } catch (EmployeeNotFoundException e) {
+            logger.warn("员工不存在: {}", employeeId);
+            throw e;
+        }
+    }
 
-            // 2. 渲染HTML
-            String html = archiveRenderService.renderEmployeeArchiveHtml(employee);
+    /**
+     * 将给定的员工数据生成为档案PDF(不经过数据获取)
+     * 用于已按同一员工对象计算了指纹、或已读取员工数据的场景
+     *
+     * @param employee 员工数据
+     * @param engine   渲染引擎,为null时使用配置的默认引擎
+     * @return PDF字节数组
+     */
+    public byte[] generateEmployeeArchivePdf(Employee employee, PdfConfig.RenderEngine engine) {
+        PdfConfig.RenderEngine renderEngine = resolveEngine(engine);
+        String employeeId = employee.getId();
+        try {
+            logger.info("开始生成员工档案PDF, 员工ID: {}, 渲染引擎: {}", employeeId, renderEngine);
 
-            // 3. 生成PDF
-            byte[] pdfBytes = pdfGeneratorService.generatePdfFromHtml(html);
+            // 渲染并生成PDF(池化缓冲区按近期PDF大小预分配)
+            byte[] pdfBytes;
+            try (PdfBufferPool.Buffer buffer = pdfBufferPool.acquire()) {
+                renderPdf(employee, renderEngine, buffer);
+                pdfBytes = buffer.toByteArray();
+            }
 
-            // 4. 验证PDF
+            // 验证PDF
             if (!pdfGeneratorService.validatePdf(pdfBytes)) {
                 throw new PdfGenerationException("生成的PDF无效");
             }
@@ -59,6 +161,32 @@ public class EmployeeArchiveService {
 
             return pdfBytes;
 
+        } catch (Exception e) {
+            logger.error("生成员工档案PDF失败, 员工ID: {}", employeeId, e);
+            throw new ArchiveGenerationException("生成档案失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 生成员工档案PDF并直接写入输出流(如HTTP响应流),不在堆上保留完整的PDF副本
+     *
+     * @param employeeId   员工ID
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流
+     * @return 写出的字节数
+     */
+    public long writeEmployeeArchivePdf(String employeeId, PdfConfig.RenderEngine engine,
+                                        OutputStream outputStream) {
+        PdfConfig.RenderEngine renderEngine = resolveEngine(engine);
+        try {
+            logger.info("开始流式生成员工档案PDF, 员工ID: {}, 渲染引擎: {}", employeeId, renderEngine);
+
+            Employee employee = getEmployee(employeeId);
+            long size = renderPdf(employee, renderEngine, outputStream);
+
+            logger.info("员工档案PDF已写出, 员工ID: {}, PDF大小: {} KB", employeeId, size / 1024);
+            return size;
+
         } catch (EmployeeNotFoundException e) {
             logger.warn("员工不存在: {}", employeeId);
             throw e;
@@ -68,6 +196,127 @@ public class EmployeeArchiveService {
         }
     }
 
+    /**
+     * 将给定的员工数据渲染为档案PDF并写入输出流(不经过数据获取)
+     * 用于预热,以及已按同一员工对象计算了ETag或任务指纹的场景
+     *
+     * @param employee     员工数据
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流
+     * @return 写出的字节数
+     */
+    public long writeEmployeeArchivePdf(Employee employee, PdfConfig.RenderEngine engine,
+                                        OutputStream outputStream) {
+        try {
+            return renderPdf(employee, resolveEngine(engine), outputStream);
+        } catch (Exception e) {
+            logger.error("生成员工档案PDF失败, 员工ID: {}", employee.getId(), e);
+            throw new ArchiveGenerationException("生成档案失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 使用已获取的渲染许可,将给定的员工数据渲染为档案PDF并写入输出流,结束后归还许可
+     *
+     * @param employee     员工数据
+     * @param engine       渲染引擎,为null时使用配置的默认引擎
+     * @param outputStream 输出流
+     * @param permit       由 {@link #acquireRenderPermit()} 获取的许可
+     * @return 写出的字节数
+     */
+    public long writeEmployeeArchivePdf(Employee employee, PdfConfig.RenderEngine engine,
+                                        OutputStream outputStream, RenderBulkhead.Permit permit) {
+        try (permit) {
+            return renderPdfWithPermit(employee, resolveEngine(engine), outputStream);
+        } catch (Exception e) {
+            logger.error("生成员工档案PDF失败, 员工ID: {}", employee.getId(), e);
+            throw new ArchiveGenerationException("生成档案失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取渲染许可,排队已满或等待超时时拒绝
+     * 用于需要在渲染开始前得知是否被拒绝的调用方(如返回429的在线请求)
+     *
+     * @return 许可,交给 {@link #writeEmployeeArchivePdf(Employee, PdfConfig.RenderEngine, OutputStream, RenderBulkhead.Permit)}
+     * @throws RenderRejectedException 排队已满或等待超时
+     */
+    public RenderBulkhead.Permit acquireRenderPermit() {
+        return renderBulkhead.acquire();
+    }
+
+    /**
+     * 计算员工档案的分页布局(原生引擎绘制前的准备),与渲染共用许可
+     *
+     * @param employee 员工数据
+     * @return 分页布局
+     */
+    public PaginatedLayout calculatePaginatedLayout(Employee employee) {
+        try (RenderBulkhead.Permit permit = renderBulkhead.acquireBlocking()) {
+            return PaginatedLayout.of(archiveRenderService.calculateOptimizedLayout(employee));
+        }
+    }
+
+    /**
+     * 将员工档案以HTML引擎渲染为W3C Document(档案汇编的准备阶段),与渲染共用许可
+     *
+     * @param employee 员工数据
+     * @return W3C Document
+     */
+    public Document renderArchiveDocument(Employee employee) {
+        try (RenderBulkhead.Permit permit = renderBulkhead.acquireBlocking()) {
+            return archiveRenderService.renderEmployeeArchiveDocument(employee);
+        }
+    }
+
+    /**
+     * 将已渲染的档案DOM转换为PDF页面追加到汇编文档,使用汇编文档中共用的字体,与渲染共用许可
+     *
+     * @param document 档案DOM
+     * @param book     汇编文档
+     * @param font     汇编文档中的字体
+     * @return 追加的页数
+     */
+    public int appendArchivePdf(Document document, PDDocument book, PDFont font) {
+        try (RenderBulkhead.Permit permit = renderBulkhead.acquireBlocking()) {
+            return pdfGeneratorService.appendPdfFromDocument(document, book, font);
+        }
+    }
+
+    /**
+     * 等待渲染许可后按渲染引擎生成PDF并写入输出流
+     */
+    private long renderPdf(Employee employee, PdfConfig.RenderEngine renderEngine, OutputStream outputStream) {
+        try (RenderBulkhead.Permit permit = renderBulkhead.acquireBlocking()) {
+            return renderPdfWithPermit(employee, renderEngine, outputStream);
+        }
+    }
+
+    /**
+     * 按渲染引擎生成PDF并写入输出流(调用方已持有许可)
+     */
+    private long renderPdfWithPermit(Employee employee, PdfConfig.RenderEngine renderEngine,
+                                     OutputStream outputStream) {
+        long startTime = System.currentTimeMillis();
+        long htmlLength = 0;
+        long size;
+        if (renderEngine == PdfConfig.RenderEngine.NATIVE) {
+            LayoutModel layoutModel = archiveRenderService.calculateOptimizedLayout(employee);
+            size = pdfGeneratorService.writePdfFromLayout(layoutModel, outputStream);
+        } else if (pdfConfig.isDirectDom()) {
+            Document document = archiveRenderService.renderEmployeeArchiveDocument(employee);
+            size = pdfGeneratorService.writePdfFromDocument(document, outputStream);
+        } else {
+            String html = archiveRenderService.renderEmployeeArchiveHtml(employee);
+            htmlLength = html.length();
+            size = pdfGeneratorService.writePdfFromHtml(html, outputStream);
+        }
+
+        archiveMetrics.record(new PdfMetrics(employee.getId(), htmlLength, size,
+                System.currentTimeMillis() - startTime));
+        return size;
+    }
+
     /**
      * 生成员工档案HTML(用于调试)
      *
@@ -75,30 +324,60 @@ public class EmployeeArchiveService {
      * @return HTML字符串
      */
     public String generateEmployeeArchiveHtml(String employeeId) {
-        Employee employee = mockDataService.getEmployeeById(employeeId);
-        if (employee == null) {
-            throw new EmployeeNotFoundException("员工不存在: " + employeeId);
-        }
+        Employee employee = employeeRepository.findById(employeeId)
+                .orElseThrow(() -> new EmployeeNotFoundException("员工不存在: " + employeeId));
 
         return archiveRenderService.renderEmployeeArchiveHtml(employee);
     }
 
     /**
-     * 检查员工是否存在
+     * 获取员工数据
+     *
+     * @param employeeId 员工ID
+     * @return 员工数据
+     */
+    public Employee getEmployee(String employeeId) {
+        return archiveMetrics.time(ArchiveMetrics.STAGE_FETCH, () -> employeeRepository.findById(employeeId))
+                .orElseThrow(() -> new EmployeeNotFoundException("员工不存在: " + employeeId));
+    }
+
+    /**
+     * 获取全部员工ID(批量导出使用)
+     */
+    public List<String> listEmployeeIds() {
+        return employeeRepository.findAllIds();
+    }
+
+    /**
+     * 检查员工是否存在(只查主键)
      */
     public boolean employeeExists(String employeeId) {
-        return mockDataService.getEmployeeById(employeeId) != null;
+        return employeeRepository.existsById(employeeId);
+    }
+
+    /**
+     * 丢弃员工的缓存数据(绕过本服务直接修改员工数据后调用)
+     */
+    public void evictEmployee(String employeeId) {
+        employeeRepository.evict(employeeId);
+        logger.info("已丢弃员工缓存数据, 员工ID: {}", employeeId);
     }
 
     /**
      * 获取布局统计信息(调试用)
+     * 照片格尺寸由配置决定,布局不依赖照片内容,因此不读取照片
      */
     public String getLayoutStatistics(String employeeId) {
-        Employee employee = mockDataService.getEmployeeById(employeeId);
-        if (employee == null) {
-            throw new EmployeeNotFoundException("员工不存在: " + employeeId);
-        }
+        Employee employee = employeeRepository.findByIdWithoutPhoto(employeeId)
+                .orElseThrow(() -> new EmployeeNotFoundException("员工不存在: " + employeeId));
 
         return archiveRenderService.getLayoutStatistics(employee);
     }
+
+    /**
+     * 解析渲染引擎,为null时使用配置的默认引擎
+     */
+    public PdfConfig.RenderEngine resolveEngine(PdfConfig.RenderEngine engine) {
+        return engine != null ? engine : pdfConfig.getEngine();
+    }
 }
@@ -2,18 +2,36 @@ package cn.kmdckj.epersonnelarchivegenerator.service;
 
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
 /**
  * HTML预处理器
  * 对渲染后的HTML进行优化处理
+ * <p>
+ * 预处理以流式过滤器 {@link Filter} 实现: 模板直接写入过滤器,过滤器一次顺序扫描完成
+ * 空白行合并、charset声明补全和结构校验,不产生中间的整文档字符串。
  */
 @Component
 public class HtmlPreprocessor {
 
+    private static final String CHARSET_META = "\n    <meta charset=\"UTF-8\"/>";
+
+    /**
+     * 创建流式预处理过滤器
+     *
+     * @param out 处理后HTML的输出目标
+     * @return 过滤器,写入完成后必须调用 {@link Filter#close()}
+     */
+    public Filter newFilter(Appendable out) {
+        return new Filter(out);
+    }
+
     /**
      * 预处理HTML
      * - 清理多余空白
-     * - 优化CSS
-     * - 处理特殊字符
+     * - 补全charset声明
      *
      * @param html 原始HTML
      * @return 处理后的HTML
@@ -23,55 +41,256 @@ public class HtmlPreprocessor {
             return html;
         }
 
-        String processed = html;
-
-        // 1. 清理多余的空白行(保留必要的格式)
-        processed = cleanExcessiveWhitespace(processed);
-
-        // 2. 确保中文字符正常
-        processed = ensureChineseCharacters(processed);
-
-        // 3. 优化内联样式(如果需要)
-        processed = optimizeInlineStyles(processed);
-
-        return processed;
+        StringBuilder processed = new StringBuilder(html.length() + CHARSET_META.length());
+        try (Filter filter = newFilter(processed)) {
+            filter.write(html);
+        } catch (IOException e) {
+            // StringBuilder 不会抛出IO异常
+            throw new IllegalStateException(e);
+        }
+        return processed.toString();
     }
 
     /**
-     * 清理多余空白
+     * 添加调试信息(开发环境使用)
      */
-    private String cleanExcessiveWhitespace(String html) {
-        // 移除连续的空白行(超过2个换行符的情况)
-        return html.replaceAll("(\r?\n){3,}", "\n\n");
+    public String addDebugInfo(String html, String info) {
+        String debugComment = String.format("\n<!-- Debug Info: %s -->\n", info);
+        return html.replaceFirst("<body", debugComment + "<body");
     }
 
     /**
-     * 确保中文字符正常显示
+     * 流式预处理过滤器
+     * <p>
+     * 1. 连续3个及以上的换行(\n 或 \r\n)合并为两个 \n;
+     * 2. charset声明: 第一个 &lt;head&gt; 之后的内容暂存到 &lt;/head&gt;,
+     * 期间没有出现 "charset=" 时在 &lt;head&gt; 后补上 UTF-8 meta(只缓冲head部分);
+     * 3. 结构校验: 记录是否出现过 &lt;html、&lt;/html&gt;、&lt;body、&lt;/body&gt;,
+     * 关闭后通过 {@link #isValid()} 获取结果。
+     * <p>
+     * 非线程安全,每次渲染创建一个。
      */
-    private String ensureChineseCharacters(String html) {
-        // 检查是否包含charset声明
-        if (!html.contains("charset=") && !html.contains("charset =")) {
-            // 在head标签后添加charset声明
-            html = html.replaceFirst("<head>",
-                    "<head>\n    <meta charset=\"UTF-8\"/>");
-        }
-        return html;
-    }
+    public static final class Filter extends Writer {
 
-    /**
-     * 优化内联样式
-     */
-    private String optimizeInlineStyles(String html) {
-        // 这里可以添加样式优化逻辑
-        // 例如:合并重复的样式,移除无效样式等
-        return html;
+        private final Appendable out;
+
+        // 换行合并状态
+        private final StringBuilder pendingBreaks = new StringBuilder();
+        private int breakCount;
+        private boolean pendingCarriageReturn;
+
+        // charset补全状态
+        private HeadState headState = HeadState.BEFORE_HEAD;
+        private StringBuilder headBuffer;
+        private final Marker head = new Marker("<head>");
+        private final Marker headEnd = new Marker("</head>");
+        private final Marker charset = new Marker("charset=");
+        private final Marker charsetSpaced = new Marker("charset =");
+
+        // 结构校验状态
+        private final Marker htmlStart = new Marker("<html");
+        private final Marker htmlEnd = new Marker("</html>");
+        private final Marker bodyStart = new Marker("<body");
+        private final Marker bodyEnd = new Marker("</body>");
+        private boolean charsetSeen;
+        private boolean closed;
+
+        private enum HeadState { BEFORE_HEAD, IN_HEAD, PASS }
+
+        Filter(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            accept((char) c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            write(CharBuffer.wrap(cbuf), off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            write((CharSequence) str, off, len);
+        }
+
+        /**
+         * head之后的普通字符只做结构校验,按片段整体写出;换行和head部分逐字符处理
+         */
+        private void write(CharSequence chars, int off, int len) throws IOException {
+            int end = off + len;
+            int segmentStart = off;
+            for (int i = off; i < end; i++) {
+                char c = chars.charAt(i);
+                if (headState == HeadState.PASS && c != '\r' && c != '\n'
+                        && breakCount == 0 && !pendingCarriageReturn) {
+                    checkStructure(c);
+                    continue;
+                }
+                out.append(chars, segmentStart, i);
+                accept(c);
+                segmentStart = i + 1;
+            }
+            out.append(chars, segmentStart, end);
+        }
+
+        @Override
+        public void flush() {
+            // 换行和head部分需要看到后续字符才能决定输出,这里不提前写出
+        }
+
+        /**
+         * 结束输入,写出暂存的内容
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushBreaks();
+            if (pendingCarriageReturn) {
+                pendingCarriageReturn = false;
+                emit('\r');
+            }
+            if (headState == HeadState.IN_HEAD) {
+                releaseHead(true);
+            }
+        }
+
+        /**
+         * 输出是否包含完整的HTML结构(须在 {@link #close()} 之后调用)
+         */
+        public boolean isValid() {
+            return htmlStart.found && htmlEnd.found && bodyStart.found && bodyEnd.found;
+        }
+
+        /**
+         * 第一步: 合并连续换行
+         */
+        private void accept(char c) throws IOException {
+            if (pendingCarriageReturn) {
+                pendingCarriageReturn = false;
+                if (c == '\n') {
+                    pendingBreaks.append("\r\n");
+                    breakCount++;
+                    return;
+                }
+                flushBreaks();
+                emit('\r');
+            }
+            if (c == '\r') {
+                pendingCarriageReturn = true;
+            } else if (c == '\n') {
+                pendingBreaks.append('\n');
+                breakCount++;
+            } else {
+                flushBreaks();
+                emit(c);
+            }
+        }
+
+        private void flushBreaks() throws IOException {
+            if (breakCount == 0) {
+                return;
+            }
+            if (breakCount >= 3) {
+                emit('\n');
+                emit('\n');
+            } else {
+                for (int i = 0; i < pendingBreaks.length(); i++) {
+                    emit(pendingBreaks.charAt(i));
+                }
+            }
+            pendingBreaks.setLength(0);
+            breakCount = 0;
+        }
+
+        /**
+         * 第二步: 结构校验和charset补全
+         */
+        private void emit(char c) throws IOException {
+            checkStructure(c);
+            if (headState == HeadState.PASS) {
+                out.append(c);
+                return;
+            }
+
+            charsetSeen |= charset.accept(c) | charsetSpaced.accept(c);
+            if (headState == HeadState.BEFORE_HEAD) {
+                out.append(c);
+                if (head.accept(c)) {
+                    if (charsetSeen) {
+                        headState = HeadState.PASS;
+                    } else {
+                        headState = HeadState.IN_HEAD;
+                        headBuffer = new StringBuilder(4096);
+                    }
+                }
+                return;
+            }
+
+            headBuffer.append(c);
+            if (charsetSeen) {
+                releaseHead(false);
+            } else if (headEnd.accept(c)) {
+                releaseHead(true);
+            }
+        }
+
+        private void checkStructure(char c) {
+            htmlStart.accept(c);
+            htmlEnd.accept(c);
+            bodyStart.accept(c);
+            bodyEnd.accept(c);
+        }
+
+        private void releaseHead(boolean injectCharset) throws IOException {
+            if (injectCharset) {
+                out.append(CHARSET_META);
+            }
+            out.append(headBuffer);
+            headBuffer = null;
+            headState = HeadState.PASS;
+        }
     }
 
     /**
-     * 添加调试信息(开发环境使用)
+     * 流式字面量匹配,只用于首字符不在模式中重复出现的模式(如 "&lt;head&gt;"、"charset="),
+     * 失配时只需从当前字符重新开始
      */
-    public String addDebugInfo(String html, String info) {
-        String debugComment = String.format("\n<!-- Debug Info: %s -->\n", info);
-        return html.replaceFirst("<body", debugComment + "<body");
+    private static final class Marker {
+        private final String pattern;
+        private int matched;
+        private boolean found;
+
+        Marker(String pattern) {
+            this.pattern = pattern;
+        }
+
+        /**
+         * @return 本字符是否恰好完成一次匹配
+         */
+        boolean accept(char c) {
+            if (matched == 0) {
+                if (pattern.charAt(0) == c) {
+                    matched = 1;
+                }
+                return false;
+            }
+            if (pattern.charAt(matched) == c) {
+                matched++;
+            } else {
+                matched = pattern.charAt(0) == c ? 1 : 0;
+            }
+            if (matched == pattern.length()) {
+                matched = 0;
+                found = true;
+                return true;
+            }
+            return false;
+        }
     }
 }
@@ -1,11 +1,14 @@
 package cn.kmdckj.epersonnelarchivegenerator.service;
 
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
 import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -17,6 +20,7 @@ public class MockDataService {
         // 场景1: 基本信息完整的员工
         Employee emp1 = new Employee();
         emp1.setId("001");
+        emp1.setArchiveType(ArchiveType.CADRE);
         emp1.setName("张三");
         emp1.setGender("男");
         emp1.setBirthDate(LocalDate.of(1990, 5, 15));
@@ -140,4 +144,10 @@ public class MockDataService {
     public Employee getEmployeeById(String employeeId) {
         return MOCK_DATA.get(employeeId);
     }
+
+    public List<String> getAllEmployeeIds() {
+        List<String> ids = new ArrayList<>(MOCK_DATA.keySet());
+        ids.sort(null);
+        return ids;
+    }
 }
\ No newline at end of file
@@ -1,14 +1,23 @@
 package cn.kmdckj.epersonnelarchivegenerator.service;
 
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.util.ArchiveMetrics;
+import cn.kmdckj.epersonnelarchivegenerator.util.CountingOutputStream;
+import cn.kmdckj.epersonnelarchivegenerator.util.NativePdfRenderer;
+import cn.kmdckj.epersonnelarchivegenerator.util.PdfBufferPool;
 import cn.kmdckj.epersonnelarchivegenerator.util.PdfRenderBuilder;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.w3c.dom.Document;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 
 /**
- * PDF生成服务 - 将HTML转换为PDF
+ * PDF生成服务 - 将HTML转换为PDF,或直接由布局模型绘制PDF
+ * write* 方法直接写入调用方的输出流(如HTTP响应流),generate* 方法在池化缓冲区中生成后返回字节数组
  */
 @Service
 public class PdfGeneratorService {
@@ -16,9 +25,18 @@ public class PdfGeneratorService {
     private static final Logger logger = LoggerFactory.getLogger(PdfGeneratorService.class);
 
     private final PdfRenderBuilder pdfRenderBuilder;
-
-    public PdfGeneratorService(PdfRenderBuilder pdfRenderBuilder) {
+    private final NativePdfRenderer nativePdfRenderer;
+    private final PdfBufferPool pdfBufferPool;
+    private final ArchiveMetrics archiveMetrics;
+
+    public PdfGeneratorService(PdfRenderBuilder pdfRenderBuilder,
+                               NativePdfRenderer nativePdfRenderer,
+                               PdfBufferPool pdfBufferPool,
+                               ArchiveMetrics archiveMetrics) {
         this.pdfRenderBuilder = pdfRenderBuilder;
+        this.nativePdfRenderer = nativePdfRenderer;
+        this.pdfBufferPool = pdfBufferPool;
+        this.archiveMetrics = archiveMetrics;
     }
 
     /**
@@ -28,32 +46,156 @@ public class PdfGeneratorService {
      * @return PDF字节数组
      */
     public byte[] generatePdfFromHtml(String html) {
+        try (PdfBufferPool.Buffer buffer = pdfBufferPool.acquire()) {
+            writePdfFromHtml(html, buffer);
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * 将已构建好的W3C Document转换为PDF字节数组
+     *
+     * @param document W3C Document
+     * @return PDF字节数组
+     */
+    public byte[] generatePdfFromDocument(Document document) {
+        try (PdfBufferPool.Buffer buffer = pdfBufferPool.acquire()) {
+            writePdfFromDocument(document, buffer);
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * 使用原生引擎将布局模型直接绘制为PDF字节数组
+     *
+     * @param layoutModel 已分页的布局模型
+     * @return PDF字节数组
+     */
+    public byte[] generatePdfFromLayout(LayoutModel layoutModel) {
+        try (PdfBufferPool.Buffer buffer = pdfBufferPool.acquire()) {
+            writePdfFromLayout(layoutModel, buffer);
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * 将HTML字符串转换为PDF并写入输出流
+     *
+     * @param html         HTML字符串
+     * @param outputStream 输出流
+     * @return 写出的字节数
+     */
+    public long writePdfFromHtml(String html, OutputStream outputStream) {
         if (html == null || html.trim().isEmpty()) {
             throw new IllegalArgumentException("HTML内容不能为空");
         }
 
+        logger.debug("开始生成PDF, HTML长度: {} 字符", html.length());
+        Document document;
         try {
-            logger.debug("开始生成PDF, HTML长度: {} 字符", html.length());
-            long startTime = System.currentTimeMillis();
+            // 使用JSoup解析HTML并转换为W3C Document
+            document = archiveMetrics.time(ArchiveMetrics.STAGE_DOM, () -> pdfRenderBuilder.toW3cDocument(html));
+        } catch (Exception e) {
+            logger.error("生成PDF失败", e);
+            throw new PdfGenerationException("生成PDF失败: " + e.getMessage(), e);
+        }
+        return writePdfFromDocument(document, outputStream);
+    }
 
-            // 创建输出流
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    /**
+     * 将已构建好的W3C Document转换为PDF并写入输出流
+     *
+     * @param document     W3C Document
+     * @param outputStream 输出流
+     * @return 写出的字节数
+     */
+    public long writePdfFromDocument(Document document, OutputStream outputStream) {
+        if (document == null) {
+            throw new IllegalArgumentException("DOM文档不能为空");
+        }
+
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            CountingOutputStream counter = new CountingOutputStream(outputStream);
+            int pages = pdfRenderBuilder.render(document, counter);
+            success = true;
+
+            long duration = (System.nanoTime() - startTime) / 1_000_000;
+            logger.info("PDF生成成功, 大小: {} KB, 页数: {}, 耗时: {} ms",
+                    counter.getCount() / 1024, pages, duration);
 
-            // 创建PDF渲染器并渲染
-            pdfRenderBuilder.createRenderer(html, outputStream).run();
+            archiveMetrics.recordPages(pages);
+            return counter.getCount();
 
-            // 获取PDF字节数组
-            byte[] pdfBytes = outputStream.toByteArray();
+        } catch (Exception e) {
+            logger.error("生成PDF失败", e);
+            throw new PdfGenerationException("生成PDF失败: " + e.getMessage(), e);
+        } finally {
+            archiveMetrics.recordStage(ArchiveMetrics.STAGE_PDF, System.nanoTime() - startTime, success);
+        }
+    }
 
-            long duration = System.currentTimeMillis() - startTime;
-            logger.info("PDF生成成功, 大小: {} KB, 耗时: {} ms",
-                    pdfBytes.length / 1024, duration);
+    /**
+     * 将已构建好的W3C Document转换为PDF页面,追加到已有的PDF文档末尾(档案汇编)
+     *
+     * @param document W3C Document
+     * @param target   目标PDF文档
+     * @param font     目标文档中共用的字体
+     * @return 追加的页数
+     */
+    public int appendPdfFromDocument(Document document, PDDocument target, PDFont font) {
+        if (document == null) {
+            throw new IllegalArgumentException("DOM文档不能为空");
+        }
 
-            return pdfBytes;
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            int pages = pdfRenderBuilder.renderInto(document, target, font);
+            success = true;
+            archiveMetrics.recordPages(pages);
+            return pages;
 
         } catch (Exception e) {
             logger.error("生成PDF失败", e);
             throw new PdfGenerationException("生成PDF失败: " + e.getMessage(), e);
+        } finally {
+            archiveMetrics.recordStage(ArchiveMetrics.STAGE_PDF, System.nanoTime() - startTime, success);
+        }
+    }
+
+    /**
+     * 使用原生引擎将布局模型直接绘制为PDF并写入输出流
+     *
+     * @param layoutModel  已分页的布局模型
+     * @param outputStream 输出流
+     * @return 写出的字节数
+     */
+    public long writePdfFromLayout(LayoutModel layoutModel, OutputStream outputStream) {
+        if (layoutModel == null) {
+            throw new IllegalArgumentException("布局模型不能为空");
+        }
+
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            CountingOutputStream counter = new CountingOutputStream(outputStream);
+            int pages = nativePdfRenderer.render(layoutModel, counter);
+            success = true;
+
+            long duration = (System.nanoTime() - startTime) / 1_000_000;
+            logger.info("PDF生成成功(原生引擎), 大小: {} KB, 页数: {}, 耗时: {} ms",
+                    counter.getCount() / 1024, pages, duration);
+
+            archiveMetrics.recordPages(pages);
+            return counter.getCount();
+
+        } catch (Exception e) {
+            logger.error("生成PDF失败(原生引擎)", e);
+            throw new PdfGenerationException("生成PDF失败: " + e.getMessage(), e);
+        } finally {
+            archiveMetrics.recordStage(ArchiveMetrics.STAGE_PDF, System.nanoTime() - startTime, success);
         }
     }
 
@@ -0,0 +1,146 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.RenderBulkheadConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 渲染隔离舱 - 用固定数量的许可限制同时进行的档案渲染
+ * <p>
+ * 所有PDF渲染都在 {@link EmployeeArchiveService} 中持有许可进行,在线请求、批量导出、档案汇编、
+ * 异步任务和启动预热共用同一份并发预算。
+ * 在线请求使用 {@link #acquire()}: 请求线程为虚拟线程,排队等待许可不占用平台线程;等待的请求数超过上限
+ * 或等待超时时抛出 {@link RenderRejectedException},由控制器转换为 429 + Retry-After。
+ * 后台渲染使用 {@link #acquireBlocking()},一直等到获得许可,不会被拒绝。
+ */
+@Component
+public class RenderBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderBulkhead.class);
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMs;
+    private final int retryAfterSeconds;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejectedCounter;
+
+    public RenderBulkhead(RenderBulkheadConfig config, MeterRegistry meterRegistry) {
+        this.maxConcurrent = config.resolveMaxConcurrent();
+        this.maxQueue = config.resolveMaxQueue();
+        this.maxWaitMs = config.getMaxWaitMs();
+        this.retryAfterSeconds = config.getRetryAfterSeconds();
+        this.permits = new Semaphore(maxConcurrent, true);
+
+        Gauge.builder("archive.bulkhead.queue.depth", waiting, AtomicInteger::get)
+                .description("等待渲染许可的请求数")
+                .register(meterRegistry);
+        Gauge.builder("archive.bulkhead.permits.in.use", this, RenderBulkhead::getActiveCount)
+                .description("正在渲染的请求数")
+                .register(meterRegistry);
+        Gauge.builder("archive.bulkhead.utilization", this, bulkhead -> (double) bulkhead.getActiveCount() / maxConcurrent)
+                .description("渲染许可使用率")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("archive.bulkhead.rejected")
+                .description("因队列已满或等待超时被拒绝的渲染请求数")
+                .register(meterRegistry);
+
+        logger.info("渲染隔离舱初始化完成, 同时渲染数: {}, 排队上限: {}, 最长等待: {} ms",
+                maxConcurrent, maxQueue, maxWaitMs);
+    }
+
+    /**
+     * 获取渲染许可,必要时有界排队等待
+     *
+     * @return 许可,渲染结束后关闭以归还
+     * @throws RenderRejectedException 队列已满或等待超时
+     */
+    public Permit acquire() {
+        if (permits.tryAcquire()) {
+            return new Permit();
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            throw reject("渲染请求过多,等待队列已满");
+        }
+        try {
+            if (!permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) {
+                throw reject("渲染请求过多,等待超时");
+            }
+            return new Permit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("等待渲染许可时被中断");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * 获取渲染许可,一直等待到获得为止(后台渲染使用,不受排队上限和等待超时限制)
+     * 等待期间计入排队数,在线请求因此在后台任务占满许可时更早被拒绝
+     *
+     * @return 许可,渲染结束后关闭以归还
+     * @throws RenderException 等待时线程被中断(如批量任务被取消)
+     */
+    public Permit acquireBlocking() {
+        if (permits.tryAcquire()) {
+            return new Permit();
+        }
+        waiting.incrementAndGet();
+        try {
+            permits.acquire();
+            return new Permit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RenderException("等待渲染许可时被中断", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * 正在渲染的请求数
+     */
+    public int getActiveCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * 等待许可的请求数
+     */
+    public int getQueueDepth() {
+        return waiting.get();
+    }
+
+    private RenderRejectedException reject(String message) {
+        rejectedCounter.increment();
+        logger.warn("{}, 正在渲染: {}, 排队: {}", message, getActiveCount(), waiting.get());
+        return new RenderRejectedException(message, retryAfterSeconds);
+    }
+
+    /**
+     * 渲染许可,关闭时归还(重复关闭无副作用)
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+/**
+ * 渲染请求被拒绝异常 - 渲染隔离舱的等待队列已满或等待超时
+ */
+public class RenderRejectedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public RenderRejectedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 建议客户端重试的等待秒数
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,140 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 合成员工数据 - 用于基准测试和预热的确定性测试档案
+ * <p>
+ * 同一规模每次生成的内容完全相同,便于前后对比。
+ */
+public final class SyntheticEmployeeFactory {
+
+    /**
+     * 档案规模
+     */
+    public enum Profile {
+        SMALL,         // 只有少量基础字段,单页
+        TYPICAL,       // 与 MockDataService 场景1相近: 数段经历,约两页
+        PATHOLOGICAL   // 数百段工作经历,职责描述长达一万字
+    }
+
+    private static final String DUTY_SENTENCE =
+            "负责核心业务系统的需求分析、架构设计与编码实现,推动性能优化和稳定性治理,指导团队成员完成交付;";
+
+    // 1x1 透明PNG
+    private static final String PHOTO_BASE64 =
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAYAAAAfFcSJAAAADUlEQVR42mNkYPhfDwAChwGA60e6kgAAAABJRU5ErkJggg==";
+
+    private SyntheticEmployeeFactory() {
+    }
+
+    /**
+     * 生成指定规模的员工
+     *
+     * @param profile 档案规模
+     * @param id      员工ID
+     */
+    public static Employee create(Profile profile, String id) {
+        return switch (profile) {
+            case SMALL -> small(id);
+            case TYPICAL -> typical(id);
+            case PATHOLOGICAL -> pathological(id);
+        };
+    }
+
+    private static Employee small(String id) {
+        Employee employee = basic(id);
+        Employee.Education education = education(0);
+        employee.setEducations(List.of(education));
+        return employee;
+    }
+
+    private static Employee typical(String id) {
+        Employee employee = basic(id);
+        employee.setIdCard("110101199005151234");
+        employee.setNation("汉族");
+        employee.setPoliticalStatus("中共党员");
+        employee.setMaritalStatus("已婚");
+        employee.setNativePlace("北京市东城区");
+        employee.setCurrentAddress("北京市朝阳区建国路1号院2号楼3单元401室");
+        employee.setEmergencyContact("李四");
+        employee.setEmergencyPhone("13900139000");
+        employee.setPhotoBase64(PHOTO_BASE64);
+        employee.setWorkExperiences(workExperiences(3, 2));
+        employee.setEducations(List.of(education(0), education(1)));
+        employee.setFamilyMembers(familyMembers(4));
+        return employee;
+    }
+
+    private static Employee pathological(String id) {
+        Employee employee = typical(id);
+        employee.setCurrentAddress(repeat("上海市浦东新区世纪大道1000号高银金融大厦A座2501室,", 20));
+        List<Employee.WorkExperience> experiences = workExperiences(300, 4);
+        experiences.get(0).setDuties(repeat(DUTY_SENTENCE, 10_000 / DUTY_SENTENCE.length() + 1));
+        employee.setWorkExperiences(experiences);
+        List<Employee.Education> educations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            educations.add(education(i));
+        }
+        employee.setEducations(educations);
+        employee.setFamilyMembers(familyMembers(50));
+        return employee;
+    }
+
+    private static Employee basic(String id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setName("测试员工" + id);
+        employee.setGender("男");
+        employee.setBirthDate(LocalDate.of(1990, 5, 15));
+        employee.setPhone("13800138000");
+        employee.setEmail("synthetic" + id + "@example.com");
+        return employee;
+    }
+
+    private static List<Employee.WorkExperience> workExperiences(int count, int dutySentences) {
+        List<Employee.WorkExperience> experiences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Employee.WorkExperience experience = new Employee.WorkExperience();
+            experience.setStartDate(LocalDate.of(2000, 1, 1).plusMonths(i * 3L));
+            experience.setEndDate(i == count - 1 ? null : LocalDate.of(2000, 1, 1).plusMonths(i * 3L + 2));
+            experience.setCompany("第" + (i + 1) + "科技有限公司");
+            experience.setPosition(i % 2 == 0 ? "Java开发工程师" : "高级架构师");
+            experience.setDuties(repeat(DUTY_SENTENCE, dutySentences));
+            experiences.add(experience);
+        }
+        return experiences;
+    }
+
+    private static Employee.Education education(int index) {
+        Employee.Education education = new Employee.Education();
+        education.setStartDate(LocalDate.of(2008, 9, 1).minusYears(index * 4L));
+        education.setEndDate(LocalDate.of(2012, 6, 30).minusYears(index * 4L));
+        education.setSchool(index % 2 == 0 ? "清华大学" : "北京大学");
+        education.setMajor("计算机科学与技术");
+        education.setDegree(index % 2 == 0 ? "本科" : "硕士");
+        return education;
+    }
+
+    private static List<Employee.FamilyMember> familyMembers(int count) {
+        String[] relations = {"父亲", "母亲", "配偶", "子女"};
+        List<Employee.FamilyMember> members = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Employee.FamilyMember member = new Employee.FamilyMember();
+            member.setRelation(relations[i % relations.length]);
+            member.setName("家属" + (i + 1));
+            member.setAge(30 + i % 40);
+            member.setWorkUnit(i % 3 == 0 ? "已退休" : "北京市第一医院");
+            members.add(member);
+        }
+        return members;
+    }
+
+    private static String repeat(String text, int times) {
+        return text.repeat(Math.max(1, times));
+    }
+}
@@ -1,44 +1,262 @@
 package cn.kmdckj.epersonnelarchivegenerator.service;
 
 import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import cn.kmdckj.epersonnelarchivegenerator.util.DomBuildingWriter;
+import cn.kmdckj.epersonnelarchivegenerator.util.DomOutputDialect;
+import cn.kmdckj.epersonnelarchivegenerator.util.template.CompiledTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.Writer;
+import java.util.Map;
 
 /**
  * Thymeleaf模板渲染服务
  * 将布局模型渲染为HTML字符串
+ * <p>
+ * 模板由 {@link ArchiveTemplateRegistry} 按档案类型提供,未指定模板的方法使用通用档案的模板。
+ * HTML字符串渲染走启动(或重新加载)时编译的 {@link CompiledTemplate}(静态标记预先拼好,表达式编译为属性访问函数),
+ * 输出与Thymeleaf解释执行逐字节一致;模板使用了编译器不支持的语法或渲染出错时回退到Thymeleaf解释执行。
+ * 直接构建DOM的路径同样走编译模板,输出经 {@link DomBuildingWriter} 一次遍历构建为DOM;
+ * 回退时由Thymeleaf配合 {@link DomOutputDialect} 构建。
  */
 @Service
 public class ThymeleafRenderService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ThymeleafRenderService.class);
+
+    private static final String LAYOUT_MODEL_VARIABLE = ArchiveTemplateRegistry.LAYOUT_MODEL_VARIABLE;
+    private static final String ARCHIVE_TITLE_VARIABLE = ArchiveTemplateRegistry.ARCHIVE_TITLE_VARIABLE;
+
     private final TemplateEngine templateEngine;
+    private final ArchiveTemplateRegistry templateRegistry;
+    private final DocumentBuilderFactory documentBuilderFactory;
+
+    // 最近一次输出的长度,用于预分配缓冲区
+    private volatile int lastHtmlLength = 16 * 1024;
 
-    public ThymeleafRenderService(TemplateEngine templateEngine) {
+    public ThymeleafRenderService(TemplateEngine templateEngine, ArchiveTemplateRegistry templateRegistry) {
         this.templateEngine = templateEngine;
+        this.templateRegistry = templateRegistry;
+        this.documentBuilderFactory = DocumentBuilderFactory.newInstance();
+        this.documentBuilderFactory.setNamespaceAware(true);
     }
 
     /**
-     * 渲染档案HTML
+     * 通用档案模板是否已编译
+     */
+    public boolean isCompiled() {
+        return defaultTemplate().isCompiled();
+    }
+
+    /**
+     * 使用通用档案模板渲染档案HTML
      *
      * @param layoutModel 布局模型
      * @return HTML字符串
      */
     public String renderArchiveHtml(LayoutModel layoutModel) {
+        return renderArchiveHtml(layoutModel, defaultTemplate());
+    }
+
+    /**
+     * 渲染档案HTML
+     *
+     * @param layoutModel 布局模型
+     * @param template    档案模板
+     * @return HTML字符串
+     */
+    public String renderArchiveHtml(LayoutModel layoutModel, ArchiveTemplate template) {
+        if (layoutModel == null) {
+            throw new IllegalArgumentException("布局模型不能为空");
+        }
+        if (!template.isCompiled()) {
+            return renderArchiveHtmlInterpreted(layoutModel, template);
+        }
+
+        try {
+            return renderArchiveHtmlCompiled(layoutModel, template);
+        } catch (RuntimeException e) {
+            logger.warn("编译模板渲染失败,回退到Thymeleaf解释执行: {}: {}", template.getName(), e.toString());
+            return renderArchiveHtmlInterpreted(layoutModel, template);
+        }
+    }
+
+    /**
+     * 使用通用档案模板渲染档案HTML并流式写入目标
+     *
+     * @param layoutModel 布局模型
+     * @param out         输出目标
+     */
+    public void renderArchiveHtml(LayoutModel layoutModel, Writer out) {
+        renderArchiveHtml(layoutModel, defaultTemplate(), out);
+    }
+
+    /**
+     * 渲染档案HTML并流式写入目标(如 {@link HtmlPreprocessor.Filter}),不生成中间字符串
+     * <p>
+     * 写入目标的内容无法撤回,编译模板渲染出错时直接抛出,不回退到解释执行。
+     *
+     * @param layoutModel 布局模型
+     * @param template    档案模板
+     * @param out         输出目标
+     */
+    public void renderArchiveHtml(LayoutModel layoutModel, ArchiveTemplate template, Writer out) {
+        if (layoutModel == null) {
+            throw new IllegalArgumentException("布局模型不能为空");
+        }
+        if (template.isCompiled()) {
+            template.getCompiled().render(variables(layoutModel, template), out);
+            return;
+        }
+
+        Context context = context(layoutModel, template);
+        templateEngine.process(template.getTemplateSpec(), context, out);
+    }
+
+    /**
+     * 使用编译后的模板渲染,不回退
+     */
+    String renderArchiveHtmlCompiled(LayoutModel layoutModel, ArchiveTemplate template) {
+        StringBuilder html = new StringBuilder(lastHtmlLength + lastHtmlLength / 8);
+        template.getCompiled().render(variables(layoutModel, template), html);
+        lastHtmlLength = html.length();
+        return html.toString();
+    }
+
+    /**
+     * 使用Thymeleaf解释执行通用档案模板(编译模板的对照基准)
+     *
+     * @param layoutModel 布局模型
+     * @return HTML字符串
+     */
+    public String renderArchiveHtmlInterpreted(LayoutModel layoutModel) {
+        return renderArchiveHtmlInterpreted(layoutModel, defaultTemplate());
+    }
+
+    /**
+     * 使用Thymeleaf解释执行渲染档案HTML(编译模板的对照基准)
+     *
+     * @param layoutModel 布局模型
+     * @param template    档案模板
+     * @return HTML字符串
+     */
+    public String renderArchiveHtmlInterpreted(LayoutModel layoutModel, ArchiveTemplate template) {
         if (layoutModel == null) {
             throw new IllegalArgumentException("布局模型不能为空");
         }
 
         // 创建Thymeleaf上下文
-        Context context = new Context();
-        context.setVariable("layoutModel", layoutModel);
+        Context context = context(layoutModel, template);
 
         // 渲染模板
-        return templateEngine.process("archive", context);
+        return templateEngine.process(template.getTemplateSpec(), context);
     }
 
     /**
-     * 渲染档案HTML(带额外变量)
+     * 使用通用档案模板渲染档案为W3C Document
+     *
+     * @param layoutModel 布局模型
+     * @return W3C Document
+     */
+    public Document renderArchiveDocument(LayoutModel layoutModel) {
+        return renderArchiveDocument(layoutModel, defaultTemplate());
+    }
+
+    /**
+     * 渲染档案为W3C Document,不生成HTML字符串
+     * <p>
+     * 已编译的模板直接输出到 {@link DomBuildingWriter},一次遍历构建DOM;
+     * 模板未编译或编译模板渲染出错时回退到Thymeleaf解释执行(由 {@link DomOutputDialect} 构建DOM)。
+     *
+     * @param layoutModel 布局模型
+     * @param template    档案模板
+     * @return W3C Document
+     */
+    public Document renderArchiveDocument(LayoutModel layoutModel, ArchiveTemplate template) {
+        if (layoutModel == null) {
+            throw new IllegalArgumentException("布局模型不能为空");
+        }
+        if (!template.isCompiled()) {
+            return renderArchiveDocumentInterpreted(layoutModel, template);
+        }
+
+        try {
+            return renderArchiveDocumentCompiled(layoutModel, template);
+        } catch (RuntimeException e) {
+            logger.warn("编译模板构建DOM失败,回退到Thymeleaf解释执行: {}: {}", template.getName(), e.toString());
+            return renderArchiveDocumentInterpreted(layoutModel, template);
+        }
+    }
+
+    /**
+     * 使用编译后的模板构建DOM,不回退
+     */
+    Document renderArchiveDocumentCompiled(LayoutModel layoutModel, ArchiveTemplate template) {
+        Document document = newDocument();
+        DomBuildingWriter out = new DomBuildingWriter(document);
+        template.getCompiled().render(variables(layoutModel, template), out);
+        out.close();
+        return document;
+    }
+
+    /**
+     * 使用Thymeleaf解释执行构建DOM(编译模板的对照基准)
+     * 模板输出事件由 {@link DomOutputDialect} 直接构建为DOM节点
+     *
+     * @param layoutModel 布局模型
+     * @param template    档案模板
+     * @return W3C Document
+     */
+    public Document renderArchiveDocumentInterpreted(LayoutModel layoutModel, ArchiveTemplate template) {
+        if (layoutModel == null) {
+            throw new IllegalArgumentException("布局模型不能为空");
+        }
+
+        Document document = newDocument();
+        Context context = context(layoutModel, template);
+        context.setVariable(DomOutputDialect.TARGET_VARIABLE, document);
+
+        templateEngine.process(template.getTemplateSpec(), context, Writer.nullWriter());
+        return document;
+    }
+
+    /**
+     * 编译模板的变量: 布局模型和档案类型的标题
+     */
+    private static Map<String, Object> variables(LayoutModel layoutModel, ArchiveTemplate template) {
+        return Map.of(LAYOUT_MODEL_VARIABLE, layoutModel, ARCHIVE_TITLE_VARIABLE, template.getTitle());
+    }
+
+    /**
+     * 解释执行的上下文,变量与编译模板相同
+     */
+    private static Context context(LayoutModel layoutModel, ArchiveTemplate template) {
+        Context context = new Context();
+        context.setVariable(LAYOUT_MODEL_VARIABLE, layoutModel);
+        context.setVariable(ARCHIVE_TITLE_VARIABLE, template.getTitle());
+        return context;
+    }
+
+    private Document newDocument() {
+        try {
+            return documentBuilderFactory.newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException e) {
+            throw new RenderException("创建DOM文档失败", e);
+        }
+    }
+
+    /**
+     * 渲染档案HTML(带额外变量,使用通用档案模板)
      *
      * @param layoutModel         布局模型
      * @param additionalVariables 额外变量
@@ -50,15 +268,14 @@ public class ThymeleafRenderService {
             throw new IllegalArgumentException("布局模型不能为空");
         }
 
-        Context context = new Context();
-        context.setVariable("layoutModel", layoutModel);
+        Context context = context(layoutModel, defaultTemplate());
 
         // 添加额外变量
         if (additionalVariables != null && !additionalVariables.isEmpty()) {
             additionalVariables.forEach(context::setVariable);
         }
 
-        return templateEngine.process("archive", context);
+        return templateEngine.process(defaultTemplate().getTemplateSpec(), context);
     }
 
     /**
@@ -78,4 +295,28 @@ public class ThymeleafRenderService {
                 html.contains("<body") &&
                 html.contains("</body>");
     }
+
+    /**
+     * 验证DOM是否生成成功
+     *
+     * @param document W3C Document
+     * @return 是否有效
+     */
+    public boolean validateDocument(Document document) {
+        if (document == null) {
+            return false;
+        }
+
+        // 检查是否包含基本的HTML结构
+        Element root = document.getDocumentElement();
+        if (root == null || !"html".equalsIgnoreCase(root.getLocalName())) {
+            return false;
+        }
+        NodeList bodies = root.getElementsByTagNameNS(DomOutputDialect.XHTML_NAMESPACE, "body");
+        return bodies.getLength() > 0;
+    }
+
+    private ArchiveTemplate defaultTemplate() {
+        return templateRegistry.resolve(ArchiveType.STANDARD);
+    }
 }
@@ -0,0 +1,176 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 档案生成指标 - 按阶段记录耗时,并记录HTML长度、PDF大小、页数和行数
+ * <p>
+ * 阶段耗时记录为计时器 archive.stage(标签 stage、outcome),发布直方图以便在Prometheus中计算各阶段的p99。
+ * 流式输出时PDF阶段的耗时包含向响应流写出的时间,写出阶段单独记录阻塞在响应流上的时间。
+ * 启动预热期间的渲染不计入指标,预热结束后记录预热耗时、参考档案的稳态耗时和首个真实请求的耗时。
+ * 启动时加载字体的耗时和字体文件大小记录为 archive.font.load 和 archive.font.size。
+ */
+@Component
+public class ArchiveMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveMetrics.class);
+
+    public static final String STAGE_FETCH = "fetch";                    // 数据获取
+    public static final String STAGE_LAYOUT = "layout";                  // 布局计算
+    public static final String STAGE_PAGINATION = "pagination";          // 布局优化和分页
+    public static final String STAGE_TEMPLATE = "thymeleaf";             // 模板渲染(HTML字符串路径含流式预处理)
+    public static final String STAGE_DOM = "dom";                        // HTML → W3C DOM 转换
+    public static final String STAGE_PDF = "pdf";                        // PDF渲染
+    public static final String STAGE_RESPONSE_WRITE = "response_write";  // 响应写出
+
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    private volatile boolean warmingUp;
+    private volatile double steadyStateMillis = Double.NaN;
+    private final AtomicLong firstRequestMillis = new AtomicLong(-1);
+
+    public ArchiveMetrics(MeterRegistry meterRegistry, FontManager fontManager) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("archive.font.load", fontManager, FontManager::getLoadTimeMillis)
+                .description("启动时读取和解析字体的耗时")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("archive.font.size", fontManager, FontManager::getFontSizeBytes)
+                .description("已加载字体文件的大小,字体不可用时为0")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 进入预热阶段: 此后的渲染不计入指标
+     */
+    public void beginWarmup() {
+        warmingUp = true;
+    }
+
+    /**
+     * 结束预热阶段
+     *
+     * @param durationMillis    预热总耗时
+     * @param steadyStateMillis 预热后参考档案(典型规模、默认引擎)的渲染耗时中位数(稳态参考值)
+     */
+    public void endWarmup(long durationMillis, double steadyStateMillis) {
+        this.steadyStateMillis = steadyStateMillis;
+        Gauge.builder("archive.warmup.duration", () -> durationMillis)
+                .description("启动预热总耗时")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("archive.warmup.steady.state", () -> steadyStateMillis)
+                .description("预热后参考档案(典型规模、默认引擎)的渲染耗时中位数")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("archive.warmup.first.request", firstRequestMillis, AtomicLong::get)
+                .description("预热后首个真实请求的渲染耗时,尚无请求时为-1")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        warmingUp = false;
+    }
+
+    /**
+     * 执行并记录一个阶段的耗时,异常时以 outcome=error 记录后原样抛出
+     *
+     * @param stage    阶段名
+     * @param supplier 阶段逻辑
+     * @return 阶段结果
+     */
+    public <T> T time(String stage, Supplier<T> supplier) {
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = supplier.get();
+            success = true;
+            return result;
+        } finally {
+            recordStage(stage, System.nanoTime() - startTime, success);
+        }
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     *
+     * @param stage   阶段名
+     * @param nanos   耗时(纳秒)
+     * @param success 是否成功
+     */
+    public void recordStage(String stage, long nanos, boolean success) {
+        if (warmingUp) {
+            return;
+        }
+        Timer.builder("archive.stage")
+                .description("档案生成各阶段耗时")
+                .tag("stage", stage)
+                .tag("outcome", success ? OUTCOME_SUCCESS : OUTCOME_ERROR)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次PDF生成的结果: HTML长度(HTML字符串路径才有)、PDF大小和总耗时
+     */
+    public void record(PdfMetrics metrics) {
+        if (warmingUp) {
+            return;
+        }
+        if (firstRequestMillis.compareAndSet(-1, metrics.getRenderTime()) && !Double.isNaN(steadyStateMillis)) {
+            logger.info("预热后首个真实请求渲染耗时: {} ms, 稳态参考值: {} ms",
+                    metrics.getRenderTime(), Math.round(steadyStateMillis));
+        }
+        if (metrics.getHtmlLength() > 0) {
+            summary("archive.html.length", "chars", "渲染后的HTML长度").record(metrics.getHtmlLength());
+        }
+        summary("archive.pdf.size", "bytes", "生成的PDF大小").record(metrics.getPdfSize());
+        Timer.builder("archive.render")
+                .description("单份档案从数据到PDF的总耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(metrics.getRenderTime(), TimeUnit.MILLISECONDS);
+        logger.debug("{}", metrics);
+    }
+
+    /**
+     * 记录PDF页数
+     */
+    public void recordPages(int pages) {
+        if (warmingUp) {
+            return;
+        }
+        summary("archive.pdf.pages", "pages", "生成的PDF页数").record(pages);
+    }
+
+    /**
+     * 记录布局行数
+     */
+    public void recordRows(int rows) {
+        if (warmingUp) {
+            return;
+        }
+        summary("archive.layout.rows", "rows", "布局模型的行数").record(rows);
+    }
+
+    private DistributionSummary summary(String name, String baseUnit, String description) {
+        return DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
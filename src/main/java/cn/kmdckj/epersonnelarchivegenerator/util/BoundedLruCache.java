@@ -0,0 +1,132 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 有界LRU缓存 - 按权重之和限制容量,超出时淘汰最久未访问的条目
+ * <p>
+ * 默认每个条目权重为1(即按条目数限制)。所有操作在同一把锁内完成;
+ * {@link #computeIfAbsent} 的加载函数在锁外执行,并发加载同一个键时可能重复计算,以先写入者为准。
+ */
+public class BoundedLruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalWeight;
+    private long hits;
+    private long misses;
+
+    /**
+     * 按条目数限制的缓存
+     */
+    public BoundedLruCache(int maxEntries) {
+        this(maxEntries, value -> 1L);
+    }
+
+    /**
+     * 按权重之和限制的缓存
+     *
+     * @param maxWeight 权重上限
+     * @param weigher   条目权重(如字节数)
+     */
+    public BoundedLruCache(long maxWeight, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        synchronized (this) {
+            V previous = entries.put(key, value);
+            if (previous != null) {
+                totalWeight -= weigher.applyAsLong(previous);
+            }
+            totalWeight += weight;
+            evict();
+        }
+    }
+
+    /**
+     * 取缓存值,不存在时加载并放入缓存(加载结果为null时不缓存)
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        V loaded = loader.apply(key);
+        if (loaded == null) {
+            return null;
+        }
+        long weight = weigher.applyAsLong(loaded);
+        synchronized (this) {
+            V existing = entries.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            entries.put(key, loaded);
+            totalWeight += weight;
+            evict();
+        }
+        return loaded;
+    }
+
+    public synchronized V remove(K key) {
+        V removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= weigher.applyAsLong(removed);
+        }
+        return removed;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /**
+     * 淘汰最久未访问的条目直到不超过上限(至少保留刚写入的一个条目)
+     */
+    private void evict() {
+        Iterator<Map.Entry<K, V>> iterator = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && entries.size() > 1 && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            totalWeight -= weigher.applyAsLong(eldest.getValue());
+            iterator.remove();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HexFormat;
+
+/**
+ * 内容摘要 - 按字段顺序累加值并计算SHA-256指纹
+ * 每个值都带类型和长度前缀,避免 ("ab","c") 与 ("a","bc") 产生相同摘要
+ */
+public final class ContentDigest {
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_BOOLEAN = 4;
+
+    private final MessageDigest digest;
+
+    private ContentDigest() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM不支持SHA-256", e);
+        }
+    }
+
+    public static ContentDigest sha256() {
+        return new ContentDigest();
+    }
+
+    public ContentDigest add(String value) {
+        if (value == null) {
+            digest.update(TAG_NULL);
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(TAG_STRING);
+        updateInt(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    public ContentDigest add(LocalDate value) {
+        return add(value != null ? value.toString() : null);
+    }
+
+    public ContentDigest add(Integer value) {
+        if (value == null) {
+            digest.update(TAG_NULL);
+            return this;
+        }
+        return add(value.longValue());
+    }
+
+    public ContentDigest add(long value) {
+        digest.update(TAG_LONG);
+        updateLong(value);
+        return this;
+    }
+
+    public ContentDigest add(double value) {
+        digest.update(TAG_DOUBLE);
+        updateLong(Double.doubleToLongBits(value));
+        return this;
+    }
+
+    public ContentDigest add(boolean value) {
+        digest.update(TAG_BOOLEAN);
+        digest.update((byte) (value ? 1 : 0));
+        return this;
+    }
+
+    public ContentDigest add(byte[] value) {
+        if (value == null) {
+            digest.update(TAG_NULL);
+            return this;
+        }
+        digest.update(TAG_STRING);
+        updateInt(value.length);
+        digest.update(value);
+        return this;
+    }
+
+    /**
+     * 完成计算并返回十六进制摘要(调用后不可再累加)
+     */
+    public String toHex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void updateInt(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+    }
+
+    private void updateLong(long value) {
+        updateInt((int) (value >>> 32));
+        updateInt((int) value);
+    }
+}
@@ -0,0 +1,42 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 计数输出流 - 统计写出的字节数(流式输出时记录PDF大小)
+ * 关闭时只刷新,不关闭下游流: PDFBox 的 save 会关闭传入的流,而下游流归调用方管理
+ */
+public final class CountingOutputStream extends FilterOutputStream {
+
+    private long count;
+
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        count += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * 已写出的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,319 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import org.unbescape.html.HtmlEscape;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * DOM构建输出流 - 将写入的HTML标记逐字符解析,一次遍历直接构建为W3C Document
+ * <p>
+ * 供编译模板({@link cn.kmdckj.epersonnelarchivegenerator.util.template.CompiledTemplate})直接输出DOM,
+ * 不生成中间HTML字符串。构建规则与 {@link DomOutputDialect} 一致: 元素使用XHTML命名空间,
+ * 忽略文档类型、注释、处理指令和 xmlns 属性,文本和属性值反转义(style/script 内的文本保持原样),
+ * 根元素外的文本丢弃,关闭标签关闭到同名元素为止。
+ * 只处理模板产生的规范标记(属性值带引号、元素显式关闭或为空元素),不做HTML解析器的隐式补全。
+ * 非线程安全,每个文档一个实例。
+ */
+public final class DomBuildingWriter extends Writer {
+
+    /**
+     * 没有关闭标签的HTML空元素
+     */
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input",
+            "link", "meta", "param", "source", "track", "wbr");
+
+    private enum State {
+        TEXT,       // 元素内容
+        TAG,        // < 与 > 之间
+        COMMENT,    // <!-- 与 --> 之间
+        CDATA,      // <![CDATA[ 与 ]]> 之间
+        RAW_TEXT    // style/script 内容,直到对应的关闭标签
+    }
+
+    private final Document document;
+    private final Deque<Node> parents = new ArrayDeque<>();
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    private State state = State.TEXT;
+    private char quote;              // 标签内当前所在的属性值引号,不在引号内时为0
+    private String rawTextEndTag;    // RAW_TEXT 状态下等待的关闭标签(小写,含 "</")
+
+    public DomBuildingWriter(Document document) {
+        this.document = document;
+        this.parents.push(document);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String text, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            accept(text.charAt(i));
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        accept((char) c);
+    }
+
+    @Override
+    public Writer append(CharSequence text) {
+        CharSequence chars = text != null ? text : "null";
+        for (int i = 0, length = chars.length(); i < length; i++) {
+            accept(chars.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * 结束输入: 输出尚未结束的文本
+     */
+    @Override
+    public void close() {
+        if (state == State.TEXT) {
+            flushText(false);
+        }
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case TEXT -> {
+                if (c == '<') {
+                    flushText(false);
+                    state = State.TAG;
+                } else {
+                    buffer.append(c);
+                }
+            }
+            case TAG -> acceptTag(c);
+            case COMMENT -> {
+                buffer.append(c);
+                if (c == '>' && endsWith("--")) {
+                    buffer.setLength(0);
+                    state = State.TEXT;
+                }
+            }
+            case CDATA -> {
+                buffer.append(c);
+                if (c == '>' && endsWith("]]")) {
+                    Node parent = parents.peek();
+                    if (parent != document) {
+                        parent.appendChild(document.createCDATASection(buffer.substring(0, buffer.length() - 3)));
+                    }
+                    buffer.setLength(0);
+                    state = State.TEXT;
+                }
+            }
+            case RAW_TEXT -> {
+                if (c == '>' && endsWithRawTextEndTag()) {
+                    buffer.setLength(buffer.lastIndexOf("</"));
+                    flushText(true);
+                    closeElement(rawTextEndTag.substring(2));
+                    state = State.TEXT;
+                } else {
+                    buffer.append(c);
+                }
+            }
+        }
+    }
+
+    private void acceptTag(char c) {
+        if (quote != 0) {
+            if (c == quote) {
+                quote = 0;
+            }
+            buffer.append(c);
+            return;
+        }
+        if (c == '>') {
+            String tag = buffer.toString();
+            buffer.setLength(0);
+            state = State.TEXT;
+            handleTag(tag);
+            return;
+        }
+        buffer.append(c);
+        if (buffer.length() == 3 && "!--".contentEquals(buffer)) {
+            buffer.setLength(0);
+            state = State.COMMENT;
+        } else if (buffer.length() == 8 && "![CDATA[".contentEquals(buffer)) {
+            buffer.setLength(0);
+            state = State.CDATA;
+        } else if ((c == '"' || c == '\'') && buffer.length() > 1 && buffer.charAt(0) != '!') {
+            quote = c;
+        }
+    }
+
+    private void handleTag(String tag) {
+        if (tag.isEmpty() || tag.charAt(0) == '!' || tag.charAt(0) == '?') {
+            return;  // 文档类型、处理指令
+        }
+        if (tag.charAt(0) == '/') {
+            closeElement(tag.substring(1).trim());
+            return;
+        }
+
+        int nameEnd = 0;
+        while (nameEnd < tag.length() && !isNameTerminator(tag.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        String name = tag.substring(0, nameEnd);
+        Element element = document.createElementNS(DomOutputDialect.XHTML_NAMESPACE, name);
+        boolean selfClosing = parseAttributes(tag, nameEnd, element);
+        appendChild(element);
+
+        if (selfClosing || VOID_ELEMENTS.contains(name.toLowerCase(Locale.ROOT))) {
+            return;
+        }
+        parents.push(element);
+        if (isRawTextElement(name)) {
+            rawTextEndTag = "</" + name.toLowerCase(Locale.ROOT);
+            state = State.RAW_TEXT;
+        }
+    }
+
+    /**
+     * 解析属性写入元素
+     *
+     * @return 标签是否以 /> 结束
+     */
+    private boolean parseAttributes(String tag, int position, Element element) {
+        int i = position;
+        int length = tag.length();
+        boolean selfClosing = false;
+        while (i < length) {
+            char c = tag.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '/') {
+                selfClosing = true;
+                i++;
+                continue;
+            }
+            selfClosing = false;
+
+            int nameStart = i;
+            while (i < length && !isNameTerminator(tag.charAt(i)) && tag.charAt(i) != '=') {
+                i++;
+            }
+            String name = tag.substring(nameStart, i);
+            while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                i++;
+            }
+
+            String value = null;
+            if (i < length && tag.charAt(i) == '=') {
+                i++;
+                while (i < length && Character.isWhitespace(tag.charAt(i))) {
+                    i++;
+                }
+                if (i < length && (tag.charAt(i) == '"' || tag.charAt(i) == '\'')) {
+                    int close = tag.indexOf(tag.charAt(i), i + 1);
+                    int valueEnd = close >= 0 ? close : length;
+                    value = tag.substring(i + 1, valueEnd);
+                    i = Math.min(valueEnd + 1, length);
+                } else {
+                    int valueStart = i;
+                    while (i < length && !Character.isWhitespace(tag.charAt(i))) {
+                        i++;
+                    }
+                    value = tag.substring(valueStart, i);
+                }
+            }
+
+            // xmlns:th 等命名空间声明不进入DOM
+            if (!name.isEmpty() && !name.startsWith("xmlns") && !element.hasAttribute(name)) {
+                element.setAttribute(name, value != null ? HtmlEscape.unescapeHtml(value) : "");
+            }
+        }
+        return selfClosing;
+    }
+
+    private void flushText(boolean raw) {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        Node parent = parents.peek();
+        if (parent != document) {
+            String content = buffer.toString();
+            parent.appendChild(document.createTextNode(raw ? content : HtmlEscape.unescapeHtml(content)));
+        }
+        buffer.setLength(0);  // 根元素外的空白直接丢弃
+    }
+
+    private void appendChild(Element element) {
+        Node parent = parents.peek();
+        if (parent == document && document.getDocumentElement() != null) {
+            return;  // 只接受一个根元素
+        }
+        parent.appendChild(element);
+    }
+
+    /**
+     * 关闭到同名元素为止,没有同名的打开元素时忽略
+     */
+    private void closeElement(String name) {
+        for (Node node : parents) {
+            if (node instanceof Element element && element.getTagName().equalsIgnoreCase(name)) {
+                Node popped;
+                do {
+                    popped = parents.pop();
+                } while (popped != element);
+                return;
+            }
+        }
+    }
+
+    private boolean endsWith(String suffix) {
+        int start = buffer.length() - suffix.length() - 1;  // 不含刚追加的 '>'
+        return start >= 0 && buffer.indexOf(suffix, start) == start;
+    }
+
+    /**
+     * 缓冲区末尾是否为 style/script 的关闭标签(不含 '>',标签名不区分大小写,允许尾随空白)
+     */
+    private boolean endsWithRawTextEndTag() {
+        int end = buffer.length();
+        while (end > 0 && Character.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        int start = end - rawTextEndTag.length();
+        if (start < 0) {
+            return false;
+        }
+        for (int i = 0; i < rawTextEndTag.length(); i++) {
+            if (Character.toLowerCase(buffer.charAt(start + i)) != rawTextEndTag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNameTerminator(char c) {
+        return Character.isWhitespace(c) || c == '/' || c == '>';
+    }
+
+    private static boolean isRawTextElement(String name) {
+        return "style".equalsIgnoreCase(name) || "script".equalsIgnoreCase(name);
+    }
+}
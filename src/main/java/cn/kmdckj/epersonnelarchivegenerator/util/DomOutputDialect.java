@@ -0,0 +1,216 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.dialect.AbstractDialect;
+import org.thymeleaf.dialect.IPostProcessorDialect;
+import org.thymeleaf.engine.AbstractTemplateHandler;
+import org.thymeleaf.model.IAttribute;
+import org.thymeleaf.model.ICDATASection;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IComment;
+import org.thymeleaf.model.IDocType;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.model.IProcessingInstruction;
+import org.thymeleaf.model.IStandaloneElementTag;
+import org.thymeleaf.model.IText;
+import org.thymeleaf.model.IXMLDeclaration;
+import org.thymeleaf.postprocessor.IPostProcessor;
+import org.thymeleaf.postprocessor.PostProcessor;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.unbescape.html.HtmlEscape;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+
+/**
+ * DOM输出方言 - 将Thymeleaf的输出事件直接构建为W3C Document
+ * <p>
+ * 模板变量 {@link #TARGET_VARIABLE} 中放入目标 Document 时,模板输出不再写成字符串,
+ * 而是在同一次处理中逐个事件追加为DOM节点,省去 HTML字符串 → Jsoup → W3C 的两次完整解析和复制。
+ * 未设置该变量的模板照常输出文本。
+ */
+@Component
+public class DomOutputDialect extends AbstractDialect implements IPostProcessorDialect {
+
+    /**
+     * 模板变量名: 目标 org.w3c.dom.Document
+     */
+    public static final String TARGET_VARIABLE = "__domOutputTarget__";
+
+    /**
+     * 输出元素使用的命名空间(与 Jsoup W3CDom 的转换结果一致)
+     */
+    public static final String XHTML_NAMESPACE = "http://www.w3.org/1999/xhtml";
+
+    public DomOutputDialect() {
+        super("DomOutput");
+    }
+
+    @Override
+    public int getDialectPostProcessorPrecedence() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public Set<IPostProcessor> getPostProcessors() {
+        return Set.of(new PostProcessor(TemplateMode.HTML, DomBuildingHandler.class, Integer.MAX_VALUE));
+    }
+
+    /**
+     * DOM构建处理器(Thymeleaf每次模板处理创建一个实例)
+     */
+    public static final class DomBuildingHandler extends AbstractTemplateHandler {
+
+        private Document document;
+        private final Deque<Node> parents = new ArrayDeque<>();
+        private int rawTextDepth;  // 位于 style/script 内部时文本不做反转义
+
+        @Override
+        public void setContext(ITemplateContext context) {
+            super.setContext(context);
+            Object target = context.getVariable(TARGET_VARIABLE);
+            if (target instanceof Document targetDocument) {
+                this.document = targetDocument;
+                this.parents.push(targetDocument);
+            }
+        }
+
+        @Override
+        public void handleOpenElement(IOpenElementTag tag) {
+            if (document == null) {
+                super.handleOpenElement(tag);
+                return;
+            }
+            Element element = createElement(tag);
+            appendChild(element);
+            parents.push(element);
+            if (isRawTextElement(element)) {
+                rawTextDepth++;
+            }
+        }
+
+        @Override
+        public void handleStandaloneElement(IStandaloneElementTag tag) {
+            if (document == null) {
+                super.handleStandaloneElement(tag);
+                return;
+            }
+            appendChild(createElement(tag));
+        }
+
+        @Override
+        public void handleCloseElement(ICloseElementTag tag) {
+            if (document == null) {
+                super.handleCloseElement(tag);
+                return;
+            }
+            if (tag.isUnmatched()) {
+                return;
+            }
+            // 关闭到同名元素为止(容忍解析器补全的隐式关闭)
+            String name = tag.getElementCompleteName();
+            for (Node node : parents) {
+                if (node instanceof Element element && element.getTagName().equalsIgnoreCase(name)) {
+                    Node popped;
+                    do {
+                        popped = parents.pop();
+                        if (popped instanceof Element poppedElement && isRawTextElement(poppedElement)) {
+                            rawTextDepth--;
+                        }
+                    } while (popped != element);
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void handleText(IText text) {
+            if (document == null) {
+                super.handleText(text);
+                return;
+            }
+            Node parent = parents.peek();
+            if (parent == null || parent == document) {
+                return;  // 根元素外的空白
+            }
+            String content = text.getText();
+            if (content.isEmpty()) {
+                return;
+            }
+            parent.appendChild(document.createTextNode(
+                    rawTextDepth > 0 ? content : HtmlEscape.unescapeHtml(content)));
+        }
+
+        @Override
+        public void handleCDATASection(ICDATASection cdataSection) {
+            if (document == null) {
+                super.handleCDATASection(cdataSection);
+                return;
+            }
+            Node parent = parents.peek();
+            if (parent != null && parent != document) {
+                parent.appendChild(document.createCDATASection(cdataSection.getContent()));
+            }
+        }
+
+        @Override
+        public void handleComment(IComment comment) {
+            if (document == null) {
+                super.handleComment(comment);
+            }
+        }
+
+        @Override
+        public void handleDocType(IDocType docType) {
+            if (document == null) {
+                super.handleDocType(docType);
+            }
+        }
+
+        @Override
+        public void handleXMLDeclaration(IXMLDeclaration xmlDeclaration) {
+            if (document == null) {
+                super.handleXMLDeclaration(xmlDeclaration);
+            }
+        }
+
+        @Override
+        public void handleProcessingInstruction(IProcessingInstruction processingInstruction) {
+            if (document == null) {
+                super.handleProcessingInstruction(processingInstruction);
+            }
+        }
+
+        private Element createElement(IProcessableElementTag tag) {
+            Element element = document.createElementNS(XHTML_NAMESPACE, tag.getElementCompleteName());
+            for (IAttribute attribute : tag.getAllAttributes()) {
+                String name = attribute.getAttributeCompleteName();
+                if (name.startsWith("xmlns")) {
+                    continue;  // xmlns:th 等命名空间声明不进入DOM
+                }
+                String value = attribute.getValue();
+                element.setAttribute(name, value != null ? HtmlEscape.unescapeHtml(value) : "");
+            }
+            return element;
+        }
+
+        private void appendChild(Element element) {
+            Node parent = parents.peek();
+            if (parent == document && document.getDocumentElement() != null) {
+                return;  // 只接受一个根元素
+            }
+            parent.appendChild(element);
+        }
+
+        private static boolean isRawTextElement(Element element) {
+            String name = element.getTagName();
+            return "style".equalsIgnoreCase(name) || "script".equalsIgnoreCase(name);
+        }
+    }
+}
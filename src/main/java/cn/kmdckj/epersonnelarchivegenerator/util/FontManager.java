@@ -1,20 +1,27 @@
 package cn.kmdckj.epersonnelarchivegenerator.util;
 
 import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import jakarta.annotation.PreDestroy;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeCollection;
+import org.apache.fontbox.ttf.TrueTypeFont;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 /**
- * 字体管理器 - 管理PDF渲染所需的字体文件
+ * 字体管理器 - 管理PDF渲染所需的字体
+ * <p>
+ * 字体文件在启动时读入内存并只解析一次,解析后的 {@link TrueTypeFont} 由所有渲染共用,
+ * 每次渲染只需基于它创建文档内的字体对象,不再重新打开和解析字体文件。
+ * fontbox 对表数据的读取是同步的,启动时预先读取全部常用表,之后多线程并发读取是安全的。
  */
 @Component
 public class FontManager {
@@ -22,7 +29,11 @@ public class FontManager {
     private static final Logger logger = LoggerFactory.getLogger(FontManager.class);
 
     private final PdfConfig pdfConfig;
-    private String fontFilePath;
+    private String fontSource;                  // 字体来源(classpath路径或系统字体路径)
+    private TrueTypeCollection fontCollection;  // TTC字体集合(保持打开,共享字体的数据来自它)
+    private TrueTypeFont sharedFont;
+    private long loadTimeMillis;
+    private long fontSizeBytes;
 
     public FontManager(PdfConfig pdfConfig) {
         this.pdfConfig = pdfConfig;
@@ -30,33 +41,98 @@ public class FontManager {
     }
 
     /**
-     * 初始化字体
+     * 初始化字体: 读取并解析字体,记录加载耗时
      */
     private void initializeFont() {
+        long startTime = System.nanoTime();
         try {
-            // 尝试从classpath加载字体
-            ClassPathResource fontResource = new ClassPathResource(pdfConfig.getFontPath());
-
-            if (fontResource.exists()) {
-                // 字体文件存在,复制到临时目录
-                Path tempFontFile = Files.createTempFile("pdf-font-", ".ttc");
-                try (InputStream is = fontResource.getInputStream()) {
-                    Files.copy(is, tempFontFile, StandardCopyOption.REPLACE_EXISTING);
-                }
-                this.fontFilePath = tempFontFile.toAbsolutePath().toString();
-                logger.info("字体文件已加载: {}", fontFilePath);
-            } else {
-                // 字体文件不存在,使用系统默认字体
-                logger.warn("字体文件不存在: {}, 将使用系统默认字体", pdfConfig.getFontPath());
-                this.fontFilePath = findSystemFont();
+            byte[] fontData = readFontData();
+            if (fontData == null) {
+                return;
             }
 
+            this.sharedFont = parseFont(fontData);
+            preloadTables(sharedFont);
+            this.loadTimeMillis = (System.nanoTime() - startTime) / 1_000_000;
+            this.fontSizeBytes = fontData.length;
+            logger.info("字体已加载: {}, 字体名称: {}, 文件大小: {} KB, 字形数: {}, 加载耗时: {} ms",
+                    fontSource, sharedFont.getName(), fontData.length / 1024,
+                    sharedFont.getNumberOfGlyphs(), loadTimeMillis);
+
         } catch (IOException e) {
-            logger.error("加载字体文件失败", e);
-            this.fontFilePath = null;
+            logger.error("加载字体文件失败: {}", fontSource, e);
+            closeCollection();
+            this.sharedFont = null;
         }
     }
 
+    /**
+     * 读取字体文件内容: 优先classpath,其次系统字体
+     */
+    private byte[] readFontData() throws IOException {
+        // 尝试从classpath加载字体
+        ClassPathResource fontResource = new ClassPathResource(pdfConfig.getFontPath());
+        if (fontResource.exists()) {
+            this.fontSource = "classpath:" + pdfConfig.getFontPath();
+            try (InputStream is = fontResource.getInputStream()) {
+                return is.readAllBytes();
+            }
+        }
+
+        // 字体文件不存在,使用系统默认字体
+        logger.warn("字体文件不存在: {}, 将使用系统默认字体", pdfConfig.getFontPath());
+        String systemFont = findSystemFont();
+        if (systemFont == null) {
+            return null;
+        }
+        this.fontSource = systemFont;
+        return Files.readAllBytes(new File(systemFont).toPath());
+    }
+
+    /**
+     * 解析字体: TTC字体集合按字体族名称选取,找不到时取第一个字体
+     */
+    private TrueTypeFont parseFont(byte[] fontData) throws IOException {
+        if (!fontSource.toLowerCase().endsWith(".ttc")) {
+            return new TTFParser().parse(new ByteArrayInputStream(fontData));
+        }
+
+        this.fontCollection = new TrueTypeCollection(new ByteArrayInputStream(fontData));
+        TrueTypeFont ttf = fontCollection.getFontByName(pdfConfig.getFontFamily());
+        if (ttf == null) {
+            TrueTypeFont[] first = new TrueTypeFont[1];
+            fontCollection.processAllFonts(candidate -> {
+                if (first[0] == null) {
+                    first[0] = candidate;
+                }
+            });
+            ttf = first[0];
+            logger.warn("字体集合中未找到 {}, 使用第一个字体: {}", pdfConfig.getFontFamily(),
+                    ttf != null ? ttf.getName() : null);
+        }
+        if (ttf == null) {
+            throw new IOException("字体集合中没有可用字体");
+        }
+        return ttf;
+    }
+
+    /**
+     * 预先读取渲染和子集嵌入需要的表,避免首次渲染时在锁上排队解析
+     */
+    private void preloadTables(TrueTypeFont ttf) throws IOException {
+        ttf.getHeader();
+        ttf.getHorizontalHeader();
+        ttf.getMaximumProfile();
+        ttf.getHorizontalMetrics();
+        ttf.getNaming();
+        ttf.getPostScript();
+        ttf.getOS2Windows();
+        ttf.getIndexToLocation();
+        ttf.getGlyph();
+        ttf.getCmap();
+        ttf.getUnicodeCmapLookup();
+    }
+
     /**
      * 查找系统字体
      */
@@ -108,10 +184,18 @@ public class FontManager {
     }
 
     /**
-     * 获取字体文件路径
+     * 获取共享的已解析字体(字体不可用时为null)
+     * 调用方不得关闭该字体
+     */
+    public TrueTypeFont getSharedFont() {
+        return sharedFont;
+    }
+
+    /**
+     * 获取字体来源
      */
-    public String getFontFilePath() {
-        return fontFilePath;
+    public String getFontSource() {
+        return fontSource;
     }
 
     /**
@@ -121,10 +205,40 @@ public class FontManager {
         return pdfConfig.getFontFamily();
     }
 
+    /**
+     * 获取启动时读取和解析字体的耗时(毫秒)
+     */
+    public long getLoadTimeMillis() {
+        return loadTimeMillis;
+    }
+
+    /**
+     * 获取字体文件大小(字节),字体不可用时为0
+     */
+    public long getFontSizeBytes() {
+        return fontSizeBytes;
+    }
+
     /**
      * 检查字体是否可用
      */
     public boolean isFontAvailable() {
-        return fontFilePath != null && new File(fontFilePath).exists();
+        return sharedFont != null;
+    }
+
+    @PreDestroy
+    public void close() {
+        closeCollection();
+    }
+
+    private void closeCollection() {
+        if (fontCollection != null) {
+            try {
+                fontCollection.close();
+            } catch (IOException e) {
+                logger.debug("关闭字体集合失败", e);
+            }
+            fontCollection = null;
+        }
     }
 }
@@ -0,0 +1,580 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.RowMetrics;
+import cn.kmdckj.epersonnelarchivegenerator.engine.TextMeasurer;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutZone;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.PaginatedLayout;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.ZoneMetadata;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 原生PDF渲染器 - 直接将布局模型绘制到PDFBox内容流
+ * 跳过 Thymeleaf → HTML → DOM → openhtmltopdf 的整条链路,
+ * 表格线、标题栏、照片单元格和分页效果与 archive.html 的样式保持一致
+ */
+@Component
+public class NativePdfRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NativePdfRenderer.class);
+
+    private static final float MM = RowMetrics.MM;  // 1mm对应的pt
+
+    // 样式常量(与archive.html中的CSS对应,与分页计算共用 RowMetrics 中的定义)
+    private static final float BODY_FONT_SIZE = RowMetrics.BODY_FONT_SIZE;
+    private static final float TITLE_FONT_SIZE = RowMetrics.TITLE_FONT_SIZE;
+    private static final float LINE_HEIGHT = RowMetrics.LINE_HEIGHT;
+    private static final float CELL_PADDING_V = RowMetrics.CELL_PADDING_V;
+    private static final float CELL_PADDING_H = RowMetrics.CELL_PADDING_H;
+    private static final float TITLE_PADDING_V = RowMetrics.TITLE_PADDING_V;
+    private static final float TITLE_MARGIN_TOP = RowMetrics.TITLE_MARGIN_TOP;
+    private static final float TABLE_MARGIN_BOTTOM = RowMetrics.HEADER_MARGIN_BOTTOM;
+    private static final float BORDER_WIDTH = 0.75f;           // 1px
+    private static final float[] LABEL_BACKGROUND = {0.96f, 0.96f, 0.96f};  // #f5f5f5
+    private static final float[] TITLE_BACKGROUND = {0.88f, 0.88f, 0.88f};  // #e0e0e0
+    private static final float[] PHOTO_BORDER = {0.4f, 0.4f, 0.4f};         // #666
+
+    private final LayoutConfig layoutConfig;
+    private final FontManager fontManager;
+    private final TextMeasurer textMeasurer;
+    private final RowMetrics rowMetrics;
+
+    public NativePdfRenderer(LayoutConfig layoutConfig, FontManager fontManager,
+                             TextMeasurer textMeasurer, RowMetrics rowMetrics) {
+        this.layoutConfig = layoutConfig;
+        this.fontManager = fontManager;
+        this.textMeasurer = textMeasurer;
+        this.rowMetrics = rowMetrics;
+    }
+
+    /**
+     * 将布局模型渲染为PDF并写入输出流
+     *
+     * @param model        已完成分页优化的布局模型
+     * @param outputStream 输出流
+     * @return PDF页数
+     */
+    public int render(LayoutModel model, OutputStream outputStream) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDFont font = loadFont(document);
+            drawArchive(document, font, PaginatedLayout.of(model));
+            document.save(outputStream);
+            return document.getNumberOfPages();
+        }
+    }
+
+    /**
+     * 在文档末尾绘制一份完整档案(从新页开始)
+     *
+     * @param document 目标文档
+     * @param font     正文字体
+     * @param layout   分页优化后展开的扁平布局
+     * @return 档案的第一页
+     */
+    public PDPage drawArchive(PDDocument document, PDFont font, PaginatedLayout layout) throws IOException {
+        try (Canvas canvas = new Canvas(document, font)) {
+            canvas.newPage();
+            PDPage firstPage = canvas.page;
+
+            for (int zone = 0; zone < layout.zoneCount(); zone++) {
+                if (layout.zoneType(zone) == LayoutZone.ZoneType.BASIC_INFO_WITH_PHOTO) {
+                    drawHeaderZone(canvas, layout, zone);
+                } else if (layout.zoneType(zone) == LayoutZone.ZoneType.BODY_CONTENT) {
+                    drawBodyZone(canvas, layout, zone);
+                }
+            }
+            return firstPage;
+        }
+    }
+
+    /**
+     * 加载正文字体: 基于共享的已解析字体创建文档字体,不可用时退回Helvetica
+     * 同一文档中绘制多份档案时应只加载一次,所有档案共用一个字体子集
+     *
+     * @param document 目标文档
+     * @return 正文字体
+     */
+    public PDFont loadFont(PDDocument document) throws IOException {
+        if (!fontManager.isFontAvailable()) {
+            logger.warn("字体不可用,中文可能无法正常显示");
+            return PDType1Font.HELVETICA;
+        }
+        return PDType0Font.load(document, fontManager.getSharedFont(), true);
+    }
+
+    /**
+     * 将字体无法编码的字符替换为 '?'
+     * 回退字体(Helvetica)只能编码WinAnsi字符,直接绘制中文会抛出 IllegalArgumentException;
+     * 文本测量按同一回退字体替换过缺失字形,这里保证绘制时的字体与之不一致时也不会失败
+     *
+     * @param font 绘制字体
+     * @param text 文本
+     * @return 可以用该字体绘制的文本
+     */
+    static String encodable(PDFont font, String text) {
+        if (canEncode(font, text)) {
+            return text;
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        text.codePoints().forEach(cp -> {
+            String character = new String(Character.toChars(cp));
+            result.append(canEncode(font, character) ? character : "?");
+        });
+        return result.toString();
+    }
+
+    private static boolean canEncode(PDFont font, String text) {
+        try {
+            font.encode(text);
+            return true;
+        } catch (IllegalArgumentException | IOException e) {
+            return false;
+        }
+    }
+
+    // ==================== 基础信息区 ====================
+
+    /**
+     * 绘制基础信息区: 左侧字段行与正文数据行相同(排在文本区宽度内),右侧照片格与字段行等高
+     */
+    private void drawHeaderZone(Canvas canvas, PaginatedLayout layout, int zone) throws IOException {
+        int[] rows = new int[layout.zoneRowEnd(zone) - layout.zoneRowStart(zone)];
+        int rowCount = 0;
+        for (int row = layout.zoneRowStart(zone); row < layout.zoneRowEnd(zone); row++) {
+            if (!layout.isPageBreak(row) && layout.hasFields(row)) {
+                rows[rowCount++] = row;
+            }
+        }
+        if (rowCount == 0) {
+            return;
+        }
+
+        Object metadata = layout.zoneMetadata(zone);
+        boolean hasPhoto = metadata instanceof ZoneMetadata.PhotoMetadata;
+        float textWidth = rowMetrics.headerTableWidth(hasPhoto);
+
+        // 计算每行的单元格和高度
+        List<List<Cell>> rowCells = new ArrayList<>(rowCount);
+        float[] heights = new float[rowCount];
+        float totalHeight = 0f;
+        for (int i = 0; i < rowCount; i++) {
+            List<Cell> cells = layoutListCells(canvas, layout, rows[i], textWidth);
+            rowCells.add(cells);
+            heights[i] = rowHeight(cells);
+            totalHeight += heights[i];
+        }
+
+        // 照片格高度不足时拉伸最后一行
+        float photoCellHeight = (float) rowMetrics.photoCellHeight() * MM;
+        if (hasPhoto && totalHeight < photoCellHeight) {
+            float extra = photoCellHeight - totalHeight;
+            heights[heights.length - 1] += extra;
+            totalHeight += extra;
+        }
+
+        if (totalHeight > canvas.remaining() && canvas.pageHasContent) {
+            canvas.newPage();
+        }
+
+        float top = canvas.cursorY;
+        for (int i = 0; i < rowCells.size(); i++) {
+            drawCells(canvas, rowCells.get(i), canvas.cursorY, heights[i]);
+            canvas.advance(heights[i]);
+        }
+
+        if (hasPhoto) {
+            drawPhotoCell(canvas, (ZoneMetadata.PhotoMetadata) metadata,
+                    canvas.marginLeft + textWidth, top, canvas.contentWidth - textWidth, totalHeight);
+        }
+
+        canvas.advance(Math.min(TABLE_MARGIN_BOTTOM, canvas.remaining()));
+    }
+
+    private void drawPhotoCell(Canvas canvas, ZoneMetadata.PhotoMetadata photo,
+                               float x, float top, float width, float height) throws IOException {
+        PDPageContentStream stream = canvas.stream;
+        PDImageXObject image;
+        try {
+            byte[] data = photo.getImageData() != null
+                    ? photo.getImageData()
+                    : Base64.getDecoder().decode(photo.getPhotoBase64());
+            image = PDImageXObject.createFromByteArray(canvas.document, data, "photo");
+        } catch (IllegalArgumentException | IOException e) {
+            logger.warn("照片解码失败,跳过照片绘制: {}", e.getMessage());
+            return;
+        }
+
+        // 照片框: 35mm × 45mm,在单元格内居中,图片按比例裁剪填充(object-fit: cover)
+        float boxWidth = Math.min((float) photo.getWidthMm() * MM, width - 2 * CELL_PADDING_V);
+        float boxHeight = Math.min((float) photo.getHeightMm() * MM, height - 2 * CELL_PADDING_V);
+        float boxX = x + (width - boxWidth) / 2;
+        float boxY = top - height + (height - boxHeight) / 2;
+
+        float scale = Math.max(boxWidth / image.getWidth(), boxHeight / image.getHeight());
+        float imageWidth = image.getWidth() * scale;
+        float imageHeight = image.getHeight() * scale;
+
+        stream.saveGraphicsState();
+        stream.addRect(boxX, boxY, boxWidth, boxHeight);
+        stream.clip();
+        stream.drawImage(image, boxX + (boxWidth - imageWidth) / 2, boxY + (boxHeight - imageHeight) / 2,
+                imageWidth, imageHeight);
+        stream.restoreGraphicsState();
+
+        stream.setLineWidth(BORDER_WIDTH);
+        stream.setStrokingColor(PHOTO_BORDER[0], PHOTO_BORDER[1], PHOTO_BORDER[2]);
+        stream.addRect(boxX, boxY, boxWidth, boxHeight);
+        stream.stroke();
+        stream.setStrokingColor(0f, 0f, 0f);
+    }
+
+    // ==================== 正文内容区 ====================
+
+    /**
+     * 绘制正文内容区: 分页符、分区标题和数据行
+     */
+    private void drawBodyZone(Canvas canvas, PaginatedLayout layout, int zone) throws IOException {
+        for (int row = layout.zoneRowStart(zone); row < layout.zoneRowEnd(zone); row++) {
+            if (layout.isPageBreak(row)) {
+                if (canvas.pageHasContent) {
+                    canvas.newPage();
+                }
+            } else if (layout.isSectionTitle(row)) {
+                drawSectionTitle(canvas, layout.field(row, 0).getLabel());
+            } else if (layout.hasFields(row)) {
+                drawDataRow(canvas, layout, row, canvas.contentWidth);
+            }
+            // 分隔行在模板中渲染为空表格,不占可见高度
+        }
+    }
+
+    private void drawSectionTitle(Canvas canvas, String title) throws IOException {
+        float lineHeight = TITLE_FONT_SIZE * LINE_HEIGHT;
+        float height = lineHeight + 2 * TITLE_PADDING_V;
+        float marginTop = canvas.pageHasContent ? TITLE_MARGIN_TOP : 0f;
+
+        // 标题不单独留在页尾: 至少为标题后的一行数据预留空间
+        float reserve = BODY_FONT_SIZE * LINE_HEIGHT + 2 * CELL_PADDING_V;
+        if (canvas.pageHasContent && marginTop + height + reserve > canvas.remaining()) {
+            canvas.newPage();
+            marginTop = 0f;
+        }
+        canvas.advance(marginTop);
+
+        PDPageContentStream stream = canvas.stream;
+        float x = canvas.marginLeft;
+        float width = canvas.contentWidth;
+        float bottom = canvas.cursorY - height;
+
+        stream.setNonStrokingColor(TITLE_BACKGROUND[0], TITLE_BACKGROUND[1], TITLE_BACKGROUND[2]);
+        stream.addRect(x, bottom, width, height);
+        stream.fill();
+        stream.setNonStrokingColor(0f, 0f, 0f);
+        stream.setLineWidth(BORDER_WIDTH);
+        stream.addRect(x, bottom, width, height);
+        stream.stroke();
+
+        String text = canvas.sanitize(title);
+        float textWidth = canvas.textWidth(text, TITLE_FONT_SIZE);
+        canvas.showText(text, TITLE_FONT_SIZE, x + (width - textWidth) / 2,
+                bottom + TITLE_PADDING_V + baselineOffset(TITLE_FONT_SIZE));
+
+        canvas.advance(height);
+    }
+
+    /**
+     * 绘制数据行: 每个字段一对"标签|值"单元格,超出页面时按文本行拆分到后续页
+     */
+    private void drawDataRow(Canvas canvas, PaginatedLayout layout, int row, float tableWidth) throws IOException {
+        List<Cell> cells = layoutListCells(canvas, layout, row, tableWidth);
+        float lineHeight = BODY_FONT_SIZE * LINE_HEIGHT;
+        int totalLines = 0;
+        for (Cell cell : cells) {
+            totalLines = Math.max(totalLines, cell.lines.size());
+        }
+
+        int offset = 0;
+        while (true) {
+            int remainingLines = totalLines - offset;
+            float height = remainingLines * lineHeight + 2 * CELL_PADDING_V;
+            if (height <= canvas.remaining()) {
+                drawCellSlice(canvas, cells, offset, remainingLines, height);
+                return;
+            }
+
+            // 新页面能完整放下时整行移到下一页,否则(超长文本)按文本行拆分
+            int fitLines = (int) ((canvas.remaining() - 2 * CELL_PADDING_V) / lineHeight);
+            if (canvas.pageHasContent && (height <= canvas.contentHeight || fitLines < 1)) {
+                canvas.newPage();
+                continue;
+            }
+            fitLines = Math.max(1, fitLines);
+            drawCellSlice(canvas, cells, offset, fitLines, fitLines * lineHeight + 2 * CELL_PADDING_V);
+            offset += fitLines;
+            canvas.newPage();
+        }
+    }
+
+    private void drawCellSlice(Canvas canvas, List<Cell> cells, int offset, int lineCount, float height)
+            throws IOException {
+        List<Cell> slice = new ArrayList<>(cells.size());
+        for (Cell cell : cells) {
+            int from = Math.min(offset, cell.lines.size());
+            int to = Math.min(offset + lineCount, cell.lines.size());
+            slice.add(cell.withLines(cell.lines.subList(from, to)));
+        }
+        drawCells(canvas, slice, canvas.cursorY, height);
+        canvas.advance(height);
+    }
+
+    private List<Cell> layoutListCells(Canvas canvas, PaginatedLayout layout, int row, float tableWidth) {
+        int fieldCount = layout.fieldCount(row);
+        List<Cell> cells = new ArrayList<>(2 * fieldCount);
+        double usedWidth = layout.usedWidth(row);
+
+        float x = canvas.marginLeft;
+        for (int i = 0; i < fieldCount; i++) {
+            LayoutField field = layout.field(row, i);
+            float fieldWidth = rowMetrics.fieldWidth(fieldCount, i, field, tableWidth, usedWidth, x - canvas.marginLeft);
+            float labelWidth = rowMetrics.labelWidth(tableWidth, fieldWidth);
+            cells.add(canvas.cell(x, labelWidth, field.getLabel(), true, BODY_FONT_SIZE));
+            cells.add(canvas.cell(x + labelWidth, fieldWidth - labelWidth, field.getValue(), false, BODY_FONT_SIZE));
+            x += fieldWidth;
+        }
+        return cells;
+    }
+
+    // ==================== 单元格绘制 ====================
+
+    private float rowHeight(List<Cell> cells) {
+        int lines = 1;
+        for (Cell cell : cells) {
+            lines = Math.max(lines, cell.lines.size());
+        }
+        return lines * BODY_FONT_SIZE * LINE_HEIGHT + 2 * CELL_PADDING_V;
+    }
+
+    private void drawCells(Canvas canvas, List<Cell> cells, float top, float height) throws IOException {
+        PDPageContentStream stream = canvas.stream;
+        float bottom = top - height;
+
+        // 1. 标签单元格背景(没有标签单元格时不填充空路径)
+        boolean hasLabel = false;
+        stream.setNonStrokingColor(LABEL_BACKGROUND[0], LABEL_BACKGROUND[1], LABEL_BACKGROUND[2]);
+        for (Cell cell : cells) {
+            if (cell.label) {
+                stream.addRect(cell.x, bottom, cell.width, height);
+                hasLabel = true;
+            }
+        }
+        if (hasLabel) {
+            stream.fill();
+        }
+        stream.setNonStrokingColor(0f, 0f, 0f);
+
+        // 2. 表格线
+        stream.setLineWidth(BORDER_WIDTH);
+        for (Cell cell : cells) {
+            stream.addRect(cell.x, bottom, cell.width, height);
+        }
+        stream.stroke();
+
+        // 3. 文本(垂直居中; 标签右对齐,值左对齐)
+        float lineHeight = BODY_FONT_SIZE * LINE_HEIGHT;
+        for (Cell cell : cells) {
+            float blockHeight = cell.lines.size() * lineHeight;
+            float lineTop = top - (height - blockHeight) / 2;
+            for (String line : cell.lines) {
+                float baseline = lineTop - lineHeight + baselineOffset(BODY_FONT_SIZE);
+                float textX = cell.label
+                        ? cell.x + cell.width - CELL_PADDING_H - canvas.textWidth(line, BODY_FONT_SIZE)
+                        : cell.x + CELL_PADDING_H;
+                canvas.showText(line, BODY_FONT_SIZE, textX, baseline);
+                lineTop -= lineHeight;
+            }
+        }
+    }
+
+    /**
+     * 行框内基线位置: 半行距 + 下行高度(近似为字号的0.2倍)
+     */
+    private float baselineOffset(float fontSize) {
+        return (fontSize * LINE_HEIGHT - fontSize) / 2 + fontSize * 0.2f;
+    }
+
+    /**
+     * 单元格: 位置、宽度和已折行的文本
+     */
+    private static final class Cell {
+        final float x;
+        final float width;
+        final boolean label;
+        final List<String> lines;
+
+        Cell(float x, float width, boolean label, List<String> lines) {
+            this.x = x;
+            this.width = width;
+            this.label = label;
+            this.lines = lines;
+        }
+
+        Cell withLines(List<String> newLines) {
+            return new Cell(x, width, label, newLines);
+        }
+    }
+
+    /**
+     * 绘制画布 - 维护当前页、内容流和纵向游标
+     */
+    private final class Canvas implements Closeable {
+        final PDDocument document;
+        final PDFont font;
+        final boolean fallbackFont;  // 未嵌入中文字体,使用标准14字体
+        final float pageWidth;
+        final float pageHeight;
+        final float marginLeft;
+        final float marginTop;
+        final float marginBottom;
+        final float contentWidth;
+        final float contentHeight;
+
+        PDPage page;
+        PDPageContentStream stream;
+        float cursorY;
+        boolean pageHasContent;
+
+        Canvas(PDDocument document, PDFont font) {
+            LayoutConfig.PageConfig pageConfig = layoutConfig.getPage();
+            this.document = document;
+            this.font = font;
+            this.fallbackFont = !(font instanceof PDType0Font);
+            this.pageWidth = (float) pageConfig.getWidth() * MM;
+            this.pageHeight = (float) pageConfig.getHeight() * MM;
+            this.marginLeft = (float) pageConfig.getMarginLeft() * MM;
+            this.marginTop = (float) pageConfig.getMarginTop() * MM;
+            this.marginBottom = (float) pageConfig.getMarginBottom() * MM;
+            this.contentWidth = pageWidth - marginLeft - (float) pageConfig.getMarginRight() * MM;
+            this.contentHeight = pageHeight - marginTop - marginBottom;
+        }
+
+        void newPage() throws IOException {
+            if (stream != null) {
+                stream.close();
+            }
+            page = new PDPage(new PDRectangle(pageWidth, pageHeight));
+            document.addPage(page);
+            stream = new PDPageContentStream(document, page);
+            cursorY = pageHeight - marginTop;
+            pageHasContent = false;
+        }
+
+        float remaining() {
+            return cursorY - marginBottom;
+        }
+
+        void advance(float height) {
+            cursorY -= height;
+            pageHasContent = true;
+        }
+
+        Cell cell(float x, float width, String text, boolean label, float fontSize) {
+            float available = rowMetrics.textWidth(width);
+            return new Cell(x, width, label, wrap(text, available, fontSize));
+        }
+
+        /**
+         * 按字符折行(中文逐字可断,与CSS word-wrap: break-word 的效果相近)
+         */
+        List<String> wrap(String text, float maxWidth, float fontSize) {
+            List<String> lines = new ArrayList<>();
+            if (text == null || text.isEmpty()) {
+                lines.add("");
+                return lines;
+            }
+
+            // 与 TextMeasurer.countLines 相同的整数单位比较,保证折行结果与分页计算一致
+            float limit = maxWidth * 1000f / fontSize;
+            StringBuilder line = new StringBuilder();
+            int lineWidth = 0;
+            int i = 0;
+            while (i < text.length()) {
+                int codePoint = text.codePointAt(i);
+                i += Character.charCount(codePoint);
+
+                if (codePoint == '\n') {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    lineWidth = 0;
+                    continue;
+                }
+
+                int width = textMeasurer.advance(codePoint);
+                if (width < 0) {
+                    codePoint = '?';  // 字体中没有该字形
+                    width = Math.max(0, textMeasurer.advance('?'));
+                }
+                if (lineWidth + width > limit && line.length() > 0) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    lineWidth = 0;
+                }
+                line.appendCodePoint(codePoint);
+                lineWidth += width;
+            }
+            lines.add(line.toString());
+            return lines;
+        }
+
+        String sanitize(String text) {
+            if (text == null) {
+                return "";
+            }
+            StringBuilder result = new StringBuilder(text.length());
+            text.codePoints().forEach(cp -> result.appendCodePoint(textMeasurer.canDisplay(cp) ? cp : '?'));
+            return result.toString();
+        }
+
+        float textWidth(String text, float fontSize) {
+            return textMeasurer.textWidth(text, fontSize);
+        }
+
+        void showText(String text, float fontSize, float x, float y) throws IOException {
+            if (text.isEmpty()) {
+                return;
+            }
+            String encodable = fallbackFont ? encodable(font, text) : text;
+            stream.beginText();
+            stream.setFont(font, fontSize);
+            stream.newLineAtOffset(x, y);
+            stream.showText(encodable);
+            stream.endText();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (stream != null) {
+                stream.close();
+                stream = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PDF缓冲区池 - 必须得到 byte[] 的场景(批量导出、校验等)复用输出缓冲区
+ * <p>
+ * 新缓冲区按最近生成的PDF大小预分配,避免 ByteArrayOutputStream 反复扩容复制;
+ * 用完的缓冲区归还到池中,池按保留的总字节数限制(单个缓冲区和总量都有上限),超出时直接丢弃,不长期占用堆。
+ * 用法: {@code try (PdfBufferPool.Buffer buffer = pool.acquire()) { ...; return buffer.toByteArray(); }}
+ */
+@Component
+public class PdfBufferPool {
+
+    private static final int MIN_CAPACITY = 16 * 1024;                 // 最小预分配16KB
+    private static final int MAX_RETAINED_CAPACITY = 4 * 1024 * 1024;  // 超过4MB的缓冲区不回收
+    static final long MAX_RETAINED_BYTES = 16L * 1024 * 1024;          // 池中缓冲区合计最多保留16MB
+
+    private final ConcurrentLinkedQueue<Buffer> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private volatile int sizeHint = MIN_CAPACITY;
+
+    /**
+     * 获取缓冲区(关闭时自动归还)
+     */
+    public Buffer acquire() {
+        Buffer buffer = pool.poll();
+        if (buffer != null) {
+            retainedBytes.addAndGet(-buffer.retained);
+            buffer.ensureCapacity(sizeHint);
+            return buffer;
+        }
+        return new Buffer(this, sizeHint);
+    }
+
+    /**
+     * 当前的预分配大小(字节)
+     */
+    public int getSizeHint() {
+        return sizeHint;
+    }
+
+    /**
+     * 池中缓冲区当前合计保留的字节数
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    private void release(Buffer buffer) {
+        // 预分配大小取最近大小的滑动平均,并留出25%余量
+        int size = buffer.size();
+        int hint = sizeHint;
+        sizeHint = Math.max(MIN_CAPACITY, Math.min(MAX_RETAINED_CAPACITY, (hint * 3 + size + size / 4) / 4));
+
+        int capacity = buffer.capacity();
+        if (capacity > MAX_RETAINED_CAPACITY) {
+            return;
+        }
+        if (retainedBytes.addAndGet(capacity) > MAX_RETAINED_BYTES) {
+            retainedBytes.addAndGet(-capacity);
+            return;
+        }
+        buffer.retained = capacity;
+        buffer.reset();
+        pool.offer(buffer);
+    }
+
+    /**
+     * 可归还的输出缓冲区
+     */
+    public static final class Buffer extends ByteArrayOutputStream {
+
+        private final PdfBufferPool owner;
+        private boolean released;
+        private int retained;  // 归还到池中时计入保留总量的字节数
+
+        private Buffer(PdfBufferPool owner, int capacity) {
+            super(capacity);
+            this.owner = owner;
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (buf.length < capacity) {
+                buf = new byte[capacity];
+            }
+            released = false;
+        }
+
+        /**
+         * 归还到池中,之后不得再使用
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                owner.release(this);
+            }
+        }
+    }
+}
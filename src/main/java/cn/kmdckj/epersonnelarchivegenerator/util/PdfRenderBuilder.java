@@ -1,19 +1,30 @@
 package cn.kmdckj.epersonnelarchivegenerator.util;
 
 import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import com.openhtmltopdf.extend.FSCacheEx;
+import com.openhtmltopdf.extend.FSCacheValue;
 import com.openhtmltopdf.outputdevice.helper.BaseRendererBuilder;
+import com.openhtmltopdf.pdfboxout.PDFontSupplier;
+import com.openhtmltopdf.pdfboxout.PdfBoxRenderer;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
 import org.jsoup.Jsoup;
 import org.jsoup.helper.W3CDom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * PDF渲染构建器 - 配置和创建PDF渲染器
+ * 字体基于 {@link FontManager} 中共享的已解析字体创建,字体度量在所有渲染间共享
  */
 @Component
 public class PdfRenderBuilder {
@@ -22,6 +33,7 @@ public class PdfRenderBuilder {
 
     private final PdfConfig pdfConfig;
     private final FontManager fontManager;
+    private final FSCacheEx<String, FSCacheValue> fontMetricsCache = new SharedCache();
 
     public PdfRenderBuilder(PdfConfig pdfConfig, FontManager fontManager) {
         this.pdfConfig = pdfConfig;
@@ -35,38 +47,113 @@ public class PdfRenderBuilder {
      * @param outputStream 输出流
      * @return 配置好的PdfRendererBuilder
      */
-    public PdfRendererBuilder createRenderer(String html, ByteArrayOutputStream outputStream) {
+    public PdfRendererBuilder createRenderer(String html, OutputStream outputStream) {
+        return createRenderer(toW3cDocument(html), outputStream);
+    }
+
+    /**
+     * 使用JSoup解析HTML并转换为W3C Document
+     *
+     * @param html HTML字符串
+     * @return W3C Document
+     */
+    public org.w3c.dom.Document toW3cDocument(String html) {
+        org.jsoup.nodes.Document jsoupDoc = Jsoup.parse(html);
+        jsoupDoc.outputSettings().syntax(org.jsoup.nodes.Document.OutputSettings.Syntax.xml);
+
+        W3CDom w3cDom = new W3CDom();
+        return w3cDom.fromJsoup(jsoupDoc);
+    }
+
+    /**
+     * 使用已构建好的W3C Document创建PDF渲染器
+     *
+     * @param doc          W3C Document
+     * @param outputStream 输出流
+     * @return 配置好的PdfRendererBuilder
+     */
+    public PdfRendererBuilder createRenderer(org.w3c.dom.Document doc, OutputStream outputStream) {
+        PDDocument document = new PDDocument();
         try {
-            // 使用JSoup解析HTML并转换为W3C Document
-            org.jsoup.nodes.Document jsoupDoc = Jsoup.parse(html);
-            jsoupDoc.outputSettings().syntax(org.jsoup.nodes.Document.OutputSettings.Syntax.xml);
+            return configure(doc, outputStream, document, null);
+        } catch (RuntimeException e) {
+            closeQuietly(document);
+            throw e;
+        }
+    }
 
-            W3CDom w3cDom = new W3CDom();
-            org.w3c.dom.Document doc = w3cDom.fromJsoup(jsoupDoc);
+    /**
+     * 将W3C Document渲染为PDF并写入输出流
+     * 与 createRenderer(...).run() 的输出相同,但在保存前读取页数
+     *
+     * @param doc          W3C Document
+     * @param outputStream 输出流
+     * @return PDF页数
+     */
+    public int render(org.w3c.dom.Document doc, OutputStream outputStream) throws IOException {
+        PDDocument document = new PDDocument();
+        try (PdfBoxRenderer renderer = configure(doc, outputStream, document, null).buildPdfRenderer()) {
+            renderer.layout();
+            renderer.createPDFWithoutClosing();
+            int pages = document.getNumberOfPages();
+            document.save(outputStream);
+            return pages;
+        } finally {
+            closeQuietly(document);
+        }
+    }
 
+    /**
+     * 将W3C Document渲染后追加到已有的PDF文档末尾(如档案汇编),不保存也不关闭目标文档
+     * 使用调用方在目标文档中创建的字体: 多份文档共用同一个字体对象,字体子集只嵌入一次
+     *
+     * @param doc    W3C Document
+     * @param target 目标PDF文档
+     * @param font   目标文档中的字体(字体不可用时忽略)
+     * @return 追加的页数
+     */
+    public int renderInto(org.w3c.dom.Document doc, PDDocument target, PDFont font) throws IOException {
+        int before = target.getNumberOfPages();
+        try (PdfBoxRenderer renderer = configure(doc, OutputStream.nullOutputStream(), target, font).buildPdfRenderer()) {
+            renderer.layout();
+            renderer.createPDFWithoutClosing();
+        }
+        return target.getNumberOfPages() - before;
+    }
+
+    /**
+     * 配置渲染器,font 为null时在 document 中新建字体对象
+     */
+    private PdfRendererBuilder configure(org.w3c.dom.Document doc, OutputStream outputStream, PDDocument document,
+                                         PDFont font) {
+        try {
             // 创建PDF渲染器
             PdfRendererBuilder builder = new PdfRendererBuilder();
 
             // 设置W3C Document
             builder.withW3cDocument(doc, null);
 
-            // 设置输出流
+            // 设置输出流(渲染完成后由渲染器保存并关闭文档)
             builder.toStream(outputStream);
+            builder.usePDDocument(document);
 
-            // 配置字体
+            // 配置字体: 基于共享字体创建本文档的字体对象,不重新解析字体文件
             if (fontManager.isFontAvailable()) {
-                String fontPath = fontManager.getFontFilePath();
                 String fontFamily = fontManager.getFontFamily();
 
-                logger.debug("配置PDF字体: family={}, path={}", fontFamily, fontPath);
+                logger.debug("配置PDF字体: family={}, source={}", fontFamily, fontManager.getFontSource());
 
+                PDFont documentFont = font != null
+                        ? font
+                        : PDType0Font.load(document, fontManager.getSharedFont(), true);
                 builder.useFont(
-                        new File(fontPath),
+                        new PDFontSupplier(documentFont),
                         fontFamily,
                         400,  // 字重: normal
                         BaseRendererBuilder.FontStyle.NORMAL,
                         true  // 支持子集嵌入
                 );
+                builder.useCacheStore(PdfRendererBuilder.CacheStore.PDF_FONT_METRICS, fontMetricsCache);
             } else {
                 logger.warn("字体不可用,中文可能无法正常显示");
             }
@@ -108,4 +195,41 @@ public class PdfRenderBuilder {
             throw new RuntimeException("创建PDF渲染器失败", e);
         }
     }
+
+    private void closeQuietly(PDDocument document) {
+        try {
+            document.close();
+        } catch (IOException e) {
+            logger.debug("关闭PDF文档失败", e);
+        }
+    }
+
+    /**
+     * 跨渲染共享的缓存(字体度量只与字体有关,计算一次即可)
+     */
+    private static final class SharedCache implements FSCacheEx<String, FSCacheValue> {
+
+        private final ConcurrentMap<String, FSCacheValue> values = new ConcurrentHashMap<>();
+
+        @Override
+        public void put(String key, FSCacheValue value) {
+            values.put(key, value);
+        }
+
+        @Override
+        public FSCacheValue get(String key, Callable<? extends FSCacheValue> loader) {
+            return values.computeIfAbsent(key, k -> {
+                try {
+                    return loader.call();
+                } catch (Exception e) {
+                    throw new IllegalStateException("加载缓存值失败: " + k, e);
+                }
+            });
+        }
+
+        @Override
+        public FSCacheValue get(String key) {
+            return values.get(key);
+        }
+    }
 }
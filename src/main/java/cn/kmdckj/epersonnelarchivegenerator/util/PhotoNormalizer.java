@@ -0,0 +1,262 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PhotoConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * 照片规范化 - 把员工照片处理成适合嵌入照片格的小图
+ * <p>
+ * 解码照片并识别真实格式,按照片格比例居中裁剪(与模板中 object-fit: cover 一致),
+ * 缩放到照片格毫米尺寸在目标分辨率下的像素尺寸,再重新编码(有透明通道用PNG,否则用JPEG)。
+ * 已经是JPEG/PNG且尺寸、比例都合适的照片保留原始字节。
+ * 结果按照片内容的SHA-256缓存,同一张照片只处理一次;无法解码的照片也缓存其失败结果。
+ */
+@Component
+public class PhotoNormalizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(PhotoNormalizer.class);
+
+    private static final double MM_PER_INCH = 25.4;
+
+    /** 无法解码的照片的缓存占位 */
+    private static final NormalizedPhoto INVALID = new NormalizedPhoto(null, null, 0, 0, 0);
+
+    private final double widthMm;
+    private final double heightMm;
+    private final int targetWidth;
+    private final int targetHeight;
+    private final float jpegQuality;
+    private final BoundedLruCache<String, NormalizedPhoto> cache;
+
+    public PhotoNormalizer(LayoutConfig layoutConfig, PhotoConfig photoConfig) {
+        this.widthMm = layoutConfig.getZone().getPhotoWidth();
+        this.heightMm = layoutConfig.getZone().getPhotoHeight();
+        this.targetWidth = (int) Math.ceil(widthMm / MM_PER_INCH * photoConfig.getDpi());
+        this.targetHeight = (int) Math.ceil(heightMm / MM_PER_INCH * photoConfig.getDpi());
+        this.jpegQuality = photoConfig.getJpegQuality();
+        this.cache = new BoundedLruCache<>(photoConfig.getCacheMaxBytes(), NormalizedPhoto::weight);
+        logger.info("照片规范化: 照片格 {}×{} mm, {} dpi, 目标尺寸 {}×{} px",
+                widthMm, heightMm, photoConfig.getDpi(), targetWidth, targetHeight);
+    }
+
+    /**
+     * 规范化照片
+     *
+     * @param photoBase64 Base64编码的原始照片
+     * @return 规范化后的照片,照片为空或无法解码时返回null
+     */
+    public NormalizedPhoto normalize(String photoBase64) {
+        if (photoBase64 == null || photoBase64.isEmpty()) {
+            return null;
+        }
+        String key = ContentDigest.sha256().add(photoBase64).toHex();
+        NormalizedPhoto photo = cache.computeIfAbsent(key, k -> load(photoBase64));
+        return photo == INVALID ? null : photo;
+    }
+
+    public double getWidthMm() {
+        return widthMm;
+    }
+
+    public double getHeightMm() {
+        return heightMm;
+    }
+
+    private NormalizedPhoto load(String photoBase64) {
+        long startTime = System.nanoTime();
+        byte[] original;
+        try {
+            original = Base64.getMimeDecoder().decode(photoBase64);
+        } catch (IllegalArgumentException e) {
+            logger.warn("照片Base64解码失败,档案中将不显示照片: {}", e.getMessage());
+            return INVALID;
+        }
+
+        try {
+            String format;
+            BufferedImage source;
+            try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (!readers.hasNext()) {
+                    logger.warn("无法识别的照片格式({} 字节),档案中将不显示照片", original.length);
+                    return INVALID;
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    format = reader.getFormatName().toLowerCase(Locale.ROOT);
+                    source = reader.read(0);
+                } finally {
+                    reader.dispose();
+                }
+            }
+
+            NormalizedPhoto photo = keepOriginal(format, source)
+                    ? new NormalizedPhoto(original, mimeType(format), source.getWidth(), source.getHeight(), original.length)
+                    : encode(scale(crop(source)), original.length);
+            logger.debug("照片规范化完成: {} {}×{} {} 字节 → {} {}×{} {} 字节, 耗时 {} ms",
+                    format, source.getWidth(), source.getHeight(), original.length,
+                    photo.getMimeType(), photo.getPixelWidth(), photo.getPixelHeight(), photo.getData().length,
+                    (System.nanoTime() - startTime) / 1_000_000);
+            return photo;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("照片解码失败,档案中将不显示照片: {}", e.getMessage());
+            return INVALID;
+        }
+    }
+
+    /**
+     * 原图已是JPEG/PNG、不超过目标尺寸且比例与照片格一致时无需处理
+     */
+    private boolean keepOriginal(String format, BufferedImage source) {
+        boolean supported = "jpeg".equals(format) || "jpg".equals(format) || "png".equals(format);
+        return supported
+                && source.getWidth() <= targetWidth
+                && source.getHeight() <= targetHeight
+                && Math.abs(source.getWidth() * targetHeight - source.getHeight() * targetWidth) <= targetHeight;
+    }
+
+    /**
+     * 按照片格比例居中裁剪
+     */
+    private BufferedImage crop(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        long scaledHeight = (long) width * targetHeight / targetWidth;
+        if (scaledHeight < height) {
+            int cropHeight = (int) Math.max(1, scaledHeight);
+            return source.getSubimage(0, (height - cropHeight) / 2, width, cropHeight);
+        }
+        int cropWidth = (int) Math.max(1, (long) height * targetWidth / targetHeight);
+        return source.getSubimage((width - cropWidth) / 2, 0, cropWidth, height);
+    }
+
+    /**
+     * 缩放到目标尺寸: 逐次减半再做最后一步双线性插值,大幅缩小时质量接近面积平均且开销小;
+     * 小于目标尺寸的照片不放大
+     */
+    private BufferedImage scale(BufferedImage image) {
+        int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        int finalWidth = Math.min(targetWidth, image.getWidth());
+        int finalHeight = Math.min(targetHeight, image.getHeight());
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage current = image;
+        do {
+            width = Math.max(finalWidth, width / 2);
+            height = Math.max(finalHeight, height / 2);
+            current = resize(current, width, height, type);
+        } while (width != finalWidth || height != finalHeight);
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height, int type) {
+        BufferedImage resized = new BufferedImage(width, height, type);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    private NormalizedPhoto encode(BufferedImage image, int originalSize) throws IOException {
+        boolean alpha = image.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpeg";
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(originalSize, 256 * 1024));
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(buffer)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (!alpha) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new NormalizedPhoto(buffer.toByteArray(), mimeType(format), image.getWidth(), image.getHeight(), originalSize);
+    }
+
+    private static String mimeType(String format) {
+        return "png".equals(format) ? "image/png" : "image/jpeg";
+    }
+
+    /**
+     * 规范化后的照片
+     */
+    public static final class NormalizedPhoto {
+        private final byte[] data;
+        private final String mimeType;
+        private final int pixelWidth;
+        private final int pixelHeight;
+        private final int originalSize;
+        private final String dataUri;
+
+        NormalizedPhoto(byte[] data, String mimeType, int pixelWidth, int pixelHeight, int originalSize) {
+            this.data = data;
+            this.mimeType = mimeType;
+            this.pixelWidth = pixelWidth;
+            this.pixelHeight = pixelHeight;
+            this.originalSize = originalSize;
+            this.dataUri = data != null
+                    ? "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(data)
+                    : null;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public int getPixelWidth() {
+            return pixelWidth;
+        }
+
+        public int getPixelHeight() {
+            return pixelHeight;
+        }
+
+        public int getOriginalSize() {
+            return originalSize;
+        }
+
+        /**
+         * 可直接用作 img src 的 data URI
+         */
+        public String getDataUri() {
+            return dataUri;
+        }
+
+        private long weight() {
+            return data != null ? data.length + dataUri.length() : 64;
+        }
+    }
+}
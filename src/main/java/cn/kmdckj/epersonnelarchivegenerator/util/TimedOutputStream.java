@@ -0,0 +1,60 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 计时输出流 - 累计阻塞在下游流写出和刷新上的时间(流式响应时衡量响应写出阶段)
+ * 与 {@link CountingOutputStream} 相同,关闭时只刷新,不关闭下游流
+ */
+public final class TimedOutputStream extends FilterOutputStream {
+
+    private long writeNanos;
+
+    public TimedOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            out.write(b);
+        } finally {
+            writeNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            out.write(b, off, len);
+        } finally {
+            writeNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            out.flush();
+        } finally {
+            writeNanos += System.nanoTime() - startTime;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * 累计的写出耗时(纳秒)
+     */
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+}
@@ -0,0 +1,152 @@
+package cn.kmdckj.epersonnelarchivegenerator.util.template;
+
+import org.unbescape.html.HtmlEscape;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 编译后的模板 - 由 {@link TemplateCompiler} 生成的渲染节点树
+ * <p>
+ * 静态标记在编译期合并为预先计算好的字符串,渲染时直接追加;
+ * 动态部分(th:each / th:if / th:unless / th:text / 属性修改)由编译后的表达式求值。
+ * 实例不可变,可被多个线程同时使用。
+ */
+public final class CompiledTemplate {
+
+    private final Node[] nodes;
+    private final Map<String, Integer> rootSlots;
+    private final int frameSize;
+
+    CompiledTemplate(List<Node> nodes, Map<String, Integer> rootSlots, int frameSize) {
+        this.nodes = nodes.toArray(new Node[0]);
+        this.rootSlots = Map.copyOf(rootSlots);
+        this.frameSize = frameSize;
+    }
+
+    /**
+     * 渲染模板
+     *
+     * @param variables 模板变量(必须包含编译时声明的全部根变量)
+     * @param out       输出目标
+     */
+    public void render(Map<String, Object> variables, Appendable out) {
+        Object[] frame = new Object[frameSize];
+        rootSlots.forEach((name, slot) -> frame[slot] = variables.get(name));
+        try {
+            renderAll(nodes, frame, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void renderAll(Node[] nodes, Object[] frame, Appendable out) throws IOException {
+        for (Node node : nodes) {
+            node.render(frame, out);
+        }
+    }
+
+    /**
+     * 渲染节点
+     */
+    interface Node {
+        void render(Object[] frame, Appendable out) throws IOException;
+    }
+
+    /**
+     * 静态标记
+     */
+    record StaticNode(String chars) implements Node {
+        @Override
+        public void render(Object[] frame, Appendable out) throws IOException {
+            out.append(chars);
+        }
+    }
+
+    /**
+     * th:text - 输出转义后的文本,null输出为空
+     */
+    record TextNode(TemplateExpression expression) implements Node {
+        @Override
+        public void render(Object[] frame, Appendable out) throws IOException {
+            Object value = expression.evaluate(frame);
+            if (value != null) {
+                out.append(HtmlEscape.escapeHtml4Xml(value.toString()));
+            }
+        }
+    }
+
+    /**
+     * 属性修改(如 th:src) - 值为null或空时不输出该属性
+     *
+     * @param prefix 属性前的空白和属性名及 =" (如 {@code  src="})
+     * @param suffix 属性值后的引号
+     */
+    record AttributeNode(String prefix, TemplateExpression expression, String suffix) implements Node {
+        @Override
+        public void render(Object[] frame, Appendable out) throws IOException {
+            Object value = expression.evaluate(frame);
+            String text = value != null ? HtmlEscape.escapeHtml4Xml(value.toString()) : null;
+            if (text != null && !text.isEmpty()) {
+                out.append(prefix).append(text).append(suffix);
+            }
+        }
+    }
+
+    /**
+     * th:if / th:unless
+     */
+    record ConditionalNode(TemplateExpression condition, boolean negated, Node[] body) implements Node {
+        @Override
+        public void render(Object[] frame, Appendable out) throws IOException {
+            if (TemplateExpression.asCondition(condition.evaluate(frame)) != negated) {
+                renderAll(body, frame, out);
+            }
+        }
+    }
+
+    /**
+     * th:each - 迭代变量和状态变量写入各自的帧槽位;
+     * 与Thymeleaf一致,从第二次迭代起在元素前重复输出元素前的空白,保持缩进
+     *
+     * @param precedingWhitespace 元素前的空白文本,没有时为null
+     */
+    record EachNode(TemplateExpression iterable, int variableSlot, int statusSlot,
+                    String precedingWhitespace, Node[] body) implements Node {
+        @Override
+        public void render(Object[] frame, Appendable out) throws IOException {
+            Object value = iterable.evaluate(frame);
+            if (value == null) {
+                return;
+            }
+            List<?> items = switch (value) {
+                case List<?> list -> list;
+                case Object[] array -> Arrays.asList(array);
+                case Iterable<?> iterableValue -> {
+                    List<Object> copy = new ArrayList<>();
+                    iterableValue.forEach(copy::add);
+                    yield copy;
+                }
+                default -> List.of(value);
+            };
+
+            IterationStatus status = new IterationStatus(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Object item = items.get(i);
+                status.advance(i, item);
+                frame[variableSlot] = item;
+                frame[statusSlot] = status;
+                if (i > 0 && precedingWhitespace != null) {
+                    out.append(precedingWhitespace);
+                }
+                renderAll(body, frame, out);
+            }
+            frame[variableSlot] = null;
+            frame[statusSlot] = null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package cn.kmdckj.epersonnelarchivegenerator.util.template;
+
+/**
+ * 迭代状态 - 与Thymeleaf th:each 的状态变量(如 rowStat)含义相同
+ */
+public final class IterationStatus {
+
+    private final int size;
+    private int index;
+    private Object current;
+
+    IterationStatus(int size) {
+        this.size = size;
+    }
+
+    void advance(int index, Object current) {
+        this.index = index;
+        this.current = current;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return index + 1;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public Object getCurrent() {
+        return current;
+    }
+
+    public boolean isFirst() {
+        return index == 0;
+    }
+
+    public boolean isLast() {
+        return index == size - 1;
+    }
+
+    public boolean isEven() {
+        return (index + 1) % 2 == 0;
+    }
+
+    public boolean isOdd() {
+        return !isEven();
+    }
+}
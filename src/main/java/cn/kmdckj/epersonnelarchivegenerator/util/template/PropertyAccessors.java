@@ -0,0 +1,57 @@
+package cn.kmdckj.epersonnelarchivegenerator.util.template;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 属性访问表 - 编译模板中 ${a.b} 形式的属性访问通过这里登记的访问函数完成,不使用反射
+ * <p>
+ * 查找时沿类继承链和接口向上匹配,未登记的属性在运行时抛出异常(调用方回退到解释执行)。
+ */
+public final class PropertyAccessors {
+
+    private final Map<Class<?>, Map<String, Function<Object, Object>>> accessors = new HashMap<>();
+
+    /**
+     * 登记属性访问函数
+     *
+     * @param type     属性所属的类型
+     * @param name     属性名(模板中使用的名称)
+     * @param accessor 访问函数
+     */
+    @SuppressWarnings("unchecked")
+    public <T> PropertyAccessors register(Class<T> type, String name, Function<? super T, ?> accessor) {
+        accessors.computeIfAbsent(type, t -> new HashMap<>())
+                .put(name, target -> ((Function<Object, Object>) accessor).apply(target));
+        return this;
+    }
+
+    /**
+     * 查找属性访问函数
+     *
+     * @param type 目标对象的运行时类型
+     * @param name 属性名
+     * @return 访问函数,未登记时返回null
+     */
+    public Function<Object, Object> find(Class<?> type, String name) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            Function<Object, Object> accessor = findDeclared(current, name);
+            if (accessor != null) {
+                return accessor;
+            }
+            for (Class<?> iface : current.getInterfaces()) {
+                accessor = find(iface, name);
+                if (accessor != null) {
+                    return accessor;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Function<Object, Object> findDeclared(Class<?> type, String name) {
+        Map<String, Function<Object, Object>> byName = accessors.get(type);
+        return byName != null ? byName.get(name) : null;
+    }
+}
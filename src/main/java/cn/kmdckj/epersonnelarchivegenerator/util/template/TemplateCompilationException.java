@@ -0,0 +1,11 @@
+package cn.kmdckj.epersonnelarchivegenerator.util.template;
+
+/**
+ * 模板编译异常 - 模板使用了编译器不支持的语法,调用方应回退到Thymeleaf解释执行
+ */
+public class TemplateCompilationException extends RuntimeException {
+
+    public TemplateCompilationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,507 @@
+package cn.kmdckj.epersonnelarchivegenerator.util.template;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 模板编译器 - 把Thymeleaf HTML模板编译为 {@link CompiledTemplate},输出与Thymeleaf解释执行逐字节一致
+ * <p>
+ * 支持的语法: th:each(可带状态变量)、th:if、th:unless、th:text、th:block,
+ * 以及 th:src / th:rowspan 等单属性修改;表达式只支持单个 ${...}(见 {@link TemplateExpression})。
+ * 模板中出现其他 th:* 属性或不支持的表达式时抛出 {@link TemplateCompilationException},
+ * 调用方应回退到Thymeleaf解释执行。
+ * <p>
+ * 标签按Thymeleaf的方式重新输出: 保留原始的属性顺序、空白和引号,
+ * 移除的属性连同它前面的空白一起去掉,被替换的属性沿用原属性的位置。
+ */
+public final class TemplateCompiler {
+
+    private static final String TH_PREFIX = "th:";
+    private static final String TH_BLOCK = "th:block";
+    private static final String TH_NAMESPACE_DECLARATION = "xmlns:th";
+
+    /** 有专门处理逻辑的 th 属性(以及 xmlns:th),按Thymeleaf处理器的顺序从标签中移除;其余 th:xxx 视为对属性 xxx 的修改 */
+    private static final List<String> REMOVAL_ORDER = List.of("th:each", "th:if", "th:unless", "th:text", TH_NAMESPACE_DECLARATION);
+
+    /** 编译器不支持的 th 属性 */
+    private static final Set<String> UNSUPPORTED_ATTRIBUTES = Set.of(
+            "th:utext", "th:with", "th:object", "th:attr", "th:attrappend", "th:attrprepend",
+            "th:classappend", "th:styleappend", "th:switch", "th:case", "th:insert", "th:replace",
+            "th:include", "th:fragment", "th:remove", "th:inline", "th:assert", "th:field", "th:value",
+            "th:selected", "th:checked", "th:disabled", "th:readonly", "th:required", "th:multiple");
+
+    /** 内容不做标记解析的元素 */
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style");
+
+    /** HTML空元素(无结束标签) */
+    private static final Set<String> VOID_ELEMENTS = Set.of(
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "source", "track", "wbr");
+
+    private static final Pattern SIMPLE_EXPRESSION = Pattern.compile("^\\s*\\$\\{(.*)}\\s*$", Pattern.DOTALL);
+    private static final Pattern EACH_EXPRESSION = Pattern.compile(
+            "^\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*(?:,\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*)?:\\s*\\$\\{(.*)}\\s*$",
+            Pattern.DOTALL);
+
+    private final PropertyAccessors accessors;
+
+    /**
+     * @param accessors 模板中用到的属性访问表(迭代状态变量的属性由编译器自动登记)
+     */
+    public TemplateCompiler(PropertyAccessors accessors) {
+        this.accessors = accessors
+                .register(IterationStatus.class, "index", IterationStatus::getIndex)
+                .register(IterationStatus.class, "count", IterationStatus::getCount)
+                .register(IterationStatus.class, "size", IterationStatus::getSize)
+                .register(IterationStatus.class, "current", IterationStatus::getCurrent)
+                .register(IterationStatus.class, "first", IterationStatus::isFirst)
+                .register(IterationStatus.class, "last", IterationStatus::isLast)
+                .register(IterationStatus.class, "even", IterationStatus::isEven)
+                .register(IterationStatus.class, "odd", IterationStatus::isOdd);
+    }
+
+    /**
+     * 编译模板
+     *
+     * @param source        模板源文本
+     * @param rootVariables 渲染时传入的根变量名
+     * @return 编译后的模板
+     * @throws TemplateCompilationException 模板使用了不支持的语法
+     */
+    public CompiledTemplate compile(String source, List<String> rootVariables) {
+        List<Parsed> parsed = new Parser(source).parseDocument();
+
+        Scope scope = new Scope();
+        Map<String, Integer> rootSlots = new HashMap<>();
+        for (String name : rootVariables) {
+            rootSlots.put(name, scope.declare(name));
+        }
+
+        NodeListBuilder builder = new NodeListBuilder();
+        compileChildren(parsed, scope, builder);
+        return new CompiledTemplate(builder.build(), rootSlots, scope.frameSize());
+    }
+
+    // ==================== 编译 ====================
+
+    private void compileChildren(List<Parsed> children, Scope scope, NodeListBuilder out) {
+        for (int i = 0; i < children.size(); i++) {
+            Parsed child = children.get(i);
+            if (child instanceof ParsedText text) {
+                out.appendStatic(text.raw);
+            } else {
+                String precedingWhitespace = null;
+                if (i > 0 && children.get(i - 1) instanceof ParsedText previous && previous.raw.isBlank()) {
+                    precedingWhitespace = previous.raw;
+                }
+                compileElement((ParsedElement) child, precedingWhitespace, scope, out);
+            }
+        }
+    }
+
+    private void compileElement(ParsedElement element, String precedingWhitespace, Scope scope, NodeListBuilder out) {
+        ParsedAttribute each = null;
+        ParsedAttribute condition = null;
+        ParsedAttribute text = null;
+        for (ParsedAttribute attribute : element.attributes) {
+            String name = attribute.name.toLowerCase(Locale.ROOT);
+            if (!name.startsWith(TH_PREFIX)) {
+                continue;
+            }
+            if (UNSUPPORTED_ATTRIBUTES.contains(name) || name.startsWith("data-th-")) {
+                throw new TemplateCompilationException("不支持的属性 " + attribute.name + " (元素 <" + element.name + ">)");
+            }
+            switch (name) {
+                case "th:each" -> each = attribute;
+                case "th:if", "th:unless" -> {
+                    if (condition != null) {
+                        throw new TemplateCompilationException("同一元素上不支持多个条件属性 (元素 <" + element.name + ">)");
+                    }
+                    condition = attribute;
+                }
+                case "th:text" -> text = attribute;
+                default -> {
+                    // 属性修改: 目标属性不能已经静态存在
+                    String target = name.substring(TH_PREFIX.length());
+                    for (ParsedAttribute other : element.attributes) {
+                        if (other.name.equalsIgnoreCase(target)) {
+                            throw new TemplateCompilationException("属性 " + attribute.name + " 与静态属性 " + target + " 冲突");
+                        }
+                    }
+                }
+            }
+        }
+
+        // th:each 优先于条件,迭代变量在本元素的其他属性中可见
+        Scope elementScope = scope;
+        int variableSlot = -1;
+        int statusSlot = -1;
+        TemplateExpression iterable = null;
+        if (each != null) {
+            Matcher matcher = EACH_EXPRESSION.matcher(each.value);
+            if (!matcher.matches()) {
+                throw new TemplateCompilationException("不支持的迭代表达式 " + each.value);
+            }
+            iterable = TemplateExpression.compile(matcher.group(3), scope.slots, accessors);
+            String variable = matcher.group(1);
+            String status = matcher.group(2) != null ? matcher.group(2) : variable + "Stat";
+            elementScope = scope.child();
+            variableSlot = elementScope.declare(variable);
+            statusSlot = elementScope.declare(status);
+        }
+
+        NodeListBuilder body = new NodeListBuilder();
+        boolean tagless = element.name.equalsIgnoreCase(TH_BLOCK);
+        if (!tagless) {
+            writeOpenTag(element, elementScope, body);
+        }
+        if (text != null) {
+            body.append(new CompiledTemplate.TextNode(simpleExpression(text, elementScope)));
+        } else {
+            compileChildren(element.children, elementScope, body);
+        }
+        if (!tagless && element.closeTag != null) {
+            body.appendStatic(element.closeTag);
+        }
+
+        List<CompiledTemplate.Node> nodes = body.build();
+        if (condition != null) {
+            boolean negated = condition.name.equalsIgnoreCase("th:unless");
+            nodes = List.of(new CompiledTemplate.ConditionalNode(simpleExpression(condition, elementScope), negated,
+                    nodes.toArray(new CompiledTemplate.Node[0])));
+        }
+        if (iterable != null) {
+            // Thymeleaf 只在迭代真实元素时重复元素前的空白,th:block 不重复
+            out.append(new CompiledTemplate.EachNode(iterable, variableSlot, statusSlot, tagless ? null : precedingWhitespace,
+                    nodes.toArray(new CompiledTemplate.Node[0])));
+        } else {
+            nodes.forEach(out::append);
+        }
+    }
+
+    /**
+     * 输出开始标签: 去掉结构属性和 xmlns:th,属性修改替换为动态属性节点,其余原样保留
+     * <p>
+     * 与Thymeleaf一致,属性按处理器顺序(th:each、条件、th:text、xmlns:th)逐个移除:
+     * 移除的不是最后一个属性时,连同它后面的空白一起去掉(后一个属性沿用它前面的空白),
+     * 否则连同它前面的空白一起去掉。
+     */
+    private void writeOpenTag(ParsedElement element, Scope scope, NodeListBuilder out) {
+        List<ParsedAttribute> attributes = new ArrayList<>(element.attributes);
+        List<String> whitespace = new ArrayList<>();
+        attributes.forEach(attribute -> whitespace.add(attribute.leadingWhitespace));
+        for (String removed : REMOVAL_ORDER) {
+            for (int i = 0; i < attributes.size(); i++) {
+                if (!attributes.get(i).name.equalsIgnoreCase(removed)) {
+                    continue;
+                }
+                attributes.remove(i);
+                whitespace.remove(i < attributes.size() ? i + 1 : i);
+                break;
+            }
+        }
+
+        out.appendStatic("<" + element.name);
+        for (int i = 0; i < attributes.size(); i++) {
+            ParsedAttribute attribute = attributes.get(i);
+            String leadingWhitespace = whitespace.get(i);
+            if (attribute.name.toLowerCase(Locale.ROOT).startsWith(TH_PREFIX)) {
+                String target = attribute.name.substring(TH_PREFIX.length());
+                char quote = attribute.quote != 0 ? attribute.quote : '"';
+                out.append(new CompiledTemplate.AttributeNode(
+                        leadingWhitespace + target + attribute.operator + quote,
+                        simpleExpression(attribute, scope),
+                        String.valueOf(quote)));
+            } else {
+                out.appendStatic(attribute.withLeadingWhitespace(leadingWhitespace).raw());
+            }
+        }
+        out.appendStatic(element.tagEnd);
+    }
+
+    private TemplateExpression simpleExpression(ParsedAttribute attribute, Scope scope) {
+        Matcher matcher = SIMPLE_EXPRESSION.matcher(attribute.value);
+        if (!matcher.matches()) {
+            throw new TemplateCompilationException("属性 " + attribute.name + " 只支持单个 ${...} 表达式: " + attribute.value);
+        }
+        return TemplateExpression.compile(matcher.group(1), scope.slots, accessors);
+    }
+
+    /**
+     * 变量作用域: 变量名 → 帧槽位,子作用域继承父作用域的变量,槽位在整个模板内唯一
+     */
+    private static final class Scope {
+        private final Map<String, Integer> slots;
+        private final int[] counter;
+
+        Scope() {
+            this(new HashMap<>(), new int[1]);
+        }
+
+        private Scope(Map<String, Integer> slots, int[] counter) {
+            this.slots = slots;
+            this.counter = counter;
+        }
+
+        Scope child() {
+            return new Scope(new HashMap<>(slots), counter);
+        }
+
+        int frameSize() {
+            return counter[0];
+        }
+
+        int declare(String name) {
+            int slot = counter[0]++;
+            slots.put(name, slot);
+            return slot;
+        }
+    }
+
+    /**
+     * 节点列表构建器: 相邻的静态标记合并为一个节点
+     */
+    private static final class NodeListBuilder {
+        private final List<CompiledTemplate.Node> nodes = new ArrayList<>();
+        private final StringBuilder pending = new StringBuilder();
+
+        void appendStatic(String chars) {
+            pending.append(chars);
+        }
+
+        void append(CompiledTemplate.Node node) {
+            if (node instanceof CompiledTemplate.StaticNode staticNode) {
+                pending.append(staticNode.chars());
+                return;
+            }
+            flush();
+            nodes.add(node);
+        }
+
+        List<CompiledTemplate.Node> build() {
+            flush();
+            return nodes;
+        }
+
+        private void flush() {
+            if (!pending.isEmpty()) {
+                nodes.add(new CompiledTemplate.StaticNode(pending.toString()));
+                pending.setLength(0);
+            }
+        }
+    }
+
+    // ==================== 解析 ====================
+
+    private sealed interface Parsed permits ParsedText, ParsedElement {
+    }
+
+    private record ParsedText(String raw) implements Parsed {
+    }
+
+    private static final class ParsedElement implements Parsed {
+        private final String name;
+        private final List<ParsedAttribute> attributes;
+        private final String tagEnd;            // 最后一个属性之后的空白和 ">" 或 "/>"
+        private final List<Parsed> children = new ArrayList<>();
+        private String closeTag;                // 结束标签原文,空元素为null
+
+        ParsedElement(String name, List<ParsedAttribute> attributes, String tagEnd) {
+            this.name = name;
+            this.attributes = attributes;
+            this.tagEnd = tagEnd;
+        }
+    }
+
+    /**
+     * @param leadingWhitespace 属性前的空白
+     * @param operator          属性名和值之间的原文(如 "="),无值属性为空
+     * @param quote             值的引号,无引号时为0
+     */
+    private record ParsedAttribute(String leadingWhitespace, String name, String operator, String value, char quote) {
+        ParsedAttribute withLeadingWhitespace(String whitespace) {
+            return new ParsedAttribute(whitespace, name, operator, value, quote);
+        }
+
+        String raw() {
+            if (operator.isEmpty()) {
+                return leadingWhitespace + name;
+            }
+            return quote != 0
+                    ? leadingWhitespace + name + operator + quote + value + quote
+                    : leadingWhitespace + name + operator + value;
+        }
+    }
+
+    /**
+     * 最小化的HTML解析器: 只识别文本、注释、DOCTYPE、开始/结束/自闭合标签,保留全部原文
+     */
+    private static final class Parser {
+        private final String source;
+        private int pos;
+
+        Parser(String source) {
+            this.source = source;
+        }
+
+        List<Parsed> parseDocument() {
+            List<Parsed> root = new ArrayList<>();
+            parseContent(root, null);
+            return root;
+        }
+
+        /**
+         * 解析内容直到遇到 parent 的结束标签(parent为null时解析到文末)
+         */
+        private void parseContent(List<Parsed> into, ParsedElement parent) {
+            StringBuilder text = new StringBuilder();
+            while (pos < source.length()) {
+                if (source.startsWith("<!--", pos)) {
+                    int end = source.indexOf("-->", pos);
+                    if (end < 0) {
+                        throw new TemplateCompilationException("注释未结束");
+                    }
+                    text.append(source, pos, end + 3);
+                    pos = end + 3;
+                } else if (source.startsWith("<!", pos) || source.startsWith("<?", pos)) {
+                    int end = source.indexOf('>', pos);
+                    if (end < 0) {
+                        throw new TemplateCompilationException("声明未结束");
+                    }
+                    text.append(source, pos, end + 1);
+                    pos = end + 1;
+                } else if (source.startsWith("</", pos)) {
+                    int end = source.indexOf('>', pos);
+                    if (end < 0) {
+                        throw new TemplateCompilationException("结束标签未结束");
+                    }
+                    String name = source.substring(pos + 2, end).trim();
+                    if (parent == null || !parent.name.equals(name)) {
+                        throw new TemplateCompilationException("结束标签 </" + name + "> 不匹配");
+                    }
+                    flushText(text, into);
+                    parent.closeTag = source.substring(pos, end + 1);
+                    pos = end + 1;
+                    return;
+                } else if (source.charAt(pos) == '<' && pos + 1 < source.length()
+                        && Character.isLetter(source.charAt(pos + 1))) {
+                    flushText(text, into);
+                    into.add(parseElement());
+                } else {
+                    text.append(source.charAt(pos++));
+                }
+            }
+            if (parent != null) {
+                throw new TemplateCompilationException("元素 <" + parent.name + "> 未结束");
+            }
+            flushText(text, into);
+        }
+
+        private ParsedElement parseElement() {
+            pos++;
+            String name = readName();
+            List<ParsedAttribute> attributes = new ArrayList<>();
+            while (true) {
+                int whitespaceStart = pos;
+                while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                    pos++;
+                }
+                if (pos >= source.length()) {
+                    throw new TemplateCompilationException("标签 <" + name + "> 未结束");
+                }
+                if (source.startsWith("/>", pos) || source.charAt(pos) == '>') {
+                    boolean selfClosing = source.charAt(pos) == '/';
+                    pos += selfClosing ? 2 : 1;
+                    ParsedElement element = new ParsedElement(name, attributes, source.substring(whitespaceStart, pos));
+                    if (selfClosing || VOID_ELEMENTS.contains(name.toLowerCase(Locale.ROOT))) {
+                        return element;
+                    }
+                    if (RAW_TEXT_ELEMENTS.contains(name.toLowerCase(Locale.ROOT))) {
+                        parseRawText(element);
+                    } else {
+                        parseContent(element.children, element);
+                    }
+                    return element;
+                }
+                if (whitespaceStart == pos) {
+                    throw new TemplateCompilationException("标签 <" + name + "> 的属性之间缺少空白");
+                }
+                attributes.add(parseAttribute(source.substring(whitespaceStart, pos)));
+            }
+        }
+
+        private ParsedAttribute parseAttribute(String leadingWhitespace) {
+            String name = readName();
+            int operatorStart = pos;
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+            if (pos >= source.length() || source.charAt(pos) != '=') {
+                pos = operatorStart;
+                return new ParsedAttribute(leadingWhitespace, name, "", "", (char) 0);
+            }
+            pos++;
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+            String operator = source.substring(operatorStart, pos);
+            char quote = source.charAt(pos);
+            if (quote == '"' || quote == '\'') {
+                int end = source.indexOf(quote, pos + 1);
+                if (end < 0) {
+                    throw new TemplateCompilationException("属性 " + name + " 的值未结束");
+                }
+                String value = source.substring(pos + 1, end);
+                pos = end + 1;
+                return new ParsedAttribute(leadingWhitespace, name, operator, value, quote);
+            }
+            int start = pos;
+            while (pos < source.length() && !Character.isWhitespace(source.charAt(pos))
+                    && source.charAt(pos) != '>' && !source.startsWith("/>", pos)) {
+                pos++;
+            }
+            return new ParsedAttribute(leadingWhitespace, name, operator, source.substring(start, pos), (char) 0);
+        }
+
+        private void parseRawText(ParsedElement element) {
+            String closeTag = "</" + element.name;
+            int end = source.indexOf(closeTag, pos);
+            int close = end >= 0 ? source.indexOf('>', end) : -1;
+            if (close < 0) {
+                throw new TemplateCompilationException("元素 <" + element.name + "> 未结束");
+            }
+            if (end > pos) {
+                element.children.add(new ParsedText(source.substring(pos, end)));
+            }
+            element.closeTag = source.substring(end, close + 1);
+            pos = close + 1;
+        }
+
+        private String readName() {
+            int start = pos;
+            while (pos < source.length()) {
+                char c = source.charAt(pos);
+                if (Character.isWhitespace(c) || c == '>' || c == '/' || c == '=') {
+                    break;
+                }
+                pos++;
+            }
+            if (start == pos) {
+                throw new TemplateCompilationException("第 " + pos + " 个字符处缺少名称");
+            }
+            return source.substring(start, pos);
+        }
+
+        private static void flushText(StringBuilder text, List<Parsed> into) {
+            if (!text.isEmpty()) {
+                into.add(new ParsedText(text.toString()));
+                text.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package cn.kmdckj.epersonnelarchivegenerator.util.template;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * 编译后的模板表达式 - 支持 ${...} 中常用的SpEL子集:
+ * 变量、属性访问、下标访问、无参方法 size()/isEmpty()/length()/name()/toString()、
+ * 比较运算(== != > < >= <=)、逻辑运算(&& || ! 及 and/or/not)、括号,以及字符串、整数、null、true/false字面量。
+ * <p>
+ * 变量在编译期解析为帧槽位,属性访问通过 {@link PropertyAccessors} 并按运行时类型做单态内联缓存,不使用反射。
+ * 运算语义与SpEL一致: 访问null的属性抛出异常,== 对数字按数值比较、其他对象按 equals 比较。
+ */
+@FunctionalInterface
+public interface TemplateExpression {
+
+    /**
+     * 求值
+     *
+     * @param frame 变量帧(槽位由编译期分配)
+     * @return 表达式的值
+     */
+    Object evaluate(Object[] frame);
+
+    /**
+     * 编译表达式
+     *
+     * @param source    ${} 内部的表达式文本
+     * @param slots     可见变量 → 帧槽位
+     * @param accessors 属性访问表
+     * @return 编译后的表达式
+     */
+    static TemplateExpression compile(String source, Map<String, Integer> slots, PropertyAccessors accessors) {
+        Parser parser = new Parser(source, slots, accessors);
+        TemplateExpression expression = parser.parseOr();
+        parser.skipWhitespace();
+        if (!parser.atEnd()) {
+            throw parser.unsupported("多余的字符");
+        }
+        return expression;
+    }
+
+    /**
+     * 按Thymeleaf条件规则把值转换为布尔值(th:if/th:unless)
+     */
+    static boolean asCondition(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean b) {
+            return b;
+        }
+        if (value instanceof Number n) {
+            return toBigDecimal(n).compareTo(BigDecimal.ZERO) != 0;
+        }
+        if (value instanceof Character c) {
+            return c != '\0';
+        }
+        if (value instanceof String s) {
+            return !"false".equalsIgnoreCase(s) && !"off".equalsIgnoreCase(s) && !"no".equalsIgnoreCase(s);
+        }
+        return true;
+    }
+
+    private static BigDecimal toBigDecimal(Number number) {
+        if (number instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        return new BigDecimal(number.toString());
+    }
+
+    /**
+     * 递归下降解析器,解析的同时生成求值闭包
+     */
+    final class Parser {
+
+        private final String source;
+        private final Map<String, Integer> slots;
+        private final PropertyAccessors accessors;
+        private int pos;
+
+        private Parser(String source, Map<String, Integer> slots, PropertyAccessors accessors) {
+            this.source = source;
+            this.slots = slots;
+            this.accessors = accessors;
+        }
+
+        TemplateExpression parseOr() {
+            TemplateExpression left = parseAnd();
+            while (consumeOperator("||") || consumeKeyword("or")) {
+                TemplateExpression l = left;
+                TemplateExpression r = parseAnd();
+                left = frame -> asBoolean(l.evaluate(frame)) || asBoolean(r.evaluate(frame));
+            }
+            return left;
+        }
+
+        private TemplateExpression parseAnd() {
+            TemplateExpression left = parseNot();
+            while (consumeOperator("&&") || consumeKeyword("and")) {
+                TemplateExpression l = left;
+                TemplateExpression r = parseNot();
+                left = frame -> asBoolean(l.evaluate(frame)) && asBoolean(r.evaluate(frame));
+            }
+            return left;
+        }
+
+        private TemplateExpression parseNot() {
+            if (consumeOperator("!") || consumeKeyword("not")) {
+                TemplateExpression operand = parseNot();
+                return frame -> !asBoolean(operand.evaluate(frame));
+            }
+            return parseComparison();
+        }
+
+        private TemplateExpression parseComparison() {
+            TemplateExpression left = parsePrimary();
+            String operator = null;
+            for (String candidate : new String[]{"==", "!=", ">=", "<=", ">", "<"}) {
+                if (consumeOperator(candidate)) {
+                    operator = candidate;
+                    break;
+                }
+            }
+            if (operator == null) {
+                for (String[] keyword : new String[][]{{"eq", "=="}, {"ne", "!="}, {"ge", ">="}, {"le", "<="},
+                        {"gt", ">"}, {"lt", "<"}}) {
+                    if (consumeKeyword(keyword[0])) {
+                        operator = keyword[1];
+                        break;
+                    }
+                }
+            }
+            if (operator == null) {
+                return left;
+            }
+
+            TemplateExpression right = parsePrimary();
+            return switch (operator) {
+                case "==" -> frame -> equalityCheck(left.evaluate(frame), right.evaluate(frame));
+                case "!=" -> frame -> !equalityCheck(left.evaluate(frame), right.evaluate(frame));
+                case ">" -> frame -> compare(left.evaluate(frame), right.evaluate(frame)) > 0;
+                case "<" -> frame -> compare(left.evaluate(frame), right.evaluate(frame)) < 0;
+                case ">=" -> frame -> compare(left.evaluate(frame), right.evaluate(frame)) >= 0;
+                default -> frame -> compare(left.evaluate(frame), right.evaluate(frame)) <= 0;
+            };
+        }
+
+        private TemplateExpression parsePrimary() {
+            skipWhitespace();
+            if (atEnd()) {
+                throw unsupported("表达式不完整");
+            }
+            char c = source.charAt(pos);
+            TemplateExpression expression;
+            if (c == '(') {
+                pos++;
+                expression = parseOr();
+                expect(')');
+            } else if (c == '\'') {
+                String literal = parseStringLiteral();
+                expression = frame -> literal;
+            } else if (Character.isDigit(c)) {
+                Integer literal = parseInteger();
+                expression = frame -> literal;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                String name = parseIdentifier();
+                switch (name) {
+                    case "null" -> expression = frame -> null;
+                    case "true" -> expression = frame -> Boolean.TRUE;
+                    case "false" -> expression = frame -> Boolean.FALSE;
+                    default -> {
+                        Integer slot = slots.get(name);
+                        if (slot == null) {
+                            throw unsupported("未知变量 " + name);
+                        }
+                        int index = slot;
+                        expression = frame -> frame[index];
+                    }
+                }
+            } else {
+                throw unsupported("无法识别的字符 '" + c + "'");
+            }
+            return parseSuffixes(expression);
+        }
+
+        /**
+         * 属性访问 .name、方法调用 .name() 和下标访问 [n]
+         */
+        private TemplateExpression parseSuffixes(TemplateExpression target) {
+            while (true) {
+                skipWhitespace();
+                if (consumeChar('.')) {
+                    String name = parseIdentifier();
+                    skipWhitespace();
+                    if (consumeChar('(')) {
+                        expect(')');
+                        target = method(target, name);
+                    } else {
+                        target = property(target, name);
+                    }
+                } else if (consumeChar('[')) {
+                    TemplateExpression index = parseOr();
+                    expect(']');
+                    TemplateExpression list = target;
+                    target = frame -> indexed(list.evaluate(frame), index.evaluate(frame));
+                } else {
+                    return target;
+                }
+            }
+        }
+
+        private TemplateExpression property(TemplateExpression target, String name) {
+            PropertyAccessors table = accessors;
+            return new TemplateExpression() {
+                private Class<?> cachedType;
+                private Function<Object, Object> cachedAccessor;
+
+                @Override
+                public Object evaluate(Object[] frame) {
+                    Object value = target.evaluate(frame);
+                    if (value == null) {
+                        throw new IllegalStateException("无法访问null的属性 " + name);
+                    }
+                    Class<?> type = value.getClass();
+                    Function<Object, Object> accessor = cachedAccessor;
+                    if (type != cachedType) {
+                        accessor = table.find(type, name);
+                        if (accessor == null) {
+                            throw new IllegalStateException(type.getName() + " 未登记属性 " + name);
+                        }
+                        cachedType = type;
+                        cachedAccessor = accessor;
+                    }
+                    return accessor.apply(value);
+                }
+            };
+        }
+
+        private TemplateExpression method(TemplateExpression target, String name) {
+            return switch (name) {
+                case "size" -> frame -> switch (notNull(target.evaluate(frame), name)) {
+                    case Collection<?> collection -> collection.size();
+                    case Map<?, ?> map -> map.size();
+                    case String string -> string.length();
+                    case Object other -> throw unsupportedCall(other, name);
+                };
+                case "isEmpty" -> frame -> switch (notNull(target.evaluate(frame), name)) {
+                    case String string -> string.isEmpty();
+                    case Collection<?> collection -> collection.isEmpty();
+                    case Map<?, ?> map -> map.isEmpty();
+                    case Object other -> throw unsupportedCall(other, name);
+                };
+                case "length" -> frame -> switch (notNull(target.evaluate(frame), name)) {
+                    case String string -> string.length();
+                    case Object other -> throw unsupportedCall(other, name);
+                };
+                case "name" -> frame -> switch (notNull(target.evaluate(frame), name)) {
+                    case Enum<?> constant -> constant.name();
+                    case Object other -> throw unsupportedCall(other, name);
+                };
+                case "toString" -> frame -> notNull(target.evaluate(frame), name).toString();
+                default -> throw unsupported("不支持的方法 " + name + "()");
+            };
+        }
+
+        private static Object notNull(Object value, String method) {
+            if (value == null) {
+                throw new IllegalStateException("无法在null上调用 " + method + "()");
+            }
+            return value;
+        }
+
+        private static IllegalStateException unsupportedCall(Object target, String method) {
+            return new IllegalStateException(target.getClass().getName() + " 不支持 " + method + "()");
+        }
+
+        private static Object indexed(Object target, Object index) {
+            if (!(index instanceof Number number)) {
+                throw new IllegalStateException("下标必须为整数: " + index);
+            }
+            if (target instanceof List<?> list) {
+                return list.get(number.intValue());
+            }
+            if (target instanceof Object[] array) {
+                return array[number.intValue()];
+            }
+            throw new IllegalStateException("无法对 " + (target == null ? "null" : target.getClass().getName()) + " 使用下标");
+        }
+
+        private static boolean asBoolean(Object value) {
+            if (value instanceof Boolean b) {
+                return b;
+            }
+            throw new IllegalStateException("逻辑运算的操作数必须为布尔值: " + value);
+        }
+
+        private static boolean equalityCheck(Object left, Object right) {
+            if (left instanceof Number l && right instanceof Number r) {
+                return toBigDecimal(l).compareTo(toBigDecimal(r)) == 0;
+            }
+            return Objects.equals(left, right);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compare(Object left, Object right) {
+            if (left instanceof Number l && right instanceof Number r) {
+                return toBigDecimal(l).compareTo(toBigDecimal(r));
+            }
+            if (left instanceof Comparable l && right != null && left.getClass() == right.getClass()) {
+                return l.compareTo(right);
+            }
+            throw new IllegalStateException("无法比较 " + left + " 和 " + right);
+        }
+
+        // ==================== 词法 ====================
+
+        private String parseIdentifier() {
+            skipWhitespace();
+            int start = pos;
+            if (atEnd() || !Character.isJavaIdentifierStart(source.charAt(pos))) {
+                throw unsupported("缺少标识符");
+            }
+            while (!atEnd() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                pos++;
+            }
+            return source.substring(start, pos);
+        }
+
+        private Integer parseInteger() {
+            int start = pos;
+            while (!atEnd() && Character.isDigit(source.charAt(pos))) {
+                pos++;
+            }
+            if (!atEnd() && (source.charAt(pos) == '.' && pos + 1 < source.length()
+                    && Character.isDigit(source.charAt(pos + 1)))) {
+                throw unsupported("不支持小数字面量");
+            }
+            return Integer.valueOf(source.substring(start, pos));
+        }
+
+        private String parseStringLiteral() {
+            StringBuilder literal = new StringBuilder();
+            pos++;
+            while (true) {
+                if (atEnd()) {
+                    throw unsupported("字符串字面量未结束");
+                }
+                char c = source.charAt(pos++);
+                if (c == '\'') {
+                    if (!atEnd() && source.charAt(pos) == '\'') {
+                        literal.append('\'');
+                        pos++;
+                    } else {
+                        return literal.toString();
+                    }
+                } else {
+                    literal.append(c);
+                }
+            }
+        }
+
+        private boolean consumeOperator(String operator) {
+            skipWhitespace();
+            if (!source.startsWith(operator, pos)) {
+                return false;
+            }
+            // "!" 不能吞掉 "!="
+            if (operator.equals("!") && source.startsWith("!=", pos)) {
+                return false;
+            }
+            pos += operator.length();
+            return true;
+        }
+
+        private boolean consumeKeyword(String keyword) {
+            skipWhitespace();
+            int end = pos + keyword.length();
+            if (source.startsWith(keyword, pos)
+                    && (end == source.length() || !Character.isJavaIdentifierPart(source.charAt(end)))) {
+                pos = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean consumeChar(char c) {
+            if (!atEnd() && source.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            skipWhitespace();
+            if (!consumeChar(c)) {
+                throw unsupported("缺少 '" + c + "'");
+            }
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        boolean atEnd() {
+            return pos >= source.length();
+        }
+
+        TemplateCompilationException unsupported(String reason) {
+            return new TemplateCompilationException("表达式 ${" + source + "} 第 " + pos + " 个字符: " + reason);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package cn.kmdckj.epersonnelarchivegenerator.controller;
+
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.repository.EmployeeRepository;
+import cn.kmdckj.epersonnelarchivegenerator.service.RenderBulkhead;
+import cn.kmdckj.epersonnelarchivegenerator.service.SyntheticEmployeeFactory;
+import jakarta.servlet.AsyncEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncManager;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 档案PDF的条件请求: If-None-Match 匹配时返回304且不渲染,员工数据变化后旧ETag失效;
+ * 响应体写出前请求就结束时归还渲染许可
+ */
+@SpringBootTest(properties = "archive.warmup.enabled=false")
+@AutoConfigureMockMvc
+class EmployeeArchiveControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeArchiveController controller;
+
+    @Autowired
+    private RenderBulkhead renderBulkhead;
+
+    @Test
+    void matchingEtagReturnsNotModifiedUntilEmployeeChanges() throws Exception {
+        Employee employee = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.SMALL, "etag-flow");
+        employeeRepository.save(employee);
+        String url = "/employee/" + employee.getId();
+
+        String etag = fetchPdf(url, null);
+
+        MvcResult notModified = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        assertEquals(0, notModified.getResponse().getContentAsByteArray().length);
+
+        // 同一员工数据在不同引擎下的档案不同,ETag也不同
+        mockMvc.perform(get(url).param("engine", "native").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(request().asyncStarted());
+
+        employee.setName("改名后");
+        employeeRepository.save(employee);
+        String changedEtag = fetchPdf(url, etag);
+        assertNotEquals(etag, changedEtag);
+    }
+
+    @Test
+    void permitIsReturnedWhenRequestEndsBeforeBodyRuns() throws Exception {
+        Employee employee = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.SMALL, "permit-leak");
+        employeeRepository.save(employee);
+        awaitIdleBulkhead();  // 其他用例未等待的异步渲染可能仍在进行
+        int activeBefore = renderBulkhead.getActiveCount();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/employee/" + employee.getId());
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+
+        ResponseEntity<StreamingResponseBody> entity =
+                controller.getEmployeeArchivePdf(employee.getId(), "native", webRequest);
+        assertEquals(activeBefore + 1, renderBulkhead.getActiveCount());
+
+        // 异步请求开始后、响应体写出前结束(如客户端断开或超时)
+        StandardServletAsyncWebRequest asyncWebRequest = new StandardServletAsyncWebRequest(request, response);
+        WebAsyncManager asyncManager = WebAsyncUtils.getAsyncManager(webRequest);
+        asyncManager.setAsyncWebRequest(asyncWebRequest);
+        asyncManager.setTaskExecutor(new SimpleAsyncTaskExecutor());
+        CountDownLatch bodyNotStarted = new CountDownLatch(1);
+        asyncManager.startCallableProcessing(() -> {
+            bodyNotStarted.await();
+            return null;
+        });
+        asyncWebRequest.onComplete(new AsyncEvent(request.getAsyncContext()));
+        bodyNotStarted.countDown();
+
+        assertEquals(activeBefore, renderBulkhead.getActiveCount());
+
+        // 之后才执行的响应体不再渲染,也不会重复归还许可
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        assertNotNull(entity.getBody());
+        entity.getBody().writeTo(body);
+        assertEquals(0, body.size());
+        assertEquals(activeBefore, renderBulkhead.getActiveCount());
+    }
+
+    private void awaitIdleBulkhead() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (renderBulkhead.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, renderBulkhead.getActiveCount());
+    }
+
+    /**
+     * 请求PDF并期望完整渲染(200),返回响应的ETag
+     */
+    private String fetchPdf(String url, String ifNoneMatch) throws Exception {
+        var builder = get(url);
+        if (ifNoneMatch != null) {
+            builder.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        byte[] body = result.getResponse().getContentAsByteArray();
+        assertTrue(new String(body, 0, Math.min(body.length, 5), StandardCharsets.ISO_8859_1).startsWith("%PDF-"));
+        return etag;
+    }
+}
@@ -0,0 +1,188 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.FieldDefinitionConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.EmployeeFieldExtractors;
+import cn.kmdckj.epersonnelarchivegenerator.engine.config.FieldConfigRegistry;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutZone;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.ZoneMetadata;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.service.MockDataService;
+import cn.kmdckj.epersonnelarchivegenerator.service.SyntheticEmployeeFactory;
+import cn.kmdckj.epersonnelarchivegenerator.util.PhotoNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分区布局缓存: 启用与不启用缓存计算的布局完全相同,包括字段配置重新加载之后和只修改某一部分数据之后
+ */
+@SpringBootTest(properties = "archive.warmup.enabled=false")
+class LayoutEngineTest {
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private RowMetrics rowMetrics;
+
+    @Autowired
+    private PhotoNormalizer photoNormalizer;
+
+    @Autowired
+    private LayoutConfig layoutConfig;
+
+    @Autowired
+    private MockDataService mockDataService;
+
+    private Path configFile;
+    private String originalConfig;
+    private FieldConfigRegistry registry;
+    private LayoutEngine cached;
+    private LayoutEngine uncached;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream is = new ClassPathResource("field-config.yml").getInputStream()) {
+            originalConfig = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        configFile = dir.resolve("field-config.yml");
+        Files.writeString(configFile, originalConfig);
+
+        FieldDefinitionConfig definitionConfig = new FieldDefinitionConfig();
+        definitionConfig.setLocation(configFile.toUri().toString());
+        definitionConfig.setWatch(false);
+        registry = new FieldConfigRegistry(definitionConfig, new DefaultResourceLoader());
+
+        // 两个引擎共用同一个字段配置注册表,只有缓存大小不同
+        EmployeeFieldExtractors extractors = new EmployeeFieldExtractors();
+        cached = new LayoutEngine(registry, extractors, rowMetrics, photoNormalizer, layoutConfig(1024));
+        uncached = new LayoutEngine(registry, extractors, rowMetrics, photoNormalizer, layoutConfig(0));
+    }
+
+    @Test
+    void cachedLayoutMatchesUncached() {
+        List<Employee> employees = employees();
+        // 第二轮全部命中缓存
+        for (int round = 0; round < 2; round++) {
+            assertSameLayouts(employees);
+        }
+    }
+
+    @Test
+    void cachedLayoutMatchesUncachedAfterConfigReload() throws IOException {
+        List<Employee> employees = employees();
+        assertSameLayouts(employees);
+
+        Files.writeString(configFile, originalConfig.replace("\"职位:\"", "\"职务:\""));
+        registry.reload();
+
+        assertSameLayouts(employees);
+        Employee employee = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.TYPICAL, "reload");
+        String layout = describe(cached.calculateLayout(employee));
+        assertTrue(layout.contains("职务:"));
+        assertFalse(layout.contains("职位:"));
+    }
+
+    @Test
+    void cachedLayoutMatchesUncachedAfterSingleSectionEdit() {
+        Employee employee = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.TYPICAL, "edit");
+        assertSameLayout(employee);
+
+        employee.getWorkExperiences().get(0).setDuties("调整后的工作职责");
+        assertSameLayout(employee);
+
+        employee.getFamilyMembers().get(0).setName("新名字");
+        assertSameLayout(employee);
+
+        employee.setPhone("13900000000");
+        assertSameLayout(employee);
+
+        List<Employee.Education> educations = employee.getEducations();
+        employee.setEducations(new ArrayList<>(educations.subList(0, educations.size() - 1)));
+        assertSameLayout(employee);
+
+        employee.setPhotoBase64(null);
+        assertSameLayout(employee);
+        assertTrue(describe(cached.calculateLayout(employee)).contains("调整后的工作职责"));
+    }
+
+    private void assertSameLayouts(List<Employee> employees) {
+        for (Employee employee : employees) {
+            assertSameLayout(employee);
+        }
+    }
+
+    private void assertSameLayout(Employee employee) {
+        assertEquals(describe(uncached.calculateLayout(employee)), describe(cached.calculateLayout(employee)),
+                employee.getId());
+        RowPackingStrategy reordering = new ReorderingRowPacker(2);
+        assertEquals(describe(uncached.calculateLayout(employee, reordering)),
+                describe(cached.calculateLayout(employee, reordering)), employee.getId() + " " + reordering.name());
+    }
+
+    private List<Employee> employees() {
+        List<Employee> employees = new ArrayList<>();
+        for (String id : mockDataService.getAllEmployeeIds()) {
+            employees.add(mockDataService.getEmployeeById(id));
+        }
+        for (SyntheticEmployeeFactory.Profile profile : SyntheticEmployeeFactory.Profile.values()) {
+            employees.add(SyntheticEmployeeFactory.create(profile, "cache-" + profile.name().toLowerCase()));
+        }
+        return employees;
+    }
+
+    private LayoutConfig layoutConfig(int zoneCacheSize) {
+        LayoutConfig config = new LayoutConfig();
+        config.setPacking(layoutConfig.getPacking());
+        config.setZoneCacheSize(zoneCacheSize);
+        return config;
+    }
+
+    /**
+     * 布局模型的完整文本描述: 分区、照片、每一行的属性和每个字段的属性
+     */
+    private static String describe(LayoutModel model) {
+        StringBuilder text = new StringBuilder();
+        for (LayoutZone zone : model.getZones()) {
+            text.append("zone ").append(zone.getZoneId()).append(' ').append(zone.getType());
+            if (zone.getMetadata() instanceof ZoneMetadata.PhotoMetadata photo) {
+                text.append(" photo ").append(photo.getDataUri());
+            }
+            text.append('\n');
+            for (LayoutRow row : zone.getRows()) {
+                text.append("  row break=").append(row.isPageBreak())
+                        .append(" title=").append(row.isTitle())
+                        .append(" group=").append(row.getKeepGroup())
+                        .append(" height=").append(row.getEstimatedHeight()).append('\n');
+                for (LayoutField field : row.getFields()) {
+                    text.append("    ").append(field.getFieldKey())
+                            .append(" [").append(field.getLabel()).append("] [").append(field.getValue())
+                            .append("] width=").append(field.getWidthBasisPoints())
+                            .append(' ').append(field.getType())
+                            .append(" full=").append(field.isForceFullWidth()).append('\n');
+                }
+            }
+        }
+        return text.toString();
+    }
+}
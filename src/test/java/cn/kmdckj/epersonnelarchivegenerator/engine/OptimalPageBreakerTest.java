@@ -0,0 +1,110 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 最优分页: 标题不留在页尾,保持组尽量不跨页、跨页时不留孤行,末页不只剩一行,页数最少
+ * <p>
+ * 每个用例都构造成不考虑对应规则时留白更少的分页方案更便宜,以确认规则确实改变了结果。
+ */
+class OptimalPageBreakerTest {
+
+    private static final double PAGE_HEIGHT = 100.0;
+
+    private final OptimalPageBreaker breaker = new OptimalPageBreaker(PAGE_HEIGHT);
+
+    @Test
+    void titleIsNeverLeftAtPageBottom() {
+        // [60, 标题] | [30, 30] 留白更少,但标题与内容分离
+        List<LayoutRow> rows = List.of(row(60), title(10), row(30), row(30));
+
+        List<Integer> starts = breaker.pageStarts(rows);
+
+        assertEquals(List.of(0, 1), starts);
+        assertNoTitleAtPageEnd(rows, starts);
+    }
+
+    @Test
+    void keepGroupStaysTogetherWhenItFits() {
+        // [50, g, g] | [g, 40] 留白更少,但条目跨页
+        List<LayoutRow> rows = List.of(row(50), row(20, 1), row(20, 1), row(20, 1), row(40));
+
+        assertEquals(List.of(0, 1), breaker.pageStarts(rows));
+    }
+
+    @Test
+    void splitKeepGroupAvoidsWidow() {
+        // 保持组超过一页必须拆开: [a, b, c] | [d, 5] 第一页正好填满,但 d 单独留在下一页
+        List<LayoutRow> rows = List.of(row(10, 1), row(50, 1), row(40, 1), row(45, 1), row(5));
+
+        assertEquals(List.of(0, 2), breaker.pageStarts(rows));
+    }
+
+    @Test
+    void lastPageDoesNotHoldASingleRow() {
+        // [50, 40] | [30] 留白更少,但末页只有一行
+        assertEquals(List.of(0, 1), breaker.pageStarts(List.of(row(50), row(40), row(30))));
+
+        // 只有一页时不受影响
+        assertEquals(List.of(0), breaker.pageStarts(List.of(row(30))));
+    }
+
+    @Test
+    void usesMinimumPageCount() {
+        List<LayoutRow> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rows.add(row(30));
+        }
+
+        List<Integer> starts = breaker.pageStarts(rows);
+
+        assertEquals(4, starts.size());
+        assertTrue(rows.size() - starts.get(starts.size() - 1) >= 2, "末页行数: " + starts);
+        for (int page = 0; page < starts.size(); page++) {
+            int end = page + 1 < starts.size() ? starts.get(page + 1) : rows.size();
+            double height = 0;
+            for (int i = starts.get(page); i < end; i++) {
+                height += rows.get(i).getEstimatedHeight();
+            }
+            assertTrue(height <= PAGE_HEIGHT, "第" + (page + 1) + "页高度 " + height);
+        }
+    }
+
+    @Test
+    void emptyInputHasNoPages() {
+        assertTrue(breaker.pageStarts(List.of()).isEmpty());
+    }
+
+    private static void assertNoTitleAtPageEnd(List<LayoutRow> rows, List<Integer> starts) {
+        for (int page = 1; page < starts.size(); page++) {
+            assertFalse(rows.get(starts.get(page) - 1).isTitle(), "第" + page + "页以标题结束");
+        }
+    }
+
+    private static LayoutRow row(double height) {
+        return row(height, 0);
+    }
+
+    private static LayoutRow row(double height, int keepGroup) {
+        LayoutRow row = new LayoutRow();
+        row.addField(new LayoutField("field", "标签", "值", 50));
+        row.setEstimatedHeight(height);
+        row.setKeepGroup(keepGroup);
+        return row;
+    }
+
+    private static LayoutRow title(double height) {
+        LayoutRow row = row(height);
+        row.setTitle(true);
+        return row;
+    }
+}
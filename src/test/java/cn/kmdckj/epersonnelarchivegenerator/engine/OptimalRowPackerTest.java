@@ -0,0 +1,198 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutRow;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 行填充策略: 独占一行的字段切分字段段,保持顺序的动态规划结果与穷举最优一致,
+ * 有限重排只在窗口内提前字段且行数不多于保持顺序的最优解
+ */
+class OptimalRowPackerTest {
+
+    private static final long SEED = 20240611L;
+
+    @Test
+    void fullWidthFieldSplitsSegments() {
+        LayoutField a = field("a", 50);
+        LayoutField longField = field("long", 30);
+        longField.setForceFullWidth(true);
+        LayoutField c = field("c", 50);
+
+        for (RowPackingStrategy strategy : List.of(new OptimalRowPacker(), new ReorderingRowPacker(3))) {
+            List<LayoutRow> rows = strategy.pack(List.of(a, longField, c));
+
+            assertEquals(3, rows.size(), strategy.name());
+            assertSame(a, rows.get(0).getField(0), strategy.name());
+            assertEquals(1, rows.get(1).getFieldCount(), strategy.name());
+            assertSame(longField, rows.get(1).getField(0), strategy.name());
+            assertEquals(LayoutField.FULL_WIDTH, longField.getWidthBasisPoints(), strategy.name());
+            assertSame(c, rows.get(2).getField(0), strategy.name());
+        }
+    }
+
+    @Test
+    void reorderingDoesNotCrossFullWidthField() {
+        // 不切分时 40 可以提前到第一行与 60 合并
+        LayoutField longField = field("long", 30);
+        longField.setForceFullWidth(true);
+        List<LayoutField> fields = List.of(field("a", 60), field("b", 60), longField, field("c", 40));
+
+        List<LayoutRow> rows = new ReorderingRowPacker(3).pack(fields);
+
+        assertEquals(4, rows.size());
+        assertEquals(fields, flatten(rows));
+    }
+
+    @Test
+    void solveMatchesExhaustiveSearch() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < 500; round++) {
+            List<LayoutField> segment = randomSegment(random, 1 + random.nextInt(12));
+
+            List<List<LayoutField>> rows = OptimalRowPacker.solve(segment);
+
+            long[] best = exhaustiveBest(segment);
+            assertEquals(best[0], rows.size(), "行数, 第" + round + "组");
+            assertEquals(best[1], slackCost(rows), "留白代价, 第" + round + "组");
+            assertEquals(segment, flattenLists(rows));
+            for (List<LayoutField> row : rows) {
+                assertTrue(row.size() == 1 || usedWidth(row) <= LayoutField.FULL_WIDTH);
+            }
+        }
+    }
+
+    @Test
+    void reorderingSavesRowsWithinWindow() {
+        List<LayoutField> fields = List.of(field("a", 60), field("b", 60), field("c", 40), field("d", 40));
+
+        assertEquals(3, new OptimalRowPacker().pack(fields).size());
+        assertEquals(3, new ReorderingRowPacker(0).pack(fields).size());
+        assertEquals(2, new ReorderingRowPacker(1).pack(fields).size());
+    }
+
+    @Test
+    void reorderingRespectsWindowBound() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < 500; round++) {
+            List<LayoutField> segment = randomSegment(random, 1 + random.nextInt(20));
+            int inOrderRows = OptimalRowPacker.solve(segment).size();
+
+            for (int window = 0; window <= 3; window++) {
+                List<LayoutRow> rows = new ReorderingRowPacker(window).pack(segment);
+                List<LayoutField> placed = flatten(rows);
+
+                assertTrue(rows.size() <= inOrderRows, "窗口 " + window + ", 第" + round + "组");
+                if (window == 0) {
+                    assertEquals(segment, placed);
+                }
+                for (LayoutRow row : rows) {
+                    assertTrue(row.getFieldCount() == 1 || row.getUsedBasisPoints() <= LayoutField.FULL_WIDTH);
+                }
+                assertWithinWindow(segment, placed, window);
+            }
+        }
+    }
+
+    /**
+     * placed 是 segment 的排列,且每个字段越过的(原本在它前面的)字段数不超过 window
+     */
+    private static void assertWithinWindow(List<LayoutField> segment, List<LayoutField> placed, int window) {
+        Map<LayoutField, Integer> original = new IdentityHashMap<>();
+        for (int i = 0; i < segment.size(); i++) {
+            original.put(segment.get(i), i);
+        }
+        assertEquals(segment.size(), placed.size());
+        assertTrue(placed.stream().allMatch(original::containsKey));
+        assertEquals(segment.size(), placed.stream().map(original::get).distinct().count());
+
+        for (int p = 0; p < placed.size(); p++) {
+            int index = original.get(placed.get(p));
+            int overtaken = 0;
+            for (int q = p + 1; q < placed.size(); q++) {
+                if (original.get(placed.get(q)) < index) {
+                    overtaken++;
+                }
+            }
+            assertTrue(overtaken <= window, "字段 " + index + " 提前了 " + overtaken + " 个位置, 窗口 " + window);
+        }
+    }
+
+    /**
+     * 穷举所有换行位置,返回 {最少行数, 该行数下的最小留白代价}
+     */
+    private static long[] exhaustiveBest(List<LayoutField> segment) {
+        int n = segment.size();
+        long bestRows = Long.MAX_VALUE;
+        long bestCost = Long.MAX_VALUE;
+        for (int mask = 0; mask < 1 << (n - 1); mask++) {
+            List<List<LayoutField>> rows = new ArrayList<>();
+            List<LayoutField> row = new ArrayList<>();
+            boolean valid = true;
+            for (int i = 0; i < n && valid; i++) {
+                row.add(segment.get(i));
+                if (i == n - 1 || (mask & (1 << i)) != 0) {
+                    valid = row.size() == 1 || usedWidth(row) <= LayoutField.FULL_WIDTH;
+                    rows.add(row);
+                    row = new ArrayList<>();
+                }
+            }
+            if (!valid) {
+                continue;
+            }
+            long cost = slackCost(rows);
+            if (rows.size() < bestRows || (rows.size() == bestRows && cost < bestCost)) {
+                bestRows = rows.size();
+                bestCost = cost;
+            }
+        }
+        return new long[]{bestRows, bestCost};
+    }
+
+    private static long slackCost(List<List<LayoutField>> rows) {
+        long cost = 0;
+        for (List<LayoutField> row : rows) {
+            long slack = Math.max(0, LayoutField.FULL_WIDTH - usedWidth(row));
+            cost += slack * slack;
+        }
+        return cost;
+    }
+
+    private static int usedWidth(List<LayoutField> row) {
+        return row.stream().mapToInt(LayoutField::getWidthBasisPoints).sum();
+    }
+
+    private static List<LayoutField> randomSegment(Random random, int size) {
+        List<LayoutField> segment = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            segment.add(field("f" + i, 5 * (2 + random.nextInt(19))));  // 10% ~ 100%
+        }
+        return segment;
+    }
+
+    private static List<LayoutField> flatten(List<LayoutRow> rows) {
+        List<LayoutField> fields = new ArrayList<>();
+        rows.forEach(row -> fields.addAll(row.getFields()));
+        return fields;
+    }
+
+    private static List<LayoutField> flattenLists(List<List<LayoutField>> rows) {
+        List<LayoutField> fields = new ArrayList<>();
+        rows.forEach(fields::addAll);
+        return fields;
+    }
+
+    private static LayoutField field(String key, double widthPercent) {
+        return new LayoutField(key, key, "值", widthPercent);
+    }
+}
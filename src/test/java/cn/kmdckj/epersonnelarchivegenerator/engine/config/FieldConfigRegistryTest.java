@@ -0,0 +1,81 @@
+package cn.kmdckj.epersonnelarchivegenerator.engine.config;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.FieldDefinitionConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 字段配置重新加载: 整体替换快照,只有内容变化的分组更新版本,无效配置不生效
+ */
+class FieldConfigRegistryTest {
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+    private String original;
+    private FieldConfigRegistry registry;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream is = new ClassPathResource("field-config.yml").getInputStream()) {
+            original = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        file = dir.resolve("field-config.yml");
+        Files.writeString(file, original);
+
+        FieldDefinitionConfig config = new FieldDefinitionConfig();
+        config.setLocation(file.toUri().toString());
+        config.setWatch(false);
+        registry = new FieldConfigRegistry(config, new DefaultResourceLoader());
+    }
+
+    @Test
+    void unchangedReloadKeepsSnapshot() {
+        FieldConfigSnapshot before = registry.getSnapshot();
+        assertSame(before, registry.reload());
+        assertEquals(1, registry.getVersion());
+    }
+
+    @Test
+    void reloadBumpsOnlyChangedGroup() throws IOException {
+        FieldConfigSnapshot before = registry.getSnapshot();
+        Files.writeString(file, original.replace("\"职位:\"", "\"职务:\""));
+
+        FieldConfigSnapshot after = registry.reload();
+
+        assertEquals(2, after.getVersion());
+        assertEquals(2, after.getGroupVersion(FieldConfigRegistry.FieldGroup.WORK_EXPERIENCE));
+        assertEquals(1, after.getGroupVersion(FieldConfigRegistry.FieldGroup.BASIC_INFO));
+        assertEquals(1, after.getGroupVersion(FieldConfigRegistry.FieldGroup.FAMILY));
+        assertNotEquals(before.getDigest(), after.getDigest());
+        assertEquals("职务:", after.getConfig("position").getLabel());
+        // 旧快照不受影响
+        assertEquals("职位:", before.getConfig("position").getLabel());
+    }
+
+    @Test
+    void invalidReloadKeepsCurrentSnapshot() throws IOException {
+        FieldConfigSnapshot before = registry.getSnapshot();
+        Files.writeString(file, original.replace("width: 50\n", "width: 150\n"));
+
+        assertThrows(IllegalArgumentException.class, registry::reload);
+        assertSame(before, registry.getSnapshot());
+        assertFalse(before.getConfigsByGroup(FieldConfigRegistry.FieldGroup.BASIC_INFO).isEmpty());
+    }
+}
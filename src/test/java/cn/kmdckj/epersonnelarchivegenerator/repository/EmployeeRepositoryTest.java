@@ -0,0 +1,176 @@
+package cn.kmdckj.epersonnelarchivegenerator.repository;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.EmployeeCacheConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.service.EmployeeArchiveService;
+import cn.kmdckj.epersonnelarchivegenerator.service.MockDataService;
+import cn.kmdckj.epersonnelarchivegenerator.service.SyntheticEmployeeFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 员工数据的查询数约束: 完整加载的查询数固定,不随条目数增长;存在性检查和布局统计不读取照片,
+ * 缓存命中时只查版本列
+ */
+@SpringBootTest(properties = {
+        "archive.warmup.enabled=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class EmployeeRepositoryTest {
+
+    /** 员工联表工作经历 + 教育背景子查询 + 家庭成员子查询 */
+    private static final long DETAIL_STATEMENTS = 3;
+    /** 按主键读取照片列 */
+    private static final long PHOTO_STATEMENTS = 1;
+    /** 缓存校验: 按主键读取版本列 */
+    private static final long VERSION_STATEMENTS = 1;
+
+    @Autowired
+    private JpaEmployeeRepository jpaEmployeeRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeArchiveService employeeArchiveService;
+
+    @Autowired
+    private MockDataService mockDataService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void sampleDataIsSeeded() {
+        assertEquals(mockDataService.getAllEmployeeIds(), employeeRepository.findAllIds().stream()
+                .filter(id -> mockDataService.getEmployeeById(id) != null)
+                .toList());
+    }
+
+    @Test
+    void fullLoadRoundTripsAndUsesFixedStatements() {
+        Employee loaded = jpaEmployeeRepository.findById("001").orElseThrow();
+
+        assertEquals(DETAIL_STATEMENTS + PHOTO_STATEMENTS, statistics.getPrepareStatementCount());
+        assertEquals(mockDataService.getEmployeeById("001"), loaded);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithEntries() {
+        Employee large = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.PATHOLOGICAL, "query-count-large");
+        large.setEducations(repeat(mockDataService.getEmployeeById("001").getEducations(), 20));
+        jpaEmployeeRepository.save(large);
+        statistics.clear();
+
+        Employee loaded = jpaEmployeeRepository.findById(large.getId()).orElseThrow();
+
+        assertTrue(loaded.getWorkExperiences().size() > 10);
+        assertEquals(large.getEducations().size(), loaded.getEducations().size());
+        assertEquals(large.getWorkExperiences(), loaded.getWorkExperiences());
+        assertEquals(DETAIL_STATEMENTS + PHOTO_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void existsDoesNotLoadEmployeeOrPhoto() {
+        assertTrue(employeeArchiveService.employeeExists("001"));
+        assertFalse(employeeArchiveService.employeeExists("no-such-employee"));
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void statsDoNotLoadPhoto() {
+        Employee withoutPhoto = jpaEmployeeRepository.findByIdWithoutPhoto("001").orElseThrow();
+        assertNull(withoutPhoto.getPhotoBase64());
+        assertEquals(DETAIL_STATEMENTS, statistics.getPrepareStatementCount());
+
+        employeeArchiveService.evictEmployee("001");
+        statistics.clear();
+        employeeArchiveService.getLayoutStatistics("001");
+        assertEquals(VERSION_STATEMENTS + DETAIL_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void cachedLoadOnlyChecksVersion() {
+        employeeArchiveService.evictEmployee("001");
+        Employee first = employeeRepository.findById("001").orElseThrow();
+        assertEquals(VERSION_STATEMENTS + DETAIL_STATEMENTS + PHOTO_STATEMENTS, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        Employee second = employeeRepository.findById("001").orElseThrow();
+        employeeArchiveService.getLayoutStatistics("001");
+        assertEquals(2 * VERSION_STATEMENTS, statistics.getPrepareStatementCount());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void saveBypassingCacheIsDetectedByVersion() {
+        Employee employee = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.SMALL, "cache-version");
+        jpaEmployeeRepository.save(employee);
+        assertEquals(employee.getName(), employeeRepository.findById(employee.getId()).orElseThrow().getName());
+
+        employee.setName("改名后");
+        employee.setPhotoBase64(null);
+        jpaEmployeeRepository.save(employee);
+
+        Employee reloaded = employeeRepository.findById(employee.getId()).orElseThrow();
+        assertEquals("改名后", reloaded.getName());
+        assertNull(reloaded.getPhotoBase64());
+    }
+
+    @Test
+    void oversizedPhotoIsNotCached() {
+        EmployeeCacheConfig config = new EmployeeCacheConfig();
+        config.setPhotoMaxBytes(8 << 10);
+        config.setPhotoMaxEntryBytes(4 << 10);
+        CachingEmployeeRepository cache = new CachingEmployeeRepository(jpaEmployeeRepository, config,
+                new SimpleMeterRegistry());
+
+        Employee bigPhoto = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.SMALL, "cache-big-photo");
+        bigPhoto.setPhotoBase64("A".repeat(64 << 10));
+        jpaEmployeeRepository.save(bigPhoto);
+
+        cache.findById("001").orElseThrow();
+        cache.findById(bigPhoto.getId()).orElseThrow();
+        statistics.clear();
+
+        cache.findById("001").orElseThrow();
+        assertEquals(VERSION_STATEMENTS, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertEquals(bigPhoto.getPhotoBase64(), cache.findById(bigPhoto.getId()).orElseThrow().getPhotoBase64());
+        assertEquals(VERSION_STATEMENTS + PHOTO_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    private static <T> List<T> repeat(List<T> items, int times) {
+        List<T> result = new ArrayList<>(items.size() * times);
+        for (int i = 0; i < times; i++) {
+            result.addAll(items);
+        }
+        return result;
+    }
+}
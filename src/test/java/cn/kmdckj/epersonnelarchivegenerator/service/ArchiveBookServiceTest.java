@@ -0,0 +1,80 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 档案汇编: 两种引擎都把每名员工的全部页面按顺序放入汇编,每人一个书签,同一字体在全书中只嵌入一次
+ */
+@SpringBootTest(properties = "archive.warmup.enabled=false")
+class ArchiveBookServiceTest {
+
+    @Autowired
+    private ArchiveBookService archiveBookService;
+
+    @Autowired
+    private EmployeeArchiveService employeeArchiveService;
+
+    @Autowired
+    private MockDataService mockDataService;
+
+    @Test
+    void bookContainsEveryArchiveWithOneSharedFont() throws IOException {
+        List<String> employeeIds = mockDataService.getAllEmployeeIds();
+        for (PdfConfig.RenderEngine engine : PdfConfig.RenderEngine.values()) {
+            int expectedPages = 0;
+            for (String employeeId : employeeIds) {
+                try (PDDocument archive = PDDocument.load(
+                        employeeArchiveService.generateEmployeeArchivePdf(employeeId, engine))) {
+                    expectedPages += archive.getNumberOfPages();
+                }
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            archiveBookService.writeBook(employeeIds, engine, out);
+            try (PDDocument book = PDDocument.load(out.toByteArray())) {
+                assertEquals(expectedPages, book.getNumberOfPages(), engine.name());
+
+                List<String> titles = new ArrayList<>();
+                for (PDOutlineItem item : book.getDocumentCatalog().getDocumentOutline().children()) {
+                    titles.add(item.getTitle());
+                }
+                assertEquals(employeeIds.size(), titles.size(), engine.name());
+
+                // 同一字体(去掉子集前缀后同名)在全书中只有一个字体对象
+                Map<String, Set<COSBase>> fonts = new HashMap<>();
+                for (PDPage page : book.getPages()) {
+                    COSDictionary pageFonts = page.getResources().getCOSObject().getCOSDictionary(COSName.FONT);
+                    for (COSName name : page.getResources().getFontNames()) {
+                        COSBase font = pageFonts.getDictionaryObject(name);
+                        String baseFont = ((COSDictionary) font).getNameAsString(COSName.BASE_FONT);
+                        fonts.computeIfAbsent(baseFont.substring(baseFont.indexOf('+') + 1),
+                                key -> Collections.newSetFromMap(new IdentityHashMap<>())).add(font);
+                    }
+                }
+                fonts.forEach((baseFont, objects) ->
+                        assertEquals(1, objects.size(), engine + " 字体 " + baseFont + " 的对象数"));
+            }
+        }
+    }
+}
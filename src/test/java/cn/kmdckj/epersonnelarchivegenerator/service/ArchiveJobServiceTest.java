@@ -0,0 +1,61 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveJob;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import cn.kmdckj.epersonnelarchivegenerator.repository.EmployeeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * 批量任务去重: 员工数据版本和渲染设置都未变化时复用任务,员工数据保存后提交新任务
+ */
+@SpringBootTest(properties = "archive.warmup.enabled=false")
+class ArchiveJobServiceTest {
+
+    @TempDir
+    static Path storeDir;
+
+    @DynamicPropertySource
+    static void jobStore(DynamicPropertyRegistry registry) {
+        registry.add("archive.job.store-dir", () -> storeDir.toString());
+    }
+
+    @Autowired
+    private ArchiveJobService archiveJobService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Test
+    void bulkSubmissionIsDeduplicatedByEmployeeVersion() {
+        Employee employee = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.SMALL, "job-dedup");
+        employeeRepository.save(employee);
+        List<String> ids = List.of(employee.getId(), "missing-employee");
+
+        ArchiveJob first = archiveJobService.submitBulk(ArchiveJob.Type.ZIP, ids, PdfConfig.RenderEngine.NATIVE);
+        assertEquals(first.getId(),
+                archiveJobService.submitBulk(ArchiveJob.Type.ZIP, ids, PdfConfig.RenderEngine.NATIVE).getId());
+
+        // 类型或引擎不同是不同的任务
+        assertNotEquals(first.getId(),
+                archiveJobService.submitBulk(ArchiveJob.Type.BOOK, ids, PdfConfig.RenderEngine.NATIVE).getId());
+        assertNotEquals(first.getId(),
+                archiveJobService.submitBulk(ArchiveJob.Type.ZIP, ids, PdfConfig.RenderEngine.HTML).getId());
+
+        employee.setName("改名后");
+        employeeRepository.save(employee);
+        assertNotEquals(first.getId(),
+                archiveJobService.submitBulk(ArchiveJob.Type.ZIP, ids, PdfConfig.RenderEngine.NATIVE).getId());
+    }
+}
@@ -0,0 +1,90 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 模板重新加载: 解释执行只使用注册表加载的源码,模板摘要覆盖的内容就是实际渲染的内容
+ */
+@SpringBootTest(properties = {
+        "archive.warmup.enabled=false",
+        "archive.templates.watch=false"
+})
+class ArchiveTemplateRegistryTest {
+
+    private static final String ORIGINAL_TITLE = "<title>人事档案资料表</title>";
+    private static final String EDITED_TITLE = "<title>人事档案资料表(修订)</title>";
+
+    @TempDir
+    static Path templateDir;
+
+    @DynamicPropertySource
+    static void templatePrefix(DynamicPropertyRegistry registry) {
+        registry.add("spring.thymeleaf.prefix", () -> {
+            copyTemplate("archive");
+            return templateDir.toUri().toString();
+        });
+    }
+
+    @Autowired
+    private ArchiveTemplateRegistry templateRegistry;
+
+    @Autowired
+    private ThymeleafRenderService thymeleafRenderService;
+
+    @Autowired
+    private ArchiveRenderService archiveRenderService;
+
+    @Test
+    void interpretedRenderUsesLoadedSourceUntilReload() throws IOException {
+        ArchiveTemplate before = templateRegistry.resolve(ArchiveType.STANDARD);
+        LayoutModel layout = archiveRenderService.calculateOptimizedLayout(
+                SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.SMALL, "reload"), before);
+
+        // 文件已修改但尚未重新加载: 解释执行仍使用已加载的源码,与编译结果和摘要一致
+        Path file = templateDir.resolve("archive.html");
+        Files.writeString(file, Files.readString(file).replace(ORIGINAL_TITLE, EDITED_TITLE));
+        String stale = thymeleafRenderService.renderArchiveHtmlInterpreted(layout, before);
+        assertTrue(stale.contains(ORIGINAL_TITLE));
+        assertEquals(thymeleafRenderService.renderArchiveHtmlCompiled(layout, before), stale);
+
+        List<String> changed = templateRegistry.reload();
+        assertEquals(List.of("archive"), changed);
+
+        ArchiveTemplate after = templateRegistry.resolve(ArchiveType.STANDARD);
+        assertNotEquals(before.getDigest(), after.getDigest());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        String fresh = thymeleafRenderService.renderArchiveHtmlInterpreted(layout, after);
+        assertTrue(fresh.contains(EDITED_TITLE));
+        assertEquals(thymeleafRenderService.renderArchiveHtmlCompiled(layout, after), fresh);
+
+        // 仍持有旧对象的渲染继续使用旧源码
+        assertFalse(thymeleafRenderService.renderArchiveHtmlInterpreted(layout, before).contains(EDITED_TITLE));
+    }
+
+    private static void copyTemplate(String name) {
+        try (InputStream input = new ClassPathResource("templates/" + name + ".html").getInputStream()) {
+            Files.write(templateDir.resolve(name + ".html"), input.readAllBytes());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 批量导出: 清单逐项记录每名员工的结果,进度回调抛出异常时取消尚未开始的渲染
+ */
+@SpringBootTest(properties = {
+        "archive.warmup.enabled=false",
+        "archive.bulk.parallelism=1",
+        "archive.bulk.max-in-flight=4"
+})
+class BulkArchiveExportServiceTest {
+
+    @Autowired
+    private BulkArchiveExportService bulkArchiveExportService;
+
+    @Autowired
+    private MockDataService mockDataService;
+
+    @Autowired
+    @Qualifier("bulkRenderExecutor")
+    private ExecutorService renderExecutor;
+
+    @Test
+    void manifestListsEveryEmployee() throws IOException {
+        List<String> employeeIds = new ArrayList<>(mockDataService.getAllEmployeeIds());
+        employeeIds.add("missing-employee");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkArchiveExportService.exportZip(employeeIds, PdfConfig.RenderEngine.NATIVE, out);
+
+        List<String> entries = new ArrayList<>();
+        String manifest = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()),
+                StandardCharsets.UTF_8)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+                if (entry.getName().equals("manifest.csv")) {
+                    manifest = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+
+        assertEquals(employeeIds.size(), entries.size());
+        assertEquals("manifest.csv", entries.get(entries.size() - 1));
+        List<String> lines = manifest.lines().toList();
+        assertEquals("employeeId,status,fileName,sizeBytes,durationMs,message", lines.get(0));
+        assertEquals(employeeIds.size() + 1, lines.size());
+        List<String> listed = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] columns = line.split(",", -1);
+            listed.add(columns[0]);
+            String expectedStatus = columns[0].equals("missing-employee") ? "NOT_FOUND" : "OK";
+            assertEquals(expectedStatus, columns[1], line);
+        }
+        Collections.sort(listed);
+        List<String> expected = new ArrayList<>(employeeIds);
+        Collections.sort(expected);
+        assertEquals(expected, listed);
+    }
+
+    @Test
+    void failingProgressCallbackCancelsQueuedRenders() throws Exception {
+        // 单线程、在途4个: 第二份渲染完成后停住,进度回调等它停住后抛出,此时第三、四份还在排队
+        List<String> employeeIds = Collections.nCopies(8, mockDataService.getAllEmployeeIds().get(0));
+        AtomicInteger rendered = new AtomicInteger();
+        CountDownLatch secondRendered = new CountDownLatch(1);
+        CountDownLatch exportFailed = new CountDownLatch(1);
+
+        assertThrows(IllegalStateException.class, () -> bulkArchiveExportService.exportZip(
+                employeeIds, PdfConfig.RenderEngine.NATIVE, OutputStream.nullOutputStream(),
+                completed -> {
+                    awaitQuietly(secondRendered);
+                    throw new IllegalStateException("进度回调失败");
+                },
+                employee -> {
+                    if (rendered.incrementAndGet() == 2) {
+                        secondRendered.countDown();
+                        awaitQuietly(exportFailed);
+                    }
+                }));
+        exportFailed.countDown();
+
+        // 线程池按提交顺序执行,这个任务完成时之前提交的任务都已执行或被取消
+        renderExecutor.submit(() -> {
+        }).get(60, TimeUnit.SECONDS);
+        assertEquals(2, rendered.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(60, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();  // 取消时被中断
+        }
+    }
+}
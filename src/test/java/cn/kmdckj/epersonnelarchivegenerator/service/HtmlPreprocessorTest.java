@@ -0,0 +1,127 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 流式预处理过滤器与原正则实现对照: 任意切分写入、跨写入边界的换行、head中的charset声明,
+ * 以及head之后按片段整体写出的快速路径,输出和结构校验结果都一致
+ * <p>
+ * 唯一有意的差异: 只在 &lt;/head&gt; 之后出现的charset声明不再阻止补全。
+ */
+class HtmlPreprocessorTest {
+
+    private static final long SEED = 20240611L;
+    private static final String CHARSET_META = "\n    <meta charset=\"UTF-8\"/>";
+
+    private static final List<String> TOKENS = List.of(
+            "<html>", "</html>", "<html lang=\"zh\">", "<head>", "</head>", "<body>", "</body>", "<body class=\"a\">",
+            "<meta charset=\"UTF-8\"/>", "charset=", "charset =", "charset", "<title>档案</title>",
+            "\n", "\n", "\n", "\r", "\r\n", "\r\n", "\n\n\n", "\r\n\r\n\r\n", "\r\r\n",
+            "<", ">", "/", "<he", "ad>", "</he", "<bo", "dy", "<ht", "ml", "c", "h", "=",
+            "x", "中文", "  ", "<div>", "</div>", "<td>张三</td>");
+
+    private final HtmlPreprocessor preprocessor = new HtmlPreprocessor();
+
+    @Test
+    void filterMatchesRegexImplementation() throws IOException {
+        Random random = new Random(SEED);
+        for (int round = 0; round < 5000; round++) {
+            String html = randomDocument(random);
+            String label = "第" + round + "组: " + html.replace("\r", "\\r").replace("\n", "\\n");
+
+            StringBuilder out = new StringBuilder();
+            HtmlPreprocessor.Filter filter = preprocessor.newFilter(out);
+            writeInChunks(filter, html, random);
+            filter.close();
+
+            String expected = reference(html);
+            assertEquals(expected, out.toString(), label);
+            assertEquals(referenceValid(expected), filter.isValid(), label);
+        }
+    }
+
+    @Test
+    void preprocessUsesTheSameFilter() {
+        String html = "<html>\n<head>\n\n\n\n<title>t</title>\n</head>\r\n\r\n\r\n<body></body></html>";
+
+        assertEquals(reference(html), preprocessor.preprocess(html));
+        assertEquals("", preprocessor.preprocess(""));
+    }
+
+    /**
+     * 原实现: 正则合并换行,整篇不含charset声明时在第一个 &lt;head&gt; 后补全
+     * (charset的查找范围截止到第一个 &lt;head&gt; 之后的 &lt;/head&gt;)
+     */
+    private static String reference(String html) {
+        String processed = html.replaceAll("(\r?\n){3,}", "\n\n");
+        int head = processed.indexOf("<head>");
+        if (head < 0) {
+            return processed;
+        }
+        int headEnd = processed.indexOf("</head>", head + "<head>".length());
+        String scope = headEnd < 0 ? processed : processed.substring(0, headEnd + "</head>".length());
+        if (scope.contains("charset=") || scope.contains("charset =")) {
+            return processed;
+        }
+        return processed.replaceFirst("<head>", "<head>" + CHARSET_META);
+    }
+
+    private static boolean referenceValid(String html) {
+        return html.contains("<html") && html.contains("</html>")
+                && html.contains("<body") && html.contains("</body>");
+    }
+
+    private static String randomDocument(Random random) {
+        StringBuilder html = new StringBuilder();
+        boolean structured = random.nextInt(4) > 0;
+        if (structured) {
+            html.append("<!DOCTYPE html>\n<html>\n<head>");
+        }
+        int tokens = random.nextInt(40);
+        for (int i = 0; i < tokens; i++) {
+            html.append(TOKENS.get(random.nextInt(TOKENS.size())));
+        }
+        if (structured) {
+            html.append("</head>\n<body>");
+            int bodyTokens = random.nextInt(40);
+            for (int i = 0; i < bodyTokens; i++) {
+                html.append(TOKENS.get(random.nextInt(TOKENS.size())));
+            }
+            html.append("</body>\n</html>");
+            if (random.nextBoolean()) {
+                html.append("\r\n\r\n\r\n");
+            }
+        }
+        return html.toString();
+    }
+
+    /**
+     * 按随机长度切分写入,混用各个写入方法(字符数组带偏移量)
+     */
+    private static void writeInChunks(HtmlPreprocessor.Filter filter, String html, Random random) throws IOException {
+        int position = 0;
+        while (position < html.length()) {
+            int length = Math.min(html.length() - position, random.nextInt(8) == 0 ? 64 : 1 + random.nextInt(6));
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    for (int i = 0; i < length; i++) {
+                        filter.write(html.charAt(position + i));
+                    }
+                }
+                case 1 -> {
+                    char[] padded = ("##" + html.substring(position, position + length) + "##").toCharArray();
+                    filter.write(padded, 2, length);
+                }
+                case 2 -> filter.write("##" + html.substring(position, position + length) + "##", 2, length);
+                default -> filter.append(html, position, position + length);
+            }
+            position += length;
+        }
+    }
+}
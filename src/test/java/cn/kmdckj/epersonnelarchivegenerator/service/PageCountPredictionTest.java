@@ -0,0 +1,91 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.LayoutConfig;
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.PaginatedLayout;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分页预测: 布局计算得到的页数必须与两种引擎实际输出的页数一致
+ */
+@SpringBootTest(properties = "archive.warmup.enabled=false")
+class PageCountPredictionTest {
+
+    @Autowired
+    private EmployeeArchiveService employeeArchiveService;
+
+    @Autowired
+    private ArchiveRenderService archiveRenderService;
+
+    @Autowired
+    private MockDataService mockDataService;
+
+    @Autowired
+    private LayoutConfig layoutConfig;
+
+    @Test
+    void predictedPageCountMatchesRenderedPdf() throws IOException {
+        for (Employee employee : employees()) {
+            int predicted = PaginatedLayout.of(archiveRenderService.calculateOptimizedLayout(employee)).pageCount();
+            for (PdfConfig.RenderEngine engine : PdfConfig.RenderEngine.values()) {
+                assertEquals(predicted, renderedPages(employee, engine), engine + ": " + employee.getId());
+            }
+        }
+    }
+
+    @Test
+    void rowsTallerThanAPageAreSplitWithoutLosingText() {
+        Employee employee = SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.PATHOLOGICAL, "split");
+        String duties = employee.getWorkExperiences().get(0).getDuties();
+        PaginatedLayout layout = PaginatedLayout.of(archiveRenderService.calculateOptimizedLayout(employee));
+
+        // 第一条工作经历的职责: 第一段带标签,续行标签为空
+        StringBuilder joined = new StringBuilder();
+        int parts = 0;
+        for (int row = 0; row < layout.rowCount(); row++) {
+            assertTrue(layout.estimatedHeight(row) <= layoutConfig.getPage().getUsableHeight(), "行 " + row);
+            for (int i = 0; i < layout.fieldCount(row); i++) {
+                LayoutField field = layout.field(row, i);
+                if ("duties".equals(field.getFieldKey()) && (parts == 0 || field.getLabel().isEmpty())) {
+                    joined.append(field.getValue());
+                    parts++;
+                }
+            }
+        }
+
+        assertTrue(parts > 1, "超长职责应拆成多行");
+        assertEquals(duties, joined.toString());
+    }
+
+    private List<Employee> employees() {
+        List<Employee> employees = new ArrayList<>();
+        for (String id : mockDataService.getAllEmployeeIds()) {
+            employees.add(mockDataService.getEmployeeById(id));
+        }
+        for (SyntheticEmployeeFactory.Profile profile : SyntheticEmployeeFactory.Profile.values()) {
+            employees.add(SyntheticEmployeeFactory.create(profile, "pages-" + profile.name().toLowerCase()));
+        }
+        return employees;
+    }
+
+    private int renderedPages(Employee employee, PdfConfig.RenderEngine engine) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        employeeArchiveService.writeEmployeeArchivePdf(employee, engine, out);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            return document.getNumberOfPages();
+        }
+    }
+}
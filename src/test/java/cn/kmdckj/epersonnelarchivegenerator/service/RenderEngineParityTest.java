@@ -0,0 +1,128 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.config.PdfConfig;
+import cn.kmdckj.epersonnelarchivegenerator.engine.TextMeasurer;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutField;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutZone;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.PaginatedLayout;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.ZoneMetadata;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 渲染引擎A/B对照: 两种引擎输出的页数相同,布局中每一页的单元格内容都出现在两种引擎输出的同一页上
+ * <p>
+ * 单元格内容按字符计数比较(折行位置因引擎而异);字体中没有的字符两种引擎各自替换,不参与比较。
+ */
+@SpringBootTest(properties = "archive.warmup.enabled=false")
+class RenderEngineParityTest {
+
+    @Autowired
+    private EmployeeArchiveService employeeArchiveService;
+
+    @Autowired
+    private ArchiveRenderService archiveRenderService;
+
+    @Autowired
+    private MockDataService mockDataService;
+
+    @Autowired
+    private TextMeasurer textMeasurer;
+
+    @Test
+    void enginesRenderSamePagesAndCells() throws IOException {
+        for (Employee employee : employees()) {
+            PaginatedLayout layout = PaginatedLayout.of(archiveRenderService.calculateOptimizedLayout(employee));
+
+            for (PdfConfig.RenderEngine engine : PdfConfig.RenderEngine.values()) {
+                String label = engine + ": " + employee.getId();
+                List<String> pages = renderPageTexts(employee, engine);
+                assertEquals(layout.pageCount(), pages.size(), label);
+
+                for (int page = 0; page < layout.pageCount(); page++) {
+                    Map<Integer, Integer> rendered = countCharacters(pages.get(page));
+                    Map<Integer, Integer> expected = expectedCharacters(layout, page);
+                    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+                        int actual = rendered.getOrDefault(entry.getKey(), 0);
+                        assertTrue(actual >= entry.getValue(), String.format("%s 第%d页缺少字符 '%s': 期望至少 %d, 实际 %d",
+                                label, page + 1, Character.toString(entry.getKey()), entry.getValue(), actual));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void photoZoneSurvivesPagination() {
+        for (Employee employee : employees()) {
+            PaginatedLayout layout = PaginatedLayout.of(archiveRenderService.calculateOptimizedLayout(employee));
+            assertEquals(LayoutZone.ZoneType.BASIC_INFO_WITH_PHOTO, layout.zoneType(0), employee.getId());
+            if (employee.getPhotoBase64() != null) {
+                assertInstanceOf(ZoneMetadata.PhotoMetadata.class, layout.zoneMetadata(0), employee.getId());
+            }
+        }
+    }
+
+    private List<Employee> employees() {
+        List<Employee> employees = new ArrayList<>();
+        for (String id : mockDataService.getAllEmployeeIds()) {
+            employees.add(mockDataService.getEmployeeById(id));
+        }
+        for (SyntheticEmployeeFactory.Profile profile : SyntheticEmployeeFactory.Profile.values()) {
+            employees.add(SyntheticEmployeeFactory.create(profile, "parity-" + profile.name().toLowerCase()));
+        }
+        return employees;
+    }
+
+    private List<String> renderPageTexts(Employee employee, PdfConfig.RenderEngine engine) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        employeeArchiveService.writeEmployeeArchivePdf(employee, engine, out);
+        try (PDDocument document = PDDocument.load(out.toByteArray())) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            List<String> pages = new ArrayList<>(document.getNumberOfPages());
+            for (int page = 1; page <= document.getNumberOfPages(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                pages.add(stripper.getText(document));
+            }
+            return pages;
+        }
+    }
+
+    /**
+     * 布局第 page 页所有单元格(标签和值)中可显示字符的计数
+     */
+    private Map<Integer, Integer> expectedCharacters(PaginatedLayout layout, int page) {
+        StringBuilder text = new StringBuilder();
+        for (int row = layout.pageStart(page); row < layout.pageEnd(page); row++) {
+            for (int i = 0; i < layout.fieldCount(row); i++) {
+                LayoutField field = layout.field(row, i);
+                text.append(field.getLabel()).append(field.getValue());
+            }
+        }
+        return countCharacters(text);
+    }
+
+    private Map<Integer, Integer> countCharacters(CharSequence text) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        text.codePoints()
+                .filter(cp -> !Character.isWhitespace(cp) && textMeasurer.canDisplay(cp))
+                .forEach(cp -> counts.merge(cp, 1, Integer::sum));
+        return counts;
+    }
+}
@@ -0,0 +1,138 @@
+package cn.kmdckj.epersonnelarchivegenerator.service;
+
+import cn.kmdckj.epersonnelarchivegenerator.engine.LayoutEngine;
+import cn.kmdckj.epersonnelarchivegenerator.engine.layout.LayoutModel;
+import cn.kmdckj.epersonnelarchivegenerator.model.ArchiveType;
+import cn.kmdckj.epersonnelarchivegenerator.model.Employee;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.w3c.dom.Document;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 编译模板与Thymeleaf解释执行的输出必须逐字节一致,直接构建的DOM必须相同
+ */
+@SpringBootTest(properties = "archive.warmup.enabled=false")
+class ThymeleafRenderServiceTest {
+
+    @Autowired
+    private ThymeleafRenderService thymeleafRenderService;
+
+    @Autowired
+    private ArchiveRenderService archiveRenderService;
+
+    @Autowired
+    private ArchiveTemplateRegistry templateRegistry;
+
+    @Autowired
+    private LayoutEngine layoutEngine;
+
+    @Autowired
+    private MockDataService mockDataService;
+
+    @Test
+    void archiveTemplatesAreCompiled() {
+        assertTrue(thymeleafRenderService.isCompiled());
+        for (ArchiveTemplate template : templateRegistry.getTemplates().values()) {
+            assertTrue(template.isCompiled(), template.getName());
+        }
+    }
+
+    @Test
+    void templatesAreResolvedByArchiveType() {
+        assertEquals(ArchiveType.values().length, templateRegistry.getTemplates().size());
+        assertEquals(templateRegistry.resolve(ArchiveType.STANDARD), templateRegistry.resolve(null));
+    }
+
+    @Test
+    void archiveTitleIsConfiguredPerType() {
+        ArchiveTemplate standard = templateRegistry.resolve(ArchiveType.STANDARD);
+        ArchiveTemplate cadre = templateRegistry.resolve(ArchiveType.CADRE);
+        // 同一个模板文件,只有档案标题不同
+        assertEquals(standard.getName(), cadre.getName());
+        assertSame(standard.getCompiled(), cadre.getCompiled());
+        assertNotEquals(standard.getDigest(), cadre.getDigest());
+
+        LayoutModel layout = archiveRenderService.calculateOptimizedLayout(
+                SyntheticEmployeeFactory.create(SyntheticEmployeeFactory.Profile.SMALL, "title"), standard);
+        assertTrue(thymeleafRenderService.renderArchiveHtml(layout, cadre)
+                .contains("<div class=\"document-title\">干部人事档案</div>"));
+        assertFalse(thymeleafRenderService.renderArchiveHtml(layout, standard).contains("document-title\">"));
+    }
+
+    @Test
+    void compiledOutputMatchesInterpreterForMockEmployees() {
+        for (String id : mockDataService.getAllEmployeeIds()) {
+            assertSameOutput(mockDataService.getEmployeeById(id));
+        }
+    }
+
+    @Test
+    void compiledOutputMatchesInterpreterForSyntheticProfiles() {
+        for (SyntheticEmployeeFactory.Profile profile : SyntheticEmployeeFactory.Profile.values()) {
+            assertSameOutput(SyntheticEmployeeFactory.create(profile, "test-" + profile.name().toLowerCase()));
+        }
+    }
+
+    @Test
+    void compiledOutputMatchesInterpreterForEdgeCases() {
+        Employee employee = new Employee();
+        employee.setId("edge");
+        employee.setName("<b>张&三</b>");
+        employee.setGender("\"男\"");
+        employee.setBirthDate(LocalDate.of(1990, 1, 1));
+        employee.setCurrentAddress("O'Brien's <script>alert(1)</script> & 路");
+        employee.setPhotoBase64("not-a-photo");
+
+        Employee.WorkExperience experience = new Employee.WorkExperience();
+        experience.setStartDate(LocalDate.of(2020, 1, 1));
+        experience.setCompany("A&B \"公司\"");
+        experience.setDuties(null);
+        List<Employee.WorkExperience> experiences = new ArrayList<>();
+        experiences.add(experience);
+        employee.setWorkExperiences(experiences);
+        assertSameOutput(employee);
+
+        employee.setPhotoBase64(null);
+        employee.setWorkExperiences(null);
+        assertSameOutput(employee);
+    }
+
+    private void assertSameOutput(Employee employee) {
+        for (ArchiveTemplate template : templateRegistry.getTemplates().values()) {
+            String label = template.getName() + ": " + employee.getId();
+            // 优化后的布局只有正文分区;未优化的布局覆盖带照片的基本信息分区
+            LayoutModel optimized = archiveRenderService.calculateOptimizedLayout(employee, template);
+            assertEquals(thymeleafRenderService.renderArchiveHtmlInterpreted(optimized, template),
+                    thymeleafRenderService.renderArchiveHtmlCompiled(optimized, template), "优化布局: " + label);
+
+            LayoutModel unoptimized = layoutEngine.calculateLayout(employee, template.getRowPacking());
+            assertEquals(thymeleafRenderService.renderArchiveHtmlInterpreted(unoptimized, template),
+                    thymeleafRenderService.renderArchiveHtmlCompiled(unoptimized, template), "未优化布局: " + label);
+
+            assertSameDocument(thymeleafRenderService.renderArchiveDocumentInterpreted(optimized, template),
+                    thymeleafRenderService.renderArchiveDocumentCompiled(optimized, template), "优化布局DOM: " + label);
+            assertSameDocument(thymeleafRenderService.renderArchiveDocumentInterpreted(unoptimized, template),
+                    thymeleafRenderService.renderArchiveDocumentCompiled(unoptimized, template), "未优化布局DOM: " + label);
+        }
+    }
+
+    /**
+     * 两种方式构建的DOM相同(相邻文本节点的拆分方式不同,比较前合并)
+     */
+    private void assertSameDocument(Document expected, Document actual, String label) {
+        expected.normalizeDocument();
+        actual.normalizeDocument();
+        assertTrue(expected.isEqualNode(actual), label);
+    }
+}
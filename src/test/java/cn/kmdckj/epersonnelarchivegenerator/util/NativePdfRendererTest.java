@@ -0,0 +1,25 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 回退字体绘制: 字体无法编码的字符(如中文标题)替换为 '?',可以编码的文本原样绘制
+ */
+class NativePdfRendererTest {
+
+    @Test
+    void unencodableCharactersAreReplaced() {
+        assertEquals("???? (2020-2024)", NativePdfRenderer.encodable(PDType1Font.HELVETICA, "工作经历 (2020-2024)"));
+        assertEquals("?", NativePdfRenderer.encodable(PDType1Font.HELVETICA, new String(Character.toChars(0x20000))));
+    }
+
+    @Test
+    void encodableTextIsKept() {
+        String text = "Zhang San, 1990-01-01";
+        assertSame(text, NativePdfRenderer.encodable(PDType1Font.HELVETICA, text));
+    }
+}
@@ -0,0 +1,49 @@
+package cn.kmdckj.epersonnelarchivegenerator.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 缓冲区池按保留的总字节数限制,大缓冲区不回收,取出的缓冲区不再计入保留量
+ */
+class PdfBufferPoolTest {
+
+    private static final int MB = 1024 * 1024;
+
+    @Test
+    void retainedBytesStayWithinLimit() {
+        PdfBufferPool pool = new PdfBufferPool();
+        List<PdfBufferPool.Buffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            PdfBufferPool.Buffer buffer = pool.acquire();
+            buffer.write(new byte[3 * MB], 0, 3 * MB);
+            buffers.add(buffer);
+        }
+        buffers.forEach(PdfBufferPool.Buffer::close);
+
+        assertTrue(pool.getRetainedBytes() > 0);
+        assertTrue(pool.getRetainedBytes() <= PdfBufferPool.MAX_RETAINED_BYTES, "保留 " + pool.getRetainedBytes());
+
+        // 取出池中全部缓冲区后保留量归零
+        buffers.clear();
+        while (pool.getRetainedBytes() > 0) {
+            buffers.add(pool.acquire());
+        }
+        assertEquals(0, pool.getRetainedBytes());
+        assertTrue(buffers.size() <= PdfBufferPool.MAX_RETAINED_BYTES / (3 * MB));
+    }
+
+    @Test
+    void oversizedBuffersAreNotRetained() {
+        PdfBufferPool pool = new PdfBufferPool();
+        try (PdfBufferPool.Buffer buffer = pool.acquire()) {
+            buffer.write(new byte[6 * MB], 0, 6 * MB);
+        }
+        assertEquals(0, pool.getRetainedBytes());
+    }
+}